@@ -61,6 +61,20 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Adds the specified time to the counter of time spent by batch reports waiting in the queue before their
+   * processing started.
+   *
+   * @param waitingTime duration between submission and start of processing in ms
+   *
+   * @return the new time spent waiting in the queue
+   *
+   * @see #getWaitingTime()
+   *
+   * @throws IllegalArgumentException if waitingTime is < 0
+   */
+  long addWaitingTime(long waitingTime);
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -85,4 +99,9 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Time spent by batch reports waiting in the queue before being processed since startup, in milliseconds.
+   */
+  long getWaitingTime();
 }
@@ -21,6 +21,7 @@ package org.sonar.server.batch;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +47,7 @@ import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 public class IssuesAction implements BatchWsAction {
 
   private static final String PARAM_KEY = "key";
+  private static final String PARAM_CHANGED_SINCE = "changedSince";
 
   private final DbClient dbClient;
   private final IssueIndex issueIndex;
@@ -62,7 +64,7 @@ public class IssuesAction implements BatchWsAction {
   @Override
   public void define(WebService.NewController controller) {
     WebService.NewAction action = controller.createAction("issues")
-      .setDescription("Return open issues")
+      .setDescription("Return open issues, or the issues changed since a given date")
       .setResponseExample(getClass().getResource("issues-example.proto"))
       .setSince("5.1")
       .setInternal(true)
@@ -73,11 +75,19 @@ public class IssuesAction implements BatchWsAction {
       .setRequired(true)
       .setDescription("Project, module or file key")
       .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+
+    action
+      .createParam(PARAM_CHANGED_SINCE)
+      .setSince("6.2")
+      .setDescription("Only return the issues updated at or after this date (inclusive), including the closed ones. " +
+        "Either a date (server timezone) or datetime can be provided.")
+      .setExampleValue("2016-10-19T13:00:00+0200");
   }
 
   @Override
   public void handle(Request request, Response response) throws Exception {
     String componentKey = request.mandatoryParam(PARAM_KEY);
+    Date changedSince = request.paramAsDateTime(PARAM_CHANGED_SINCE);
     userSession.checkComponentPermission(USER, componentKey);
 
     response.stream().setMediaType(MediaTypes.PROTOBUF);
@@ -87,7 +97,7 @@ public class IssuesAction implements BatchWsAction {
       Map<String, String> keysByUUid = keysByUUid(session, component);
 
       ScannerInput.ServerIssue.Builder issueBuilder = ScannerInput.ServerIssue.newBuilder();
-      for (Iterator<IssueDoc> issueDocIterator = issueIndex.selectIssuesForBatch(component); issueDocIterator.hasNext();) {
+      for (Iterator<IssueDoc> issueDocIterator = issueIndex.selectIssuesForBatch(component, changedSince); issueDocIterator.hasNext();) {
         handleIssue(issueDocIterator.next(), issueBuilder, keysByUUid, response.stream().output());
       }
     } finally {
@@ -128,6 +138,10 @@ public class IssuesAction implements BatchWsAction {
       issueBuilder.setResolution(resolution);
     }
     issueBuilder.setCreationDate(issue.creationDate().getTime());
+    Date updateDate = issue.getTechnicalUpdateDate();
+    if (updateDate != null) {
+      issueBuilder.setUpdatedAt(updateDate.getTime());
+    }
     try {
       issueBuilder.build().writeDelimitedTo(out);
     } catch (IOException e) {
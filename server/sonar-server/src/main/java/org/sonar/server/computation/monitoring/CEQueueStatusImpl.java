@@ -34,6 +34,7 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  private final AtomicLong waitingTime = new AtomicLong(0);
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -58,6 +59,12 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     return success.incrementAndGet();
   }
 
+  @Override
+  public long addWaitingTime(long waitingTimeInMs) {
+    checkArgument(waitingTimeInMs >= 0, "Waiting time can not be < 0");
+    return waitingTime.addAndGet(waitingTimeInMs);
+  }
+
   private void addProcessingTime(long ms) {
     checkArgument(ms >= 0, "Processing time can not be < 0");
     processingTime.addAndGet(ms);
@@ -89,4 +96,9 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public long getWaitingTime() {
+    return waitingTime.get();
+  }
 }
@@ -40,4 +40,20 @@ public interface CeDatabaseMBean {
   boolean getPoolRemoveAbandoned();
 
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  long getPoolBorrowCount();
+
+  long getPoolBorrowFailureCount();
+
+  double getPoolAverageBorrowWaitMillis();
+
+  long getPoolMaxBorrowWaitMillis();
+
+  int getPoolWaitingThreads();
+
+  int getPoolPeakWaitingThreads();
+
+  long getPoolLeakedConnections();
+
+  long[] getPoolBorrowWaitHistogram();
 }
@@ -19,9 +19,12 @@
  */
 package org.sonar.server.computation.monitoring;
 
+import java.util.Optional;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.picocontainer.Startable;
 import org.sonar.db.DbClient;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
+import org.sonar.db.profiling.ProfiledDataSource;
 import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
@@ -91,10 +94,54 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     return commonsDbcp().getRemoveAbandonedTimeout();
   }
 
+  @Override
+  public long getPoolBorrowCount() {
+    return poolStatistics().map(ConnectionPoolStatistics::getBorrowCount).orElse(-1L);
+  }
+
+  @Override
+  public long getPoolBorrowFailureCount() {
+    return poolStatistics().map(ConnectionPoolStatistics::getFailureCount).orElse(-1L);
+  }
+
+  @Override
+  public double getPoolAverageBorrowWaitMillis() {
+    return poolStatistics().map(ConnectionPoolStatistics::getAverageWaitMillis).orElse(-1d);
+  }
+
+  @Override
+  public long getPoolMaxBorrowWaitMillis() {
+    return poolStatistics().map(ConnectionPoolStatistics::getMaxWaitMillis).orElse(-1L);
+  }
+
+  @Override
+  public int getPoolWaitingThreads() {
+    return poolStatistics().map(ConnectionPoolStatistics::getWaitingThreads).orElse(-1);
+  }
+
+  @Override
+  public int getPoolPeakWaitingThreads() {
+    return poolStatistics().map(ConnectionPoolStatistics::getPeakWaitingThreads).orElse(-1);
+  }
+
+  @Override
+  public long getPoolLeakedConnections() {
+    return poolStatistics().map(ConnectionPoolStatistics::getLeakCount).orElse(-1L);
+  }
+
+  @Override
+  public long[] getPoolBorrowWaitHistogram() {
+    return poolStatistics().map(ConnectionPoolStatistics::getWaitHistogram).orElse(new long[0]);
+  }
+
   private BasicDataSource commonsDbcp() {
     return (BasicDataSource) dbClient.getDatabase().getDataSource();
   }
 
+  private Optional<ConnectionPoolStatistics> poolStatistics() {
+    return ProfiledDataSource.poolStatisticsOf(dbClient.getDatabase().getDataSource());
+  }
+
   @Override
   public ProtobufSystemInfo.Section toProtobuf() {
     ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
@@ -108,6 +155,22 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     builder.addAttributesBuilder().setKey("Pool Max Wait (ms)").setLongValue(getPoolMaxWaitMillis()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned").setBooleanValue(getPoolRemoveAbandoned()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned Timeout (sec)").setLongValue(getPoolRemoveAbandonedTimeoutSeconds()).build();
+    poolStatistics().ifPresent(statistics -> completePoolStatisticsAttributes(builder, statistics));
     return builder.build();
   }
+
+  private static void completePoolStatisticsAttributes(ProtobufSystemInfo.Section.Builder builder, ConnectionPoolStatistics statistics) {
+    builder.addAttributesBuilder().setKey("Pool Borrowed Connections").setLongValue(statistics.getBorrowCount()).build();
+    builder.addAttributesBuilder().setKey("Pool Borrow Failures").setLongValue(statistics.getFailureCount()).build();
+    builder.addAttributesBuilder().setKey("Pool Average Borrow Wait (ms)").setDoubleValue(statistics.getAverageWaitMillis()).build();
+    builder.addAttributesBuilder().setKey("Pool Max Borrow Wait (ms)").setLongValue(statistics.getMaxWaitMillis()).build();
+    builder.addAttributesBuilder().setKey("Pool Waiting Threads").setLongValue(statistics.getWaitingThreads()).build();
+    builder.addAttributesBuilder().setKey("Pool Peak Waiting Threads").setLongValue(statistics.getPeakWaitingThreads()).build();
+    builder.addAttributesBuilder().setKey("Pool Leaked Connections").setLongValue(statistics.getLeakCount()).build();
+    String[] labels = ConnectionPoolStatistics.waitHistogramLabels();
+    long[] histogram = statistics.getWaitHistogram();
+    for (int i = 0; i < labels.length; i++) {
+      builder.addAttributesBuilder().setKey("Pool Borrow Wait " + labels[i]).setLongValue(histogram[i]).build();
+    }
+  }
 }
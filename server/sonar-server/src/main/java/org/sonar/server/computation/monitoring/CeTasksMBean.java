@@ -48,6 +48,11 @@ public interface CeTasksMBean {
    */
   long getProcessingTime();
 
+  /**
+   * Time spent by reports waiting in the queue before being processed since startup, in milliseconds.
+   */
+  long getWaitingTime();
+
   /**
    * Configured number of Workers.
    */
@@ -72,6 +72,7 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       if (dto.isPresent()) {
         task = loadTask(dbSession, dto.get());
         queueStatus.addInProgress();
+        updateWaitingTime(dto.get());
       }
       return Optional.fromNullable(task);
 
@@ -80,6 +81,13 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     }
   }
 
+  private void updateWaitingTime(CeQueueDto dto) {
+    Long startedAt = dto.getStartedAt();
+    if (startedAt != null) {
+      queueStatus.addWaitingTime(Math.max(0L, startedAt - dto.getCreatedAt()));
+    }
+  }
+
   @Override
   public int clear() {
     return cancelAll(true);
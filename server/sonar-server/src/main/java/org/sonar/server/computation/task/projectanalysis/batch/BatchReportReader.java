@@ -55,6 +55,12 @@ public interface BatchReportReader {
    */
   Optional<CloseableIterator<String>> readFileSource(int fileRef);
 
+  /**
+   * Hash of the report data the source of the file is computed from, or {@code null} if the scanner did not provide it.
+   */
+  @CheckForNull
+  String readSourceInputsHash(int fileRef);
+
   CloseableIterator<ScannerReport.Test> readTests(int testFileRef);
 
   CloseableIterator<ScannerReport.CoverageDetail> readCoverageDetails(int testFileRef);
@@ -23,7 +23,7 @@ import java.io.File;
 
 public interface MutableBatchReportDirectoryHolder extends BatchReportDirectoryHolder {
   /**
-   * Sets the File of the directory in the BatchReportDirectoryHolder. Settings a File more than once is allowed but it
+   * Sets the File of the directory, or of the zip file, in the BatchReportDirectoryHolder. Settings a File more than once is allowed but it
    * can never be set to {@code null}.
    *
    * @param newDirectory a {@link File}, can not be {@code null}
@@ -62,6 +62,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.LoadComponentUuid
 import org.sonar.server.computation.task.projectanalysis.issue.MovedIssueVisitor;
 import org.sonar.server.computation.task.projectanalysis.issue.NewEffortAggregator;
 import org.sonar.server.computation.task.projectanalysis.issue.NewEffortCalculator;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssueKeys;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTagsCopier;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTypeCopier;
@@ -184,6 +185,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       IssueLifecycle.class,
       ComponentsWithUnprocessedIssues.class,
       ComponentIssuesRepositoryImpl.class,
+      PersistedIssueKeys.class,
       IssueFilter.class,
 
       // common rules
@@ -24,13 +24,20 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.CheckForNull;
 import javax.annotation.concurrent.Immutable;
 import org.sonar.api.resources.Qualifiers;
@@ -50,6 +57,7 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity.File;
+import org.sonar.server.computation.task.projectanalysis.filemove.ScoreMatrix.ScoreFile;
 import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
@@ -66,6 +74,8 @@ public class FileMoveDetectionStep implements ComputationStep {
   private static final List<String> FILE_QUALIFIERS = asList(Qualifiers.FILE, Qualifiers.UNIT_TEST_FILE);
   private static final List<String> SORT_FIELDS = singletonList("name");
   private static final Splitter LINES_HASHES_SPLITTER = on('\n');
+  private static final int DB_FILES_CHUNK_SIZE = 100;
+  private static final String THREAD_NAME_PREFIX = "ce-file-move-";
 
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final TreeRootHolder rootHolder;
@@ -198,33 +208,63 @@ public class FileMoveDetectionStep implements ComputationStep {
     return builder.build();
   }
 
+  /**
+   * Removed files are loaded from db by chunks, in order to limit memory consumption. The files of a chunk
+   * are scored concurrently against all the added files. Pairs of files which can't reach
+   * {@link #MIN_REQUIRED_SCORE} according to their {@link LineHashesSignature} are not scored.
+   */
   private ScoreMatrix computeScoreMatrix(Map<String, DbComponent> dtosByKey, Set<String> dbFileKeys, Map<String, File> reportFileSourcesByKey) {
-    int[][] scoreMatrix = new int[dbFileKeys.size()][reportFileSourcesByKey.size()];
-    int maxScore = 0;
+    Map<String, Integer> idsByLineHash = new HashMap<>();
+    List<ReportFile> reportFiles = new ArrayList<>(reportFileSourcesByKey.size());
+    for (Map.Entry<String, File> entry : reportFileSourcesByKey.entrySet()) {
+      File file = entry.getValue();
+      reportFiles.add(new ReportFile(entry.getKey(), file, LineHashesSignature.register(file.getLineHashes(), idsByLineHash)));
+    }
 
+    List<ScoreFile> scores = new ArrayList<>();
+    int maxScore = 0;
+    ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .build());
     try (DbSession dbSession = dbClient.openSession(false)) {
-      int dbFileIndex = 0;
-      for (String removedFileKey : dbFileKeys) {
-        File fileInDb = getFile(dbSession, dtosByKey.get(removedFileKey));
-        if (fileInDb == null) {
-          continue;
+      for (List<String> chunk : Iterables.partition(dbFileKeys, DB_FILES_CHUNK_SIZE)) {
+        List<Future<List<ScoreFile>>> futures = new ArrayList<>(chunk.size());
+        for (String removedFileKey : chunk) {
+          File fileInDb = getFile(dbSession, dtosByKey.get(removedFileKey));
+          if (fileInDb != null) {
+            LineHashesSignature signature = LineHashesSignature.lookup(fileInDb.getLineHashes(), idsByLineHash);
+            futures.add(executorService.submit(() -> score(removedFileKey, fileInDb, signature, reportFiles)));
+          }
         }
-
-        int reportFileIndex = 0;
-        for (Map.Entry<String, File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-          File unmatchedFile = reportFileSourceAndKey.getValue();
-          int score = fileSimilarity.score(fileInDb, unmatchedFile);
-          scoreMatrix[dbFileIndex][reportFileIndex] = score;
-          if (score > maxScore) {
-            maxScore = score;
+        for (Future<List<ScoreFile>> future : futures) {
+          for (ScoreFile score : Futures.getUnchecked(future)) {
+            scores.add(score);
+            maxScore = Math.max(maxScore, score.getScore());
           }
-          reportFileIndex++;
         }
-        dbFileIndex++;
       }
+    } finally {
+      executorService.shutdownNow();
     }
 
-    return new ScoreMatrix(dbFileKeys, reportFileSourcesByKey, scoreMatrix, maxScore);
+    return new ScoreMatrix(scores, maxScore);
+  }
+
+  /**
+   * @return the scores of the pairs of files which are candidates for a match
+   */
+  private List<ScoreFile> score(String dbFileKey, File dbFile, LineHashesSignature dbFileSignature, List<ReportFile> reportFiles) {
+    List<ScoreFile> res = new ArrayList<>();
+    for (ReportFile reportFile : reportFiles) {
+      if (dbFileSignature.canReachScore(reportFile.signature, MIN_REQUIRED_SCORE)) {
+        int score = fileSimilarity.score(dbFile, reportFile.file);
+        if (score >= MIN_REQUIRED_SCORE) {
+          res.add(new ScoreFile(dbFileKey, reportFile.key, score));
+        }
+      }
+    }
+    return res;
   }
 
   @CheckForNull
@@ -284,6 +324,19 @@ public class FileMoveDetectionStep implements ComputationStep {
     return new MovedFilesRepository.OriginalFile(dbComponent.getId(), dbComponent.getUuid(), dbComponent.getKey());
   }
 
+  @Immutable
+  private static final class ReportFile {
+    private final String key;
+    private final File file;
+    private final LineHashesSignature signature;
+
+    private ReportFile(String key, File file, LineHashesSignature signature) {
+      this.key = key;
+      this.file = file;
+      this.signature = signature;
+    }
+  }
+
   @Immutable
   private static final class DbComponent {
     private final long id;
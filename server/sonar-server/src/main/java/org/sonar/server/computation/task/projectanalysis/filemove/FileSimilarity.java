@@ -53,5 +53,10 @@ public interface FileSimilarity {
     }
   }
 
+  /**
+   * Score between 0 and 100. It must not be greater than the ratio of line hashes shared by both files, as
+   * {@link FileMoveDetectionStep} does not score the pairs of files which can't reach the minimum score
+   * (see {@link LineHashesSignature}).
+   */
   int score(File file1, File file2);
 }
@@ -0,0 +1,125 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Line hashes of a file, converted to sorted int ids. It allows to compute cheaply an upper bound
+ * of the score returned by {@link SourceSimilarityImpl}: the Levenshtein distance between two files can not be
+ * lower than the number of lines of the biggest file minus the number of lines shared by both files.
+ */
+@Immutable
+final class LineHashesSignature {
+
+  private static final LineHashesSignature EMPTY = new LineHashesSignature(new int[0], 0);
+
+  private final int[] sortedIds;
+  private final int lineCount;
+
+  private LineHashesSignature(int[] sortedIds, int lineCount) {
+    this.sortedIds = sortedIds;
+    this.lineCount = lineCount;
+  }
+
+  /**
+   * Line hashes are registered into {@code idsByLineHash}.
+   */
+  static LineHashesSignature register(@Nullable List<String> lineHashes, Map<String, Integer> idsByLineHash) {
+    if (lineHashes == null) {
+      return EMPTY;
+    }
+    int[] ids = new int[lineHashes.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = idsByLineHash.computeIfAbsent(lineHashes.get(i), h -> idsByLineHash.size());
+    }
+    Arrays.sort(ids);
+    return new LineHashesSignature(ids, ids.length);
+  }
+
+  /**
+   * Line hashes which are not in {@code idsByLineHash} are ignored, as they can't be shared
+   * with registered files.
+   */
+  static LineHashesSignature lookup(@Nullable List<String> lineHashes, Map<String, Integer> idsByLineHash) {
+    if (lineHashes == null) {
+      return EMPTY;
+    }
+    int[] ids = new int[lineHashes.size()];
+    int count = 0;
+    for (String lineHash : lineHashes) {
+      Integer id = idsByLineHash.get(lineHash);
+      if (id != null) {
+        ids[count] = id;
+        count++;
+      }
+    }
+    int[] sortedIds = Arrays.copyOf(ids, count);
+    Arrays.sort(sortedIds);
+    return new LineHashesSignature(sortedIds, lineHashes.size());
+  }
+
+  /**
+   * @return false if the similarity score of the two files is guaranteed to be lower than {@code minScore}
+   */
+  boolean canReachScore(LineHashesSignature other, int minScore) {
+    int maxLines = Math.max(lineCount, other.lineCount);
+    if (maxLines == 0) {
+      return false;
+    }
+    // size band: files with very different sizes can not be similar
+    int minLines = Math.min(lineCount, other.lineCount);
+    if (scoreOf(maxLines - minLines, maxLines) < minScore) {
+      return false;
+    }
+    return scoreOf(maxLines - countCommonLines(other), maxLines) >= minScore;
+  }
+
+  private int countCommonLines(LineHashesSignature other) {
+    int common = 0;
+    int i = 0;
+    int j = 0;
+    while (i < sortedIds.length && j < other.sortedIds.length) {
+      int left = sortedIds[i];
+      int right = other.sortedIds[j];
+      if (left == right) {
+        common++;
+        i++;
+        j++;
+      } else if (left < right) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return common;
+  }
+
+  /**
+   * Same formula as {@link SourceSimilarityImpl#score(List, List)}
+   */
+  private static int scoreOf(int distance, int maxLines) {
+    return (int) (100 * (1.0 - ((double) distance) / maxLines));
+  }
+}
@@ -0,0 +1,449 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.issue.IssueComment;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.DiskCacheCodec;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact binary encoding of {@link DefaultIssue} used by {@link IssueCache}, which is much faster
+ * and smaller than Java serialization.
+ * <p>
+ * The instance of {@link DefaultIssue#currentChange()} is shared with {@link DefaultIssue#changes()}. This
+ * identity is kept by encoding the references to the current change as an index.
+ * </p>
+ */
+public class DefaultIssueCodec implements DiskCacheCodec<DefaultIssue> {
+
+  private static final int CURRENT_CHANGE_REF = -1;
+
+  private static final byte NULL_VALUE = 0;
+  private static final byte STRING_VALUE = 1;
+  private static final byte LONG_VALUE = 2;
+  private static final byte INTEGER_VALUE = 3;
+  private static final byte DOUBLE_VALUE = 4;
+  private static final byte SERIALIZED_VALUE = 5;
+  private static final byte PROTOBUF_VALUE = 6;
+
+  @Override
+  public void encode(DefaultIssue issue, DataOutput output) throws IOException {
+    writeString(output, issue.key());
+    output.writeInt(issue.type() == null ? -1 : issue.type().ordinal());
+    writeString(output, issue.componentUuid());
+    writeString(output, issue.componentKey());
+    writeString(output, issue.moduleUuid());
+    writeString(output, issue.moduleUuidPath());
+    writeString(output, issue.projectUuid());
+    writeString(output, issue.projectKey());
+    writeString(output, issue.ruleKey() == null ? null : issue.ruleKey().toString());
+    writeString(output, issue.language());
+    writeString(output, issue.severity());
+    output.writeBoolean(issue.manualSeverity());
+    writeString(output, issue.message());
+    output.writeInt(issue.line() == null ? 0 : issue.line());
+    writeNullableDouble(output, issue.gap());
+    writeNullableLong(output, issue.effortInMinutes());
+    writeString(output, issue.status());
+    writeString(output, issue.resolution());
+    writeString(output, issue.assignee());
+    writeString(output, issue.checksum());
+    writeStringMap(output, issue.attributes());
+    writeString(output, issue.authorLogin());
+    writeComments(output, issue.comments());
+    writeTags(output, issue.tags());
+    writeLocations(output, issue.getLocations());
+    writeDate(output, issue.creationDate());
+    writeDate(output, issue.updateDate());
+    writeDate(output, issue.closeDate());
+    writeChanges(output, issue.currentChange(), issue.changes());
+    output.writeBoolean(issue.isNew());
+    output.writeBoolean(issue.isBeingClosed());
+    output.writeBoolean(issue.isOnDisabledRule());
+    output.writeBoolean(issue.isChanged());
+    output.writeBoolean(issue.mustSendNotifications());
+    writeNullableLong(output, issue.selectedAt());
+  }
+
+  @Override
+  public DefaultIssue decode(DataInput input) throws IOException {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(readString(input));
+    int typeOrdinal = input.readInt();
+    if (typeOrdinal >= 0) {
+      issue.setType(RuleType.values()[typeOrdinal]);
+    }
+    issue.setComponentUuid(readString(input));
+    issue.setComponentKey(readString(input));
+    issue.setModuleUuid(readString(input));
+    issue.setModuleUuidPath(readString(input));
+    issue.setProjectUuid(readString(input));
+    issue.setProjectKey(readString(input));
+    String ruleKey = readString(input);
+    if (ruleKey != null) {
+      issue.setRuleKey(RuleKey.parse(ruleKey));
+    }
+    issue.setLanguage(readString(input));
+    issue.setSeverity(readString(input));
+    issue.setManualSeverity(input.readBoolean());
+    issue.setMessage(readString(input));
+    int line = input.readInt();
+    issue.setLine(line == 0 ? null : line);
+    issue.setGap(readNullableDouble(input));
+    Long effort = readNullableLong(input);
+    issue.setEffort(effort == null ? null : Duration.create(effort));
+    String status = readString(input);
+    if (status != null) {
+      issue.setStatus(status);
+    }
+    issue.setResolution(readString(input));
+    issue.setAssignee(readString(input));
+    issue.setChecksum(readString(input));
+    issue.setAttributes(readStringMap(input));
+    issue.setAuthorLogin(readString(input));
+    readComments(input, issue);
+    Set<String> tags = readTags(input);
+    if (tags != null) {
+      issue.setTags(tags);
+    }
+    issue.setLocations(readLocations(input));
+    issue.setCreationDate(readDate(input));
+    issue.setUpdateDate(readDate(input));
+    issue.setCloseDate(readDate(input));
+    readChanges(input, issue);
+    issue.setNew(input.readBoolean());
+    issue.setBeingClosed(input.readBoolean());
+    issue.setOnDisabledRule(input.readBoolean());
+    issue.setChanged(input.readBoolean());
+    issue.setSendNotifications(input.readBoolean());
+    issue.setSelectedAt(readNullableLong(input));
+    return issue;
+  }
+
+  private static void writeComments(DataOutput output, List<IssueComment> comments) throws IOException {
+    output.writeInt(comments.size());
+    for (IssueComment comment : comments) {
+      DefaultIssueComment defaultComment = (DefaultIssueComment) comment;
+      writeString(output, defaultComment.issueKey());
+      writeString(output, defaultComment.userLogin());
+      writeDate(output, defaultComment.createdAt());
+      writeDate(output, defaultComment.updatedAt());
+      writeString(output, defaultComment.key());
+      writeString(output, defaultComment.markdownText());
+      output.writeBoolean(defaultComment.isNew());
+    }
+  }
+
+  private static void readComments(DataInput input, DefaultIssue issue) throws IOException {
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      DefaultIssueComment comment = new DefaultIssueComment()
+        .setIssueKey(readString(input))
+        .setUserLogin(readString(input))
+        .setCreatedAt(readDate(input))
+        .setUpdatedAt(readDate(input))
+        .setKey(readString(input))
+        .setMarkdownText(readString(input))
+        .setNew(input.readBoolean());
+      issue.addComment(comment);
+    }
+  }
+
+  private static void writeTags(DataOutput output, Set<String> tags) throws IOException {
+    output.writeInt(tags.size());
+    for (String tag : tags) {
+      output.writeUTF(tag);
+    }
+  }
+
+  @CheckForNull
+  private static Set<String> readTags(DataInput input) throws IOException {
+    int size = input.readInt();
+    if (size == 0) {
+      return null;
+    }
+    Set<String> tags = new LinkedHashSet<>(size);
+    for (int i = 0; i < size; i++) {
+      tags.add(input.readUTF());
+    }
+    return tags;
+  }
+
+  private static void writeLocations(DataOutput output, @Nullable Object locations) throws IOException {
+    if (locations == null) {
+      output.writeByte(NULL_VALUE);
+    } else if (locations instanceof DbIssues.Locations) {
+      output.writeByte(PROTOBUF_VALUE);
+      writeBytes(output, ((DbIssues.Locations) locations).toByteArray());
+    } else {
+      output.writeByte(SERIALIZED_VALUE);
+      writeSerializable(output, (Serializable) locations);
+    }
+  }
+
+  @CheckForNull
+  private static Object readLocations(DataInput input) throws IOException {
+    byte type = input.readByte();
+    if (type == NULL_VALUE) {
+      return null;
+    }
+    if (type == PROTOBUF_VALUE) {
+      return DbIssues.Locations.parseFrom(readBytes(input));
+    }
+    return readSerializable(input);
+  }
+
+  private static void writeChanges(DataOutput output, @Nullable FieldDiffs currentChange, List<FieldDiffs> changes) throws IOException {
+    output.writeBoolean(currentChange != null);
+    if (currentChange != null) {
+      writeFieldDiffs(output, currentChange);
+    }
+    output.writeInt(changes.size());
+    for (FieldDiffs change : changes) {
+      if (change == currentChange) {
+        output.writeInt(CURRENT_CHANGE_REF);
+      } else {
+        output.writeInt(0);
+        writeFieldDiffs(output, change);
+      }
+    }
+  }
+
+  private static void readChanges(DataInput input, DefaultIssue issue) throws IOException {
+    FieldDiffs currentChange = null;
+    if (input.readBoolean()) {
+      currentChange = readFieldDiffs(input);
+      issue.setCurrentChange(currentChange);
+    }
+    int size = input.readInt();
+    if (size == 0) {
+      return;
+    }
+    List<FieldDiffs> changes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      if (input.readInt() == CURRENT_CHANGE_REF) {
+        changes.add(currentChange);
+      } else {
+        changes.add(readFieldDiffs(input));
+      }
+    }
+    issue.setChanges(changes);
+  }
+
+  private static void writeFieldDiffs(DataOutput output, FieldDiffs fieldDiffs) throws IOException {
+    writeString(output, fieldDiffs.issueKey());
+    writeString(output, fieldDiffs.userLogin());
+    writeDate(output, fieldDiffs.creationDate());
+    Map<String, FieldDiffs.Diff> diffs = fieldDiffs.diffs();
+    output.writeInt(diffs.size());
+    for (Map.Entry<String, FieldDiffs.Diff> entry : diffs.entrySet()) {
+      output.writeUTF(entry.getKey());
+      writeDiffValue(output, entry.getValue().oldValue());
+      writeDiffValue(output, entry.getValue().newValue());
+    }
+  }
+
+  private static FieldDiffs readFieldDiffs(DataInput input) throws IOException {
+    FieldDiffs fieldDiffs = new FieldDiffs()
+      .setIssueKey(readString(input))
+      .setUserLogin(readString(input))
+      .setCreationDate(readDate(input));
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      String field = input.readUTF();
+      Serializable oldValue = readDiffValue(input);
+      Serializable newValue = readDiffValue(input);
+      fieldDiffs.setDiff(field, oldValue, newValue);
+    }
+    return fieldDiffs;
+  }
+
+  private static void writeDiffValue(DataOutput output, @Nullable Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(NULL_VALUE);
+    } else if (value instanceof String) {
+      output.writeByte(STRING_VALUE);
+      writeBytes(output, ((String) value).getBytes(UTF_8));
+    } else if (value instanceof Long) {
+      output.writeByte(LONG_VALUE);
+      output.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(INTEGER_VALUE);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE_VALUE);
+      output.writeDouble((Double) value);
+    } else {
+      output.writeByte(SERIALIZED_VALUE);
+      writeSerializable(output, (Serializable) value);
+    }
+  }
+
+  @CheckForNull
+  private static Serializable readDiffValue(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case NULL_VALUE:
+        return null;
+      case STRING_VALUE:
+        return new String(readBytes(input), UTF_8);
+      case LONG_VALUE:
+        return input.readLong();
+      case INTEGER_VALUE:
+        return input.readInt();
+      case DOUBLE_VALUE:
+        return input.readDouble();
+      case SERIALIZED_VALUE:
+        return readSerializable(input);
+      default:
+        throw new IllegalStateException("Unsupported type of value: " + type);
+    }
+  }
+
+  private static void writeStringMap(DataOutput output, Map<String, String> map) throws IOException {
+    output.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      writeString(output, entry.getKey());
+      writeString(output, entry.getValue());
+    }
+  }
+
+  @CheckForNull
+  private static Map<String, String> readStringMap(DataInput input) throws IOException {
+    int size = input.readInt();
+    if (size == 0) {
+      return null;
+    }
+    Map<String, String> map = new HashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      map.put(readString(input), readString(input));
+    }
+    return map;
+  }
+
+  /**
+   * Strings are not written with {@link DataOutput#writeUTF(String)} as they can be longer than 64Kb
+   * (messages, comments).
+   */
+  private static void writeString(DataOutput output, @Nullable String s) throws IOException {
+    if (s == null) {
+      output.writeInt(-1);
+    } else {
+      writeBytes(output, s.getBytes(UTF_8));
+    }
+  }
+
+  @CheckForNull
+  private static String readString(DataInput input) throws IOException {
+    byte[] bytes = readBytes(input);
+    return bytes == null ? null : new String(bytes, UTF_8);
+  }
+
+  private static void writeBytes(DataOutput output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  @CheckForNull
+  private static byte[] readBytes(DataInput input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private static void writeDate(DataOutput output, @Nullable Date date) throws IOException {
+    writeNullableLong(output, date == null ? null : date.getTime());
+  }
+
+  @CheckForNull
+  private static Date readDate(DataInput input) throws IOException {
+    Long time = readNullableLong(input);
+    return time == null ? null : new Date(time);
+  }
+
+  private static void writeNullableLong(DataOutput output, @Nullable Long l) throws IOException {
+    output.writeBoolean(l != null);
+    if (l != null) {
+      output.writeLong(l);
+    }
+  }
+
+  @CheckForNull
+  private static Long readNullableLong(DataInput input) throws IOException {
+    return input.readBoolean() ? input.readLong() : null;
+  }
+
+  private static void writeNullableDouble(DataOutput output, @Nullable Double d) throws IOException {
+    output.writeBoolean(d != null);
+    if (d != null) {
+      output.writeDouble(d);
+    }
+  }
+
+  @CheckForNull
+  private static Double readNullableDouble(DataInput input) throws IOException {
+    return input.readBoolean() ? input.readDouble() : null;
+  }
+
+  private static void writeSerializable(DataOutput output, Serializable value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+      objectOutput.writeObject(value);
+    }
+    writeBytes(output, bytes.toByteArray());
+  }
+
+  private static Serializable readSerializable(DataInput input) throws IOException {
+    try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+      return (Serializable) objectInput.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to deserialize value", e);
+    }
+  }
+}
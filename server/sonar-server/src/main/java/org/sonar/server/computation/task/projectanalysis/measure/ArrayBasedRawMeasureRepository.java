@@ -0,0 +1,225 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of MeasureRepository which supports only raw measures and which stores them in columns: one array
+ * per metric, indexed by a positive integer identifying the component (its ref in the report).
+ * <p>
+ * Compared to {@link MapBasedRawMeasureRepository}, neither map entries nor {@link MeasureKey} are created for each
+ * measure. Measures of developers are rare (Developer Cockpit only) and are delegated to a {@link MapBasedRawMeasureRepository}.
+ * </p>
+ *
+ * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
+ */
+public final class ArrayBasedRawMeasureRepository implements MeasureRepository {
+  private static final int INITIAL_CAPACITY = 128;
+
+  private final Function<Component, Integer> componentToIndex;
+  private final Map<String, Measure[]> measuresByMetricKey = new HashMap<>();
+  private final MapBasedRawMeasureRepository<Integer> developerMeasures;
+  private long measureCount = 0;
+
+  public ArrayBasedRawMeasureRepository(Function<Component, Integer> componentToIndex) {
+    this.componentToIndex = requireNonNull(componentToIndex);
+    this.developerMeasures = new MapBasedRawMeasureRepository<>(componentToIndex);
+  }
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    return Optional.fromNullable(find(indexOf(component), metric.getKey()));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    checkValueTypeConsistency(metric, measure);
+
+    if (measure.getDeveloper() != null) {
+      developerMeasures.add(component, metric, measure);
+      return;
+    }
+    if (find(indexOf(component), metric.getKey()) != null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    checkValueTypeConsistency(metric, measure);
+
+    if (measure.getDeveloper() != null) {
+      developerMeasures.update(component, metric, measure);
+      return;
+    }
+    if (find(indexOf(component), metric.getKey()) == null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+
+    Measure measure = find(indexOf(component), metric.getKey());
+    Set<Measure> devMeasures = developerMeasures.getRawMeasures(component, metric);
+    if (measure == null) {
+      return devMeasures;
+    }
+    return ImmutableSet.<Measure>builder().add(measure).addAll(devMeasures).build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int index = indexOf(component);
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    for (Map.Entry<String, Measure[]> entry : measuresByMetricKey.entrySet()) {
+      Measure[] measures = entry.getValue();
+      if (index < measures.length && measures[index] != null) {
+        builder.put(entry.getKey(), measures[index]);
+      }
+    }
+    builder.putAll(developerMeasures.getRawMeasures(component));
+    return builder.build();
+  }
+
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    if (measure.getDeveloper() != null) {
+      developerMeasures.add(component, metric, measure, overridePolicy);
+      return;
+    }
+    int index = indexOf(component);
+    Measure[] measures = ensureCapacity(metric.getKey(), index);
+    if (measures[index] == null) {
+      measureCount++;
+      measures[index] = measure;
+    } else if (overridePolicy == OverridePolicy.OVERRIDE) {
+      measures[index] = measure;
+    }
+  }
+
+  /**
+   * Number of measures of components (developer measures excluded)
+   */
+  public long getMeasureCount() {
+    return measureCount;
+  }
+
+  /**
+   * Number of metrics having at least one measure (developer measures excluded)
+   */
+  public int getMetricCount() {
+    return measuresByMetricKey.size();
+  }
+
+  /**
+   * Total length of the arrays holding the measures, including the empty slots
+   */
+  public long getAllocatedSlotCount() {
+    long slots = 0;
+    for (Measure[] measures : measuresByMetricKey.values()) {
+      slots += measures.length;
+    }
+    return slots;
+  }
+
+  private int indexOf(Component component) {
+    int index = componentToIndex.apply(component);
+    checkArgument(index >= 0, "Index of component %s must be positive (got %s)", component.getKey(), index);
+    return index;
+  }
+
+  @CheckForNull
+  private Measure find(int index, String metricKey) {
+    Measure[] measures = measuresByMetricKey.get(metricKey);
+    if (measures == null || index >= measures.length) {
+      return null;
+    }
+    return measures[index];
+  }
+
+  private Measure[] ensureCapacity(String metricKey, int index) {
+    Measure[] measures = measuresByMetricKey.get(metricKey);
+    if (measures == null) {
+      measures = new Measure[Math.max(INITIAL_CAPACITY, index + 1)];
+      measuresByMetricKey.put(metricKey, measures);
+    } else if (index >= measures.length) {
+      measures = Arrays.copyOf(measures, Math.max(index + 1, measures.length + (measures.length >> 1)));
+      measuresByMetricKey.put(metricKey, measures);
+    }
+    return measures;
+  }
+}
@@ -21,8 +21,11 @@ package org.sonar.server.computation.task.projectanalysis.measure;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.SetMultimap;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.Set;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -39,8 +42,12 @@ import org.sonar.server.computation.task.projectanalysis.metric.ReportMetricVali
 import static java.util.Objects.requireNonNull;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
 
-public class MeasureRepositoryImpl implements MeasureRepository {
-  private final MapBasedRawMeasureRepository<Integer> delegate = new MapBasedRawMeasureRepository<>(toReportRef());
+public class MeasureRepositoryImpl implements MeasureRepository, Startable {
+  private static final Logger LOGGER = Loggers.get(MeasureRepositoryImpl.class);
+  // estimated retained size of a Measure object, in bytes
+  private static final int MEASURE_SIZE = 64;
+
+  private final ArrayBasedRawMeasureRepository delegate = new ArrayBasedRawMeasureRepository(toReportRef());
   private final DbClient dbClient;
   private final BatchReportReader reportReader;
   private final BatchMeasureToMeasure batchMeasureToMeasure;
@@ -48,7 +55,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
   private final ReportMetricValidator reportMetricValidator;
 
   private MeasureDtoToMeasure underTest = new MeasureDtoToMeasure();
-  private final Set<Integer> loadedComponents = new HashSet<>();
+  private final BitSet loadedComponents = new BitSet();
 
   public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository, ReportMetricValidator reportMetricValidator) {
     this.dbClient = dbClient;
@@ -58,6 +65,21 @@ public class MeasureRepositoryImpl implements MeasureRepository {
     this.metricRepository = metricRepository;
   }
 
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    if (LOGGER.isDebugEnabled()) {
+      long slots = delegate.getAllocatedSlotCount();
+      long measures = delegate.getMeasureCount();
+      LOGGER.debug("Raw measures: {} measures of {} metrics, {} slots allocated (about {} KB)",
+        measures, delegate.getMetricCount(), slots, (slots * 4 + measures * MEASURE_SIZE) / 1024);
+    }
+  }
+
   @Override
   public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
     // fail fast
@@ -109,7 +131,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
   }
 
   private void loadBatchMeasuresForComponent(Component component) {
-    if (loadedComponents.contains(component.getReportAttributes().getRef())) {
+    if (loadedComponents.get(component.getReportAttributes().getRef())) {
       return;
     }
 
@@ -123,7 +145,7 @@ public class MeasureRepositoryImpl implements MeasureRepository {
         }
       }
     }
-    loadedComponents.add(component.getReportAttributes().getRef());
+    loadedComponents.set(component.getReportAttributes().getRef());
   }
 
 }
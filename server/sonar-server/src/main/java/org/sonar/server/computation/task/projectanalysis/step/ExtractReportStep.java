@@ -19,14 +19,13 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
+import org.apache.commons.io.FileUtils;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -35,8 +34,9 @@ import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchRepor
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
- * Extracts the content zip file of the {@link CeTask} to a temp directory and adds a {@link File}
- * representing that temp directory to the {@link MutableBatchReportDirectoryHolder}.
+ * Copies the zip file of the {@link CeTask} from database to a temp file and adds this {@link File}
+ * to the {@link MutableBatchReportDirectoryHolder}. The zip is not extracted: report files are read
+ * directly from it when needed.
  */
 public class ExtractReportStep implements ComputationStep {
 
@@ -58,14 +58,14 @@ public class ExtractReportStep implements ComputationStep {
     try (DbSession dbSession = dbClient.openSession(false)) {
       Optional<CeTaskInputDao.DataStream> opt = dbClient.ceTaskInputDao().selectData(dbSession, task.getUuid());
       if (opt.isPresent()) {
-        File unzippedDir = tempFolder.newDir();
+        File reportZip = tempFolder.newFile("report", ".zip");
         try (CeTaskInputDao.DataStream reportStream = opt.get();
-             InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
-          ZipUtils.unzip(zipStream, unzippedDir);
+             InputStream zipStream = reportStream.getInputStream()) {
+          FileUtils.copyInputStreamToFile(zipStream, reportZip);
         } catch (IOException e) {
-          throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
+          throw new IllegalStateException("Fail to copy report " + task.getUuid() + " from database", e);
         }
-        reportDirectoryHolder.setDirectory(unzippedDir);
+        reportDirectoryHolder.setDirectory(reportZip);
       } else {
         throw MessageException.of("Analysis report " + task.getUuid() + " is missing in database");
       }
@@ -19,23 +19,27 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
-import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssueKeys;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 import org.sonar.server.issue.index.IssueIndexer;
 
-public class IndexIssuesStep implements ComputationStep {
+/**
+ * Indexes only the issues inserted or updated by {@link PersistIssuesStep}, so that
+ * duration depends on the number of changes, not on the size of project.
+ */
+public class IndexIssuesStep implements ConcurrentComputationStep {
 
   private final IssueIndexer indexer;
-  private final TreeRootHolder treeRootHolder;
+  private final PersistedIssueKeys persistedIssueKeys;
 
-  public IndexIssuesStep(IssueIndexer indexer, TreeRootHolder treeRootHolder) {
+  public IndexIssuesStep(IssueIndexer indexer, PersistedIssueKeys persistedIssueKeys) {
     this.indexer = indexer;
-    this.treeRootHolder = treeRootHolder;
+    this.persistedIssueKeys = persistedIssueKeys;
   }
 
   @Override
   public void execute() {
-    indexer.index(treeRootHolder.getRoot().getUuid());
+    indexer.indexByKeys(persistedIssueKeys.getKeys());
   }
 
   @Override
@@ -20,10 +20,10 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 import org.sonar.server.component.es.ProjectMeasuresIndexer;
 
-public class IndexProjectMeasuresStep implements ComputationStep {
+public class IndexProjectMeasuresStep implements ConcurrentComputationStep {
 
   private final ProjectMeasuresIndexer indexer;
   private final TreeRootHolder treeRootHolder;
@@ -20,10 +20,10 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 import org.sonar.server.test.index.TestIndexer;
 
-public class IndexTestsStep implements ComputationStep {
+public class IndexTestsStep implements ConcurrentComputationStep {
 
   private final TestIndexer indexer;
   private final TreeRootHolder treeRootHolder;
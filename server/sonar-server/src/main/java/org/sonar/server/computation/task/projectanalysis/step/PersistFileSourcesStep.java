@@ -20,11 +20,19 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -46,6 +54,8 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
+import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
 import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepository;
 import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
@@ -63,8 +73,23 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
+/**
+ * Sources of files are computed, encoded and compressed by a pool of threads, while the rows are written
+ * to database by the thread executing the step, in the order of the component tree. The number of files
+ * being computed and the size of the rows waiting for a commit are bounded to limit memory usage.
+ * <p/>
+ * Files whose report data is unchanged since the previous analysis, according to the hash provided by the scanner,
+ * are neither read nor computed. As cross project duplications are not part of this hash, files are always
+ * computed when they are enabled.
+ */
 public class PersistFileSourcesStep implements ComputationStep {
 
+  // number of files whose sources can be computed ahead of the file being persisted, per thread
+  private static final int PENDING_FILES_PER_THREAD = 4;
+  // rows are sent by batches, and data of a batch is kept in memory until it's committed
+  private static final int MAX_ROWS_PER_COMMIT = 100;
+  private static final long MAX_BYTES_PER_COMMIT = 8L * 1024 * 1024;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final TreeRootHolder treeRootHolder;
@@ -72,9 +97,10 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
+  private final CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
-    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -82,16 +108,22 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.sourceLinesRepository = sourceLinesRepository;
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
+    this.crossProjectDuplicationStatusHolder = crossProjectDuplicationStatusHolder;
   }
 
   @Override
   public void execute() {
-    // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
-    DbSession session = dbClient.openSession(false);
+    int threads = Runtime.getRuntime().availableProcessors();
+    ExecutorService executorService = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("persist-sources-%d").setDaemon(true).build());
+    DbSession session = dbClient.openSession(true);
     try {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(session))
+      FileSourceVisitor visitor = new FileSourceVisitor(session, executorService, threads * PENDING_FILES_PER_THREAD, crossProjectDuplicationStatusHolder.isEnabled());
+      new DepthTraversalTypeAwareCrawler(visitor)
         .visit(treeRootHolder.getRoot());
+      visitor.finish();
     } finally {
+      executorService.shutdownNow();
       MyBatis.closeQuietly(session);
     }
   }
@@ -99,13 +131,22 @@ public class PersistFileSourcesStep implements ComputationStep {
   private class FileSourceVisitor extends TypeAwareVisitorAdapter {
 
     private final DbSession session;
+    private final ExecutorService executorService;
+    private final int maxPendingFiles;
+    private final boolean crossProjectDuplicationEnabled;
+    private final Deque<PendingFile> pendingFiles = new ArrayDeque<>();
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
     private String projectUuid;
+    private int uncommittedRows = 0;
+    private long uncommittedBytes = 0L;
 
-    private FileSourceVisitor(DbSession session) {
+    private FileSourceVisitor(DbSession session, ExecutorService executorService, int maxPendingFiles, boolean crossProjectDuplicationEnabled) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
       this.session = session;
+      this.executorService = executorService;
+      this.maxPendingFiles = maxPendingFiles;
+      this.crossProjectDuplicationEnabled = crossProjectDuplicationEnabled;
     }
 
     @Override
@@ -123,29 +164,54 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     @Override
     public void visitFile(Component file) {
-      int fileRef = file.getReportAttributes().getRef();
-      ScannerReport.Component component = reportReader.readComponent(fileRef);
-      CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
-      LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file);
-      try {
-        ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), component.getLines());
-        ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
-      } catch (Exception e) {
-        throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
-      } finally {
-        linesIterator.close();
-        lineReaders.close();
+      String inputsHash = crossProjectDuplicationEnabled ? null : reportReader.readSourceInputsHash(file.getReportAttributes().getRef());
+      FileSourceDto previousDto = previousFileSourcesByUuid.get(file.getUuid());
+      if (inputsHash != null && previousDto != null && inputsHash.equals(previousDto.getInputsHash())) {
+        // data has already been computed from the same report data
+        return;
+      }
+      // repositories are not thread-safe, they are read before submitting the computation
+      Optional<ScmInfo> scmInfo = scmInfoRepository.getScmInfo(file);
+      Iterable<Duplication> duplications = duplicationRepository.getDuplications(file);
+      pendingFiles.add(new PendingFile(file, inputsHash, executorService.submit(() -> computeSource(file, scmInfo, duplications))));
+      if (pendingFiles.size() >= maxPendingFiles) {
+        persistSource(pendingFiles.poll());
       }
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
-      DbFileSources.Data fileData = fileSourceData.getFileSourceData();
+    void finish() {
+      while (!pendingFiles.isEmpty()) {
+        persistSource(pendingFiles.poll());
+      }
+      session.commit();
+    }
+
+    private void persistSource(PendingFile pendingFile) {
+      FileSourceData fileSourceData;
+      try {
+        fileSourceData = pendingFile.result.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(String.format("Interrupted while persisting sources of %s", pendingFile.file.getKey()), e);
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause());
+        throw new IllegalStateException(String.format("Cannot persist sources of %s", pendingFile.file.getKey()), e.getCause());
+      }
+      if (persistSource(fileSourceData, pendingFile.file.getUuid(), pendingFile.inputsHash)) {
+        uncommittedRows++;
+        uncommittedBytes += fileSourceData.data.length;
+        if (uncommittedRows >= MAX_ROWS_PER_COMMIT || uncommittedBytes >= MAX_BYTES_PER_COMMIT) {
+          session.commit();
+          uncommittedRows = 0;
+          uncommittedBytes = 0L;
+        }
+      }
+    }
 
-      byte[] data = FileSourceDto.encodeSourceData(fileData);
-      String dataHash = DigestUtils.md5Hex(data);
-      String srcHash = fileSourceData.getSrcHash();
-      String lineHashes = fileSourceData.getLineHashes();
+    /**
+     * @return whether a row has been inserted or updated
+     */
+    private boolean persistSource(FileSourceData fileSourceData, String componentUuid, @Nullable String inputsHash) {
       FileSourceDto previousDto = previousFileSourcesByUuid.get(componentUuid);
 
       if (previousDto == null) {
@@ -153,41 +219,87 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setProjectUuid(projectUuid)
           .setFileUuid(componentUuid)
           .setDataType(Type.SOURCE)
-          .setBinaryData(data)
-          .setSrcHash(srcHash)
-          .setDataHash(dataHash)
-          .setLineHashes(lineHashes)
+          .setBinaryData(fileSourceData.data)
+          .setSrcHash(fileSourceData.srcHash)
+          .setDataHash(fileSourceData.dataHash)
+          .setLineHashes(fileSourceData.lineHashes)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
-          .setRevision(computeRevision(latestChange));
+          .setRevision(fileSourceData.revision)
+          .setInputsHash(inputsHash);
         dbClient.fileSourceDao().insert(session, dto);
-        session.commit();
-      } else {
-        // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
-        boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
-        boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
-        String revision = computeRevision(latestChange);
-        boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
-        if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
-          previousDto
-            .setBinaryData(data)
-            .setDataHash(dataHash)
-            .setSrcHash(srcHash)
-            .setLineHashes(lineHashes)
-            .setRevision(revision)
-            .setUpdatedAt(system2.now());
-          dbClient.fileSourceDao().update(session, previousDto);
-          session.commit();
-        }
+        return true;
       }
+      // Update only if data_hash has changed or if src_hash, revision or inputs_hash is missing (progressive migration)
+      boolean binaryDataUpdated = !fileSourceData.dataHash.equals(previousDto.getDataHash());
+      boolean srcHashUpdated = !fileSourceData.srcHash.equals(previousDto.getSrcHash());
+      boolean revisionUpdated = !ObjectUtils.equals(fileSourceData.revision, previousDto.getRevision());
+      boolean inputsHashUpdated = !ObjectUtils.equals(inputsHash, previousDto.getInputsHash());
+      if (binaryDataUpdated || srcHashUpdated || revisionUpdated || inputsHashUpdated) {
+        previousDto
+          .setBinaryData(fileSourceData.data)
+          .setDataHash(fileSourceData.dataHash)
+          .setSrcHash(fileSourceData.srcHash)
+          .setLineHashes(fileSourceData.lineHashes)
+          .setRevision(fileSourceData.revision)
+          .setInputsHash(inputsHash)
+          .setUpdatedAt(system2.now());
+        dbClient.fileSourceDao().update(session, previousDto);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Executed by the threads of the pool
+   */
+  private FileSourceData computeSource(Component file, Optional<ScmInfo> scmInfo, Iterable<Duplication> duplications) {
+    int fileRef = file.getReportAttributes().getRef();
+    ScannerReport.Component component = reportReader.readComponent(fileRef);
+    CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
+    LineReaders lineReaders = new LineReaders(reportReader, scmInfo, duplications, file);
+    try {
+      ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), component.getLines());
+      return new FileSourceData(computeFileSourceData.compute(), lineReaders.getLatestChange());
+    } catch (Exception e) {
+      throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
+    } finally {
+      linesIterator.close();
+      lineReaders.close();
     }
+  }
 
+  private static class PendingFile {
+    private final Component file;
     @CheckForNull
-    private String computeRevision(@Nullable Changeset latestChange) {
-      if (latestChange == null) {
-        return null;
-      }
-      return latestChange.getRevision();
+    private final String inputsHash;
+    private final Future<FileSourceData> result;
+
+    PendingFile(Component file, @Nullable String inputsHash, Future<FileSourceData> result) {
+      this.file = file;
+      this.inputsHash = inputsHash;
+      this.result = result;
+    }
+  }
+
+  /**
+   * Encoded and compressed data of a file, ready to be persisted
+   */
+  private static class FileSourceData {
+    private final byte[] data;
+    private final String dataHash;
+    private final String srcHash;
+    private final String lineHashes;
+    @CheckForNull
+    private final String revision;
+
+    FileSourceData(ComputeFileSourceData.Data fileSourceData, @Nullable Changeset latestChange) {
+      this.data = FileSourceDto.encodeSourceData(fileSourceData.getFileSourceData());
+      this.dataHash = DigestUtils.md5Hex(data);
+      this.srcHash = fileSourceData.getSrcHash();
+      this.lineHashes = fileSourceData.getLineHashes();
+      this.revision = latestChange == null ? null : latestChange.getRevision();
     }
   }
 
@@ -197,13 +309,12 @@ public class PersistFileSourcesStep implements ComputationStep {
     @CheckForNull
     private final ScmLineReader scmLineReader;
 
-    LineReaders(BatchReportReader reportReader, ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Component component) {
+    LineReaders(BatchReportReader reportReader, Optional<ScmInfo> scmInfoOptional, Iterable<Duplication> duplications, Component component) {
       int componentRef = component.getReportAttributes().getRef();
       CloseableIterator<ScannerReport.LineCoverage> coverageIt = reportReader.readComponentCoverage(componentRef);
       closeables.add(coverageIt);
       readers.add(new CoverageLineReader(coverageIt));
 
-      Optional<ScmInfo> scmInfoOptional = scmInfoRepository.getScmInfo(component);
       if (scmInfoOptional.isPresent()) {
         this.scmLineReader = new ScmLineReader(scmInfoOptional.get());
         readers.add(scmLineReader);
@@ -220,7 +331,7 @@ public class PersistFileSourcesStep implements ComputationStep {
       closeables.add(symbolsIt);
       readers.add(new SymbolsLineReader(component, symbolsIt, rangeOffsetConverter));
 
-      readers.add(new DuplicationLineReader(duplicationRepository.getDuplications(component)));
+      readers.add(new DuplicationLineReader(duplications));
     }
 
     List<LineReader> readers() {
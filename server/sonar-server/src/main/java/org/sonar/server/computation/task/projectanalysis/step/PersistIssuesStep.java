@@ -32,6 +32,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictRes
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssueKeys;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.db.DbClient;
 import org.sonar.core.util.CloseableIterator;
@@ -44,14 +45,16 @@ public class PersistIssuesStep implements ComputationStep {
   private final UpdateConflictResolver conflictResolver;
   private final RuleRepository ruleRepository;
   private final IssueCache issueCache;
+  private final PersistedIssueKeys persistedIssueKeys;
 
   public PersistIssuesStep(DbClient dbClient, System2 system2, UpdateConflictResolver conflictResolver,
-    RuleRepository ruleRepository, IssueCache issueCache) {
+    RuleRepository ruleRepository, IssueCache issueCache, PersistedIssueKeys persistedIssueKeys) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.conflictResolver = conflictResolver;
     this.ruleRepository = ruleRepository;
     this.issueCache = issueCache;
+    this.persistedIssueKeys = persistedIssueKeys;
   }
 
   @Override
@@ -82,6 +85,7 @@ public class PersistIssuesStep implements ComputationStep {
         }
         if (saved) {
           insertChanges(changeMapper, issue);
+          persistedIssueKeys.add(issue.key());
         }
       }
       session.flushStatements();
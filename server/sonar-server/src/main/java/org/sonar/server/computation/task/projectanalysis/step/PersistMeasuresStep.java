@@ -23,6 +23,7 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -84,7 +85,9 @@ public class PersistMeasuresStep implements ComputationStep {
   public void execute() {
     DbSession dbSession = dbClient.openSession(true);
     try {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
+      MeasureVisitor visitor = new MeasureVisitor(dbSession);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+      visitor.flush();
       dbSession.commit();
     } finally {
       dbSession.close();
@@ -93,6 +96,8 @@ public class PersistMeasuresStep implements ComputationStep {
 
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession session;
+    // measures are inserted by groups of rows, whatever the component they belong to
+    private final List<MeasureDto> dtos = new ArrayList<>(MeasureDao.INSERT_BATCH_SIZE);
 
     private MeasureVisitor(DbSession session) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
@@ -114,14 +119,22 @@ public class PersistMeasuresStep implements ComputationStep {
 
         Metric metric = metricRepository.getByKey(metricKey);
         Predicate<Measure> notBestValueOptimized = Predicates.not(BestValueOptimization.from(metric, component));
-        MeasureDao measureDao = dbClient.measureDao();
         for (Measure measure : from(measures.getValue()).filter(NonEmptyMeasure.INSTANCE).filter(notBestValueOptimized)) {
-          MeasureDto measureDto = measureToMeasureDto.toMeasureDto(measure, metric, component);
-          measureDao.insert(session, measureDto);
+          dtos.add(measureToMeasureDto.toMeasureDto(measure, metric, component));
+          if (dtos.size() >= MeasureDao.INSERT_BATCH_SIZE) {
+            flush();
+          }
         }
       }
     }
 
+    private void flush() {
+      if (!dtos.isEmpty()) {
+        dbClient.measureDao().insert(session, dtos);
+        dtos.clear();
+      }
+    }
+
   }
 
   private enum NonEmptyMeasure implements Predicate<Measure> {
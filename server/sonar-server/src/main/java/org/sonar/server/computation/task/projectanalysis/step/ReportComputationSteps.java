@@ -103,7 +103,7 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     IndexComponentsStep.class,
     PurgeDatastoresStep.class,
 
-    // ES indexing is done after all db changes
+    // ES indexing is done after all db changes. Indexers are independent, so they are executed concurrently
     IndexIssuesStep.class,
     IndexTestsStep.class,
     IndexProjectMeasuresStep.class,
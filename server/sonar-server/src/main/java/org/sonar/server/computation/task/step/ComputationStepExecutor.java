@@ -19,14 +19,24 @@
  */
 package org.sonar.server.computation.task.step;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.slf4j.MDC;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
+  private static final String THREAD_NAME_PREFIX = "ce-step-";
 
   private final ComputationSteps steps;
   @CheckForNull
@@ -59,10 +69,92 @@ public final class ComputationStepExecutor {
   }
 
   private void executeSteps(Profiler stepProfiler) {
+    List<ComputationStep> concurrentSteps = new ArrayList<>();
     for (ComputationStep step : steps.instances()) {
-      stepProfiler.start();
-      step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      if (step instanceof ConcurrentComputationStep) {
+        concurrentSteps.add(step);
+      } else {
+        executeConcurrently(stepProfiler, concurrentSteps);
+        executeStep(stepProfiler, step);
+      }
+    }
+    executeConcurrently(stepProfiler, concurrentSteps);
+  }
+
+  private static void executeStep(Profiler stepProfiler, ComputationStep step) {
+    stepProfiler.start();
+    step.execute();
+    stepProfiler.stopDebug(step.getDescription());
+  }
+
+  /**
+   * Executes the specified steps on a dedicated pool and waits for all of them to be completed. The first failure
+   * is propagated once all the steps are completed. The list is cleared.
+   * A single step is executed in the current thread with the given profiler. Otherwise each step has its own profiler,
+   * as profilers are not thread-safe.
+   */
+  private static void executeConcurrently(Profiler stepProfiler, List<ComputationStep> concurrentSteps) {
+    if (concurrentSteps.isEmpty()) {
+      return;
+    }
+    if (concurrentSteps.size() == 1) {
+      executeStep(stepProfiler, concurrentSteps.get(0));
+      concurrentSteps.clear();
+      return;
+    }
+
+    int threads = Math.min(concurrentSteps.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executorService = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .build());
+    try {
+      List<Future<?>> futures = new ArrayList<>(concurrentSteps.size());
+      // propagate the logging context of the task (eg. its uuid) to the threads of the pool
+      Map<String, String> loggingContext = MDC.getCopyOfContextMap();
+      for (ComputationStep step : concurrentSteps) {
+        futures.add(executorService.submit(() -> executeWithLoggingContext(loggingContext, step)));
+      }
+      waitForCompletion(futures);
+    } finally {
+      executorService.shutdownNow();
+      concurrentSteps.clear();
+    }
+  }
+
+  private static void executeWithLoggingContext(@Nullable Map<String, String> loggingContext, ComputationStep step) {
+    if (loggingContext != null) {
+      MDC.setContextMap(loggingContext);
+    }
+    try {
+      executeStep(Profiler.create(LOGGER), step);
+    } finally {
+      MDC.clear();
+    }
+  }
+
+  private static void waitForCompletion(List<Future<?>> futures) {
+    Throwable failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for the execution of steps", e);
+      }
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    if (failure != null) {
+      throw new IllegalStateException(failure);
     }
   }
 
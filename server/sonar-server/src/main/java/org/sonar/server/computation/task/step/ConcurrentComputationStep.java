@@ -0,0 +1,36 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+/**
+ * A {@link ComputationStep} which neither reads nor writes data produced by other {@link ConcurrentComputationStep}
+ * and can therefore be executed at the same time as them.
+ * <p>
+ * {@link ComputationStepExecutor} executes concurrently each sequence of consecutive {@link ConcurrentComputationStep}
+ * and waits for all of them to be completed before executing the next steps. Ordering of steps declared
+ * in {@link ComputationSteps#orderedStepClasses()} is therefore still relevant.
+ * </p>
+ * <p>
+ * Implementations must be thread-safe regarding the components they share with other steps.
+ * </p>
+ */
+public interface ConcurrentComputationStep extends ComputationStep {
+
+}
@@ -40,6 +40,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.server.debt.DebtModelXMLExporter.RuleDebt;
+import org.sonar.server.rule.RuleCache;
 import org.sonar.server.rule.RuleDefinitionsLoader;
 import org.sonar.server.rule.RuleOperations;
 import org.sonar.server.rule.index.RuleIndexer;
@@ -60,10 +61,12 @@ public class DebtModelBackup {
   private final System2 system2;
   private final UserSession userSession;
   private final RuleIndexer ruleIndexer;
+  private final RuleCache ruleCache;
 
   public DebtModelBackup(DbClient dbClient, RuleOperations ruleOperations,
     DebtRulesXMLImporter rulesXMLImporter,
-    DebtModelXMLExporter debtModelXMLExporter, RuleDefinitionsLoader defLoader, System2 system2, UserSession userSession, RuleIndexer ruleIndexer) {
+    DebtModelXMLExporter debtModelXMLExporter, RuleDefinitionsLoader defLoader, System2 system2, UserSession userSession, RuleIndexer ruleIndexer,
+    RuleCache ruleCache) {
     this.dbClient = dbClient;
     this.ruleOperations = ruleOperations;
     this.rulesXMLImporter = rulesXMLImporter;
@@ -72,6 +75,7 @@ public class DebtModelBackup {
     this.system2 = system2;
     this.userSession = userSession;
     this.ruleIndexer = ruleIndexer;
+    this.ruleCache = ruleCache;
   }
 
   public String backup() {
@@ -127,6 +131,7 @@ public class DebtModelBackup {
       }
 
       session.commit();
+      ruleCache.invalidateAll();
       ruleIndexer.index();
     } finally {
       MyBatis.closeQuietly(session);
@@ -188,6 +193,7 @@ public class DebtModelBackup {
       restoreRules(rules(languageKey, session), rulesXMLImporter.importXML(xml, validationMessages), validationMessages, updateDate, session);
 
       session.commit();
+      ruleCache.invalidateAll();
       ruleIndexer.index();
     } catch (IllegalArgumentException e) {
       LOG.debug("Error when restoring the model", e);
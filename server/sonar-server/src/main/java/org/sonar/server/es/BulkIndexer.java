@@ -21,8 +21,10 @@ package org.sonar.server.es;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Semaphore;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import org.elasticsearch.action.ActionListener;
@@ -39,6 +41,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.sort.SortOrder;
@@ -52,7 +55,10 @@ import static java.lang.String.format;
 /**
  * Helper to bulk requests in an efficient way :
  * <ul>
- *   <li>bulk request is sent on the wire when its size is higher than 5Mb</li>
+ *   <li>bulk request is sent on the wire when its size is higher than a threshold (1Mb by default)</li>
+ *   <li>number of concurrent bulk requests and threshold are adapted to the latency of responses and
+ *   to the requests rejected by Elasticsearch, see {@link BulkThrottle}</li>
+ *   <li>rejected documents are sent again</li>
  *   <li>on large table indexing, replicas and automatic refresh can be temporarily disabled</li>
  *   <li>index refresh is optional (enabled by default)</li>
  * </ul>
@@ -61,29 +67,36 @@ public class BulkIndexer implements Startable {
 
   private static final Logger LOGGER = Loggers.get(BulkIndexer.class);
   private static final long FLUSH_BYTE_SIZE = new ByteSizeValue(1, ByteSizeUnit.MB).bytes();
+  private static final long MIN_FLUSH_BYTE_SIZE = new ByteSizeValue(256, ByteSizeUnit.KB).bytes();
+  private static final long MAX_FLUSH_BYTE_SIZE = new ByteSizeValue(5, ByteSizeUnit.MB).bytes();
+  private static final int MAX_RETRIES = 3;
   private static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
   private static final String ALREADY_STARTED_MESSAGE = "Bulk indexing is already started";
 
   private final EsClient client;
   private final String indexName;
   private boolean large = false;
-  private long flushByteSize = FLUSH_BYTE_SIZE;
+  private Long flushByteSize = null;
   private BulkRequestBuilder bulkRequest = null;
   private Map<String, Object> largeInitialSettings = null;
   private final AtomicLong counter = new AtomicLong(0L);
-  private final int concurrentRequests;
-  private final Semaphore semaphore;
+  private final Queue<ActionRequest> rejectedRequests = new ConcurrentLinkedQueue<>();
+  private final int initialConcurrency;
+  private final int maxConcurrency;
   private final ProgressLogger progress;
+  private BulkThrottle throttle;
+  private long startedAt;
 
   public BulkIndexer(EsClient client, String indexName) {
     this.client = client;
     this.indexName = indexName;
     this.progress = new ProgressLogger(format("Progress[BulkIndexer[%s]]", indexName), counter, LOGGER)
-      .setPluralLabel("requests");
+      .setPluralLabel("documents");
 
     // see https://jira.sonarsource.com/browse/SONAR-8075
-    this.concurrentRequests = Math.max(1, Runtime.getRuntime().availableProcessors() / 5);
-    this.semaphore = new Semaphore(concurrentRequests);
+    int processors = Runtime.getRuntime().availableProcessors();
+    this.initialConcurrency = Math.max(1, processors / 5);
+    this.maxConcurrency = Math.max(initialConcurrency, processors / 2);
   }
 
   /**
@@ -96,6 +109,10 @@ public class BulkIndexer implements Startable {
     return this;
   }
 
+  /**
+   * Fixes the size of bulk requests. By default the size is adapted to the latency of
+   * Elasticsearch responses.
+   */
   public BulkIndexer setFlushByteSize(long flushByteSize) {
     this.flushByteSize = flushByteSize;
     return this;
@@ -123,14 +140,21 @@ public class BulkIndexer implements Startable {
 
       updateSettings(bulkSettings);
     }
+    if (flushByteSize == null) {
+      throttle = new BulkThrottle(initialConcurrency, maxConcurrency, FLUSH_BYTE_SIZE, MIN_FLUSH_BYTE_SIZE, MAX_FLUSH_BYTE_SIZE);
+    } else {
+      throttle = new BulkThrottle(initialConcurrency, maxConcurrency, flushByteSize, flushByteSize, flushByteSize);
+    }
     bulkRequest = client.prepareBulk().setRefresh(false);
+    rejectedRequests.clear();
     counter.set(0L);
+    startedAt = System.currentTimeMillis();
     progress.start();
   }
 
   public void add(ActionRequest request) {
     bulkRequest.request().add(request);
-    if (bulkRequest.request().estimatedSizeInBytes() >= flushByteSize) {
+    if (bulkRequest.request().estimatedSizeInBytes() >= throttle.getFlushByteSize()) {
       executeBulk();
     }
   }
@@ -184,17 +208,23 @@ public class BulkIndexer implements Startable {
 
   @Override
   public void stop() {
-    if (bulkRequest.numberOfActions() > 0) {
-      executeBulk();
-    }
-    try {
-      if (semaphore.tryAcquire(concurrentRequests, 10, TimeUnit.MINUTES)) {
-        semaphore.release(concurrentRequests);
+    int retries = 0;
+    while (true) {
+      if (bulkRequest.numberOfActions() > 0) {
+        executeBulk();
       }
-    } catch (InterruptedException e) {
-      throw new IllegalStateException("Elasticsearch bulk requests still being executed after 10 minutes", e);
+      awaitPendingRequests();
+      addRejectedRequests();
+      if (bulkRequest.numberOfActions() == 0 || retries >= MAX_RETRIES) {
+        break;
+      }
+      retries++;
+    }
+    if (bulkRequest.numberOfActions() > 0) {
+      LOGGER.error("{} documents rejected by Elasticsearch are not indexed in [{}]", bulkRequest.numberOfActions(), indexName);
     }
     progress.stop();
+    logThroughput();
     client.prepareRefresh(indexName).get();
     if (large) {
       // optimize lucene segments and revert index settings
@@ -207,6 +237,40 @@ public class BulkIndexer implements Startable {
     bulkRequest = null;
   }
 
+  private void awaitPendingRequests() {
+    try {
+      if (!throttle.awaitNoneInFlight(10, TimeUnit.MINUTES)) {
+        LOGGER.error("Elasticsearch bulk requests still being executed after 10 minutes");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Elasticsearch bulk requests still being executed after 10 minutes", e);
+    }
+  }
+
+  /**
+   * Rejected requests are sent again in the next bulk request, once concurrency is decreased.
+   */
+  private void addRejectedRequests() {
+    ActionRequest request = rejectedRequests.poll();
+    while (request != null) {
+      bulkRequest.request().add(request);
+      request = rejectedRequests.poll();
+    }
+  }
+
+  private void logThroughput() {
+    long durationMs = Math.max(1L, System.currentTimeMillis() - startedAt);
+    long documents = counter.get();
+    String message = "{} documents processed in index [{}] in {} ms ({} docs/sec, {} concurrent requests, flush size {} bytes)";
+    Object[] args = {documents, indexName, durationMs, 1000L * documents / durationMs, throttle.getConcurrency(), throttle.getFlushByteSize()};
+    if (large) {
+      LOGGER.info(message, args);
+    } else {
+      LOGGER.debug(message, args);
+    }
+  }
+
   private void updateSettings(Map<String, Object> settings) {
     UpdateSettingsRequestBuilder req = client.nativeClient().admin().indices().prepareUpdateSettings(indexName);
     req.setSettings(settings);
@@ -216,32 +280,44 @@ public class BulkIndexer implements Startable {
   private void executeBulk() {
     final BulkRequestBuilder req = this.bulkRequest;
     this.bulkRequest = client.prepareBulk().setRefresh(false);
-    semaphore.acquireUninterruptibly();
-    req.execute(new BulkResponseActionListener(req));
+    throttle.acquire();
+    req.execute(new BulkResponseActionListener(req, System.currentTimeMillis()));
+    // documents rejected by previous requests are sent in the next bulk request
+    addRejectedRequests();
   }
 
   private class BulkResponseActionListener implements ActionListener<BulkResponse> {
     private final BulkRequestBuilder req;
+    private final long sentAt;
 
-    BulkResponseActionListener(BulkRequestBuilder req) {
+    BulkResponseActionListener(BulkRequestBuilder req, long sentAt) {
       this.req = req;
+      this.sentAt = sentAt;
     }
 
     @Override
     public void onResponse(BulkResponse response) {
-      semaphore.release();
-      counter.addAndGet(response.getItems().length);
-
+      List<ActionRequest> requests = req.request().requests();
+      int processed = 0;
+      boolean rejected = false;
       for (BulkItemResponse item : response.getItems()) {
-        if (item.isFailed()) {
+        if (!item.isFailed()) {
+          processed++;
+        } else if (item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS) {
+          rejected = true;
+          rejectedRequests.add(requests.get(item.getItemId()));
+        } else {
+          processed++;
           LOGGER.error("index [{}], type [{}], id [{}], message [{}]", item.getIndex(), item.getType(), item.getId(), item.getFailureMessage());
         }
       }
+      counter.addAndGet(processed);
+      throttle.release(System.currentTimeMillis() - sentAt, rejected);
     }
 
     @Override
     public void onFailure(Throwable e) {
-      semaphore.release();
+      throttle.release(System.currentTimeMillis() - sentAt, false);
       LOGGER.error("Fail to execute bulk index request: " + req, e);
     }
   }
@@ -0,0 +1,156 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Limits the number of concurrent bulk requests and the size of bulk requests sent
+ * by {@link BulkIndexer}. Limits are adapted from the responses of Elasticsearch:
+ * <ul>
+ *   <li>rejected requests (full queue of bulk thread pool) halve both concurrency and size</li>
+ *   <li>slow responses decrease concurrency by one</li>
+ *   <li>a series of fast responses increases concurrency by one and doubles size</li>
+ * </ul>
+ */
+@ThreadSafe
+class BulkThrottle {
+
+  static final long SLOW_RESPONSE_MS = 5_000L;
+  static final long FAST_RESPONSE_MS = 1_000L;
+
+  private final Lock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private final int maxConcurrency;
+  private final long minFlushByteSize;
+  private final long maxFlushByteSize;
+
+  private int concurrency;
+  private long flushByteSize;
+  private int inFlight = 0;
+  private int fastResponses = 0;
+
+  BulkThrottle(int initialConcurrency, int maxConcurrency, long initialFlushByteSize, long minFlushByteSize, long maxFlushByteSize) {
+    checkArgument(initialConcurrency >= 1 && initialConcurrency <= maxConcurrency, "Concurrency must be between 1 and %s", maxConcurrency);
+    checkArgument(minFlushByteSize <= initialFlushByteSize && initialFlushByteSize <= maxFlushByteSize,
+      "Flush size must be between %s and %s", minFlushByteSize, maxFlushByteSize);
+    this.concurrency = initialConcurrency;
+    this.maxConcurrency = maxConcurrency;
+    this.flushByteSize = initialFlushByteSize;
+    this.minFlushByteSize = minFlushByteSize;
+    this.maxFlushByteSize = maxFlushByteSize;
+  }
+
+  /**
+   * Blocks the caller until a new bulk request is allowed to be sent.
+   */
+  void acquire() {
+    lock.lock();
+    try {
+      while (inFlight >= concurrency) {
+        changed.awaitUninterruptibly();
+      }
+      inFlight++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Must be called once for each call to {@link #acquire()}, when response is received.
+   */
+  void release(long responseTimeMs, boolean rejected) {
+    lock.lock();
+    try {
+      inFlight--;
+      if (rejected) {
+        fastResponses = 0;
+        concurrency = Math.max(1, concurrency / 2);
+        flushByteSize = Math.max(minFlushByteSize, flushByteSize / 2);
+      } else if (responseTimeMs >= SLOW_RESPONSE_MS) {
+        fastResponses = 0;
+        concurrency = Math.max(1, concurrency - 1);
+      } else if (responseTimeMs <= FAST_RESPONSE_MS) {
+        fastResponses++;
+        if (fastResponses >= concurrency) {
+          fastResponses = 0;
+          concurrency = Math.min(maxConcurrency, concurrency + 1);
+          flushByteSize = Math.min(maxFlushByteSize, flushByteSize * 2);
+        }
+      }
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits for all the pending requests to be released.
+   * @return false if timeout is reached before
+   */
+  boolean awaitNoneInFlight(long timeout, TimeUnit unit) throws InterruptedException {
+    long remainingNanos = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (inFlight > 0) {
+        if (remainingNanos <= 0L) {
+          return false;
+        }
+        remainingNanos = changed.awaitNanos(remainingNanos);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int getConcurrency() {
+    lock.lock();
+    try {
+      return concurrency;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  long getFlushByteSize() {
+    lock.lock();
+    try {
+      return flushByteSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -686,9 +686,21 @@ public class IssueIndex extends BaseIndex {
    * Only fields needed for the batch are returned.
    */
   public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component) {
+    return selectIssuesForBatch(component, null);
+  }
+
+  /**
+   * When {@code changedSince} is set, only the issues updated at or after this date are returned, including
+   * the closed ones so that the caller can drop them from its local copy.
+   */
+  public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component, @Nullable Date changedSince) {
     BoolQueryBuilder filter = boolQuery()
-      .must(createAuthorizationFilter(true, userSession.getUserId(), userSession.getUserGroups()))
-      .mustNot(termsQuery(IssueIndexDefinition.FIELD_ISSUE_STATUS, Issue.STATUS_CLOSED));
+      .must(createAuthorizationFilter(true, userSession.getUserId(), userSession.getUserGroups()));
+    if (changedSince == null) {
+      filter.mustNot(termsQuery(IssueIndexDefinition.FIELD_ISSUE_STATUS, Issue.STATUS_CLOSED));
+    } else {
+      filter.must(QueryBuilders.rangeQuery(IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT).gte(changedSince));
+    }
 
     switch (component.scope()) {
       case Scopes.PROJECT:
@@ -712,7 +724,7 @@ public class IssueIndex extends BaseIndex {
           IssueIndexDefinition.FIELD_ISSUE_FILE_PATH, IssueIndexDefinition.FIELD_ISSUE_SEVERITY, IssueIndexDefinition.FIELD_ISSUE_MANUAL_SEVERITY,
           IssueIndexDefinition.FIELD_ISSUE_RESOLUTION, IssueIndexDefinition.FIELD_ISSUE_STATUS, IssueIndexDefinition.FIELD_ISSUE_ASSIGNEE,
           IssueIndexDefinition.FIELD_ISSUE_LINE, IssueIndexDefinition.FIELD_ISSUE_MESSAGE, IssueIndexDefinition.FIELD_ISSUE_CHECKSUM,
-          IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT},
+          IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT, IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT},
         null)
       .setQuery(boolQuery().must(matchAllQuery()).filter(filter));
     SearchResponse response = requestBuilder.get();
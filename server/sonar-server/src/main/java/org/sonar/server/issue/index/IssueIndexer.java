@@ -19,6 +19,8 @@
  */
 package org.sonar.server.issue.index;
 
+import com.google.common.collect.Iterables;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import javax.annotation.Nullable;
@@ -34,6 +36,7 @@ import org.sonar.server.es.EsUtils;
 
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
 import static org.sonar.server.issue.index.IssueIndexDefinition.FIELD_ISSUE_PROJECT_UUID;
 import static org.sonar.server.issue.index.IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT;
 import static org.sonar.server.issue.index.IssueIndexDefinition.INDEX;
@@ -65,6 +68,16 @@ public class IssueIndexer extends BaseIndexer {
     super.index(lastUpdatedAt -> doIndex(createBulkIndexer(false), lastUpdatedAt, projectUuid));
   }
 
+  /**
+   * Indexes only the issues with the given keys. Issues that do not exist in db are ignored.
+   */
+  public void indexByKeys(Collection<String> issueKeys) {
+    if (issueKeys.isEmpty()) {
+      return;
+    }
+    super.index(lastUpdatedAt -> doIndexByKeys(createBulkIndexer(false), issueKeys));
+  }
+
   /**
    * For benchmarks
    */
@@ -81,8 +94,28 @@ public class IssueIndexer extends BaseIndexer {
     }
   }
 
+  private long doIndexByKeys(BulkIndexer bulk, Collection<String> issueKeys) {
+    bulk.start();
+    long maxDate = 0L;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      for (List<String> partition : Iterables.partition(issueKeys, PARTITION_SIZE_FOR_ORACLE)) {
+        IssueResultSetIterator rowIt = IssueResultSetIterator.createForKeys(dbClient, dbSession, partition);
+        maxDate = Math.max(maxDate, addIssues(bulk, rowIt));
+        rowIt.close();
+      }
+    }
+    bulk.stop();
+    return maxDate;
+  }
+
   private long doIndex(BulkIndexer bulk, Iterator<IssueDoc> issues) {
     bulk.start();
+    long maxDate = addIssues(bulk, issues);
+    bulk.stop();
+    return maxDate;
+  }
+
+  private static long addIssues(BulkIndexer bulk, Iterator<IssueDoc> issues) {
     long maxDate = 0L;
     while (issues.hasNext()) {
       IssueDoc issue = issues.next();
@@ -91,7 +124,6 @@ public class IssueIndexer extends BaseIndexer {
       // it's more efficient to sort programmatically than in SQL on some databases (MySQL for instance)
       maxDate = Math.max(maxDate, issue.getTechnicalUpdateDate().getTime());
     }
-    bulk.stop();
     return maxDate;
   }
 
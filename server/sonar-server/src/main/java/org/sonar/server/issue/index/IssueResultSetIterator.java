@@ -28,6 +28,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
@@ -39,7 +40,9 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ResultSetIterator;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.sonar.api.utils.DateUtils.longToDate;
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
 import static org.sonar.db.DatabaseUtils.getLong;
 
 /**
@@ -92,6 +95,8 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
 
   private static final String PROJECT_FILTER = " AND root.uuid=?";
 
+  private static final String KEYS_FILTER = " where i.kee in (%s)";
+
   private static final Splitter TAGS_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
 
   private static final Splitter MODULE_PATH_SPLITTER = Splitter.on('.').trimResults().omitEmptyStrings();
@@ -119,6 +124,24 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
     }
   }
 
+  /**
+   * Selects the issues with the given keys. Number of keys must not exceed
+   * {@link org.sonar.db.DatabaseUtils#PARTITION_SIZE_FOR_ORACLE}.
+   */
+  static IssueResultSetIterator createForKeys(DbClient dbClient, DbSession session, List<String> issueKeys) {
+    checkArgument(issueKeys.size() <= PARTITION_SIZE_FOR_ORACLE, "Too many issue keys: %s", issueKeys.size());
+    try {
+      String sql = SQL_ALL + String.format(KEYS_FILTER, StringUtils.repeat("?", ",", issueKeys.size()));
+      PreparedStatement stmt = dbClient.getMyBatis().newScrollingSelectStatement(session, sql);
+      for (int i = 0; i < issueKeys.size(); i++) {
+        stmt.setString(i + 1, issueKeys.get(i));
+      }
+      return new IssueResultSetIterator(stmt);
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to prepare SQL request to select issues by keys", e);
+    }
+  }
+
   @CheckForNull
   private static String extractDirPath(@Nullable String filePath, String scope) {
     if (filePath != null) {
@@ -40,6 +40,7 @@ import org.sonar.server.es.Facets;
 import org.sonar.server.issue.ActionService;
 import org.sonar.server.issue.IssueCommentService;
 import org.sonar.server.issue.IssueService;
+import org.sonar.server.rule.RuleCache;
 import org.sonarqube.ws.client.issue.IssueFilterParameters;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -58,12 +59,15 @@ public class SearchResponseLoader {
   private final IssueService issueService;
   private final ActionService actionService;
   private final IssueCommentService commentService;
+  private final RuleCache ruleCache;
 
-  public SearchResponseLoader(DbClient dbClient, IssueService issueService, ActionService actionService, IssueCommentService commentService) {
+  public SearchResponseLoader(DbClient dbClient, IssueService issueService, ActionService actionService, IssueCommentService commentService,
+    RuleCache ruleCache) {
     this.dbClient = dbClient;
     this.issueService = issueService;
     this.actionService = actionService;
     this.commentService = commentService;
+    this.ruleCache = ruleCache;
   }
 
   /**
@@ -110,7 +114,7 @@ public class SearchResponseLoader {
 
   private void loadRules(Collector collector, DbSession dbSession, SearchResponseData result) {
     if (collector.contains(RULES)) {
-      result.setRules(dbClient.ruleDao().selectByKeys(dbSession, collector.<RuleKey>get(RULES)));
+      result.setRules(ruleCache.selectByKeys(dbSession, collector.<RuleKey>get(RULES)));
     }
   }
 
@@ -56,6 +56,7 @@ import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricDtoFunctions;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.client.measure.ComponentTreeWsRequest;
@@ -89,12 +90,15 @@ public class ComponentTreeDataLoader {
   private final ComponentFinder componentFinder;
   private final UserSession userSession;
   private final ResourceTypes resourceTypes;
+  private final MetricCache metricCache;
 
-  public ComponentTreeDataLoader(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, ResourceTypes resourceTypes) {
+  public ComponentTreeDataLoader(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, ResourceTypes resourceTypes,
+    MetricCache metricCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
     this.resourceTypes = resourceTypes;
+    this.metricCache = metricCache;
   }
 
   ComponentTreeData load(ComponentTreeWsRequest wsRequest) {
@@ -186,7 +190,7 @@ public class ComponentTreeDataLoader {
 
   private List<MetricDto> searchMetrics(DbSession dbSession, ComponentTreeWsRequest request) {
     List<String> metricKeys = requireNonNull(request.getMetricKeys());
-    List<MetricDto> metrics = dbClient.metricDao().selectByKeys(dbSession, metricKeys);
+    List<MetricDto> metrics = metricCache.selectByKeys(dbSession, metricKeys);
     if (metrics.size() < metricKeys.size()) {
       List<String> foundMetricKeys = Lists.transform(metrics, MetricDtoFunctions.toKey());
       Set<String> missingMetricKeys = Sets.difference(
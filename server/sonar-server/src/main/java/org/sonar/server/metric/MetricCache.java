@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.metric;
+
+import java.util.List;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.server.util.cache.ReferenceDataCache;
+
+/**
+ * Metrics by key, shared by web services. Must be invalidated when metrics are created, updated or deleted.
+ */
+public class MetricCache extends ReferenceDataCache<String, MetricDto> {
+
+  private static final long MAXIMUM_SIZE = 10_000L;
+
+  private final DbClient dbClient;
+
+  public MetricCache(DbClient dbClient) {
+    super("Metrics", MAXIMUM_SIZE, MetricDto::getKey);
+    this.dbClient = dbClient;
+  }
+
+  /**
+   * Same as {@link org.sonar.db.metric.MetricDao#selectByKeys(DbSession, List)}, except that the returned
+   * metrics must not be modified.
+   */
+  public List<MetricDto> selectByKeys(DbSession dbSession, List<String> keys) {
+    return getAll(keys, missingKeys -> dbClient.metricDao().selectByKeys(dbSession, missingKeys));
+  }
+}
@@ -33,6 +33,7 @@ import org.sonar.db.MyBatis;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.ruby.RubyBridge;
 import org.sonar.server.user.UserSession;
 
@@ -56,11 +57,13 @@ public class CreateAction implements MetricsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final RubyBridge rubyBridge;
+  private final MetricCache metricCache;
 
-  public CreateAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge) {
+  public CreateAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge, MetricCache metricCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.rubyBridge = rubyBridge;
+    this.metricCache = metricCache;
   }
 
   @Override
@@ -117,6 +120,7 @@ public class CreateAction implements MetricsWsAction {
       writeMetric(json, metricInDb);
       json.close();
       rubyBridge.metricCache().invalidate();
+      metricCache.invalidateAll();
     } finally {
       MyBatis.closeQuietly(dbSession);
     }
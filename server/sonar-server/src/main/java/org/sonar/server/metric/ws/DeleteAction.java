@@ -31,6 +31,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.db.metric.MetricDto;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.ruby.RubyBridge;
 import org.sonar.server.user.UserSession;
 
@@ -43,11 +44,13 @@ public class DeleteAction implements MetricsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final RubyBridge rubyBridge;
+  private final MetricCache metricCache;
 
-  public DeleteAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge) {
+  public DeleteAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge, MetricCache metricCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.rubyBridge = rubyBridge;
+    this.metricCache = metricCache;
   }
 
   @Override
@@ -82,6 +85,7 @@ public class DeleteAction implements MetricsWsAction {
 
     response.noContent();
     rubyBridge.metricCache().invalidate();
+    metricCache.invalidateAll();
   }
 
   private List<Integer> loadIds(DbSession dbSession, Request request) {
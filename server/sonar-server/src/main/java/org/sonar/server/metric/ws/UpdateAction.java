@@ -33,6 +33,7 @@ import org.sonar.db.MyBatis;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.ruby.RubyBridge;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.util.MetricKeyValidator;
@@ -57,11 +58,13 @@ public class UpdateAction implements MetricsWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final RubyBridge rubyBridge;
+  private final MetricCache metricCache;
 
-  public UpdateAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge) {
+  public UpdateAction(DbClient dbClient, UserSession userSession, RubyBridge rubyBridge, MetricCache metricCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.rubyBridge = rubyBridge;
+    this.metricCache = metricCache;
   }
 
   @Override
@@ -114,6 +117,7 @@ public class UpdateAction implements MetricsWsAction {
       writeMetric(json, metricInDb);
       json.close();
       rubyBridge.metricCache().invalidate();
+      metricCache.invalidateAll();
     } finally {
       MyBatis.closeQuietly(dbSession);
     }
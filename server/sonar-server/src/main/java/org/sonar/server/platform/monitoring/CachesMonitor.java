@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import com.google.common.cache.CacheStats;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.util.cache.ReferenceDataCache;
+
+/**
+ * Usage of the caches of reference data shared by web services
+ */
+public class CachesMonitor implements Monitor {
+  private final ReferenceDataCache<?, ?>[] caches;
+
+  public CachesMonitor(ReferenceDataCache<?, ?>... caches) {
+    this.caches = caches;
+  }
+
+  @Override
+  public String name() {
+    return "Caches";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    for (ReferenceDataCache<?, ?> cache : caches) {
+      CacheStats stats = cache.stats();
+      Map<String, Object> cacheAttributes = new LinkedHashMap<>();
+      cacheAttributes.put("Size", cache.size());
+      cacheAttributes.put("Hits", stats.hitCount());
+      cacheAttributes.put("Misses", stats.missCount());
+      cacheAttributes.put("Hit Rate", stats.hitRate());
+      cacheAttributes.put("Evictions", stats.evictionCount());
+      attributes.put(cache.getName(), cacheAttributes);
+    }
+    return attributes;
+  }
+}
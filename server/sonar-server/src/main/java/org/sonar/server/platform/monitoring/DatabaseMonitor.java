@@ -24,11 +24,14 @@ import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.commons.dbutils.DbUtils;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
+import org.sonar.db.profiling.ProfiledDataSource;
 import org.sonar.db.version.DatabaseVersion;
 
 /**
@@ -99,6 +102,46 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
     return commonsDbcp().getRemoveAbandonedTimeout();
   }
 
+  @Override
+  public long getPoolBorrowCount() {
+    return poolStatistics().map(ConnectionPoolStatistics::getBorrowCount).orElse(-1L);
+  }
+
+  @Override
+  public long getPoolBorrowFailureCount() {
+    return poolStatistics().map(ConnectionPoolStatistics::getFailureCount).orElse(-1L);
+  }
+
+  @Override
+  public double getPoolAverageBorrowWaitMillis() {
+    return poolStatistics().map(ConnectionPoolStatistics::getAverageWaitMillis).orElse(-1d);
+  }
+
+  @Override
+  public long getPoolMaxBorrowWaitMillis() {
+    return poolStatistics().map(ConnectionPoolStatistics::getMaxWaitMillis).orElse(-1L);
+  }
+
+  @Override
+  public int getPoolWaitingThreads() {
+    return poolStatistics().map(ConnectionPoolStatistics::getWaitingThreads).orElse(-1);
+  }
+
+  @Override
+  public int getPoolPeakWaitingThreads() {
+    return poolStatistics().map(ConnectionPoolStatistics::getPeakWaitingThreads).orElse(-1);
+  }
+
+  @Override
+  public long getPoolLeakedConnections() {
+    return poolStatistics().map(ConnectionPoolStatistics::getLeakCount).orElse(-1L);
+  }
+
+  @Override
+  public long[] getPoolBorrowWaitHistogram() {
+    return poolStatistics().map(ConnectionPoolStatistics::getWaitHistogram).orElse(new long[0]);
+  }
+
   @Override
   public Map<String, Object> attributes() {
     Map<String, Object> attributes = new LinkedHashMap<>();
@@ -117,12 +160,32 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
     attributes.put("Pool Max Wait (ms)", getPoolMaxWaitMillis());
     attributes.put("Pool Remove Abandoned", getPoolRemoveAbandoned());
     attributes.put("Pool Remove Abandoned Timeout (seconds)", getPoolRemoveAbandonedTimeoutSeconds());
+    poolStatistics().ifPresent(statistics -> completePoolStatisticsAttributes(attributes, statistics));
+  }
+
+  private static void completePoolStatisticsAttributes(Map<String, Object> attributes, ConnectionPoolStatistics statistics) {
+    attributes.put("Pool Borrowed Connections", statistics.getBorrowCount());
+    attributes.put("Pool Borrow Failures", statistics.getFailureCount());
+    attributes.put("Pool Average Borrow Wait (ms)", statistics.getAverageWaitMillis());
+    attributes.put("Pool Max Borrow Wait (ms)", statistics.getMaxWaitMillis());
+    attributes.put("Pool Waiting Threads", statistics.getWaitingThreads());
+    attributes.put("Pool Peak Waiting Threads", statistics.getPeakWaitingThreads());
+    attributes.put("Pool Leaked Connections", statistics.getLeakCount());
+    String[] labels = ConnectionPoolStatistics.waitHistogramLabels();
+    long[] histogram = statistics.getWaitHistogram();
+    for (int i = 0; i < labels.length; i++) {
+      attributes.put("Pool Borrow Wait " + labels[i], histogram[i]);
+    }
   }
 
   private BasicDataSource commonsDbcp() {
     return (BasicDataSource) dbClient.getDatabase().getDataSource();
   }
 
+  private Optional<ConnectionPoolStatistics> poolStatistics() {
+    return ProfiledDataSource.poolStatisticsOf(dbClient.getDatabase().getDataSource());
+  }
+
   private void completeDbAttributes(Map<String, Object> attributes) {
     DbSession dbSession = dbClient.openSession(false);
     Connection connection = dbSession.getConnection();
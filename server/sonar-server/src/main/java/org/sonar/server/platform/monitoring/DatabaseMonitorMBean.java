@@ -68,4 +68,48 @@ public interface DatabaseMonitorMBean {
    * Timeout in seconds before an abandoned connection can be removed.
    */
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  /**
+   * Number of connections borrowed from the pool since startup.
+   * This attribute and the following ones are -1, or empty for the histogram, when the data source
+   * does not record statistics of borrowed connections.
+   */
+  long getPoolBorrowCount();
+
+  /**
+   * Number of requests of connection which failed since startup, for example because the pool has been exhausted for more than {@link #getPoolMaxWaitMillis()}.
+   */
+  long getPoolBorrowFailureCount();
+
+  /**
+   * Average time spent by threads to get a connection from the pool.
+   */
+  double getPoolAverageBorrowWaitMillis();
+
+  /**
+   * Longest time spent by a thread to get a connection from the pool.
+   */
+  long getPoolMaxBorrowWaitMillis();
+
+  /**
+   * Number of threads which are currently waiting for a connection.
+   */
+  int getPoolWaitingThreads();
+
+  /**
+   * Maximum number of threads which have been waiting for a connection at the same time.
+   */
+  int getPoolPeakWaitingThreads();
+
+  /**
+   * Number of connections which have not been closed within the leak detection threshold since startup.
+   * Always zero if leak detection is disabled.
+   */
+  long getPoolLeakedConnections();
+
+  /**
+   * Number of connections borrowed since startup, by time spent waiting for them: less than 1ms, 10ms, 100ms, 1s, 10s,
+   * and more than 10s.
+   */
+  long[] getPoolBorrowWaitHistogram();
 }
@@ -127,6 +127,7 @@ import org.sonar.server.measure.ws.MeasuresWsModule;
 import org.sonar.server.measure.ws.TimeMachineWs;
 import org.sonar.server.metric.CoreCustomMetrics;
 import org.sonar.server.metric.DefaultMetricFinder;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.metric.ws.MetricsWsModule;
 import org.sonar.server.notification.DefaultNotificationManager;
 import org.sonar.server.notification.NotificationCenter;
@@ -145,6 +146,7 @@ import org.sonar.server.platform.BackendCleanup;
 import org.sonar.server.platform.PersistentSettings;
 import org.sonar.server.platform.ServerLogging;
 import org.sonar.server.platform.SettingsChangeNotifier;
+import org.sonar.server.platform.monitoring.CachesMonitor;
 import org.sonar.server.platform.monitoring.DatabaseMonitor;
 import org.sonar.server.platform.monitoring.EsMonitor;
 import org.sonar.server.platform.monitoring.JvmPropsMonitor;
@@ -204,6 +206,7 @@ import org.sonar.server.rule.CommonRuleDefinitionsImpl;
 import org.sonar.server.rule.DefaultRuleFinder;
 import org.sonar.server.rule.DeprecatedRulesDefinitionLoader;
 import org.sonar.server.rule.RubyRuleService;
+import org.sonar.server.rule.RuleCache;
 import org.sonar.server.rule.RuleCreator;
 import org.sonar.server.rule.RuleDefinitionsLoader;
 import org.sonar.server.rule.RuleDeleter;
@@ -357,6 +360,7 @@ public class PlatformLevel4 extends PlatformLevel {
       AnnotationRuleParser.class,
       XMLRuleParser.class,
       DefaultRuleFinder.class,
+      RuleCache.class,
       RuleOperations.class,
       RubyRuleService.class,
       DeprecatedRulesDefinitionLoader.class,
@@ -397,6 +401,7 @@ public class PlatformLevel4 extends PlatformLevel {
       MyFavouritesFilter.class,
       CoreCustomMetrics.class,
       DefaultMetricFinder.class,
+      MetricCache.class,
       TimeMachineWs.class,
 
       QualityGateModule.class,
@@ -566,6 +571,7 @@ public class PlatformLevel4 extends PlatformLevel {
       PluginsMonitor.class,
       JvmPropsMonitor.class,
       DatabaseMonitor.class,
+      CachesMonitor.class,
       MigrateDbAction.class,
       LogsAction.class,
       ChangeLogLevelAction.class,
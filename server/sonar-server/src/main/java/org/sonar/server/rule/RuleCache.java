@@ -0,0 +1,50 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.util.List;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.server.util.cache.ReferenceDataCache;
+
+/**
+ * Rules by key, shared by web services. Must be invalidated when rules are created, updated or deleted.
+ */
+public class RuleCache extends ReferenceDataCache<RuleKey, RuleDto> {
+
+  private static final long MAXIMUM_SIZE = 10_000L;
+
+  private final DbClient dbClient;
+
+  public RuleCache(DbClient dbClient) {
+    super("Rules", MAXIMUM_SIZE, RuleDto::getKey);
+    this.dbClient = dbClient;
+  }
+
+  /**
+   * Same as {@link org.sonar.db.rule.RuleDao#selectByKeys(DbSession, List)}, except that the returned
+   * rules must not be modified.
+   */
+  public List<RuleDto> selectByKeys(DbSession dbSession, List<RuleKey> keys) {
+    return getAll(keys, missingKeys -> dbClient.ruleDao().selectByKeys(dbSession, missingKeys));
+  }
+}
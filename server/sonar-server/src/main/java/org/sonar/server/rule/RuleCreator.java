@@ -51,12 +51,14 @@ public class RuleCreator {
   private final RuleIndexer ruleIndexer;
   private final DbClient dbClient;
   private final TypeValidations typeValidations;
+  private final RuleCache ruleCache;
 
-  public RuleCreator(System2 system2, RuleIndexer ruleIndexer, DbClient dbClient, TypeValidations typeValidations) {
+  public RuleCreator(System2 system2, RuleIndexer ruleIndexer, DbClient dbClient, TypeValidations typeValidations, RuleCache ruleCache) {
     this.system2 = system2;
     this.ruleIndexer = ruleIndexer;
     this.dbClient = dbClient;
     this.typeValidations = typeValidations;
+    this.ruleCache = ruleCache;
   }
 
   public RuleKey create(NewCustomRule newRule) {
@@ -89,6 +91,7 @@ public class RuleCreator {
     }
 
     dbSession.commit();
+    ruleCache.invalidateAll();
     ruleIndexer.index();
     return customRuleKey;
   }
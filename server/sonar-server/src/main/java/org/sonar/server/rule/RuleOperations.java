@@ -44,10 +44,12 @@ public class RuleOperations {
 
   private final RuleIndexer ruleIndexer;
   private final DbClient dbClient;
+  private final RuleCache ruleCache;
 
-  public RuleOperations(RuleIndexer ruleIndexer, DbClient dbClient) {
+  public RuleOperations(RuleIndexer ruleIndexer, DbClient dbClient, RuleCache ruleCache) {
     this.ruleIndexer = ruleIndexer;
     this.dbClient = dbClient;
+    this.ruleCache = ruleCache;
   }
 
   public void updateRule(RuleChange ruleChange, UserSession userSession) {
@@ -61,6 +63,7 @@ public class RuleOperations {
       if (needUpdate) {
         ruleIndexer.index();
         session.commit();
+        ruleCache.invalidateAll();
       }
     } catch (IllegalArgumentException e) {
       throw new BadRequestException(e.getMessage());
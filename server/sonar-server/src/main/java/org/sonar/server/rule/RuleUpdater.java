@@ -59,11 +59,13 @@ public class RuleUpdater {
   private final DbClient dbClient;
   private final RuleIndexer ruleIndexer;
   private final System2 system;
+  private final RuleCache ruleCache;
 
-  public RuleUpdater(DbClient dbClient, RuleIndexer ruleIndexer, System2 system) {
+  public RuleUpdater(DbClient dbClient, RuleIndexer ruleIndexer, System2 system, RuleCache ruleCache) {
     this.dbClient = dbClient;
     this.ruleIndexer = ruleIndexer;
     this.system = system;
+    this.ruleCache = ruleCache;
   }
 
   /**
@@ -96,6 +98,7 @@ public class RuleUpdater {
     update(dbSession, context.rule);
     updateParameters(dbSession, update, context);
     dbSession.commit();
+    ruleCache.invalidateAll();
     ruleIndexer.index();
     return true;
   }
@@ -19,36 +19,61 @@
  */
 package org.sonar.server.util.cache;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
-import org.sonar.server.util.ObjectInputStreamIterator;
 
 /**
  * Serialize and deserialize objects on disk. No search capabilities, only traversal (full scan).
+ * <p>
+ * Objects are encoded with a {@link DiskCacheCodec} (Java serialization by default) and grouped
+ * in blocks of about {@link #BLOCK_SIZE} bytes, which are optionally compressed with LZ4.
+ * </p>
  */
 public class DiskCache<O extends Serializable> {
 
+  static final int BLOCK_SIZE = 64 * 1024;
+  private static final byte RAW_BLOCK = 0;
+  private static final byte LZ4_BLOCK = 1;
+
   private final File file;
   private final System2 system2;
+  private final DiskCacheCodec<O> codec;
+  private final boolean compressed;
 
   public DiskCache(File file, System2 system2) {
+    this(file, system2, new JavaSerializationCodec<O>(), false);
+  }
+
+  public DiskCache(File file, System2 system2, DiskCacheCodec<O> codec, boolean compressed) {
     this.system2 = system2;
     this.file = file;
+    this.codec = codec;
+    this.compressed = compressed;
     OutputStream output = null;
     boolean threw = true;
     try {
-      // writes the serialization stream header required when calling "traverse()"
-      // on empty stream. Moreover it allows to call multiple times "newAppender()"
-      output = new ObjectOutputStream(new FileOutputStream(file));
-      output.flush();
+      // creates (or truncates) the file, so that "traverse()" can be called before any call to "newAppender()"
+      output = new FileOutputStream(file);
       threw = false;
     } catch (IOException e) {
       throw new IllegalStateException("Fail to write into file: " + file, e);
@@ -69,41 +94,157 @@ public class DiskCache<O extends Serializable> {
 
   public CloseableIterator<O> traverse() {
     try {
-      return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
+      return new BlockIterator(new DataInputStream(new BufferedInputStream(FileUtils.openInputStream(file), BLOCK_SIZE)));
     } catch (IOException e) {
       throw new IllegalStateException("Fail to traverse file: " + file, e);
     }
   }
 
   public class DiskAppender implements AutoCloseable {
-    private final ObjectOutputStream output;
+    private final DataOutputStream output;
+    private final BlockBuffer block = new BlockBuffer();
+    private final DataOutputStream blockOutput = new DataOutputStream(block);
+    private final LZ4Compressor compressor;
 
     private DiskAppender() {
       try {
-        this.output = new ObjectOutputStream(new FileOutputStream(file, true)) {
-          @Override
-          protected void writeStreamHeader() throws IOException {
-            // do not write stream headers as it's already done in constructor of DiskCache
-          }
-        };
+        this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), BLOCK_SIZE));
       } catch (IOException e) {
         throw new IllegalStateException("Fail to open file " + file, e);
       }
+      this.compressor = compressed ? LZ4Factory.fastestInstance().fastCompressor() : null;
     }
 
     public DiskAppender append(O object) {
       try {
-        output.writeObject(object);
-        output.reset();
+        codec.encode(object, blockOutput);
+        if (block.size() >= BLOCK_SIZE) {
+          writeBlock();
+        }
         return this;
       } catch (IOException e) {
         throw new IllegalStateException("Fail to write into file " + file, e);
       }
     }
 
+    private void writeBlock() throws IOException {
+      int rawLength = block.size();
+      if (compressor == null) {
+        output.writeByte(RAW_BLOCK);
+        output.writeInt(rawLength);
+        output.write(block.buffer(), 0, rawLength);
+      } else {
+        byte[] compressedBytes = new byte[compressor.maxCompressedLength(rawLength)];
+        int compressedLength = compressor.compress(block.buffer(), 0, rawLength, compressedBytes, 0, compressedBytes.length);
+        output.writeByte(LZ4_BLOCK);
+        output.writeInt(rawLength);
+        output.writeInt(compressedLength);
+        output.write(compressedBytes, 0, compressedLength);
+      }
+      block.reset();
+    }
+
     @Override
     public void close() {
+      try {
+        if (block.size() > 0) {
+          writeBlock();
+        }
+      } catch (IOException e) {
+        IOUtils.closeQuietly(output);
+        throw new IllegalStateException("Fail to write into file " + file, e);
+      }
       system2.close(output);
     }
   }
+
+  private class BlockIterator extends CloseableIterator<O> {
+    private final DataInputStream input;
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+    private ByteArrayInputStream block = null;
+    private DataInputStream blockInput = null;
+
+    private BlockIterator(DataInputStream input) {
+      this.input = input;
+    }
+
+    @Override
+    protected O doNext() {
+      try {
+        if ((block == null || block.available() == 0) && !readBlock()) {
+          return null;
+        }
+        return codec.decode(blockInput);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read file " + file, e);
+      }
+    }
+
+    private boolean readBlock() throws IOException {
+      int blockType = input.read();
+      if (blockType < 0) {
+        return false;
+      }
+      int rawLength = input.readInt();
+      byte[] raw = new byte[rawLength];
+      if (blockType == LZ4_BLOCK) {
+        byte[] compressedBytes = new byte[input.readInt()];
+        input.readFully(compressedBytes);
+        decompressor.decompress(compressedBytes, 0, raw, 0, rawLength);
+      } else if (blockType == RAW_BLOCK) {
+        input.readFully(raw);
+      } else {
+        throw new IllegalStateException("Unsupported block type " + blockType + " in file " + file);
+      }
+      block = new ByteArrayInputStream(raw);
+      blockInput = new DataInputStream(block);
+      return true;
+    }
+
+    @Override
+    protected void doClose() {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  /**
+   * Gives access to the internal buffer in order to avoid a copy when flushing a block.
+   */
+  private static class BlockBuffer extends ByteArrayOutputStream {
+    BlockBuffer() {
+      super(BLOCK_SIZE + BLOCK_SIZE / 4);
+    }
+
+    byte[] buffer() {
+      return buf;
+    }
+  }
+
+  /**
+   * Default codec, based on Java serialization. Each object is written in its own serialization stream,
+   * prefixed by its length.
+   */
+  private static class JavaSerializationCodec<O> implements DiskCacheCodec<O> {
+    @Override
+    public void encode(O object, DataOutput output) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+        objectOutput.writeObject(object);
+      }
+      output.writeInt(bytes.size());
+      output.write(bytes.toByteArray());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public O decode(DataInput input) throws IOException {
+      byte[] bytes = new byte[input.readInt()];
+      input.readFully(bytes);
+      try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+        return (O) objectInput.readObject();
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException("Fail to deserialize object", e);
+      }
+    }
+  }
 }
@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache of data which is read by most requests but rarely updated, like metrics or rules.
+ * It is shared by all threads, reads do not acquire any global lock.
+ * <p/>
+ * Missing values are loaded by batch with the function given by the caller, so that they are read within the DB
+ * session of the request. Cached values are shared between requests and must not be modified.
+ * <p/>
+ * Any change of the underlying data must be followed by a call to {@link #invalidateAll()}. Values also expire
+ * one hour after being loaded, in case a change is made outside of the web server.
+ */
+public abstract class ReferenceDataCache<K, V> {
+
+  private static final long EXPIRATION_MINUTES = 60L;
+
+  private final String name;
+  private final Function<V, K> keyFunction;
+  private final Cache<K, V> cache;
+  // incremented on each invalidation, so that values loaded before the invalidation are not cached. Guarded by this.
+  private long generation = 0L;
+
+  protected ReferenceDataCache(String name, long maximumSize, Function<V, K> keyFunction) {
+    this.name = name;
+    this.keyFunction = keyFunction;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumSize(maximumSize)
+      .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * Values of the requested keys, in the order of the keys. Keys which are not found are ignored and are requested to the
+   * loader again on next calls.
+   *
+   * @param loader loads the values of the given keys which are not in cache. Keys which are not found must be ignored.
+   */
+  protected List<V> getAll(Collection<K> keys, Function<List<K>, List<V>> loader) {
+    Set<K> distinctKeys = new LinkedHashSet<>(keys);
+    Map<K, V> values = new HashMap<>(cache.getAllPresent(distinctKeys));
+    if (values.size() < distinctKeys.size()) {
+      long loadedGeneration = currentGeneration();
+      List<K> missingKeys = new ArrayList<>();
+      for (K key : distinctKeys) {
+        if (!values.containsKey(key)) {
+          missingKeys.add(key);
+        }
+      }
+      Map<K, V> loaded = new HashMap<>();
+      for (V value : loader.apply(missingKeys)) {
+        loaded.put(keyFunction.apply(value), value);
+      }
+      putIfNotInvalidated(loaded, loadedGeneration);
+      values.putAll(loaded);
+    }
+
+    List<V> result = new ArrayList<>(values.size());
+    for (K key : distinctKeys) {
+      V value = values.get(key);
+      if (value != null) {
+        result.add(value);
+      }
+    }
+    return result;
+  }
+
+  private synchronized long currentGeneration() {
+    return generation;
+  }
+
+  private synchronized void putIfNotInvalidated(Map<K, V> values, long loadedGeneration) {
+    if (loadedGeneration == generation) {
+      cache.putAll(values);
+    }
+  }
+
+  public synchronized void invalidateAll() {
+    generation++;
+    cache.invalidateAll();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
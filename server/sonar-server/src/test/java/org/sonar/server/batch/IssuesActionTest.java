@@ -19,8 +19,10 @@
  */
 package org.sonar.server.batch;
 
+import com.google.common.collect.Lists;
 import java.io.ByteArrayInputStream;
 import java.util.Arrays;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Rule;
@@ -50,6 +52,7 @@ import org.sonar.server.ws.WsTester;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.api.utils.DateUtils.parseDateTime;
 import static org.mockito.Mockito.mock;
 
 public class IssuesActionTest {
@@ -169,6 +172,39 @@ public class IssuesActionTest {
     assertThat(serverIssue.getAssigneeLogin()).isEqualTo("john");
   }
 
+  @Test
+  public void issues_changed_since_date() throws Exception {
+    ComponentDto project = ComponentTesting.newProjectDto(PROJECT_UUID).setKey(PROJECT_KEY);
+    ComponentDto module = ComponentTesting.newModuleDto(MODULE_UUID, project).setKey(MODULE_KEY);
+    ComponentDto file = ComponentTesting.newFileDto(module, null, FILE_UUID).setKey(FILE_KEY).setPath("src/org/struts/Action.java");
+    db.getDbClient().componentDao().insert(db.getSession(), project, module, file);
+    db.getSession().commit();
+
+    indexIssues(
+      IssueTesting.newDoc("OLD", file).setTechnicalUpdateDate(parseDateTime("2016-01-01T10:00:00+0000")),
+      IssueTesting.newDoc("UPDATED", file).setTechnicalUpdateDate(parseDateTime("2016-06-01T10:00:00+0000")),
+      IssueTesting.newDoc("CLOSED", file).setStatus("CLOSED").setResolution("FIXED").setTechnicalUpdateDate(parseDateTime("2016-06-02T10:00:00+0000")));
+
+    addBrowsePermissionOnComponent(PROJECT_KEY);
+    WsTester.TestRequest request = tester.newGetRequest("batch", "issues")
+      .setParam("key", PROJECT_KEY)
+      .setParam("changedSince", "2016-03-01T00:00:00+0000");
+
+    ByteArrayInputStream input = new ByteArrayInputStream(request.execute().output());
+    List<ServerIssue> serverIssues = Lists.newArrayList();
+    while (true) {
+      ServerIssue serverIssue = ServerIssue.parseDelimitedFrom(input);
+      if (serverIssue == null) {
+        break;
+      }
+      serverIssues.add(serverIssue);
+    }
+    assertThat(serverIssues).extracting("key").containsOnly("UPDATED", "CLOSED");
+    assertThat(serverIssues).extracting("status").containsOnly("OPEN", "CLOSED");
+    assertThat(serverIssues).extracting("updatedAt").containsOnly(
+      parseDateTime("2016-06-01T10:00:00+0000").getTime(), parseDateTime("2016-06-02T10:00:00+0000").getTime());
+  }
+
   @Test
   public void issues_from_module() throws Exception {
     ComponentDto project = ComponentTesting.newProjectDto(PROJECT_UUID).setKey(PROJECT_KEY);
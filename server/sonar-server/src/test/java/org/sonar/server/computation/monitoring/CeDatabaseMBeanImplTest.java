@@ -24,13 +24,20 @@ import javax.annotation.CheckForNull;
 import javax.management.InstanceNotFoundException;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
+import org.apache.commons.dbcp.BasicDataSource;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
+import org.sonar.db.profiling.NullConnectionInterceptor;
+import org.sonar.db.profiling.ProfiledDataSource;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class CeDatabaseMBeanImplTest {
 
@@ -59,6 +66,26 @@ public class CeDatabaseMBeanImplTest {
     assertThat(section.getAttributes(0).getLongValue()).isGreaterThanOrEqualTo(0);
   }
 
+  @Test
+  public void export_pool_statistics_if_recorded_by_data_source() {
+    DbClient dbClient = mock(DbClient.class, RETURNS_DEEP_STUBS);
+    when(dbClient.getDatabase().getDataSource()).thenReturn(new ProfiledDataSource(new BasicDataSource(), NullConnectionInterceptor.INSTANCE));
+    underTest = new CeDatabaseMBeanImpl(dbClient);
+
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+
+    assertThat(section.getAttributesCount()).isEqualTo(22);
+    assertThat(section.getAttributes(9).getKey()).isEqualTo("Pool Borrowed Connections");
+    assertThat(underTest.getPoolBorrowCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void pool_statistics_are_not_available_if_not_recorded_by_data_source() {
+    assertThat(underTest.getPoolBorrowCount()).isEqualTo(-1L);
+    assertThat(underTest.getPoolAverageBorrowWaitMillis()).isEqualTo(-1d);
+    assertThat(underTest.getPoolBorrowWaitHistogram()).isEmpty();
+  }
+
   @CheckForNull
   private ObjectInstance getMBean() throws Exception {
     try {
@@ -27,7 +27,6 @@ import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
-import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.queue.CeTask;
@@ -58,7 +57,7 @@ public class InternalCeQueueImplTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
-  System2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
+  TestSystem2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
 
   @Rule
   public DbTester dbTester = DbTester.create(system2);
@@ -238,6 +237,16 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_adds_time_spent_in_queue_to_waiting_time() throws Exception {
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    system2.setNow(1_450_000_001_234L);
+
+    underTest.peek();
+
+    assertThat(queueStatus.getWaitingTime()).isEqualTo(1_234L);
+  }
+
   @Test
   public void peek_nothing_if_paused() throws Exception {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
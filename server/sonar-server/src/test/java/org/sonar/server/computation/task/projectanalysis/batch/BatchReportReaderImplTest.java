@@ -25,6 +25,7 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -288,6 +289,18 @@ public class BatchReportReaderImplTest {
     res.close();
   }
 
+  @Test
+  public void readSourceInputsHash_returns_null_when_file_does_not_exist() {
+    assertThat(underTest.readSourceInputsHash(COMPONENT_REF)).isNull();
+  }
+
+  @Test
+  public void verify_readSourceInputsHash() {
+    writer.writeSourceInputsHash(COMPONENT_REF, "abcd");
+
+    assertThat(underTest.readSourceInputsHash(COMPONENT_REF)).isEqualTo("abcd");
+  }
+
   @Test
   public void readTests_returns_empty_CloseableIterator_when_file_does_not_exist() {
     assertThat(underTest.readTests(COMPONENT_REF)).isEmpty();
@@ -315,4 +328,24 @@ public class BatchReportReaderImplTest {
     assertThat(res).containsExactly(COVERAGE_DETAIL_1, COVERAGE_DETAIL_2);
     res.close();
   }
+
+  @Test
+  public void read_report_from_zip_file() throws IOException {
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setRootComponentRef(COMPONENT_REF).build());
+    writer.writeTests(COMPONENT_REF, of(TEST_1, TEST_2));
+    FileUtils.writeStringToFile(writer.getSourceFile(COMPONENT_REF), "1\n2\n3");
+    File zip = tempFolder.newFile();
+    ZipUtils.zipDir(writer.getSourceFile(COMPONENT_REF).getParentFile(), zip);
+
+    BatchReportReaderImpl zipReader = new BatchReportReaderImpl(new ImmutableBatchReportDirectoryHolder(zip));
+
+    assertThat(zipReader.readMetadata().getRootComponentRef()).isEqualTo(COMPONENT_REF);
+    try (CloseableIterator<ScannerReport.Test> tests = zipReader.readTests(COMPONENT_REF);
+      CloseableIterator<String> source = zipReader.readFileSource(COMPONENT_REF).get()) {
+      assertThat(tests).containsExactly(TEST_1, TEST_2);
+      assertThat(source).containsExactly("1", "2", "3");
+    }
+    assertThat(zipReader.readChangesets(COMPONENT_REF)).isNull();
+    zipReader.close();
+  }
 }
@@ -50,6 +50,7 @@ public class BatchReportReaderRule implements TestRule, BatchReportReader {
   private Map<Integer, List<ScannerReport.SyntaxHighlightingRule>> syntaxHighlightings = new HashMap<>();
   private Map<Integer, List<ScannerReport.LineCoverage>> coverages = new HashMap<>();
   private Map<Integer, List<String>> fileSources = new HashMap<>();
+  private Map<Integer, String> sourceInputsHashes = new HashMap<>();
   private Map<Integer, List<ScannerReport.Test>> tests = new HashMap<>();
   private Map<Integer, List<ScannerReport.CoverageDetail>> coverageDetails = new HashMap<>();
 
@@ -80,6 +81,7 @@ public class BatchReportReaderRule implements TestRule, BatchReportReader {
     this.syntaxHighlightings.clear();
     this.coverages.clear();
     this.fileSources.clear();
+    this.sourceInputsHashes.clear();
     this.tests.clear();
     this.coverageDetails.clear();
   }
@@ -263,6 +265,17 @@ public class BatchReportReaderRule implements TestRule, BatchReportReader {
     return this;
   }
 
+  @Override
+  @CheckForNull
+  public String readSourceInputsHash(int fileRef) {
+    return sourceInputsHashes.get(fileRef);
+  }
+
+  public BatchReportReaderRule putSourceInputsHash(int fileRef, String hash) {
+    this.sourceInputsHashes.put(fileRef, hash);
+    return this;
+  }
+
   @Override
   public CloseableIterator<ScannerReport.Test> readTests(int testFileRef) {
     List<ScannerReport.Test> res = this.tests.get(testFileRef);
@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.filemove.FileMoveDetectionStep.MIN_REQUIRED_SCORE;
+
+public class LineHashesSignatureTest {
+
+  private Map<String, Integer> idsByLineHash = new HashMap<>();
+
+  @Test
+  public void same_files_can_reach_max_score() {
+    LineHashesSignature left = LineHashesSignature.register(asList("a", "b", "c"), idsByLineHash);
+    LineHashesSignature right = LineHashesSignature.lookup(asList("a", "b", "c"), idsByLineHash);
+
+    assertThat(right.canReachScore(left, 100)).isTrue();
+  }
+
+  @Test
+  public void files_without_line_hashes_can_not_match() {
+    LineHashesSignature left = LineHashesSignature.register(null, idsByLineHash);
+    LineHashesSignature right = LineHashesSignature.lookup(asList("a"), idsByLineHash);
+
+    assertThat(right.canReachScore(left, 0)).isFalse();
+    assertThat(left.canReachScore(left, 0)).isFalse();
+  }
+
+  @Test
+  public void files_with_very_different_sizes_can_not_match() {
+    LineHashesSignature left = LineHashesSignature.register(asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"), idsByLineHash);
+    LineHashesSignature right = LineHashesSignature.lookup(asList("a", "b", "c", "d", "e", "f", "g", "h"), idsByLineHash);
+
+    assertThat(right.canReachScore(left, 80)).isTrue();
+    assertThat(right.canReachScore(left, 81)).isFalse();
+  }
+
+  @Test
+  public void files_with_different_lines_can_not_match() {
+    LineHashesSignature left = LineHashesSignature.register(asList("a", "b", "c", "d"), idsByLineHash);
+    LineHashesSignature right = LineHashesSignature.lookup(asList("a", "b", "x", "y"), idsByLineHash);
+
+    assertThat(right.canReachScore(left, 50)).isTrue();
+    assertThat(right.canReachScore(left, 51)).isFalse();
+  }
+
+  @Test
+  public void duplicated_lines_are_counted_once_per_occurrence() {
+    LineHashesSignature left = LineHashesSignature.register(asList("a", "a", "b", "b"), idsByLineHash);
+    LineHashesSignature right = LineHashesSignature.lookup(asList("a", "b", "b", "b"), idsByLineHash);
+
+    assertThat(right.canReachScore(left, 75)).isTrue();
+    assertThat(right.canReachScore(left, 76)).isFalse();
+  }
+
+  @Test
+  public void never_prunes_pairs_reaching_min_score() {
+    Random random = new Random(42L);
+    SourceSimilarityImpl similarity = new SourceSimilarityImpl();
+    for (int i = 0; i < 500; i++) {
+      List<String> left = randomLines(random);
+      List<String> right = new ArrayList<>(left);
+      for (int change = random.nextInt(4); change > 0 && !right.isEmpty(); change--) {
+        right.set(random.nextInt(right.size()), "changed" + random.nextInt(3));
+      }
+      if (random.nextBoolean()) {
+        right.add("added");
+      }
+
+      LineHashesSignature leftSignature = LineHashesSignature.register(left, idsByLineHash);
+      LineHashesSignature rightSignature = LineHashesSignature.lookup(right, idsByLineHash);
+
+      if (similarity.score(left, right) >= MIN_REQUIRED_SCORE) {
+        assertThat(rightSignature.canReachScore(leftSignature, MIN_REQUIRED_SCORE)).isTrue();
+      }
+    }
+  }
+
+  private static List<String> randomLines(Random random) {
+    int size = 1 + random.nextInt(40);
+    List<String> lines = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      lines.add("line" + random.nextInt(10));
+    }
+    return lines;
+  }
+}
@@ -20,16 +20,12 @@
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import org.junit.Test;
 
-import static com.google.common.collect.ImmutableSet.of;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.server.computation.task.projectanalysis.filemove.FileMoveDetectionStep.MIN_REQUIRED_SCORE;
 
@@ -39,30 +35,26 @@ public class MatchesByScoreTest {
 
   @Test
   public void creates_returns_always_the_same_instance_of_maxScore_is_less_than_min_required_score() {
-    Set<String> doesNotMatterDbFileKeys = Collections.emptySet();
-    Map<String, FileSimilarity.File> doesNotMatterReportFiles = Collections.emptyMap();
-    int[][] doesNotMatterScores = new int[0][0];
+    List<ScoreMatrix.ScoreFile> doesNotMatterScores = Collections.emptyList();
 
-    ScoreMatrix scoreMatrix1 = new ScoreMatrix(doesNotMatterDbFileKeys, doesNotMatterReportFiles, doesNotMatterScores, MIN_REQUIRED_SCORE - 1);
+    ScoreMatrix scoreMatrix1 = new ScoreMatrix(doesNotMatterScores, MIN_REQUIRED_SCORE - 1);
     MatchesByScore matchesByScore = MatchesByScore.create(scoreMatrix1);
 
     assertThat(matchesByScore.getSize()).isEqualTo(0);
     assertThat(matchesByScore).isEmpty();
 
-    ScoreMatrix scoreMatrix2 = new ScoreMatrix(doesNotMatterDbFileKeys, doesNotMatterReportFiles, doesNotMatterScores, MIN_REQUIRED_SCORE - 5);
+    ScoreMatrix scoreMatrix2 = new ScoreMatrix(doesNotMatterScores, MIN_REQUIRED_SCORE - 5);
     assertThat(MatchesByScore.create(scoreMatrix2)).isSameAs(matchesByScore);
   }
 
   @Test
   public void creates_supports_score_with_same_value_as_min_required_score() {
     int maxScore = 92;
-    int[][] scores = {
-      {maxScore},
-      {8},
-      {85},
-    };
-    MatchesByScore matchesByScore = MatchesByScore.create(new ScoreMatrix(
-      of("A", "B", "C"), ImmutableMap.of("1", fileOf("1")), scores, maxScore));
+    List<ScoreMatrix.ScoreFile> scores = ImmutableList.of(
+      new ScoreMatrix.ScoreFile("A", "1", maxScore),
+      new ScoreMatrix.ScoreFile("B", "1", 8),
+      new ScoreMatrix.ScoreFile("C", "1", 85));
+    MatchesByScore matchesByScore = MatchesByScore.create(new ScoreMatrix(scores, maxScore));
 
     assertThat(matchesByScore.getSize()).isEqualTo(2);
     assertThat(Lists.newArrayList(matchesByScore)).isEqualTo(Arrays.asList(
@@ -76,8 +68,4 @@ public class MatchesByScoreTest {
       ImmutableList.of(new Match("C", "1")) // 85
     ));
   }
-
-  private static FileSimilarity.File fileOf(String key) {
-    return new FileSimilarity.File("path of " + key, null, null);
-  }
 }
@@ -0,0 +1,191 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.issue.IssueChangeContext;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DefaultIssueCodecTest {
+
+  private static final Date SOME_DATE = new Date(1_450_000_000_000L);
+
+  private DefaultIssueCodec underTest = new DefaultIssueCodec();
+
+  @Test
+  public void encode_and_decode_all_fields() throws Exception {
+    DbIssues.Locations locations = DbIssues.Locations.newBuilder()
+      .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(1).setEndLine(2))
+      .build();
+    DefaultIssueComment comment = DefaultIssueComment.create("ISSUE_1", "john", "a comment")
+      .setKey("COMMENT_1")
+      .setCreatedAt(SOME_DATE)
+      .setUpdatedAt(SOME_DATE);
+    FieldDiffs previousChange = new FieldDiffs()
+      .setIssueKey("ISSUE_1")
+      .setUserLogin("jane")
+      .setCreationDate(SOME_DATE)
+      .setDiff("effort", 10L, 20L);
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_1")
+      .setType(RuleType.BUG)
+      .setComponentUuid("FILE_UUID")
+      .setComponentKey("FILE_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("java", "S001"))
+      .setLanguage("java")
+      .setSeverity("MAJOR")
+      .setManualSeverity(true)
+      .setMessage("the message")
+      .setLine(42)
+      .setGap(3.5)
+      .setEffort(Duration.create(15L))
+      .setStatus("OPEN")
+      .setAssignee("john")
+      .setChecksum("abc")
+      .setAttribute("jira", "FOO-123")
+      .setAuthorLogin("john")
+      .setTags(newHashSet("tag1", "tag2"))
+      .setLocations(locations)
+      .setCreationDate(SOME_DATE)
+      .setUpdateDate(SOME_DATE)
+      .setNew(false)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(1_000L)
+      .addComment(comment)
+      .addChange(previousChange)
+      .setFieldChange(IssueChangeContext.createScan(SOME_DATE), "severity", "MINOR", "MAJOR");
+
+    DefaultIssue decoded = encodeAndDecode(issue);
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_1");
+    assertThat(decoded.type()).isEqualTo(RuleType.BUG);
+    assertThat(decoded.componentUuid()).isEqualTo("FILE_UUID");
+    assertThat(decoded.componentKey()).isEqualTo("FILE_KEY");
+    assertThat(decoded.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(decoded.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(decoded.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(decoded.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(decoded.ruleKey()).isEqualTo(RuleKey.of("java", "S001"));
+    assertThat(decoded.language()).isEqualTo("java");
+    assertThat(decoded.severity()).isEqualTo("MAJOR");
+    assertThat(decoded.manualSeverity()).isTrue();
+    assertThat(decoded.message()).isEqualTo("the message");
+    assertThat(decoded.line()).isEqualTo(42);
+    assertThat(decoded.gap()).isEqualTo(3.5);
+    assertThat(decoded.effortInMinutes()).isEqualTo(15L);
+    assertThat(decoded.status()).isEqualTo("OPEN");
+    assertThat(decoded.resolution()).isNull();
+    assertThat(decoded.assignee()).isEqualTo("john");
+    assertThat(decoded.checksum()).isEqualTo("abc");
+    assertThat(decoded.attributes()).containsOnly(entry("jira", "FOO-123"));
+    assertThat(decoded.authorLogin()).isEqualTo("john");
+    assertThat(decoded.tags()).containsOnly("tag1", "tag2");
+    assertThat((DbIssues.Locations) decoded.getLocations()).isEqualTo(locations);
+    assertThat(decoded.creationDate()).isEqualTo(SOME_DATE);
+    assertThat(decoded.updateDate()).isEqualTo(SOME_DATE);
+    assertThat(decoded.closeDate()).isNull();
+    assertThat(decoded.isNew()).isFalse();
+    assertThat(decoded.isBeingClosed()).isTrue();
+    assertThat(decoded.isOnDisabledRule()).isTrue();
+    assertThat(decoded.isChanged()).isTrue();
+    assertThat(decoded.mustSendNotifications()).isTrue();
+    assertThat(decoded.selectedAt()).isEqualTo(1_000L);
+
+    assertThat(decoded.comments()).hasSize(1);
+    DefaultIssueComment decodedComment = (DefaultIssueComment) decoded.comments().get(0);
+    assertThat(decodedComment.key()).isEqualTo("COMMENT_1");
+    assertThat(decodedComment.userLogin()).isEqualTo("john");
+    assertThat(decodedComment.markdownText()).isEqualTo("a comment");
+    assertThat(decodedComment.createdAt()).isEqualTo(SOME_DATE);
+
+    assertThat(decoded.changes()).hasSize(2);
+    assertThat(decoded.changes().get(0).toString()).isEqualTo("effort=10|20");
+    assertThat(decoded.changes().get(0).get("effort").newValueLong()).isEqualTo(20L);
+    assertThat(decoded.changes().get(0).userLogin()).isEqualTo("jane");
+    assertThat(decoded.currentChange().toString()).isEqualTo("severity=MINOR|MAJOR");
+    assertThat(decoded.changes().get(1)).isSameAs(decoded.currentChange());
+  }
+
+  @Test
+  public void encode_and_decode_issue_without_optional_fields() throws Exception {
+    DefaultIssue issue = new DefaultIssue().setKey("ISSUE_1");
+
+    DefaultIssue decoded = encodeAndDecode(issue);
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_1");
+    assertThat(decoded.type()).isNull();
+    assertThat(decoded.ruleKey()).isNull();
+    assertThat(decoded.line()).isNull();
+    assertThat(decoded.gap()).isNull();
+    assertThat(decoded.effort()).isNull();
+    assertThat(decoded.status()).isNull();
+    assertThat(decoded.creationDate()).isNull();
+    assertThat((Object) decoded.getLocations()).isNull();
+    assertThat(decoded.attributes()).isEmpty();
+    assertThat(decoded.tags()).isEmpty();
+    assertThat(decoded.comments()).isEmpty();
+    assertThat(decoded.changes()).isEmpty();
+    assertThat(decoded.currentChange()).isNull();
+    assertThat(decoded.isNew()).isTrue();
+  }
+
+  @Test
+  public void encode_and_decode_several_issues_in_sequence() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    underTest.encode(new DefaultIssue().setKey("ISSUE_1").setMessage("first"), output);
+    underTest.encode(new DefaultIssue().setKey("ISSUE_2").setMessage("second"), output);
+
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    assertThat(underTest.decode(input).message()).isEqualTo("first");
+    assertThat(underTest.decode(input).message()).isEqualTo("second");
+    assertThat(input.available()).isEqualTo(0);
+  }
+
+  private DefaultIssue encodeAndDecode(DefaultIssue issue) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    underTest.encode(issue, new DataOutputStream(bytes));
+    return underTest.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+}
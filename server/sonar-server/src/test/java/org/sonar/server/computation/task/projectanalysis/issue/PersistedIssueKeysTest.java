@@ -0,0 +1,56 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistedIssueKeysTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private PersistedIssueKeys underTest = new PersistedIssueKeys();
+
+  @Test
+  public void empty_by_default() {
+    assertThat(underTest.getKeys()).isEmpty();
+  }
+
+  @Test
+  public void add_keys() {
+    underTest.add("ABC");
+    underTest.add("DEF");
+    underTest.add("ABC");
+
+    assertThat(underTest.getKeys()).containsOnly("ABC", "DEF");
+  }
+
+  @Test
+  public void fail_to_add_null_key() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("Issue key cannot be null");
+
+    underTest.add(null);
+  }
+}
@@ -19,31 +19,27 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
-import org.junit.Rule;
+import com.google.common.collect.ImmutableSet;
 import org.junit.Test;
-import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssueKeys;
 import org.sonar.server.issue.index.IssueIndexer;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
-import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
-import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
 
 public class IndexIssuesStepTest {
 
-  static String PROJECT_UUID = "PROJECT_UUID";
-
-  @Rule
-  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
-    .setRoot(builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey("PROJECT_KEY").build());
+  PersistedIssueKeys persistedIssueKeys = new PersistedIssueKeys();
 
   @Test
-  public void call_indexer() {
+  public void call_indexer_with_persisted_issue_keys() {
+    persistedIssueKeys.add("ISSUE_1");
+    persistedIssueKeys.add("ISSUE_2");
     IssueIndexer issueIndexer = mock(IssueIndexer.class);
-    IndexIssuesStep underTest = new IndexIssuesStep(issueIndexer, treeRootHolder);
+    IndexIssuesStep underTest = new IndexIssuesStep(issueIndexer, persistedIssueKeys);
 
     underTest.execute();
 
-    verify(issueIndexer).index(PROJECT_UUID);
+    verify(issueIndexer).indexByKeys(ImmutableSet.of("ISSUE_1", "ISSUE_2"));
   }
 }
@@ -38,6 +38,7 @@ import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplicate;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
 import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepositoryRule;
@@ -79,6 +80,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   @Rule
   public DuplicationRepositoryRule duplicationRepository = DuplicationRepositoryRule.create(treeRootHolder);
 
+  private CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder = mock(CrossProjectDuplicationStatusHolder.class);
   private DbClient dbClient = dbTester.getDbClient();
   private DbSession session = dbTester.getSession();
 
@@ -87,7 +89,8 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   @Before
   public void setup() {
     when(system2.now()).thenReturn(NOW);
-    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository,
+      crossProjectDuplicationStatusHolder);
   }
 
   @Override
@@ -455,6 +458,96 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getRevision()).isNull();
   }
 
+  @Test
+  public void persist_inputs_hash() {
+    initBasicReport(1);
+    reportReader.putSourceInputsHash(FILE_REF, "INPUTS_HASH");
+
+    underTest.execute();
+
+    assertThat(dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID).getInputsHash()).isEqualTo("INPUTS_HASH");
+  }
+
+  @Test
+  public void not_compute_sources_when_inputs_hash_has_not_changed() {
+    long past = 150000L;
+    insertPreviousSource("INPUTS_HASH", past);
+    // sources are not read, so the report does not need to contain them
+    initBasicReport(0);
+    reportReader.putSourceInputsHash(FILE_REF, "INPUTS_HASH");
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getSourceData().getLines(0).getSource()).isEqualTo("previous line");
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(past);
+  }
+
+  @Test
+  public void update_sources_when_inputs_hash_has_changed() {
+    insertPreviousSource("INPUTS_HASH", 150000L);
+    initBasicReport(1);
+    reportReader.putSourceInputsHash(FILE_REF, "OTHER_INPUTS_HASH");
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getSourceData().getLines(0).getSource()).isEqualTo("line1");
+    assertThat(fileSourceDto.getInputsHash()).isEqualTo("OTHER_INPUTS_HASH");
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
+  }
+
+  @Test
+  public void ignore_inputs_hash_when_cross_project_duplication_is_enabled() {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    insertPreviousSource("INPUTS_HASH", 150000L);
+    initBasicReport(1);
+    reportReader.putSourceInputsHash(FILE_REF, "INPUTS_HASH");
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getSourceData().getLines(0).getSource()).isEqualTo("line1");
+    assertThat(fileSourceDto.getInputsHash()).isNull();
+  }
+
+  @Test
+  public void persist_sources_of_many_files() {
+    int numberOfFiles = 250;
+    ReportComponent.Builder module = ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY");
+    for (int i = 0; i < numberOfFiles; i++) {
+      int ref = 10 + i;
+      module.addChildren(ReportComponent.builder(Component.Type.FILE, ref).setUuid("FILE_" + i).setKey("MODULE_KEY:src/Foo" + i + ".java").build());
+      reportReader.putComponent(ScannerReport.Component.newBuilder().setRef(ref).setType(ComponentType.FILE).setLines(1).build());
+      fileSourceRepository.addLine(ref, "line of file " + i);
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(module.build()).build());
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(numberOfFiles);
+    DbFileSources.Data data = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE_" + (numberOfFiles - 1)).getSourceData();
+    assertThat(data.getLines(0).getSource()).isEqualTo("line of file " + (numberOfFiles - 1));
+  }
+
+  private void insertPreviousSource(String inputsHash, long updatedAt) {
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setSrcHash("PREVIOUS_SRC_HASH")
+      .setLineHashes("PREVIOUS_LINE_HASH")
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder()
+          .setLine(1)
+          .setSource("previous line")
+          .build())
+        .build())
+      .setInputsHash(inputsHash)
+      .setCreatedAt(updatedAt)
+      .setUpdatedAt(updatedAt));
+    dbTester.getSession().commit();
+  }
+
   private void initBasicReport(int numberOfLines) {
     treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(
@@ -43,6 +43,7 @@ import org.sonar.db.rule.RuleTesting;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssueKeys;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
@@ -72,6 +73,8 @@ public class PersistIssuesStepTest extends BaseStepTest {
 
   IssueCache issueCache;
 
+  PersistedIssueKeys persistedIssueKeys = new PersistedIssueKeys();
+
   ComputationStep step;
 
   @Override
@@ -86,7 +89,7 @@ public class PersistIssuesStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(NOW);
     reportReader.setMetadata(ScannerReport.Metadata.getDefaultInstance());
 
-    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache);
+    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache, persistedIssueKeys);
   }
 
   @After
@@ -126,6 +129,7 @@ public class PersistIssuesStepTest extends BaseStepTest {
     assertThat(result.getSeverity()).isEqualTo(Severity.BLOCKER);
     assertThat(result.getStatus()).isEqualTo(Issue.STATUS_OPEN);
     assertThat(result.getType()).isEqualTo(RuleType.BUG.getDbConstant());
+    assertThat(persistedIssueKeys.getKeys()).containsOnly("ISSUE");
   }
 
   @Test
@@ -149,6 +153,7 @@ public class PersistIssuesStepTest extends BaseStepTest {
     step.execute();
 
     dbTester.assertDbUnit(getClass(), "close_issue-result.xml", "issues");
+    assertThat(persistedIssueKeys.getKeys()).containsOnly("ISSUE");
   }
 
   @Test
@@ -35,6 +35,7 @@ import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -152,6 +153,51 @@ public class ComputationStepExecutorTest {
     new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
   }
 
+  @Test
+  public void execute_all_consecutive_ConcurrentComputationSteps_before_next_step() {
+    ComputationStep concurrentStep1 = mockConcurrentComputationStep("concurrent1");
+    ComputationStep concurrentStep2 = mockConcurrentComputationStep("concurrent2");
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, concurrentStep1, concurrentStep2, computationStep2), listener)
+      .execute();
+
+    InOrder inOrder = inOrder(computationStep1, concurrentStep1, concurrentStep2, computationStep2);
+    inOrder.verify(computationStep1).execute();
+    inOrder.verify(concurrentStep1).execute();
+    inOrder.verify(computationStep2).execute();
+    inOrder = inOrder(concurrentStep2, computationStep2);
+    inOrder.verify(concurrentStep2).execute();
+    inOrder.verify(computationStep2).execute();
+    verify(listener).finished(true);
+  }
+
+  @Test
+  public void execute_propagates_exception_of_ConcurrentComputationStep_once_all_concurrent_steps_are_executed() {
+    RuntimeException toBeThrown = new RuntimeException("simulating failing execute Step method");
+    ComputationStep concurrentStep1 = mockConcurrentComputationStep("concurrent1");
+    ComputationStep concurrentStep2 = mockConcurrentComputationStep("concurrent2");
+    doThrow(toBeThrown)
+      .when(concurrentStep1)
+      .execute();
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(concurrentStep1, concurrentStep2, computationStep1), listener)
+        .execute();
+      fail("exception toBeThrown should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(e).isSameAs(toBeThrown);
+      verify(concurrentStep2).execute();
+      verify(computationStep1, never()).execute();
+      verify(listener).finished(false);
+    }
+  }
+
+  private static ComputationStep mockConcurrentComputationStep(String desc) {
+    ComputationStep mock = mock(ConcurrentComputationStep.class);
+    when(mock.getDescription()).thenReturn(desc);
+    return mock;
+  }
+
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
     ComputationSteps steps = mock(ComputationSteps.class);
     when(steps.instances()).thenReturn(Arrays.asList(computationSteps));
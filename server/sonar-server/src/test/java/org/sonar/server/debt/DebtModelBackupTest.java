@@ -45,6 +45,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.rule.RuleDao;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.server.debt.DebtModelXMLExporter.RuleDebt;
+import org.sonar.server.rule.RuleCache;
 import org.sonar.server.rule.RuleDefinitionsLoader;
 import org.sonar.server.rule.RuleOperations;
 import org.sonar.server.rule.index.RuleIndexer;
@@ -87,6 +88,9 @@ public class DebtModelBackupTest {
   System2 system2;
   @Mock
   RuleIndexer ruleIndexer;
+
+  @Mock
+  RuleCache ruleCache;
   @Captor
   ArgumentCaptor<RuleDto> ruleCaptor;
   @Captor
@@ -109,7 +113,7 @@ public class DebtModelBackupTest {
     when(dbClient.ruleDao()).thenReturn(ruleDao);
 
     underTest = new DebtModelBackup(dbClient, ruleOperations, rulesXMLImporter,
-      debtModelXMLExporter, defLoader, system2, userSessionRule, ruleIndexer);
+      debtModelXMLExporter, defLoader, system2, userSessionRule, ruleIndexer, ruleCache);
   }
 
   @Test
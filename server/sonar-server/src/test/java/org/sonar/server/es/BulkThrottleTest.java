@@ -0,0 +1,142 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BulkThrottleTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private BulkThrottle underTest = new BulkThrottle(2, 4, 1_000L, 100L, 10_000L);
+
+  @Test
+  public void fail_if_initial_concurrency_is_greater_than_max() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Concurrency must be between 1 and 2");
+
+    new BulkThrottle(3, 2, 1_000L, 100L, 10_000L);
+  }
+
+  @Test
+  public void fail_if_initial_flush_size_is_out_of_bounds() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Flush size must be between 100 and 500");
+
+    new BulkThrottle(1, 2, 1_000L, 100L, 500L);
+  }
+
+  @Test
+  public void acquire_and_release() {
+    underTest.acquire();
+    underTest.acquire();
+    assertThat(underTest.getInFlight()).isEqualTo(2);
+
+    underTest.release(2_000L, false);
+    underTest.release(2_000L, false);
+    assertThat(underTest.getInFlight()).isEqualTo(0);
+    assertThat(underTest.getConcurrency()).isEqualTo(2);
+    assertThat(underTest.getFlushByteSize()).isEqualTo(1_000L);
+  }
+
+  @Test
+  public void rejection_halves_concurrency_and_flush_size() {
+    underTest.acquire();
+    underTest.release(10L, true);
+
+    assertThat(underTest.getConcurrency()).isEqualTo(1);
+    assertThat(underTest.getFlushByteSize()).isEqualTo(500L);
+
+    // lower bounds
+    for (int i = 0; i < 5; i++) {
+      underTest.acquire();
+      underTest.release(10L, true);
+    }
+    assertThat(underTest.getConcurrency()).isEqualTo(1);
+    assertThat(underTest.getFlushByteSize()).isEqualTo(100L);
+  }
+
+  @Test
+  public void slow_response_decreases_concurrency() {
+    underTest.acquire();
+    underTest.release(BulkThrottle.SLOW_RESPONSE_MS, false);
+
+    assertThat(underTest.getConcurrency()).isEqualTo(1);
+    assertThat(underTest.getFlushByteSize()).isEqualTo(1_000L);
+  }
+
+  @Test
+  public void fast_responses_increase_concurrency_and_flush_size() {
+    // as many fast responses as current concurrency are required
+    underTest.acquire();
+    underTest.release(BulkThrottle.FAST_RESPONSE_MS, false);
+    assertThat(underTest.getConcurrency()).isEqualTo(2);
+
+    underTest.acquire();
+    underTest.release(BulkThrottle.FAST_RESPONSE_MS, false);
+    assertThat(underTest.getConcurrency()).isEqualTo(3);
+    assertThat(underTest.getFlushByteSize()).isEqualTo(2_000L);
+
+    // upper bounds
+    for (int i = 0; i < 50; i++) {
+      underTest.acquire();
+      underTest.release(10L, false);
+    }
+    assertThat(underTest.getConcurrency()).isEqualTo(4);
+    assertThat(underTest.getFlushByteSize()).isEqualTo(10_000L);
+  }
+
+  @Test
+  public void acquire_blocks_until_release() throws Exception {
+    underTest.acquire();
+    underTest.acquire();
+
+    CountDownLatch acquired = new CountDownLatch(1);
+    Thread thread = new Thread(() -> {
+      underTest.acquire();
+      acquired.countDown();
+    });
+    thread.start();
+    assertThat(acquired.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+    underTest.release(2_000L, false);
+    assertThat(acquired.await(10, TimeUnit.SECONDS)).isTrue();
+    thread.join();
+    assertThat(underTest.getInFlight()).isEqualTo(2);
+  }
+
+  @Test
+  public void await_none_in_flight() throws Exception {
+    assertThat(underTest.awaitNoneInFlight(1, TimeUnit.MILLISECONDS)).isTrue();
+
+    underTest.acquire();
+    assertThat(underTest.awaitNoneInFlight(10, TimeUnit.MILLISECONDS)).isFalse();
+
+    underTest.release(2_000L, false);
+    assertThat(underTest.awaitNoneInFlight(10, TimeUnit.MILLISECONDS)).isTrue();
+  }
+}
@@ -1246,6 +1246,26 @@ public class IssueIndexTest {
     assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(ComponentTesting.newProjectDto()))).isEmpty();
   }
 
+  @Test
+  public void search_issues_for_batch_changed_since_date() {
+    ComponentDto project = ComponentTesting.newProjectDto();
+    ComponentDto file = ComponentTesting.newFileDto(project, null);
+
+    indexIssues(
+      IssueTesting.newDoc("OLD", file).setTechnicalUpdateDate(parseDate("2016-01-01")),
+      IssueTesting.newDoc("NEW", file).setTechnicalUpdateDate(parseDate("2016-06-01")),
+      // Closed issues are returned so that the batch can drop them
+      IssueTesting.newDoc("CLOSE_ISSUE", file).setStatus(Issue.STATUS_CLOSED).setResolution(Issue.RESOLUTION_FIXED)
+        .setTechnicalUpdateDate(parseDate("2016-06-02")));
+
+    assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(project, parseDate("2016-03-01"))))
+      .extracting(IssueDoc::key).containsOnly("NEW", "CLOSE_ISSUE");
+    assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(file, parseDate("2016-06-02"))))
+      .extracting(IssueDoc::key).containsOnly("CLOSE_ISSUE");
+    assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(project, null)))
+      .extracting(IssueDoc::key).containsOnly("OLD", "NEW");
+  }
+
   @Test
   public void fail_to_search_issues_for_batch_on_not_allowed_scope() {
     try {
@@ -108,6 +108,26 @@ public class IssueIndexerTest {
     verifyIssueKeys("ABCDE");
   }
 
+  @Test
+  public void index_issues_by_keys() {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+
+    IssueIndexer indexer = createIndexer();
+    indexer.indexByKeys(asList("EDCBA", "UNKNOWN"));
+
+    verifyIssueKeys("EDCBA");
+  }
+
+  @Test
+  public void index_nothing_when_no_keys() {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+
+    IssueIndexer indexer = createIndexer();
+    indexer.indexByKeys(Collections.emptyList());
+
+    assertThat(esTester.countDocuments(IssueIndexDefinition.INDEX, IssueIndexDefinition.TYPE_ISSUE)).isEqualTo(0L);
+  }
+
   @Test
   public void delete_issues_by_keys() throws Exception {
     addIssue("P1", "Issue1");
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.ruby.RubyBridge;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.ws.WsTester;
@@ -41,9 +42,9 @@ public class MetricsWsTest {
     RubyBridge rubyBridge = mock(RubyBridge.class);
     ws = new WsTester(new MetricsWs(
       new SearchAction(dbClient),
-      new CreateAction(dbClient, userSession, rubyBridge),
-      new UpdateAction(dbClient, userSession, rubyBridge),
-      new DeleteAction(dbClient, userSession, rubyBridge),
+      new CreateAction(dbClient, userSession, rubyBridge, mock(MetricCache.class)),
+      new UpdateAction(dbClient, userSession, rubyBridge, mock(MetricCache.class)),
+      new DeleteAction(dbClient, userSession, rubyBridge, mock(MetricCache.class)),
       new TypesAction(),
       new DomainsAction(dbClient)
       ));
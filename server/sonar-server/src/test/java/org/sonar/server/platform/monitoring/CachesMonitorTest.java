@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.Test;
+import org.sonar.server.util.cache.ReferenceDataCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachesMonitorTest {
+
+  FakeCache metrics = new FakeCache("Metrics");
+  FakeCache rules = new FakeCache("Rules");
+  CachesMonitor underTest = new CachesMonitor(metrics, rules);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Caches");
+  }
+
+  @Test
+  public void usage_of_each_cache() {
+    metrics.load("ncloc", "coverage");
+    metrics.load("ncloc");
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsOnlyKeys("Metrics", "Rules");
+    assertThat((Map) attributes.get("Metrics"))
+      .containsEntry("Size", 2L)
+      .containsEntry("Hits", 1L)
+      .containsEntry("Misses", 2L)
+      .containsEntry("Evictions", 0L);
+    assertThat((Map) attributes.get("Rules"))
+      .containsEntry("Size", 0L)
+      .containsEntry("Hits", 0L)
+      .containsEntry("Misses", 0L);
+  }
+
+  @Test
+  public void no_attributes_if_no_caches() {
+    assertThat(new CachesMonitor().attributes()).isEmpty();
+  }
+
+  private static class FakeCache extends ReferenceDataCache<String, String> {
+    FakeCache(String name) {
+      super(name, 10L, Function.identity());
+    }
+
+    void load(String... keys) {
+      getAll(Arrays.asList(keys), Collections::unmodifiableList);
+    }
+  }
+}
@@ -20,14 +20,21 @@
 package org.sonar.server.platform.monitoring;
 
 import java.util.Map;
+import org.apache.commons.dbcp.BasicDataSource;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
+import org.sonar.db.profiling.NullConnectionInterceptor;
+import org.sonar.db.profiling.ProfiledDataSource;
 import org.sonar.db.version.DatabaseVersion;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class DatabaseMonitorTest {
 
@@ -61,4 +68,29 @@ public class DatabaseMonitorTest {
     Map<String, Object> attributes = underTest.attributes();
     assertThat((int) attributes.get("Pool Max Connections")).isGreaterThan(0);
   }
+
+  @Test
+  public void omit_pool_statistics_if_not_recorded_by_data_source() {
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).doesNotContainKeys("Pool Borrowed Connections", "Pool Borrow Wait < 1 ms");
+    assertThat(underTest.getPoolBorrowCount()).isEqualTo(-1L);
+    assertThat(underTest.getPoolBorrowWaitHistogram()).isEmpty();
+  }
+
+  @Test
+  public void pool_statistics() {
+    DbClient dbClient = mock(DbClient.class, RETURNS_DEEP_STUBS);
+    when(dbClient.getDatabase().getDataSource()).thenReturn(new ProfiledDataSource(new BasicDataSource(), NullConnectionInterceptor.INSTANCE));
+    DatabaseVersion dbVersion = mock(DatabaseVersion.class);
+    when(dbVersion.getStatus()).thenReturn(DatabaseVersion.Status.UP_TO_DATE);
+    underTest = new DatabaseMonitor(dbVersion, dbClient);
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsKeys("Pool Borrowed Connections", "Pool Average Borrow Wait (ms)", "Pool Waiting Threads", "Pool Leaked Connections",
+      "Pool Borrow Wait < 1 ms", "Pool Borrow Wait >= 10000 ms");
+    assertThat(attributes.get("Pool Borrowed Connections")).isEqualTo(0L);
+    assertThat(underTest.getPoolBorrowCount()).isEqualTo(0L);
+  }
 }
@@ -59,6 +59,9 @@ public class RuleOperationsTest {
   @Mock
   RuleIndexer ruleIndexer;
 
+  @Mock
+  RuleCache ruleCache;
+
   @Captor
   ArgumentCaptor<RuleDto> ruleCaptor;
 
@@ -70,7 +73,7 @@ public class RuleOperationsTest {
   public void setUp() {
     when(dbClient.openSession(false)).thenReturn(session);
     when(dbClient.ruleDao()).thenReturn(ruleDao);
-    operations = new RuleOperations(ruleIndexer, dbClient);
+    operations = new RuleOperations(ruleIndexer, dbClient, ruleCache);
   }
 
   @Test
@@ -89,6 +92,7 @@ public class RuleOperationsTest {
 
     verify(ruleDao).update(eq(session), ruleCaptor.capture());
     verify(session).commit();
+    verify(ruleCache).invalidateAll();
 
     RuleDto result = ruleCaptor.getValue();
 
@@ -144,6 +148,7 @@ public class RuleOperationsTest {
     verify(ruleDao, never()).update(eq(session), any(RuleDto.class));
     verify(session, never()).commit();
     verify(ruleIndexer, never()).index();
+    verify(ruleCache, never()).invalidateAll();
   }
 
   @Test
@@ -25,8 +25,13 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
@@ -77,4 +82,40 @@ public class DiskCacheTest {
       assertThat(e).hasMessage("expected error");
     }
   }
+
+  @Test
+  public void write_and_read_compressed_blocks_with_codec() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new StringCodec(), true);
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+
+    // enough objects to fill several blocks, written by several appenders
+    List<String> expected = new ArrayList<>();
+    for (int appender = 0; appender < 3; appender++) {
+      DiskCache<String>.DiskAppender diskAppender = cache.newAppender();
+      for (int i = 0; i < 10_000; i++) {
+        String s = "object " + appender + "-" + i;
+        diskAppender.append(s);
+        expected.add(s);
+      }
+      diskAppender.close();
+    }
+
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactlyElementsOf(expected);
+    }
+  }
+
+  private static class StringCodec implements DiskCacheCodec<String> {
+    @Override
+    public void encode(String object, DataOutput output) throws IOException {
+      output.writeUTF(object);
+    }
+
+    @Override
+    public String decode(DataInput input) throws IOException {
+      return input.readUTF();
+    }
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceDataCacheTest {
+
+  FakeLoader loader = new FakeLoader("one", "two", "three");
+  FakeCache underTest = new FakeCache(100L);
+
+  @Test
+  public void load_missing_keys_then_read_them_from_cache() {
+    assertThat(underTest.getAll(Arrays.asList("one", "two"), loader)).containsExactly("one", "two");
+    assertThat(underTest.getAll(Arrays.asList("two", "three"), loader)).containsExactly("two", "three");
+
+    assertThat(loader.requestedKeys).containsExactly(Arrays.asList("one", "two"), Arrays.asList("three"));
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.stats().hitCount()).isEqualTo(1);
+    assertThat(underTest.stats().missCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void do_not_call_loader_if_all_keys_are_cached() {
+    underTest.getAll(Arrays.asList("one", "two"), loader);
+
+    assertThat(underTest.getAll(Arrays.asList("two", "one"), loader)).containsExactly("two", "one");
+    assertThat(loader.requestedKeys).hasSize(1);
+  }
+
+  @Test
+  public void keys_not_found_are_ignored_and_not_cached() {
+    assertThat(underTest.getAll(Arrays.asList("one", "unknown"), loader)).containsExactly("one");
+    assertThat(underTest.getAll(Arrays.asList("one", "unknown"), loader)).containsExactly("one");
+
+    assertThat(loader.requestedKeys).containsExactly(Arrays.asList("one", "unknown"), Arrays.asList("unknown"));
+  }
+
+  @Test
+  public void duplicated_keys_are_returned_once() {
+    assertThat(underTest.getAll(Arrays.asList("one", "two", "one"), loader)).containsExactly("one", "two");
+    assertThat(loader.requestedKeys).containsExactly(Arrays.asList("one", "two"));
+  }
+
+  @Test
+  public void invalidateAll_discards_cached_values() {
+    underTest.getAll(Arrays.asList("one", "two"), loader);
+
+    underTest.invalidateAll();
+
+    assertThat(underTest.size()).isEqualTo(0);
+    assertThat(underTest.getAll(Arrays.asList("one"), loader)).containsExactly("one");
+    assertThat(loader.requestedKeys).containsExactly(Arrays.asList("one", "two"), Arrays.asList("one"));
+  }
+
+  @Test
+  public void values_loaded_during_invalidation_are_not_cached() {
+    Function<List<String>, List<String>> invalidatingLoader = keys -> {
+      // data is updated while being loaded
+      underTest.invalidateAll();
+      return loader.apply(keys);
+    };
+
+    assertThat(underTest.getAll(Arrays.asList("one"), invalidatingLoader)).containsExactly("one");
+
+    assertThat(underTest.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void size_is_bounded() {
+    FakeCache smallCache = new FakeCache(1L);
+
+    smallCache.getAll(Arrays.asList("one", "two", "three"), loader);
+
+    assertThat(smallCache.size()).isEqualTo(1);
+    assertThat(smallCache.stats().evictionCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void name() {
+    assertThat(underTest.getName()).isEqualTo("Fake");
+  }
+
+  private static class FakeCache extends ReferenceDataCache<String, String> {
+    FakeCache(long maximumSize) {
+      super("Fake", maximumSize, Function.identity());
+    }
+  }
+
+  private static class FakeLoader implements Function<List<String>, List<String>> {
+    private final List<String> existingKeys;
+    private final List<List<String>> requestedKeys = new ArrayList<>();
+
+    FakeLoader(String... existingKeys) {
+      this.existingKeys = Arrays.asList(existingKeys);
+    }
+
+    @Override
+    public List<String> apply(List<String> keys) {
+      requestedKeys.add(new ArrayList<>(keys));
+      List<String> result = new ArrayList<>();
+      for (String key : keys) {
+        if (existingKeys.contains(key)) {
+          result.add(key);
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Index of base issues used by {@link Tracker}. Rules, line hashes and messages are
+ * converted once to int ids, so that search keys are primitive values and that
+ * searches do not allocate objects. The hash table of each kind of search is built at most
+ * once per tracking and is shared by the successive passes: matched issues are
+ * lazily removed when they are encountered.
+ */
+class BaseIssueIndex<BASE extends Trackable> {
+
+  enum SearchKeyType {
+    /**
+     * Same rule, same line and same line hash
+     */
+    LINE_AND_LINE_HASH,
+    /**
+     * Same rule, same line hash and same message
+     */
+    LINE_HASH_AND_MESSAGE,
+    /**
+     * Same rule, same line and same message
+     */
+    LINE_AND_MESSAGE,
+    /**
+     * Same rule and same line hash
+     */
+    LINE_HASH
+  }
+
+  private static final int NONE = -1;
+  private static final int NULL_LINE = Integer.MIN_VALUE;
+
+  private final List<BASE> bases;
+  private final Map<RuleKey, Integer> ruleIds = new HashMap<>();
+  private final Map<String, Integer> lineHashIds = new HashMap<>();
+  private final Map<String, Integer> messageIds = new HashMap<>();
+  private final int[] baseRuleIds;
+  private final int[] baseLines;
+  private final int[] baseLineHashIds;
+  private final int[] baseMessageIds;
+  private final Map<SearchKeyType, Table> tables = new EnumMap<>(SearchKeyType.class);
+
+  BaseIssueIndex(Iterable<BASE> bases) {
+    this.bases = new ArrayList<>();
+    bases.forEach(this.bases::add);
+    int size = this.bases.size();
+    this.baseRuleIds = new int[size];
+    this.baseLines = new int[size];
+    this.baseLineHashIds = new int[size];
+    this.baseMessageIds = new int[size];
+    for (int i = 0; i < size; i++) {
+      BASE base = this.bases.get(i);
+      baseRuleIds[i] = idOf(ruleIds, base.getRuleKey());
+      baseLines[i] = lineOf(base.getLine());
+      baseLineHashIds[i] = idOf(lineHashIds, StringUtils.defaultString(base.getLineHash(), ""));
+      baseMessageIds[i] = idOf(messageIds, base.getMessage());
+    }
+  }
+
+  /**
+   * Returns the first base issue, in the order of input, that has the same search key as {@code raw}
+   * and that is accepted by {@code unmatched}.
+   */
+  @CheckForNull
+  BASE find(SearchKeyType type, Trackable raw, Predicate<BASE> unmatched) {
+    Integer ruleId = ruleIds.get(raw.getRuleKey());
+    if (ruleId == null) {
+      return null;
+    }
+    long key = rawKey(type, raw);
+    if (key == NONE) {
+      return null;
+    }
+    Table table = tables.computeIfAbsent(type, this::createTable);
+    int bucket = table.bucket(ruleId, key);
+    int previous = NONE;
+    int i = table.heads[bucket];
+    while (i != NONE) {
+      int next = table.next[i];
+      BASE base = bases.get(i);
+      if (!unmatched.test(base)) {
+        // already matched, remove it from chain
+        if (previous == NONE) {
+          table.heads[bucket] = next;
+        } else {
+          table.next[previous] = next;
+        }
+      } else {
+        if (table.keys[i] == key && baseRuleIds[i] == ruleId) {
+          return base;
+        }
+        previous = i;
+      }
+      i = next;
+    }
+    return null;
+  }
+
+  private Table createTable(SearchKeyType type) {
+    int size = bases.size();
+    Table table = new Table(size);
+    // insert in reverse order, so that chains are in the order of input
+    for (int i = size - 1; i >= 0; i--) {
+      long key = baseKey(type, i);
+      table.keys[i] = key;
+      int bucket = table.bucket(baseRuleIds[i], key);
+      table.next[i] = table.heads[bucket];
+      table.heads[bucket] = i;
+    }
+    return table;
+  }
+
+  private long baseKey(SearchKeyType type, int i) {
+    switch (type) {
+      case LINE_AND_LINE_HASH:
+        return pack(baseLineHashIds[i], baseLines[i]);
+      case LINE_HASH_AND_MESSAGE:
+        return pack(baseLineHashIds[i], baseMessageIds[i]);
+      case LINE_AND_MESSAGE:
+        return pack(baseMessageIds[i], baseLines[i]);
+      case LINE_HASH:
+        return baseLineHashIds[i];
+      default:
+        throw new IllegalArgumentException("Unsupported search key: " + type);
+    }
+  }
+
+  /**
+   * @return {@link #NONE} if a field of key does not exist in base issues
+   */
+  private long rawKey(SearchKeyType type, Trackable raw) {
+    switch (type) {
+      case LINE_AND_LINE_HASH:
+        return packIfExists(lineHashId(raw), lineOf(raw.getLine()));
+      case LINE_HASH_AND_MESSAGE:
+        int messageId = messageId(raw);
+        return messageId == NONE ? NONE : packIfExists(lineHashId(raw), messageId);
+      case LINE_AND_MESSAGE:
+        return packIfExists(messageId(raw), lineOf(raw.getLine()));
+      case LINE_HASH:
+        return lineHashId(raw);
+      default:
+        throw new IllegalArgumentException("Unsupported search key: " + type);
+    }
+  }
+
+  private int lineHashId(Trackable raw) {
+    Integer id = lineHashIds.get(StringUtils.defaultString(raw.getLineHash(), ""));
+    return id == null ? NONE : id;
+  }
+
+  private int messageId(Trackable raw) {
+    Integer id = messageIds.get(raw.getMessage());
+    return id == null ? NONE : id;
+  }
+
+  private static long packIfExists(int id, int low) {
+    if (id == NONE) {
+      return NONE;
+    }
+    return pack(id, low);
+  }
+
+  /**
+   * Ids are positive, so packed values are never equal to {@link #NONE}
+   */
+  private static long pack(int high, int low) {
+    return ((long) high << 32) | (low & 0xFFFFFFFFL);
+  }
+
+  private static int lineOf(@Nullable Integer line) {
+    return line == null ? NULL_LINE : line;
+  }
+
+  private static <K> int idOf(Map<K, Integer> ids, K value) {
+    return ids.computeIfAbsent(value, k -> ids.size());
+  }
+
+  private static final class Table {
+    private final int[] heads;
+    private final int[] next;
+    private final long[] keys;
+    private final int mask;
+
+    private Table(int size) {
+      int capacity = Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1;
+      this.heads = new int[capacity];
+      Arrays.fill(heads, NONE);
+      this.next = new int[size];
+      this.keys = new long[size];
+      this.mask = capacity - 1;
+    }
+
+    private int bucket(int ruleId, long key) {
+      long h = (key ^ (ruleId * 0x9E3779B97F4A7C15L)) * 0xC2B2AE3D27D4EB4FL;
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+  }
+}
@@ -19,9 +19,13 @@
  */
 package org.sonar.core.issue.tracking;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Rule;
@@ -30,6 +34,7 @@ import org.junit.rules.ExpectedException;
 import org.sonar.api.rule.RuleKey;
 
 import static java.util.Arrays.asList;
+import static org.apache.commons.lang.StringUtils.defaultString;
 import static org.apache.commons.lang.StringUtils.trim;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -381,6 +386,78 @@ public class TrackerTest {
     assertThat(tracking.baseFor(raw1)).isEqualTo(base1);
   }
 
+  @Test
+  public void same_matches_as_multimap_based_tracking() {
+    Random random = new Random(42L);
+    RuleKey[] rules = {RULE_SYSTEM_PRINT, RULE_UNUSED_LOCAL_VARIABLE, RULE_USE_DIAMOND};
+    String[] messages = {"msg1", "msg2", "msg3"};
+    for (int round = 0; round < 50; round++) {
+      FakeInput baseInput = randomInput(random);
+      FakeInput rawInput = randomInput(random);
+      for (int i = 0; i < 100; i++) {
+        addRandomIssue(random, baseInput, rules, messages);
+        addRandomIssue(random, rawInput, rules, messages);
+      }
+
+      Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+      Tracking<Issue, Issue> expected = multimapBasedTrack(rawInput, baseInput);
+
+      assertThat(tracking.getMatchedRaws()).isEqualTo(expected.getMatchedRaws());
+    }
+  }
+
+  private static FakeInput randomInput(Random random) {
+    String[] hashes = new String[30];
+    for (int i = 0; i < hashes.length; i++) {
+      hashes[i] = "H" + random.nextInt(10);
+    }
+    return new FakeInput(hashes);
+  }
+
+  private static void addRandomIssue(Random random, FakeInput input, RuleKey[] rules, String[] messages) {
+    RuleKey rule = rules[random.nextInt(rules.length)];
+    String message = messages[random.nextInt(messages.length)];
+    if (random.nextInt(10) == 0) {
+      input.createIssue(rule, message);
+    } else {
+      input.createIssueOnLine(1 + random.nextInt(input.lineHashes.size()), rule, message);
+    }
+  }
+
+  /**
+   * Reference implementation, with search keys stored in multimaps rebuilt on each pass
+   */
+  private static Tracking<Issue, Issue> multimapBasedTrack(FakeInput rawInput, FakeInput baseInput) {
+    Tracking<Issue, Issue> tracking = new Tracking<>(rawInput, baseInput);
+    multimapBasedMatch(tracking, t -> asList(t.getRuleKey(), t.getLine(), defaultString(t.getLineHash())));
+    if (!tracking.isComplete()) {
+      new BlockRecognizer<Issue, Issue>().match(rawInput, baseInput, tracking);
+    }
+    multimapBasedMatch(tracking, t -> asList(t.getRuleKey(), t.getMessage(), defaultString(t.getLineHash())));
+    multimapBasedMatch(tracking, t -> asList(t.getRuleKey(), t.getMessage(), t.getLine()));
+    multimapBasedMatch(tracking, t -> asList(t.getRuleKey(), defaultString(t.getLineHash())));
+    return tracking;
+  }
+
+  private static void multimapBasedMatch(Tracking<Issue, Issue> tracking, Function<Trackable, List<Object>> keyFunction) {
+    if (tracking.isComplete()) {
+      return;
+    }
+    Multimap<List<Object>, Issue> baseSearch = ArrayListMultimap.create();
+    for (Issue base : tracking.getUnmatchedBases()) {
+      baseSearch.put(keyFunction.apply(base), base);
+    }
+    for (Issue raw : tracking.getUnmatchedRaws()) {
+      List<Object> rawKey = keyFunction.apply(raw);
+      Collection<Issue> bases = baseSearch.get(rawKey);
+      if (!bases.isEmpty()) {
+        Issue match = bases.iterator().next();
+        tracking.match(raw, match);
+        baseSearch.remove(rawKey, match);
+      }
+    }
+  }
+
   private static class Issue implements Trackable {
     private final RuleKey ruleKey;
     private final Integer line;
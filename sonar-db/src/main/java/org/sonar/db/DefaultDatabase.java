@@ -54,6 +54,29 @@ public class DefaultDatabase implements Database {
   private static final String SONAR_JDBC_DIALECT = "sonar.jdbc.dialect";
   private static final String SONAR_JDBC_URL = "sonar.jdbc.url";
 
+  /**
+   * Number of milliseconds after which a connection which has not been closed is logged as a possible leak.
+   * Zero, the default, disables the detection.
+   */
+  public static final String SONAR_JDBC_LEAK_DETECTION_THRESHOLD = "sonar.jdbc.leakDetectionThresholdMillis";
+
+  /**
+   * When connections are validated: {@link #VALIDATION_MODE_BORROW} (default) or {@link #VALIDATION_MODE_IDLE}.
+   */
+  public static final String SONAR_JDBC_VALIDATION_MODE = "sonar.jdbc.validationMode";
+
+  /**
+   * The validation query is executed before giving a connection to the application
+   */
+  public static final String VALIDATION_MODE_BORROW = "borrow";
+
+  /**
+   * The validation query is executed only on idle connections, by the evictor of the pool. Borrowing a connection
+   * does not cost a round-trip to the database, but a connection broken since the last eviction run is
+   * detected only when it is used.
+   */
+  public static final String VALIDATION_MODE_IDLE = "idle";
+
   private Settings settings;
   private ProfiledDataSource datasource;
   private Dialect dialect;
@@ -93,9 +116,26 @@ public class DefaultDatabase implements Database {
     datasource = new ProfiledDataSource(basicDataSource, NullConnectionInterceptor.INSTANCE);
     datasource.setConnectionInitSqls(dialect.getConnectionInitStatements());
     datasource.setValidationQuery(dialect.getValidationQuery());
+    configureValidation(datasource, properties.getProperty(SONAR_JDBC_VALIDATION_MODE, VALIDATION_MODE_BORROW));
+    datasource.setLeakDetectionThresholdMillis(Long.parseLong(properties.getProperty(SONAR_JDBC_LEAK_DETECTION_THRESHOLD, "0")));
     enableSqlLogging(datasource, "TRACE".equals(settings.getString("sonar.log.level")));
   }
 
+  private static void configureValidation(ProfiledDataSource ds, String validationMode) {
+    if (VALIDATION_MODE_IDLE.equals(validationMode)) {
+      if (ds.getTimeBetweenEvictionRunsMillis() <= 0L) {
+        throw new IllegalArgumentException(format("Validation mode '%s' requires property %stimeBetweenEvictionRunsMillis to be positive", VALIDATION_MODE_IDLE, SONAR_JDBC));
+      }
+      ds.setTestOnBorrow(false);
+      ds.setTestWhileIdle(true);
+      // all the idle connections are validated on each run
+      ds.setNumTestsPerEvictionRun(-1);
+    } else if (!VALIDATION_MODE_BORROW.equals(validationMode)) {
+      throw new IllegalArgumentException(format("Unsupported value of property %s: '%s'. Supported values are '%s' and '%s'",
+        SONAR_JDBC_VALIDATION_MODE, validationMode, VALIDATION_MODE_BORROW, VALIDATION_MODE_IDLE));
+    }
+  }
+
   private void checkConnection() {
     Connection connection = null;
     try {
@@ -20,7 +20,9 @@
 package org.sonar.db.ce;
 
 import com.google.common.base.Optional;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.ibatis.session.RowBounds;
 import org.sonar.api.utils.System2;
@@ -33,7 +35,12 @@ import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 
 public class CeQueueDao implements Dao {
 
-  private static final RowBounds ONE_ROW_LIMIT = new RowBounds(0, 1);
+  /**
+   * Number of eligible tasks loaded by {@link #peek(DbSession)}. When several workers peek concurrently,
+   * a worker which fails to claim the oldest task falls back to the next candidates instead of
+   * returning empty-handed and waiting for the next polling delay.
+   */
+  private static final RowBounds PEEK_CANDIDATES_LIMIT = new RowBounds(0, 10);
 
   private final System2 system2;
 
@@ -108,14 +115,27 @@ public class CeQueueDao implements Dao {
     return mapper(dbSession).countByStatusAndComponentUuid(status, componentUuid);
   }
 
+  /**
+   * Claims the oldest pending task which can be processed, ie. which is not related to a component having
+   * already a task in progress. Only the oldest pending task of each component is a candidate, so that tasks of a
+   * given component are always processed in submission order while tasks of different components can be
+   * processed concurrently.
+   */
   public Optional<CeQueueDto> peek(DbSession session) {
-    List<String> taskUuids = mapper(session).selectEligibleForPeek(ONE_ROW_LIMIT);
-    if (taskUuids.isEmpty()) {
-      return Optional.absent();
+    List<CeQueueDto> eligibles = mapper(session).selectEligibleForPeek(PEEK_CANDIDATES_LIMIT);
+    Set<String> triedComponentUuids = new HashSet<>();
+    for (CeQueueDto eligible : eligibles) {
+      String componentUuid = eligible.getComponentUuid();
+      if (componentUuid != null && !triedComponentUuids.add(componentUuid)) {
+        // an older task of the same component has already been tried
+        continue;
+      }
+      Optional<CeQueueDto> peeked = tryToPeek(session, eligible.getUuid());
+      if (peeked.isPresent()) {
+        return peeked;
+      }
     }
-
-    String taskUuid = taskUuids.get(0);
-    return tryToPeek(session, taskUuid);
+    return Optional.absent();
   }
 
   private Optional<CeQueueDto> tryToPeek(DbSession session, String taskUuid) {
@@ -34,6 +34,12 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class MeasureDao implements Dao {
 
+  /**
+   * Maximum number of rows inserted by a single statement. Each row has 15 parameters and MSSQL supports
+   * at most 2'100 parameters per statement.
+   */
+  public static final int INSERT_BATCH_SIZE = 100;
+
   public Optional<MeasureDto> selectSingle(DbSession dbSession, MeasureQuery query) {
     List<MeasureDto> measures = selectByQuery(dbSession, query);
     return Optional.ofNullable(Iterables.getOnlyElement(measures, null));
@@ -104,9 +110,17 @@ public class MeasureDao implements Dao {
     mapper(session).insert(measureDto);
   }
 
+  /**
+   * Inserts the measures by groups of {@link #INSERT_BATCH_SIZE} rows per SQL statement.
+   */
   public void insert(DbSession session, Collection<MeasureDto> items) {
-    for (MeasureDto item : items) {
-      insert(session, item);
+    if (items.size() == 1) {
+      insert(session, items.iterator().next());
+      return;
+    }
+    MeasureMapper mapper = mapper(session);
+    for (List<MeasureDto> partition : Iterables.partition(items, INSERT_BATCH_SIZE)) {
+      mapper.insertMultiple(partition);
     }
   }
 
@@ -35,4 +35,10 @@ public interface MeasureMapper {
   List<MeasureDto> selectProjectMeasuresOfDeveloper(@Param("developerId") long developerId, @Param("metricIds") Collection<Integer> metricIds);
 
   void insert(MeasureDto measureDto);
+
+  /**
+   * Inserts all the measures with a single statement. Size of the list must be limited by caller as
+   * the number of parameters of a statement is limited by some DB vendors (2'100 on MSSQL).
+   */
+  void insertMultiple(@Param("measures") List<MeasureDto> measures);
 }
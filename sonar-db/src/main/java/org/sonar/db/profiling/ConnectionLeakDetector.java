@@ -0,0 +1,94 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static java.lang.String.format;
+
+/**
+ * Logs the stack trace of the code which borrowed a connection when this connection is not given back
+ * to the pool within the threshold. Connections are not closed, so that a long but legitimate usage
+ * does not fail.
+ */
+class ConnectionLeakDetector {
+
+  private static final Logger LOG = Loggers.get(ConnectionLeakDetector.class);
+
+  private final long thresholdMillis;
+  private final ConnectionPoolStatistics statistics;
+  private final ScheduledThreadPoolExecutor executor;
+
+  ConnectionLeakDetector(long thresholdMillis, ConnectionPoolStatistics statistics) {
+    this.thresholdMillis = thresholdMillis;
+    this.statistics = statistics;
+    this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+      .setNameFormat("db-connection-leak-detector")
+      .setDaemon(true)
+      .build());
+    // alarms are cancelled on the borrow path, the queue must not keep them
+    this.executor.setRemoveOnCancelPolicy(true);
+  }
+
+  long getThresholdMillis() {
+    return thresholdMillis;
+  }
+
+  Connection track(Connection connection) {
+    Exception borrower = new Exception("Connection borrowed here");
+    ScheduledFuture<?> alarm = executor.schedule(() -> {
+      statistics.leakDetected();
+      LOG.warn(format("Connection has not been given back to the pool for more than %d ms, it may have leaked", thresholdMillis), borrower);
+    }, thresholdMillis, TimeUnit.MILLISECONDS);
+    return (Connection) Proxy.newProxyInstance(ConnectionLeakDetector.class.getClassLoader(), new Class[] {Connection.class},
+      new LeakDetectionHandler(connection, alarm));
+  }
+
+  void stop() {
+    executor.shutdownNow();
+  }
+
+  private static class LeakDetectionHandler implements InvocationHandler {
+    private final Connection connection;
+    private final ScheduledFuture<?> alarm;
+
+    LeakDetectionHandler(Connection connection, ScheduledFuture<?> alarm) {
+      this.connection = connection;
+      this.alarm = alarm;
+    }
+
+    @Override
+    public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+      if ("close".equals(method.getName())) {
+        alarm.cancel(false);
+      }
+      return InvocationUtils.invokeQuietly(connection, method, args);
+    }
+  }
+}
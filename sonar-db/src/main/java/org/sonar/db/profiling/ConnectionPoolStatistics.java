@@ -0,0 +1,166 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the connections borrowed from the pool. Recording does not acquire any lock,
+ * so that measuring the contention on the pool does not add to it.
+ *
+ * @since 6.2
+ */
+public class ConnectionPoolStatistics {
+
+  /**
+   * Exclusive upper bounds of the buckets of {@link #getWaitHistogram()}. The last bucket
+   * counts the waits greater than or equal to the last bound.
+   */
+  private static final long[] WAIT_HISTOGRAM_BOUNDS_MILLIS = {1L, 10L, 100L, 1_000L, 10_000L};
+
+  private final LongAdder borrowCount = new LongAdder();
+  private final LongAdder failureCount = new LongAdder();
+  private final LongAdder leakCount = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final AtomicInteger waitingThreads = new AtomicInteger();
+  private final AtomicInteger peakWaitingThreads = new AtomicInteger();
+  private final LongAdder[] waitHistogram = new LongAdder[WAIT_HISTOGRAM_BOUNDS_MILLIS.length + 1];
+
+  public ConnectionPoolStatistics() {
+    for (int i = 0; i < waitHistogram.length; i++) {
+      waitHistogram[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * To be called before requesting a connection to the pool.
+   *
+   * @return the value to be given to {@link #borrowEnded(long, boolean)}
+   */
+  long borrowStarted() {
+    int waiting = waitingThreads.incrementAndGet();
+    peakWaitingThreads.accumulateAndGet(waiting, Math::max);
+    return System.nanoTime();
+  }
+
+  /**
+   * To be called once the pool returned a connection or failed to.
+   */
+  void borrowEnded(long startNanos, boolean success) {
+    long waitNanos = System.nanoTime() - startNanos;
+    waitingThreads.decrementAndGet();
+    if (!success) {
+      failureCount.increment();
+      return;
+    }
+    borrowCount.increment();
+    totalWaitNanos.add(waitNanos);
+    maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    waitHistogram[bucketOf(TimeUnit.NANOSECONDS.toMillis(waitNanos))].increment();
+  }
+
+  /**
+   * To be called when a connection has not been given back to the pool within the leak detection threshold.
+   */
+  void leakDetected() {
+    leakCount.increment();
+  }
+
+  private static int bucketOf(long waitMillis) {
+    for (int i = 0; i < WAIT_HISTOGRAM_BOUNDS_MILLIS.length; i++) {
+      if (waitMillis < WAIT_HISTOGRAM_BOUNDS_MILLIS[i]) {
+        return i;
+      }
+    }
+    return WAIT_HISTOGRAM_BOUNDS_MILLIS.length;
+  }
+
+  /**
+   * Number of connections successfully borrowed from the pool
+   */
+  public long getBorrowCount() {
+    return borrowCount.sum();
+  }
+
+  /**
+   * Number of requests of connection which failed, for example because the pool was exhausted for too long
+   */
+  public long getFailureCount() {
+    return failureCount.sum();
+  }
+
+  /**
+   * Number of connections which have not been given back to the pool within the leak detection threshold.
+   * Always zero if leak detection is disabled.
+   */
+  public long getLeakCount() {
+    return leakCount.sum();
+  }
+
+  public double getAverageWaitMillis() {
+    long count = borrowCount.sum();
+    return count == 0L ? 0d : ((double) totalWaitNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  public long getMaxWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+  }
+
+  /**
+   * Number of threads currently waiting for a connection
+   */
+  public int getWaitingThreads() {
+    return waitingThreads.get();
+  }
+
+  /**
+   * Maximum number of threads which have been waiting for a connection at the same time
+   */
+  public int getPeakWaitingThreads() {
+    return peakWaitingThreads.get();
+  }
+
+  /**
+   * Number of successful borrows by duration of wait, see {@link #waitHistogramLabels()} for the bounds of buckets
+   */
+  public long[] getWaitHistogram() {
+    long[] result = new long[waitHistogram.length];
+    for (int i = 0; i < waitHistogram.length; i++) {
+      result[i] = waitHistogram[i].sum();
+    }
+    return result;
+  }
+
+  /**
+   * Human-readable labels of the buckets of {@link #getWaitHistogram()}
+   */
+  public static String[] waitHistogramLabels() {
+    String[] labels = new String[WAIT_HISTOGRAM_BOUNDS_MILLIS.length + 1];
+    for (int i = 0; i < WAIT_HISTOGRAM_BOUNDS_MILLIS.length; i++) {
+      labels[i] = "< " + WAIT_HISTOGRAM_BOUNDS_MILLIS[i] + " ms";
+    }
+    labels[WAIT_HISTOGRAM_BOUNDS_MILLIS.length] = ">= " + WAIT_HISTOGRAM_BOUNDS_MILLIS[WAIT_HISTOGRAM_BOUNDS_MILLIS.length - 1] + " ms";
+    return labels;
+  }
+}
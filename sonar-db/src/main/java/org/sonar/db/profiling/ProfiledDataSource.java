@@ -24,6 +24,9 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.Collection;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import javax.sql.DataSource;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -33,7 +36,10 @@ public class ProfiledDataSource extends BasicDataSource {
   static final Logger SQL_LOGGER = Loggers.get("sql");
 
   private final BasicDataSource delegate;
+  private final ConnectionPoolStatistics poolStatistics = new ConnectionPoolStatistics();
   private ConnectionInterceptor connectionInterceptor;
+  @CheckForNull
+  private volatile ConnectionLeakDetector leakDetector;
 
   public ProfiledDataSource(BasicDataSource delegate, ConnectionInterceptor connectionInterceptor) {
     this.delegate = delegate;
@@ -44,6 +50,50 @@ public class ProfiledDataSource extends BasicDataSource {
     return delegate;
   }
 
+  /**
+   * @since 6.2
+   */
+  public ConnectionPoolStatistics getPoolStatistics() {
+    return poolStatistics;
+  }
+
+  /**
+   * Statistics of the pool of the given data source, if it records them. Only the data source
+   * created by {@link org.sonar.db.DefaultDatabase} does.
+   *
+   * @since 6.2
+   */
+  public static Optional<ConnectionPoolStatistics> poolStatisticsOf(DataSource dataSource) {
+    if (dataSource instanceof ProfiledDataSource) {
+      return Optional.of(((ProfiledDataSource) dataSource).getPoolStatistics());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Log a warning with the stack trace of the borrower when a connection is not closed within the
+   * given number of milliseconds. Zero disables the detection, which is the default.
+   *
+   * @since 6.2
+   */
+  public synchronized void setLeakDetectionThresholdMillis(long thresholdMillis) {
+    if (thresholdMillis < 0L) {
+      throw new IllegalArgumentException("Leak detection threshold must be positive or zero: " + thresholdMillis);
+    }
+    if (leakDetector != null) {
+      leakDetector.stop();
+    }
+    leakDetector = thresholdMillis == 0L ? null : new ConnectionLeakDetector(thresholdMillis, poolStatistics);
+  }
+
+  /**
+   * @since 6.2
+   */
+  public long getLeakDetectionThresholdMillis() {
+    ConnectionLeakDetector detector = leakDetector;
+    return detector == null ? 0L : detector.getThresholdMillis();
+  }
+
   public synchronized void setConnectionInterceptor(ConnectionInterceptor ci) {
     this.connectionInterceptor = ci;
   }
@@ -320,12 +370,33 @@ public class ProfiledDataSource extends BasicDataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
-    return connectionInterceptor.getConnection(delegate);
+    long start = poolStatistics.borrowStarted();
+    boolean success = false;
+    try {
+      Connection connection = connectionInterceptor.getConnection(delegate);
+      success = true;
+      return trackLeak(connection);
+    } finally {
+      poolStatistics.borrowEnded(start, success);
+    }
   }
 
   @Override
   public Connection getConnection(String login, String password) throws SQLException {
-    return connectionInterceptor.getConnection(this, login, password);
+    long start = poolStatistics.borrowStarted();
+    boolean success = false;
+    try {
+      Connection connection = connectionInterceptor.getConnection(delegate, login, password);
+      success = true;
+      return trackLeak(connection);
+    } finally {
+      poolStatistics.borrowEnded(start, success);
+    }
+  }
+
+  private Connection trackLeak(Connection connection) {
+    ConnectionLeakDetector detector = leakDetector;
+    return detector == null ? connection : detector.track(connection);
   }
 
   @Override
@@ -400,6 +471,10 @@ public class ProfiledDataSource extends BasicDataSource {
 
   @Override
   public synchronized void close() throws SQLException {
+    if (leakDetector != null) {
+      leakDetector.stop();
+      leakDetector = null;
+    }
     delegate.close();
   }
 
@@ -52,6 +52,7 @@ public class FileSourceDto {
   private String dataType;
   private String dataHash;
   private String revision;
+  private String inputsHash;
 
   public Long getId() {
     return id;
@@ -290,6 +291,19 @@ public class FileSourceDto {
     return this;
   }
 
+  /**
+   * Hash of the analysis report data the source was computed from, as provided by the scanner
+   */
+  @CheckForNull
+  public String getInputsHash() {
+    return inputsHash;
+  }
+
+  public FileSourceDto setInputsHash(@Nullable String inputsHash) {
+    this.inputsHash = inputsHash;
+    return this;
+  }
+
   public static class Type {
     public static final String SOURCE = "SOURCE";
     public static final String TEST = "TEST";
@@ -21,15 +21,21 @@ package org.sonar.db;
 
 import java.util.Properties;
 import org.apache.commons.dbcp.BasicDataSource;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
 import org.sonar.db.dialect.PostgreSql;
+import org.sonar.db.profiling.ProfiledDataSource;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class DefaultDatabaseTest {
 
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
   @Test
   public void shouldLoadDefaultValues() {
     DefaultDatabase db = new DefaultDatabase(new MapSettings());
@@ -89,6 +95,73 @@ public class DefaultDatabaseTest {
     assertThat(((BasicDataSource) db.getDataSource()).getMaxActive()).isEqualTo(1);
   }
 
+  @Test
+  public void validate_connections_on_borrow_by_default() {
+    DefaultDatabase db = startH2(new MapSettings());
+
+    ProfiledDataSource dataSource = (ProfiledDataSource) db.getDataSource();
+    assertThat(dataSource.getTestOnBorrow()).isTrue();
+    assertThat(dataSource.getTestWhileIdle()).isFalse();
+    assertThat(dataSource.getLeakDetectionThresholdMillis()).isEqualTo(0L);
+    db.stop();
+  }
+
+  @Test
+  public void validate_idle_connections_only() {
+    Settings settings = new MapSettings();
+    settings.setProperty(DefaultDatabase.SONAR_JDBC_VALIDATION_MODE, DefaultDatabase.VALIDATION_MODE_IDLE);
+    settings.setProperty("sonar.jdbc.timeBetweenEvictionRunsMillis", "30000");
+    DefaultDatabase db = startH2(settings);
+
+    ProfiledDataSource dataSource = (ProfiledDataSource) db.getDataSource();
+    assertThat(dataSource.getTestOnBorrow()).isFalse();
+    assertThat(dataSource.getTestWhileIdle()).isTrue();
+    assertThat(dataSource.getNumTestsPerEvictionRun()).isEqualTo(-1);
+    db.stop();
+  }
+
+  @Test
+  public void fail_if_idle_connections_are_never_validated() {
+    Settings settings = new MapSettings();
+    settings.setProperty(DefaultDatabase.SONAR_JDBC_VALIDATION_MODE, DefaultDatabase.VALIDATION_MODE_IDLE);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to connect to database");
+
+    startH2(settings);
+  }
+
+  @Test
+  public void fail_if_validation_mode_is_not_supported() {
+    Settings settings = new MapSettings();
+    settings.setProperty(DefaultDatabase.SONAR_JDBC_VALIDATION_MODE, "never");
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to connect to database");
+
+    startH2(settings);
+  }
+
+  @Test
+  public void enable_leak_detection() {
+    Settings settings = new MapSettings();
+    settings.setProperty(DefaultDatabase.SONAR_JDBC_LEAK_DETECTION_THRESHOLD, "60000");
+    DefaultDatabase db = startH2(settings);
+
+    assertThat(((ProfiledDataSource) db.getDataSource()).getLeakDetectionThresholdMillis()).isEqualTo(60_000L);
+    db.stop();
+  }
+
+  private static DefaultDatabase startH2(Settings settings) {
+    settings.setProperty("sonar.jdbc.url", "jdbc:h2:mem:sonar");
+    settings.setProperty("sonar.jdbc.driverClassName", "org.h2.Driver");
+    settings.setProperty("sonar.jdbc.username", "sonar");
+    settings.setProperty("sonar.jdbc.password", "sonar");
+    DefaultDatabase db = new DefaultDatabase(settings);
+    db.start();
+    return db;
+  }
+
   @Test
   public void shouldGuessDialectFromUrl() {
     Settings settings = new MapSettings();
@@ -182,6 +182,21 @@ public class CeQueueDaoTest {
     assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
   }
 
+  @Test
+  public void peek_tasks_of_other_projects_while_a_project_has_a_task_in_progress() throws Exception {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 2_000_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+
+    assertThat(underTest.peek(db.getSession()).get().getUuid()).isEqualTo(TASK_UUID_1);
+    // second task of PROJECT_1 must wait for the first one, but PROJECT_2 is not blocked
+    assertThat(underTest.peek(db.getSession()).get().getUuid()).isEqualTo(TASK_UUID_3);
+    assertThat(underTest.peek(db.getSession()).isPresent()).isFalse();
+    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, PENDING, TASK_UUID_3, IN_PROGRESS);
+  }
+
   @Test
   public void select_by_query() {
     // task status not in query
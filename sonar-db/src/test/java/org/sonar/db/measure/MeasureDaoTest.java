@@ -98,6 +98,29 @@ public class MeasureDaoTest {
     assertThat(selected.getAlertText()).isEqualTo(inserted.getAlertText());
   }
 
+  @Test
+  public void insert_collection_of_measures_by_groups_of_rows() {
+    insertAnalysis(LAST_ANALYSIS_UUID, true);
+    List<MeasureDto> measures = new ArrayList<>();
+    int count = MeasureDao.INSERT_BATCH_SIZE * 2 + 3;
+    for (int i = 0; i < count; i++) {
+      measures.add(MeasureTesting.newMeasure()
+        .setAnalysisUuid(LAST_ANALYSIS_UUID)
+        .setComponentUuid("C" + i)
+        .setMetricId(NCLOC_METRIC_ID)
+        .setValue((double) i)
+        .setData("M" + i));
+    }
+
+    underTest.insert(db.getSession(), measures);
+    db.commit();
+
+    assertThat(db.countRowsOfTable("project_measures")).isEqualTo(count);
+    MeasureDto selected = underTest.selectSingle(db.getSession(), MeasureQuery.builder().setComponentUuid("C150").setMetricId(NCLOC_METRIC_ID).build()).get();
+    assertThat(selected.getValue()).isEqualTo(150d);
+    assertThat(selected.getData()).isEqualTo("M150");
+  }
+
   @Test
   public void selectByQuery() {
     insertAnalysis(LAST_ANALYSIS_UUID, true);
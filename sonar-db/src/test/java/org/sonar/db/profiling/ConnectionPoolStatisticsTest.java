@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionPoolStatisticsTest {
+
+  private ConnectionPoolStatistics underTest = new ConnectionPoolStatistics();
+
+  @Test
+  public void no_statistics_by_default() {
+    assertThat(underTest.getBorrowCount()).isEqualTo(0);
+    assertThat(underTest.getFailureCount()).isEqualTo(0);
+    assertThat(underTest.getAverageWaitMillis()).isEqualTo(0d);
+    assertThat(underTest.getMaxWaitMillis()).isEqualTo(0);
+    assertThat(underTest.getWaitingThreads()).isEqualTo(0);
+    assertThat(underTest.getPeakWaitingThreads()).isEqualTo(0);
+    assertThat(underTest.getWaitHistogram()).containsExactly(0, 0, 0, 0, 0, 0);
+  }
+
+  @Test
+  public void record_waits_in_histogram() {
+    borrow(0, true);
+    borrow(50, true);
+    borrow(20_000, true);
+    borrow(50, false);
+
+    assertThat(underTest.getBorrowCount()).isEqualTo(3);
+    assertThat(underTest.getFailureCount()).isEqualTo(1);
+    assertThat(underTest.getMaxWaitMillis()).isGreaterThanOrEqualTo(20_000);
+    assertThat(underTest.getAverageWaitMillis()).isGreaterThanOrEqualTo(20_050d / 3);
+    assertThat(underTest.getWaitHistogram()).containsExactly(1, 0, 1, 0, 0, 1);
+  }
+
+  @Test
+  public void count_waiting_threads() {
+    long first = underTest.borrowStarted();
+    long second = underTest.borrowStarted();
+    assertThat(underTest.getWaitingThreads()).isEqualTo(2);
+
+    underTest.borrowEnded(first, true);
+    underTest.borrowEnded(second, true);
+
+    assertThat(underTest.getWaitingThreads()).isEqualTo(0);
+    assertThat(underTest.getPeakWaitingThreads()).isEqualTo(2);
+  }
+
+  @Test
+  public void labels_of_histogram() {
+    assertThat(ConnectionPoolStatistics.waitHistogramLabels())
+      .containsExactly("< 1 ms", "< 10 ms", "< 100 ms", "< 1000 ms", "< 10000 ms", ">= 10000 ms");
+  }
+
+  private void borrow(long waitMillis, boolean success) {
+    underTest.borrowStarted();
+    underTest.borrowEnded(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(waitMillis), success);
+  }
+}
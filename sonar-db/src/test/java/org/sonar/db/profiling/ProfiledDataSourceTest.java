@@ -25,8 +25,10 @@ import java.lang.reflect.Modifier;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.junit.Rule;
 import org.junit.Test;
@@ -34,7 +36,9 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ProfiledDataSourceTest {
@@ -132,6 +136,110 @@ public class ProfiledDataSourceTest {
       .doesNotContain("params=");
   }
 
+  @Test
+  public void record_statistics_of_borrowed_connections() throws Exception {
+    when(originDataSource.getConnection()).thenReturn(mock(Connection.class)).thenThrow(new SQLException("pool exhausted"));
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    underTest.getConnection();
+    try {
+      underTest.getConnection();
+      fail();
+    } catch (SQLException e) {
+      assertThat(e).hasMessage("pool exhausted");
+    }
+
+    ConnectionPoolStatistics statistics = underTest.getPoolStatistics();
+    assertThat(statistics.getBorrowCount()).isEqualTo(1);
+    assertThat(statistics.getFailureCount()).isEqualTo(1);
+    assertThat(statistics.getWaitingThreads()).isEqualTo(0);
+    assertThat(statistics.getPeakWaitingThreads()).isEqualTo(1);
+    assertThat(statistics.getWaitHistogram()).hasSize(ConnectionPoolStatistics.waitHistogramLabels().length);
+    assertThat(Arrays.stream(statistics.getWaitHistogram()).sum()).isEqualTo(1);
+  }
+
+  @Test
+  public void record_statistics_of_connections_borrowed_with_credentials() throws Exception {
+    when(originDataSource.getConnection("login", "pwd")).thenReturn(mock(Connection.class)).thenThrow(new SQLException("pool exhausted"));
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    underTest.getConnection("login", "pwd");
+    try {
+      underTest.getConnection("login", "pwd");
+      fail();
+    } catch (SQLException e) {
+      assertThat(e).hasMessage("pool exhausted");
+    }
+
+    ConnectionPoolStatistics statistics = underTest.getPoolStatistics();
+    assertThat(statistics.getBorrowCount()).isEqualTo(1);
+    assertThat(statistics.getFailureCount()).isEqualTo(1);
+    assertThat(statistics.getWaitingThreads()).isEqualTo(0);
+    assertThat(Arrays.stream(statistics.getWaitHistogram()).sum()).isEqualTo(1);
+  }
+
+  @Test
+  public void pool_statistics_of_data_source() {
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    assertThat(ProfiledDataSource.poolStatisticsOf(underTest)).contains(underTest.getPoolStatistics());
+    assertThat(ProfiledDataSource.poolStatisticsOf(originDataSource)).isEmpty();
+  }
+
+  @Test
+  public void log_connections_which_are_not_closed_within_leak_detection_threshold() throws Exception {
+    when(originDataSource.getConnection()).thenReturn(mock(Connection.class));
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+    underTest.setLeakDetectionThresholdMillis(10L);
+
+    underTest.getConnection();
+
+    for (int i = 0; i < 500 && underTest.getPoolStatistics().getLeakCount() == 0L; i++) {
+      Thread.sleep(10L);
+    }
+    assertThat(underTest.getPoolStatistics().getLeakCount()).isEqualTo(1L);
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly("Connection has not been given back to the pool for more than 10 ms, it may have leaked");
+    underTest.close();
+  }
+
+  @Test
+  public void closed_connections_are_not_leaks() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+    underTest.setLeakDetectionThresholdMillis(100L);
+
+    underTest.getConnection().close();
+    Thread.sleep(200L);
+
+    verify(connection).close();
+    assertThat(underTest.getPoolStatistics().getLeakCount()).isZero();
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+    underTest.close();
+  }
+
+  @Test
+  public void leak_detection_is_disabled_by_default() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    assertThat(underTest.getLeakDetectionThresholdMillis()).isZero();
+    assertThat(underTest.getConnection()).isSameAs(connection);
+  }
+
+  @Test
+  public void fail_if_leak_detection_threshold_is_negative() {
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    try {
+      underTest.setLeakDetectionThresholdMillis(-1L);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Leak detection threshold must be positive or zero: -1");
+    }
+  }
+
   @Test
   public void delegate_to_underlying_data_source() throws Exception {
     ProfiledDataSource proxy = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
@@ -28,6 +28,7 @@ import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -110,6 +111,26 @@ public class PackedMemoryCloneIndexTest {
     
   }
 
+  /**
+   * Given: sorted index.
+   * Expected: queries executed concurrently return the same results as sequential ones.
+   */
+  @Test
+  public void should_support_concurrent_queries() {
+    for (int resource = 0; resource < 50; resource++) {
+      for (int hash = 0; hash < 20; hash++) {
+        index.insert(newBlock("r" + resource, hash));
+      }
+    }
+    assertThat(index.noResources()).isEqualTo(50);
+
+    long matches = IntStream.range(0, 1000).parallel()
+      .filter(i -> index.getBySequenceHash(new ByteArray((long) (i % 20))).size() == 50
+        && index.getByResourceId("r" + (i % 50)).size() == 20)
+      .count();
+    assertThat(matches).isEqualTo(1000);
+  }
+
   /**
    * Given: index with initial capacity 1.
    * Expected: size and capacity should be increased after insertion of two blocks.
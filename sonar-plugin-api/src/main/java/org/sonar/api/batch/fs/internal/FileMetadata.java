@@ -282,13 +282,22 @@ public class FileMetadata {
    * For testing purpose
    */
   public Metadata readMetadata(Reader reader) {
-    LineCounter lineCounter = new LineCounter(new File("fromString"), StandardCharsets.UTF_16);
-    FileHashComputer fileHashComputer = new FileHashComputer(new File("fromString"));
+    return readMetadata(reader, new File("fromString"), StandardCharsets.UTF_16);
+  }
+
+  /**
+   * Same as {@link #readMetadata(File, Charset)}, when the content of the file has already been decoded
+   * with the given encoding. File and encoding are only used in logs.
+   * @since 6.2
+   */
+  public Metadata readMetadata(Reader reader, File file, Charset encoding) {
+    LineCounter lineCounter = new LineCounter(file, encoding);
+    FileHashComputer fileHashComputer = new FileHashComputer(file);
     LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
     try {
       read(reader, lineCounter, fileHashComputer, lineOffsetCounter);
     } catch (IOException e) {
-      throw new IllegalStateException("Should never occurs", e);
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", file.getAbsolutePath(), encoding), e);
     }
     return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
       lineOffsetCounter.getLastValidOffset());
@@ -36,6 +36,12 @@ public abstract class PathPattern {
 
   public abstract boolean match(InputFile inputFile, boolean caseSensitiveFileExtension);
 
+  abstract boolean isAbsolute();
+
+  String patternString() {
+    return pattern.toString();
+  }
+
   public static PathPattern create(String s) {
     String trimmed = StringUtils.trim(s);
     if (StringUtils.startsWithIgnoreCase(trimmed, "file:")) {
@@ -64,15 +70,12 @@ public abstract class PathPattern {
 
     @Override
     public boolean match(InputFile inputFile, boolean caseSensitiveFileExtension) {
-      String path = inputFile.absolutePath();
-      if (!caseSensitiveFileExtension) {
-        String extension = sanitizeExtension(FilenameUtils.getExtension(inputFile.file().getName()));
-        if (StringUtils.isNotBlank(extension)) {
-          path = StringUtils.removeEndIgnoreCase(path, extension);
-          path = path + extension;
-        }
-      }
-      return pattern.match(path);
+      return pattern.match(pathToMatch(inputFile.absolutePath(), inputFile, caseSensitiveFileExtension));
+    }
+
+    @Override
+    boolean isAbsolute() {
+      return true;
     }
 
     @Override
@@ -96,23 +99,34 @@ public abstract class PathPattern {
 
     @Override
     public boolean match(InputFile inputFile, boolean caseSensitiveFileExtension) {
-      String path = inputFile.relativePath();
-      if (!caseSensitiveFileExtension) {
-        String extension = sanitizeExtension(FilenameUtils.getExtension(inputFile.file().getName()));
-        if (StringUtils.isNotBlank(extension)) {
-          path = StringUtils.removeEndIgnoreCase(path, extension);
-          path = path + extension;
-        }
-      }
+      String path = pathToMatch(inputFile.relativePath(), inputFile, caseSensitiveFileExtension);
       return path != null && pattern.match(path);
     }
 
+    @Override
+    boolean isAbsolute() {
+      return false;
+    }
+
     @Override
     public String toString() {
       return pattern.toString();
     }
   }
 
+  /**
+   * When extension is not case sensitive, it is converted to lower case
+   */
+  static String pathToMatch(String path, InputFile inputFile, boolean caseSensitiveFileExtension) {
+    if (!caseSensitiveFileExtension) {
+      String extension = sanitizeExtension(FilenameUtils.getExtension(inputFile.file().getName()));
+      if (StringUtils.isNotBlank(extension)) {
+        return StringUtils.removeEndIgnoreCase(path, extension) + extension;
+      }
+    }
+    return path;
+  }
+
   static String sanitizeExtension(String suffix) {
     return StringUtils.lowerCase(StringUtils.removeStart(suffix, "."));
   }
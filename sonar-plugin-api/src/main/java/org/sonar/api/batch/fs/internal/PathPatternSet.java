@@ -0,0 +1,105 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Evaluates a list of {@link PathPattern} in a single pass over the relative path, and a single pass over the
+ * absolute path, of files. See {@link WildcardPatternSet}.
+ *
+ * @since 6.2
+ */
+public class PathPatternSet {
+
+  private final int size;
+  private final Group relativePatterns = new Group();
+  private final Group absolutePatterns = new Group();
+
+  public PathPatternSet(PathPattern[] patterns) {
+    this.size = patterns.length;
+    for (int i = 0; i < patterns.length; i++) {
+      (patterns[i].isAbsolute() ? absolutePatterns : relativePatterns).add(i, patterns[i]);
+    }
+    relativePatterns.compile();
+    absolutePatterns.compile();
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Indexes of the patterns that match the file, as {@link PathPattern#match(InputFile, boolean)} would do.
+   */
+  public BitSet match(InputFile inputFile, boolean caseSensitiveFileExtension) {
+    BitSet result = new BitSet(size);
+    String relativePath = relativePatterns.isEmpty() ? null : inputFile.relativePath();
+    if (relativePath != null) {
+      relativePatterns.match(PathPattern.pathToMatch(relativePath, inputFile, caseSensitiveFileExtension), result);
+    }
+    if (!absolutePatterns.isEmpty()) {
+      absolutePatterns.match(PathPattern.pathToMatch(inputFile.absolutePath(), inputFile, caseSensitiveFileExtension), result);
+    }
+    return result;
+  }
+
+  public boolean matchAny(InputFile inputFile, boolean caseSensitiveFileExtension) {
+    String relativePath = relativePatterns.isEmpty() ? null : inputFile.relativePath();
+    if (relativePath != null && relativePatterns.matcher.matchAny(PathPattern.pathToMatch(relativePath, inputFile, caseSensitiveFileExtension))) {
+      return true;
+    }
+    return !absolutePatterns.isEmpty()
+      && absolutePatterns.matcher.matchAny(PathPattern.pathToMatch(inputFile.absolutePath(), inputFile, caseSensitiveFileExtension));
+  }
+
+  private static class Group {
+    private final List<String> patterns = new ArrayList<>();
+    private final List<Integer> ids = new ArrayList<>();
+    private WildcardPatternSet matcher;
+
+    void add(int id, PathPattern pattern) {
+      ids.add(id);
+      patterns.add(pattern.patternString());
+    }
+
+    void compile() {
+      matcher = new WildcardPatternSet(patterns);
+    }
+
+    boolean isEmpty() {
+      return ids.isEmpty();
+    }
+
+    void match(String path, BitSet result) {
+      BitSet matched = matcher.match(path);
+      for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+        result.set(ids.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.utils.WildcardPattern;
+
+/**
+ * Set of Ant-style patterns (see {@link WildcardPattern}, with "/" as directory separator) compiled into a single automaton,
+ * so that all the patterns are evaluated in one pass over the value, instead of one regular expression per pattern.
+ * <p>
+ * Patterns are identified by their index in the list given at creation. The deterministic automaton is built lazily
+ * and shared between threads.
+ *
+ * @since 6.2
+ */
+public class WildcardPatternSet {
+
+  private static final int ASCII = 128;
+  // Bounds the memory used by the automaton. Beyond it the states are computed on the fly.
+  private static final int MAX_CACHED_STATES = 10_000;
+
+  private static final byte LITERAL = 0;
+  // ?
+  private static final byte ONE_CHAR = 1;
+  // *
+  private static final byte CHARS = 2;
+  // ** not followed by a slash
+  private static final byte ANY_CHARS = 3;
+  // **/, which is either empty or any characters followed by a slash. The second state is reached once some
+  // characters are consumed, so that the slash is then required.
+  private static final byte DIRECTORIES = 4;
+  private static final byte DIRECTORIES_CONTENT = 5;
+
+  private final String[] patterns;
+  // For each state of the non-deterministic automaton: the kind of token, the literal character, and the pattern
+  // accepted when this state is the last one of the pattern (-1 otherwise)
+  private final byte[] kinds;
+  private final char[] literals;
+  private final int[] acceptedPatterns;
+  private final Map<BitSet, State> states = new ConcurrentHashMap<>();
+  private final State initialState;
+
+  public WildcardPatternSet(Collection<String> patterns) {
+    this.patterns = patterns.toArray(new String[patterns.size()]);
+    List<Byte> kindList = new ArrayList<>();
+    StringBuilder literalList = new StringBuilder();
+    List<Integer> acceptList = new ArrayList<>();
+    int[] starts = new int[this.patterns.length];
+    for (int id = 0; id < this.patterns.length; id++) {
+      starts[id] = kindList.size();
+      tokenize(this.patterns[id], kindList, literalList, acceptList);
+      kindList.add(LITERAL);
+      literalList.append('\0');
+      acceptList.add(id);
+    }
+    int size = kindList.size();
+    kinds = new byte[size];
+    literals = new char[size];
+    acceptedPatterns = new int[size];
+    for (int i = 0; i < size; i++) {
+      kinds[i] = kindList.get(i);
+      literals[i] = literalList.charAt(i);
+      acceptedPatterns[i] = acceptList.get(i);
+    }
+
+    BitSet initial = new BitSet(size);
+    for (int start : starts) {
+      addWithClosure(initial, start);
+    }
+    initialState = state(initial);
+  }
+
+  /**
+   * Same logic than the conversion of {@link WildcardPattern} to a regular expression
+   */
+  private static void tokenize(String pattern, List<Byte> kinds, StringBuilder literals, List<Integer> accepts) {
+    int i = pattern.startsWith("/") || pattern.startsWith("\\") ? 1 : 0;
+    while (i < pattern.length()) {
+      char ch = pattern.charAt(i);
+      byte kind = LITERAL;
+      char literal = ch;
+      if (ch == '*') {
+        if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+          if (i + 2 < pattern.length() && isSlash(pattern.charAt(i + 2))) {
+            kind = DIRECTORIES;
+            i += 2;
+          } else {
+            kind = ANY_CHARS;
+            i += 1;
+          }
+        } else {
+          kind = CHARS;
+        }
+      } else if (ch == '?') {
+        kind = ONE_CHAR;
+      } else if (isSlash(ch)) {
+        literal = '/';
+      }
+      kinds.add(kind);
+      literals.append(kind == LITERAL ? literal : '\0');
+      accepts.add(-1);
+      if (kind == DIRECTORIES) {
+        kinds.add(DIRECTORIES_CONTENT);
+        literals.append('\0');
+        accepts.add(-1);
+      }
+      i++;
+    }
+  }
+
+  private static boolean isSlash(char ch) {
+    return ch == '/' || ch == '\\';
+  }
+
+  /**
+   * Line terminators are not matched by "." in regular expressions, so neither by "**"
+   */
+  private static boolean isLineTerminator(char ch) {
+    return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+  }
+
+  private void addWithClosure(BitSet set, int nfaState) {
+    int s = nfaState;
+    while (!set.get(s)) {
+      set.set(s);
+      if (acceptedPatterns[s] >= 0 || kinds[s] == LITERAL || kinds[s] == ONE_CHAR || kinds[s] == DIRECTORIES_CONTENT) {
+        return;
+      }
+      // wildcards can match an empty string
+      s += kinds[s] == DIRECTORIES ? 2 : 1;
+    }
+  }
+
+  private State state(BitSet nfaStates) {
+    State state = states.get(nfaStates);
+    if (state == null) {
+      BitSet accepted = new BitSet(patterns.length);
+      for (int s = nfaStates.nextSetBit(0); s >= 0; s = nfaStates.nextSetBit(s + 1)) {
+        if (acceptedPatterns[s] >= 0) {
+          accepted.set(acceptedPatterns[s]);
+        }
+      }
+      boolean cached = states.size() < MAX_CACHED_STATES;
+      state = new State(nfaStates, accepted, cached);
+      if (cached) {
+        State previous = states.putIfAbsent(nfaStates, state);
+        if (previous != null) {
+          state = previous;
+        }
+      }
+    }
+    return state;
+  }
+
+  private State computeNext(State from, char c) {
+    BitSet next = new BitSet(kinds.length);
+    BitSet current = from.nfaStates;
+    for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+      if (acceptedPatterns[s] >= 0) {
+        continue;
+      }
+      switch (kinds[s]) {
+        case LITERAL:
+          if (literals[s] == c) {
+            addWithClosure(next, s + 1);
+          }
+          break;
+        case ONE_CHAR:
+          if (c != '/') {
+            addWithClosure(next, s + 1);
+          }
+          break;
+        case CHARS:
+          if (c != '/') {
+            addWithClosure(next, s);
+          }
+          break;
+        case ANY_CHARS:
+          if (!isLineTerminator(c)) {
+            addWithClosure(next, s);
+          }
+          break;
+        case DIRECTORIES:
+          if (!isLineTerminator(c)) {
+            addWithClosure(next, s + 1);
+          }
+          if (c == '/') {
+            addWithClosure(next, s + 2);
+          }
+          break;
+        case DIRECTORIES_CONTENT:
+          if (!isLineTerminator(c)) {
+            addWithClosure(next, s);
+          }
+          if (c == '/') {
+            addWithClosure(next, s + 1);
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unknown token: " + kinds[s]);
+      }
+    }
+    return state(next);
+  }
+
+  private State run(String value) {
+    String normalized = StringUtils.removeEnd(StringUtils.removeStart(value, "/"), "/");
+    State state = initialState;
+    for (int i = 0; i < normalized.length() && !state.isDead(); i++) {
+      state = state.next(normalized.charAt(i));
+    }
+    return state;
+  }
+
+  /**
+   * Indexes of the patterns that match the value, as {@link WildcardPattern#match(String)} would do.
+   */
+  public BitSet match(String value) {
+    return (BitSet) run(value).accepted.clone();
+  }
+
+  public boolean matchAny(String value) {
+    return !run(value).accepted.isEmpty();
+  }
+
+  public int size() {
+    return patterns.length;
+  }
+
+  public String pattern(int index) {
+    return patterns[index];
+  }
+
+  private class State {
+    private final BitSet nfaStates;
+    private final BitSet accepted;
+    private final boolean cached;
+    private final AtomicReferenceArray<State> asciiTransitions = new AtomicReferenceArray<>(ASCII);
+    private final Map<Character, State> otherTransitions = new ConcurrentHashMap<>();
+
+    State(BitSet nfaStates, BitSet accepted, boolean cached) {
+      this.nfaStates = nfaStates;
+      this.accepted = accepted;
+      this.cached = cached;
+    }
+
+    boolean isDead() {
+      return nfaStates.isEmpty();
+    }
+
+    State next(char c) {
+      State next;
+      if (c < ASCII) {
+        next = asciiTransitions.get(c);
+        if (next == null) {
+          next = computeNext(this, c);
+          if (next.cached) {
+            asciiTransitions.lazySet(c, next);
+          }
+        }
+      } else {
+        next = otherTransitions.get(c);
+        if (next == null) {
+          next = computeNext(this, c);
+          if (next.cached) {
+            otherTransitions.put(c, next);
+          }
+        }
+      }
+      return next;
+    }
+  }
+}
@@ -79,4 +79,26 @@ public interface SensorDescriptor {
    */
   SensorDescriptor requireProperties(String... propertyKeys);
 
+  /**
+   * Keys of the data this {@link Sensor} saves, for example metric keys or kinds of data. Kinds declared by
+   * the built-in sensors are "coverage", "highlighting", "scm", "tests" and "cpd_tokens".
+   * When parallel execution of sensors is enabled, the platform executes concurrently the sensors which declare
+   * their produced and consumed data and which do not depend on each other. Sensors which do not declare
+   * data are executed alone, in the usual order.
+   * Does nothing by default.
+   * @since 6.2
+   */
+  default SensorDescriptor produces(String... dataKeys) {
+    return this;
+  }
+
+  /**
+   * Keys of the data this {@link Sensor} reads and that are saved by other sensors. See {@link #produces(String...)}.
+   * Does nothing by default.
+   * @since 6.2
+   */
+  default SensorDescriptor consumes(String... dataKeys) {
+    return this;
+  }
+
 }
@@ -21,6 +21,7 @@ package org.sonar.api.batch.sensor.internal;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorDescriptor;
@@ -32,6 +33,8 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
   private InputFile.Type type = null;
   private String[] ruleRepositories = new String[0];
   private String[] properties = new String[0];
+  private String[] producedData = null;
+  private String[] consumedData = null;
 
   public String name() {
     return name;
@@ -54,6 +57,21 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
     return Arrays.asList(properties);
   }
 
+  public Collection<String> producedData() {
+    return producedData == null ? Collections.emptyList() : Arrays.asList(producedData);
+  }
+
+  public Collection<String> consumedData() {
+    return consumedData == null ? Collections.emptyList() : Arrays.asList(consumedData);
+  }
+
+  /**
+   * Whether {@link #produces(String...)} or {@link #consumes(String...)} has been called.
+   */
+  public boolean isDataDeclared() {
+    return producedData != null || consumedData != null;
+  }
+
   @Override
   public DefaultSensorDescriptor name(String name) {
     this.name = name;
@@ -99,4 +117,16 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
     return this;
   }
 
+  @Override
+  public DefaultSensorDescriptor produces(String... dataKeys) {
+    this.producedData = dataKeys;
+    return this;
+  }
+
+  @Override
+  public DefaultSensorDescriptor consumes(String... dataKeys) {
+    this.consumedData = dataKeys;
+    return this;
+  }
+
 }
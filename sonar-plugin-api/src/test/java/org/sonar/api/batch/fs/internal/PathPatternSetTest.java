@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PathPatternSetTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void match_relative_and_absolute_patterns() throws Exception {
+    PathPatternSet set = new PathPatternSet(PathPattern.create(new String[] {"**/*Foo.java", "file:**/src/main/**Bar.java", "src/**", "file:**/other/**"}));
+    assertThat(set.size()).isEqualTo(4);
+    assertThat(set.isEmpty()).isFalse();
+
+    Path moduleBaseDir = temp.newFolder().toPath();
+    InputFile inputFile = new DefaultInputFile("ABCDE", "src/main/java/org/MyFoo.java").setModuleBaseDir(moduleBaseDir);
+    assertThat(set.match(inputFile, true).toString()).isEqualTo("{0, 2}");
+    assertThat(set.matchAny(inputFile, true)).isTrue();
+
+    inputFile = new DefaultInputFile("ABCDE", "src/main/java/org/MyBar.java").setModuleBaseDir(moduleBaseDir);
+    assertThat(set.match(inputFile, true).toString()).isEqualTo("{1, 2}");
+
+    inputFile = new DefaultInputFile("ABCDE", "test/MyBar.java").setModuleBaseDir(moduleBaseDir);
+    assertThat(set.match(inputFile, true).isEmpty()).isTrue();
+    assertThat(set.matchAny(inputFile, true)).isFalse();
+  }
+
+  @Test
+  public void match_insensitive_file_extension() throws Exception {
+    PathPatternSet set = new PathPatternSet(PathPattern.create(new String[] {"**/*Foo.java", "file:**/*Foo.java"}));
+
+    Path moduleBaseDir = temp.newFolder().toPath();
+    InputFile inputFile = new DefaultInputFile("ABCDE", "src/main/java/org/MyFoo.JAVA").setModuleBaseDir(moduleBaseDir);
+    assertThat(set.matchAny(inputFile, true)).isFalse();
+    assertThat(set.match(inputFile, false).toString()).isEqualTo("{0, 1}");
+    assertThat(set.matchAny(inputFile, false)).isTrue();
+  }
+
+  @Test
+  public void empty_set() {
+    PathPatternSet set = new PathPatternSet(new PathPattern[0]);
+
+    assertThat(set.isEmpty()).isTrue();
+    assertThat(set.matchAny(new DefaultInputFile("ABCDE", "src/Foo.java"), true)).isFalse();
+  }
+}
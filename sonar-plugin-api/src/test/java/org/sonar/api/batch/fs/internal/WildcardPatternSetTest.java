@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WildcardPatternSetTest {
+
+  private static final List<String> PATTERNS = Arrays.asList("org/T?st.java", "org/*.java", "org/**", "org/**/Test.java", "org/**/*.java",
+    "**/*Foo.java", "/org/foo/**/Bar", "org\\foo\\*", "**", "**/", "**a", "*/*/**", "org/(a+b)[c].{d}|e^$", "");
+
+  private static final List<String> VALUES = Arrays.asList("org/Test.java", "org/Tost.java", "org/Foo.java", "org/foo/Bar.java", "org/foo/Test.java",
+    "org/foo/bar/Baz.java", "org", "org/", "/org/foo/Bar", "org/foo/x/Bar", "foo/MyFoo.java", "MyFoo.java", "org/(a+b)[c].{d}|e^$", "", "/",
+    "a", "ba", "b/a", "org/foo/Ba\nr", "org/f\no/Bar", "org/\u00e9t\u00e9.java");
+
+  @Test
+  public void match_same_as_wildcard_patterns() {
+    WildcardPatternSet set = new WildcardPatternSet(PATTERNS);
+    assertThat(set.size()).isEqualTo(PATTERNS.size());
+    for (String value : VALUES) {
+      BitSet matched = set.match(value);
+      for (int i = 0; i < PATTERNS.size(); i++) {
+        assertThat(matched.get(i)).as(PATTERNS.get(i) + " on " + value).isEqualTo(WildcardPattern.create(PATTERNS.get(i)).match(value));
+      }
+      assertThat(set.matchAny(value)).isEqualTo(!matched.isEmpty());
+    }
+  }
+
+  @Test
+  public void return_indexes_of_matching_patterns() {
+    WildcardPatternSet set = new WildcardPatternSet(Arrays.asList("**/*.java", "**/*.js", "src/**", "**/*Test.java"));
+
+    assertThat(set.match("src/main/Foo.java").toString()).isEqualTo("{0, 2}");
+    assertThat(set.match("test/FooTest.java").toString()).isEqualTo("{0, 3}");
+    assertThat(set.match("foo.js").toString()).isEqualTo("{1}");
+    assertThat(set.match("foo.py").isEmpty()).isTrue();
+    assertThat(set.matchAny("foo.py")).isFalse();
+    assertThat(set.pattern(1)).isEqualTo("**/*.js");
+  }
+
+  @Test
+  public void empty_set_matches_nothing() {
+    WildcardPatternSet set = new WildcardPatternSet(Collections.<String>emptyList());
+
+    assertThat(set.size()).isZero();
+    assertThat(set.matchAny("foo")).isFalse();
+    assertThat(set.match("").isEmpty()).isTrue();
+  }
+}
@@ -43,4 +43,31 @@ public class DefaultSensorDescriptorTest {
     assertThat(descriptor.ruleRepositories()).containsOnly("squid-java");
   }
 
+  @Test
+  public void data_are_not_declared_by_default() {
+    DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
+
+    assertThat(descriptor.isDataDeclared()).isFalse();
+    assertThat(descriptor.producedData()).isEmpty();
+    assertThat(descriptor.consumedData()).isEmpty();
+  }
+
+  @Test
+  public void declare_produced_and_consumed_data() {
+    DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor()
+      .produces("highlighting", "ncloc")
+      .consumes("scm");
+
+    assertThat(descriptor.isDataDeclared()).isTrue();
+    assertThat(descriptor.producedData()).containsExactly("highlighting", "ncloc");
+    assertThat(descriptor.consumedData()).containsExactly("scm");
+  }
+
+  @Test
+  public void declaring_no_data_is_a_declaration() {
+    DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor().produces();
+
+    assertThat(descriptor.isDataDeclared()).isTrue();
+  }
+
 }
@@ -22,7 +22,10 @@ package org.sonar.scanner.cpd;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -30,6 +33,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.log.Logger;
@@ -61,12 +65,14 @@ public class CpdExecutor {
   private static final int TIMEOUT = 5 * 60;
   static final int MAX_CLONE_GROUP_PER_FILE = 100;
   static final int MAX_CLONE_PART_PER_GROUP = 100;
+  static final String THREADS_PROPERTY = "sonar.cpd.threads";
+  // number of files for which detection can be scheduled ahead of the file being saved, per thread
+  private static final int PENDING_FILES_PER_THREAD = 4;
 
   private final SonarCpdBlockIndex index;
   private final ReportPublisher publisher;
   private final BatchComponentCache batchComponentCache;
   private final Settings settings;
-  private final ExecutorService executorService;
   private final ProgressReport progressReport;
   private int count;
   private int total;
@@ -76,51 +82,83 @@ public class CpdExecutor {
     this.index = index;
     this.publisher = publisher;
     this.batchComponentCache = batchComponentCache;
-    this.executorService = Executors.newSingleThreadExecutor();
     this.progressReport = new ProgressReport("CPD computation", TimeUnit.SECONDS.toMillis(10));
   }
 
+  /**
+   * Detection of each file is dispatched to a pool of {@link #threads()} threads. The index is sorted before the first task
+   * is submitted and is only read afterwards. Results are saved by the calling thread, in the order of the index, so that
+   * the report does not depend on the number of threads.
+   */
   public void execute() {
     total = index.noResources();
+    int threads = threads();
     progressReport.start(String.format("Calculating CPD for %d files", total));
+    ExecutorService executorService = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("cpd-%d").setDaemon(true).build());
     try {
       Iterator<ResourceBlocks> it = index.iterator();
+      Deque<PendingFile> pending = new ArrayDeque<>();
 
       while (it.hasNext()) {
         ResourceBlocks resourceBlocks = it.next();
-        runCpdAnalysis(resourceBlocks.resourceId(), resourceBlocks.blocks());
-        count++;
+        PendingFile file = submit(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks());
+        if (file != null) {
+          pending.add(file);
+        }
+        if (pending.size() >= threads * PENDING_FILES_PER_THREAD) {
+          saveResult(pending.poll());
+        }
+      }
+      while (!pending.isEmpty()) {
+        saveResult(pending.poll());
       }
       progressReport.stop("CPD calculation finished");
     } catch (Exception e) {
       progressReport.stop("");
       throw e;
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @VisibleForTesting
+  int threads() {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
     }
+    return threads;
   }
 
-  private void runCpdAnalysis(String resource, final Collection<Block> fileBlocks) {
+  @CheckForNull
+  private PendingFile submit(ExecutorService executorService, String resource, final Collection<Block> fileBlocks) {
     LOG.debug("Detection of duplications for {}", resource);
 
     BatchComponent component = batchComponentCache.get(resource);
     if (component == null) {
       LOG.error("Resource not found in component cache: {}. Skipping CPD computation for it", resource);
-      return;
+      count++;
+      return null;
     }
+    return new PendingFile(component, executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks)));
+  }
 
-    InputFile inputFile = (InputFile) component.inputComponent();
+  private void saveResult(PendingFile file) {
+    InputFile inputFile = (InputFile) file.component.inputComponent();
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
+    count++;
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = null;
     try {
-      futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
-      duplications = futureResult.get(TIMEOUT, TimeUnit.SECONDS);
+      duplications = file.result.get(TIMEOUT, TimeUnit.SECONDS);
     } catch (TimeoutException e) {
       LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
-      if (futureResult != null) {
-        futureResult.cancel(true);
-      }
+      file.result.cancel(true);
       return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during detection of duplication for " + inputFile.absolutePath(), e);
     } catch (Exception e) {
       throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
     }
@@ -133,7 +171,17 @@ public class CpdExecutor {
       filtered = duplications;
     }
 
-    saveDuplications(component, filtered);
+    saveDuplications(file.component, filtered);
+  }
+
+  private static class PendingFile {
+    private final BatchComponent component;
+    private final Future<List<CloneGroup>> result;
+
+    PendingFile(BatchComponent component, Future<List<CloneGroup>> result) {
+      this.component = component;
+      this.result = result;
+    }
   }
 
   @VisibleForTesting
@@ -52,7 +52,8 @@ public class DeprecatedCpdBlockIndexerSensor implements Sensor {
 
   @Override
   public void describe(SensorDescriptor descriptor) {
-    descriptor.name("CPD Block Indexer");
+    descriptor.name("CPD Block Indexer")
+      .produces("cpd_tokens");
   }
 
   @VisibleForTesting
@@ -20,11 +20,6 @@
 package org.sonar.scanner.cpd.deprecated;
 
 import com.google.common.collect.Lists;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +37,7 @@ import org.sonar.duplications.statement.Statement;
 import org.sonar.duplications.statement.StatementChunker;
 import org.sonar.duplications.token.TokenChunker;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
+import org.sonar.scanner.scan.filesystem.FileContentCache;
 
 public class JavaCpdBlockIndexer extends CpdBlockIndexer {
 
@@ -52,11 +48,13 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
   private final FileSystem fs;
   private final Settings settings;
   private final SonarCpdBlockIndex index;
+  private final FileContentCache fileContentCache;
 
-  public JavaCpdBlockIndexer(FileSystem fs, Settings settings, SonarCpdBlockIndex index) {
+  public JavaCpdBlockIndexer(FileSystem fs, Settings settings, SonarCpdBlockIndex index, FileContentCache fileContentCache) {
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.fileContentCache = fileContentCache;
   }
 
   @Override
@@ -88,15 +86,7 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
       LOG.debug("Populating index from {}", inputFile);
       String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
 
-      List<Statement> statements;
-
-      try (Reader reader = new InputStreamReader(new FileInputStream(inputFile.file()), fs.encoding())) {
-        statements = statementChunker.chunk(tokenChunker.chunk(reader));
-      } catch (FileNotFoundException e) {
-        throw new IllegalStateException("Cannot find file " + inputFile.file(), e);
-      } catch (IOException e) {
-        throw new IllegalStateException("Exception handling file: " + inputFile.file(), e);
-      }
+      List<Statement> statements = statementChunker.chunk(tokenChunker.chunk(fileContentCache.content(inputFile.file(), fs.encoding())));
 
       List<Block> blocks = blockChunker.chunk(resourceEffectiveKey, statements);
       index.insert(inputFile, blocks);
@@ -46,6 +46,19 @@ public class GenericCoverageReportParser {
   private int numberOfUnknownFiles;
   private final List<String> firstUnknownFiles = new ArrayList<>();
   private final Set<String> matchedFileKeys = new HashSet<>();
+  private long numberOfLines;
+  private InputFileIndex inputFileIndex;
+
+  public GenericCoverageReportParser() {
+    // input files are indexed when parsing
+  }
+
+  /**
+   * @param inputFileIndex index shared by the parsers of all the reports of the module
+   */
+  GenericCoverageReportParser(InputFileIndex inputFileIndex) {
+    this.inputFileIndex = inputFileIndex;
+  }
 
   public void parse(java.io.File reportFile, SensorContext context) {
     try (InputStream inputStream = new FileInputStream(reportFile)) {
@@ -56,6 +69,9 @@ public class GenericCoverageReportParser {
   }
 
   void parse(InputStream inputStream, SensorContext context) throws XMLStreamException {
+    if (inputFileIndex == null) {
+      inputFileIndex = new InputFileIndex(context.fileSystem());
+    }
     new StaxParser(rootCursor -> {
       rootCursor.advance();
       parseRootNode(rootCursor, context);
@@ -75,7 +91,7 @@ public class GenericCoverageReportParser {
     while (fileCursor.getNext() != null) {
       checkElementName(fileCursor, "file");
       String filePath = mandatoryAttribute(fileCursor, "path");
-      InputFile inputFile = context.fileSystem().inputFile(context.fileSystem().predicates().hasPath(filePath));
+      InputFile inputFile = inputFileIndex.inputFile(filePath);
       if (inputFile == null) {
         numberOfUnknownFiles++;
         if (numberOfUnknownFiles <= MAX_STORED_UNKNOWN_FILE_PATHS) {
@@ -94,6 +110,7 @@ public class GenericCoverageReportParser {
       SMInputCursor lineToCoverCursor = fileCursor.childElementCursor();
       while (lineToCoverCursor.getNext() != null) {
         parseLineToCover(lineToCoverCursor, newCoverage);
+        numberOfLines++;
       }
       newCoverage.save();
     }
@@ -183,6 +200,13 @@ public class GenericCoverageReportParser {
     return matchedFileKeys.size();
   }
 
+  /**
+   * Number of "lineToCover" elements imported from the report
+   */
+  public long numberOfLines() {
+    return numberOfLines;
+  }
+
   public int numberOfUnknownFiles() {
     return numberOfUnknownFiles;
   }
@@ -19,12 +19,22 @@
  */
 package org.sonar.scanner.genericcoverage;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import org.sonar.api.PropertyType;
 import org.sonar.api.batch.Initializer;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
@@ -32,6 +42,7 @@ import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
@@ -42,6 +53,7 @@ public class GenericCoverageSensor extends Initializer implements Sensor {
   private static final Logger LOG = Loggers.get(GenericCoverageSensor.class);
 
   private static final String REPORT_PATH_PROPERTY_KEY = "sonar.coverageReportPaths";
+  static final String THREADS_PROPERTY_KEY = "sonar.coverageReportThreads";
   /**
    * @deprecated since 6.2
    */
@@ -64,9 +76,11 @@ public class GenericCoverageSensor extends Initializer implements Sensor {
   private static final String OLD_OVERALL_COVERAGE_REPORT_PATHS_PROPERTY_KEY = "sonar.genericcoverage.overallReportPaths";
 
   private final Settings settings;
+  private final System2 system2;
 
-  public GenericCoverageSensor(Settings settings) {
+  public GenericCoverageSensor(Settings settings, System2 system2) {
     this.settings = settings;
+    this.system2 = system2;
   }
 
   public static ImmutableList<PropertyDefinition> properties() {
@@ -78,6 +92,15 @@ public class GenericCoverageSensor extends Initializer implements Sensor {
         .category(CATEGORY_CODE_COVERAGE)
         .onQualifiers(Qualifiers.PROJECT)
         .deprecatedKey(OLD_COVERAGE_REPORT_PATHS_PROPERTY_KEY)
+        .build(),
+
+      PropertyDefinition.builder(THREADS_PROPERTY_KEY)
+        .name("Coverage report parsing threads")
+        .description("Number of coverage reports parsed in parallel.")
+        .type(PropertyType.INTEGER)
+        .defaultValue("1")
+        .category(CATEGORY_CODE_COVERAGE)
+        .onQualifiers(Qualifiers.PROJECT)
         .build());
 
   }
@@ -104,23 +127,63 @@ public class GenericCoverageSensor extends Initializer implements Sensor {
   @Override
   public void describe(SensorDescriptor descriptor) {
     descriptor.name("Generic Coverage Report")
-      .requireProperty(REPORT_PATH_PROPERTY_KEY);
+      .requireProperty(REPORT_PATH_PROPERTY_KEY)
+      .produces("coverage");
   }
 
   @Override
   public void execute(SensorContext context) {
-    for (String reportPath : settings.getStringArray(REPORT_PATH_PROPERTY_KEY)) {
-      File reportFile = context.fileSystem().resolvePath(reportPath);
-      LOG.info("Parsing {}", reportFile);
-      GenericCoverageReportParser parser = new GenericCoverageReportParser();
-      parser.parse(reportFile, context);
-      LOG.info("Imported coverage data for {} files", parser.numberOfMatchedFiles());
-      int numberOfUnknownFiles = parser.numberOfUnknownFiles();
-      if (numberOfUnknownFiles > 0) {
-        LOG.info("Coverage data ignored for " + numberOfUnknownFiles + " unknown files, including:\n" + parser.firstUnknownFiles().stream().collect(Collectors.joining("\n")));
+    InputFileIndex inputFileIndex = new InputFileIndex(context.fileSystem());
+    List<File> reportFiles = Arrays.stream(settings.getStringArray(REPORT_PATH_PROPERTY_KEY))
+      .map(reportPath -> context.fileSystem().resolvePath(reportPath))
+      .collect(Collectors.toList());
+    int threads = Math.min(Math.max(1, settings.getInt(THREADS_PROPERTY_KEY)), reportFiles.size());
+    if (threads <= 1) {
+      for (File reportFile : reportFiles) {
+        parse(reportFile, context, inputFileIndex);
+      }
+      return;
+    }
+
+    ExecutorService executorService = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("generic-coverage-%d").setDaemon(true).build());
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (File reportFile : reportFiles) {
+        results.add(executorService.submit(() -> parse(reportFile, context, inputFileIndex)));
       }
+      for (Future<?> result : results) {
+        waitFor(result);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void parse(File reportFile, SensorContext context, InputFileIndex inputFileIndex) {
+    LOG.info("Parsing {}", reportFile);
+    long start = system2.now();
+    GenericCoverageReportParser parser = new GenericCoverageReportParser(inputFileIndex);
+    parser.parse(reportFile, context);
+    long durationMs = Math.max(system2.now() - start, 1L);
+    LOG.info(String.format(Locale.ENGLISH, "Imported coverage data for %d files from %s (%d lines, %.0f lines/s)",
+      parser.numberOfMatchedFiles(), reportFile.getName(), parser.numberOfLines(), parser.numberOfLines() * 1000.0 / durationMs));
+    int numberOfUnknownFiles = parser.numberOfUnknownFiles();
+    if (numberOfUnknownFiles > 0) {
+      LOG.info("Coverage data ignored for " + numberOfUnknownFiles + " unknown files, including:\n" + parser.firstUnknownFiles().stream().collect(Collectors.joining("\n")));
     }
+  }
 
+  private static void waitFor(Future<?> result) {
+    try {
+      result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while parsing coverage reports", e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
   }
 
 }
@@ -58,11 +58,21 @@ public class GenericTestExecutionReportParser {
   private int numberOfUnknownFiles;
   private final List<String> firstUnknownFiles = new ArrayList<>();
   private final Set<String> matchedFileKeys = new HashSet<>();
+  private long numberOfTestCases;
+  private InputFileIndex inputFileIndex;
 
   public GenericTestExecutionReportParser(TestPlanBuilder testPlanBuilder) {
     this.testPlanBuilder = testPlanBuilder;
   }
 
+  /**
+   * @param inputFileIndex index shared by the parsers of all the reports of the module
+   */
+  GenericTestExecutionReportParser(TestPlanBuilder testPlanBuilder, InputFileIndex inputFileIndex) {
+    this.testPlanBuilder = testPlanBuilder;
+    this.inputFileIndex = inputFileIndex;
+  }
+
   public void parse(java.io.File reportFile, SensorContext context) {
     try (InputStream inputStream = new FileInputStream(reportFile)) {
       parse(inputStream, context);
@@ -72,6 +82,9 @@ public class GenericTestExecutionReportParser {
   }
 
   public void parse(InputStream inputStream, SensorContext context) throws XMLStreamException {
+    if (inputFileIndex == null) {
+      inputFileIndex = new InputFileIndex(context.fileSystem());
+    }
     new StaxParser(rootCursor -> {
       rootCursor.advance();
       parseRootNode(rootCursor, context);
@@ -91,7 +104,7 @@ public class GenericTestExecutionReportParser {
     while (fileCursor.getNext() != null) {
       checkElementName(fileCursor, "file");
       String filePath = mandatoryAttribute(fileCursor, "path");
-      InputFile inputFile = context.fileSystem().inputFile(context.fileSystem().predicates().hasPath(filePath));
+      InputFile inputFile = inputFileIndex.inputFile(filePath);
       if (inputFile == null) {
         numberOfUnknownFiles++;
         if (numberOfUnknownFiles <= MAX_STORED_UNKNOWN_FILE_PATHS) {
@@ -115,6 +128,7 @@ public class GenericTestExecutionReportParser {
       SMInputCursor testCaseCursor = fileCursor.childElementCursor();
       while (testCaseCursor.getNext() != null) {
         parseTestCase(testCaseCursor, testPlan);
+        numberOfTestCases++;
       }
     }
   }
@@ -148,6 +162,10 @@ public class GenericTestExecutionReportParser {
     return matchedFileKeys.size();
   }
 
+  public long numberOfTestCases() {
+    return numberOfTestCases;
+  }
+
   public int numberOfUnknownFiles() {
     return numberOfUnknownFiles;
   }
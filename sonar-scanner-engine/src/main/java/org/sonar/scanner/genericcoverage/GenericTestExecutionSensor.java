@@ -21,12 +21,14 @@ package org.sonar.scanner.genericcoverage;
 
 import com.google.common.collect.ImmutableList;
 import java.io.File;
+import java.util.Locale;
 import java.util.stream.Collectors;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.deprecated.test.TestPlanBuilder;
@@ -45,9 +47,11 @@ public class GenericTestExecutionSensor implements Sensor {
   private static final String OLD_UNIT_TEST_REPORT_PATHS_PROPERTY_KEY = "sonar.genericcoverage.unitTestReportPaths";
 
   private final TestPlanBuilder testPlanBuilder;
+  private final System2 system2;
 
-  public GenericTestExecutionSensor(TestPlanBuilder testPlanBuilder) {
+  public GenericTestExecutionSensor(TestPlanBuilder testPlanBuilder, System2 system2) {
     this.testPlanBuilder = testPlanBuilder;
+    this.system2 = system2;
   }
 
   public static ImmutableList<PropertyDefinition> properties() {
@@ -66,17 +70,22 @@ public class GenericTestExecutionSensor implements Sensor {
   @Override
   public void describe(SensorDescriptor descriptor) {
     descriptor.name("Generic Tests Excution Report")
-      .requireProperty(REPORT_PATHS_PROPERTY_KEY);
+      .requireProperty(REPORT_PATHS_PROPERTY_KEY)
+      .produces("tests");
   }
 
   @Override
   public void execute(SensorContext context) {
+    InputFileIndex inputFileIndex = new InputFileIndex(context.fileSystem());
     for (String reportPath : context.settings().getStringArray(REPORT_PATHS_PROPERTY_KEY)) {
       File reportFile = context.fileSystem().resolvePath(reportPath);
       LOG.info("Parsing {}", reportFile);
-      GenericTestExecutionReportParser parser = new GenericTestExecutionReportParser(testPlanBuilder);
+      long start = system2.now();
+      GenericTestExecutionReportParser parser = new GenericTestExecutionReportParser(testPlanBuilder, inputFileIndex);
       parser.parse(reportFile, context);
-      LOG.info("Imported coverage data for {} files", parser.numberOfMatchedFiles());
+      long durationMs = Math.max(system2.now() - start, 1L);
+      LOG.info(String.format(Locale.ENGLISH, "Imported coverage data for %d files (%d test cases, %.0f test cases/s)",
+        parser.numberOfMatchedFiles(), parser.numberOfTestCases(), parser.numberOfTestCases() * 1000.0 / durationMs));
       int numberOfUnknownFiles = parser.numberOfUnknownFiles();
       if (numberOfUnknownFiles > 0) {
         LOG.info("Coverage data ignored for " + numberOfUnknownFiles + " unknown files, including:\n" + parser.firstUnknownFiles().stream().collect(Collectors.joining("\n")));
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.genericcoverage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Resolves the paths found in generic reports to input files. Files are indexed once by relative and absolute path,
+ * which covers the paths usually written by report generators. Other forms (non normalized paths, Windows separators, ...)
+ * are resolved with the file system predicates and the result is remembered, as the same path is generally repeated
+ * many times in reports merged from several modules.
+ * <p>
+ * Can be shared by parsers running concurrently.
+ */
+class InputFileIndex {
+
+  private final FileSystem fileSystem;
+  private final Map<String, InputFile> byPath = new HashMap<>();
+  private final ConcurrentMap<String, Optional<InputFile>> resolvedPaths = new ConcurrentHashMap<>();
+
+  InputFileIndex(FileSystem fileSystem) {
+    this.fileSystem = fileSystem;
+    for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().all())) {
+      byPath.put(inputFile.relativePath(), inputFile);
+      byPath.put(inputFile.absolutePath(), inputFile);
+    }
+  }
+
+  @CheckForNull
+  InputFile inputFile(String path) {
+    InputFile inputFile = byPath.get(path);
+    if (inputFile != null) {
+      return inputFile;
+    }
+    return resolvedPaths.computeIfAbsent(path, p -> Optional.ofNullable(fileSystem.inputFile(fileSystem.predicates().hasPath(p)))).orElse(null);
+  }
+}
@@ -22,9 +22,11 @@ package org.sonar.scanner.issue.ignore.pattern;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.fs.internal.WildcardPatternSet;
 import org.sonar.api.config.Settings;
 import org.sonar.core.config.IssueExclusionProperties;
 
+import java.util.BitSet;
 import java.util.List;
 
 import static com.google.common.base.Strings.nullToEmpty;
@@ -34,6 +36,8 @@ public class IssueExclusionPatternInitializer extends AbstractPatternInitializer
   private List<IssuePattern> blockPatterns;
   private List<IssuePattern> allFilePatterns;
   private PatternMatcher patternMatcher;
+  private List<IssuePattern> compiledPatterns;
+  private WildcardPatternSet resourcePatterns;
 
   public IssueExclusionPatternInitializer(Settings settings) {
     super(settings);
@@ -52,11 +56,29 @@ public class IssueExclusionPatternInitializer extends AbstractPatternInitializer
 
   @Override
   public void initializePatternsForPath(String relativePath, String componentKey) {
-    for (IssuePattern pattern : getMulticriteriaPatterns()) {
-      if (pattern.matchResource(relativePath)) {
-        getPatternMatcher().addPatternForComponent(componentKey, pattern);
+    if (relativePath == null) {
+      return;
+    }
+    List<IssuePattern> patterns = getMulticriteriaPatterns();
+    BitSet matched = resourcePatterns(patterns).match(relativePath);
+    for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+      getPatternMatcher().addPatternForComponent(componentKey, patterns.get(i));
+    }
+  }
+
+  /**
+   * Resource patterns of all multicriteria patterns are evaluated at once. They are compiled again if patterns are reloaded.
+   */
+  private synchronized WildcardPatternSet resourcePatterns(List<IssuePattern> patterns) {
+    if (patterns != compiledPatterns) {
+      List<String> resources = Lists.newArrayList();
+      for (IssuePattern pattern : patterns) {
+        resources.add(pattern.getResourcePattern().toString());
       }
+      resourcePatterns = new WildcardPatternSet(resources);
+      compiledPatterns = patterns;
     }
+    return resourcePatterns;
   }
 
   @Override
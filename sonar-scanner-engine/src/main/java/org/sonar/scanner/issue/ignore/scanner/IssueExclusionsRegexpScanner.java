@@ -21,7 +21,7 @@ package org.sonar.scanner.issue.ignore.scanner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,8 +29,10 @@ import org.sonar.api.batch.ScannerSide;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.LineRange;
+import org.sonar.scanner.scan.filesystem.FileContentCache;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Set;
@@ -41,6 +43,7 @@ public class IssueExclusionsRegexpScanner {
   private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsRegexpScanner.class);
 
   private IssueExclusionPatternInitializer exclusionPatternInitializer;
+  private FileContentCache fileContentCache;
   private List<java.util.regex.Pattern> allFilePatterns;
   private List<DoubleRegexpMatcher> blockMatchers;
 
@@ -50,8 +53,9 @@ public class IssueExclusionsRegexpScanner {
   private List<LineExclusion> lineExclusions;
   private LineExclusion currentLineExclusion;
 
-  public IssueExclusionsRegexpScanner(IssueExclusionPatternInitializer patternsInitializer) {
+  public IssueExclusionsRegexpScanner(IssueExclusionPatternInitializer patternsInitializer, FileContentCache fileContentCache) {
     this.exclusionPatternInitializer = patternsInitializer;
+    this.fileContentCache = fileContentCache;
 
     lineExclusions = Lists.newArrayList();
     allFilePatterns = Lists.newArrayList();
@@ -80,7 +84,10 @@ public class IssueExclusionsRegexpScanner {
     LOG.debug("Scanning {}", resource);
     init();
 
-    List<String> lines = FileUtils.readLines(file, sourcesEncoding.name());
+    List<String> lines;
+    try (Reader reader = fileContentCache.reader(file, sourcesEncoding)) {
+      lines = IOUtils.readLines(reader);
+    }
     int lineIndex = 0;
     for (String line : lines) {
       lineIndex++;
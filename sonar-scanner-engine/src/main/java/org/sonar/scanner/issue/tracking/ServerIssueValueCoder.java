@@ -22,10 +22,13 @@ package org.sonar.scanner.issue.tracking;
 import com.persistit.Value;
 import com.persistit.encoding.CoderContext;
 import com.persistit.encoding.ValueCoder;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonar.scanner.storage.StorageValueCoder;
 
-public class ServerIssueValueCoder implements ValueCoder {
+public class ServerIssueValueCoder implements ValueCoder, StorageValueCoder {
 
   @Override
   public void put(Value value, Object object, CoderContext context) {
@@ -42,4 +45,18 @@ public class ServerIssueValueCoder implements ValueCoder {
     }
   }
 
+  @Override
+  public void write(DataOutput output, Object object) throws IOException {
+    byte[] bytes = ((ServerIssue) object).toByteArray();
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  @Override
+  public Object read(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return ServerIssue.parseFrom(bytes);
+  }
+
 }
@@ -19,8 +19,13 @@
  */
 package org.sonar.scanner.phases;
 
-
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.events.SensorExecutionHandler;
 import org.sonar.api.batch.events.SensorsPhaseHandler;
 import org.sonar.api.utils.log.Logger;
@@ -32,7 +37,11 @@ public class PhasesTimeProfiler implements SensorExecutionHandler, SensorsPhaseH
 
   private static final Logger LOG = Loggers.get(PhasesTimeProfiler.class);
 
-  private Profiler profiler = Profiler.create(LOG);
+  /**
+   * One profiler per sensor, as sensors may be executed concurrently
+   */
+  private final Map<Sensor, SensorProfiler> profilers = new ConcurrentHashMap<>();
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
 
   @Override
   public void onSensorsPhase(SensorsPhaseEvent event) {
@@ -43,10 +52,41 @@ public class PhasesTimeProfiler implements SensorExecutionHandler, SensorsPhaseH
 
   @Override
   public void onSensorExecution(SensorExecutionEvent event) {
+    Sensor sensor = event.getSensor();
     if (event.isStart()) {
-      profiler.startInfo("Sensor " + BatchUtils.describe(event.getSensor()));
+      SensorProfiler profiler = new SensorProfiler(currentThreadCpuTime());
+      profilers.put(sensor, profiler);
+      profiler.profiler.startInfo("Sensor " + BatchUtils.describe(sensor));
     } else {
-      profiler.stopInfo();
+      SensorProfiler profiler = profilers.remove(sensor);
+      if (profiler != null) {
+        long cpuTime = currentThreadCpuTime();
+        if (profiler.startCpuTime >= 0 && cpuTime >= 0) {
+          profiler.profiler.addContext("cpuTime", TimeUnit.NANOSECONDS.toMillis(cpuTime - profiler.startCpuTime) + "ms");
+        }
+        profiler.profiler.stopInfo();
+      }
+    }
+  }
+
+  /**
+   * Events of a sensor are fired by the thread executing it. Threads started by the sensor itself are not counted.
+   *
+   * @return CPU time of the current thread in nanoseconds, or -1 if not supported by the JVM
+   */
+  private long currentThreadCpuTime() {
+    if (!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+      return -1L;
+    }
+    return threadMXBean.getCurrentThreadCpuTime();
+  }
+
+  private static class SensorProfiler {
+    private final Profiler profiler = Profiler.create(LOG);
+    private final long startCpuTime;
+
+    SensorProfiler(long startCpuTime) {
+      this.startCpuTime = startCpuTime;
     }
   }
 
@@ -20,41 +20,166 @@
 package org.sonar.scanner.phases;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
 import org.sonar.scanner.bootstrap.BatchExtensionDictionnary;
+import org.sonar.scanner.events.BatchEvent;
 import org.sonar.scanner.events.EventBus;
-import java.util.Collection;
+import org.sonar.scanner.sensor.SensorWrapper;
 
 @ScannerSide
 public class SensorsExecutor {
 
+  /**
+   * Opt-in execution of independent sensors on a pool of threads. See
+   * {@link org.sonar.api.batch.sensor.SensorDescriptor#produces(String...)}
+   */
+  public static final String PARALLEL_SENSORS_PROPERTY = "sonar.scanner.parallelSensors";
+  private static final String THREAD_NAME_PREFIX = "sensor-";
+
+  private final Object eventLock = new Object();
   private EventBus eventBus;
   private Project module;
   private BatchExtensionDictionnary selector;
+  private Settings settings;
 
-  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, EventBus eventBus) {
+  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, EventBus eventBus, Settings settings) {
     this.selector = selector;
     this.eventBus = eventBus;
     this.module = project;
+    this.settings = settings;
   }
 
   public void execute(SensorContext context) {
     Collection<Sensor> sensors = selector.select(Sensor.class, module, true, null);
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), true));
 
-    for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+    if (settings.getBoolean(PARALLEL_SENSORS_PROPERTY)) {
+      executeInParallel(context, sensors);
+    } else {
+      for (Sensor sensor : sensors) {
+        executeSensor(context, sensor);
+      }
     }
 
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
   }
 
+  /**
+   * Consecutive sensors which declare their data are executed concurrently. Other sensors
+   * are executed alone, once the previous ones are done.
+   */
+  private void executeInParallel(SensorContext context, Collection<Sensor> sensors) {
+    ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .setDaemon(true)
+        .build());
+    try {
+      List<Sensor> group = new ArrayList<>();
+      for (Sensor sensor : sensors) {
+        DefaultSensorDescriptor descriptor = descriptorOf(sensor);
+        if (descriptor != null && descriptor.isDataDeclared()) {
+          group.add(sensor);
+        } else {
+          executeGroup(context, group, executorService);
+          group.clear();
+          executeSensor(context, sensor);
+        }
+      }
+      executeGroup(context, group, executorService);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * A sensor is started as soon as the previous sensors it depends on are done.
+   */
+  private void executeGroup(SensorContext context, List<Sensor> group, ExecutorService executorService) {
+    if (group.size() <= 1) {
+      group.forEach(sensor -> executeSensor(context, sensor));
+      return;
+    }
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    List<CompletableFuture<Void>> futures = new ArrayList<>(group.size());
+    for (int i = 0; i < group.size(); i++) {
+      Sensor sensor = group.get(i);
+      DefaultSensorDescriptor descriptor = descriptorOf(sensor);
+      List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+      for (int j = 0; j < i; j++) {
+        if (dependsOn(descriptor, descriptorOf(group.get(j)))) {
+          dependencies.add(futures.get(j));
+        }
+      }
+      futures.add(CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[dependencies.size()]))
+        .thenRunAsync(() -> executeSensor(context, sensor, classLoader), executorService));
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to execute sensors", cause);
+    }
+  }
+
+  static boolean dependsOn(DefaultSensorDescriptor sensor, DefaultSensorDescriptor previous) {
+    return !Collections.disjoint(sensor.consumedData(), previous.producedData())
+      || !Collections.disjoint(sensor.producedData(), previous.producedData())
+      || !Collections.disjoint(sensor.producedData(), previous.consumedData());
+  }
+
+  @CheckForNull
+  private static DefaultSensorDescriptor descriptorOf(Sensor sensor) {
+    if (sensor instanceof SensorWrapper) {
+      return ((SensorWrapper) sensor).descriptor();
+    }
+    return null;
+  }
+
+  private void executeSensor(SensorContext context, Sensor sensor, ClassLoader classLoader) {
+    Thread thread = Thread.currentThread();
+    ClassLoader initialClassLoader = thread.getContextClassLoader();
+    thread.setContextClassLoader(classLoader);
+    try {
+      executeSensor(context, sensor);
+    } finally {
+      thread.setContextClassLoader(initialClassLoader);
+    }
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
+    fireEvent(new SensorExecutionEvent(sensor, true));
     sensor.analyse(module, context);
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, false));
+    fireEvent(new SensorExecutionEvent(sensor, false));
+  }
+
+  /**
+   * Event handlers are not thread-safe
+   */
+  private void fireEvent(BatchEvent event) {
+    synchronized (eventLock) {
+      eventBus.fireEvent(event);
+    }
   }
 }
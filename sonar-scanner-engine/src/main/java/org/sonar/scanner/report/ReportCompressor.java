@@ -0,0 +1,307 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.utils.ZipUtils;
+
+/**
+ * Zips the report directory, files being compressed in parallel. Compressed files are written
+ * to the zip in the order of the directory tree while the next ones are being compressed.
+ * Files are streamed through the compressor. The compressed data of small files is kept in
+ * memory until written to the zip, the one of larger files is written to a temporary file.
+ * <p>
+ * The zip64 format is not supported, so {@link ZipUtils#zipDir(File, File)} is used for
+ * the reports having too many files or being too large.
+ * </p>
+ */
+class ReportCompressor {
+
+  private static final String THREAD_NAME_PREFIX = "report-zip-";
+  private static final int MAX_ENTRIES = 0xFFFF;
+  private static final long MAX_SIZE = 0xFFFFFFFFL / 2;
+  private static final long MAX_IN_MEMORY_SIZE = 256L * 1024;
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final short VERSION = 20;
+  private static final short UTF8_NAMES_FLAG = 0x0800;
+  private static final short STORED = 0;
+  private static final short DEFLATED = 8;
+  private static final int DIRECTORY_ATTRIBUTE = 0x10;
+
+  private final int level;
+  private final int threads;
+
+  /**
+   * @param level compression level, from 0 to 9, or -1 for default
+   * @param threads maximum number of files compressed concurrently
+   */
+  ReportCompressor(int level, int threads) {
+    this.level = level;
+    this.threads = threads;
+  }
+
+  void zipDir(File dir, File zip) throws IOException {
+    List<File> files = new ArrayList<>();
+    listFiles(dir, files);
+    long size = 0L;
+    for (File file : files) {
+      size += file.length();
+    }
+    if (files.size() >= MAX_ENTRIES || size >= MAX_SIZE) {
+      ZipUtils.zipDir(dir, zip);
+      return;
+    }
+
+    String dirPath = dir.toPath().toString();
+    File tempDir = Files.createTempDirectory(zip.getAbsoluteFile().getParentFile().toPath(), "report-zip").toFile();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setNameFormat(THREAD_NAME_PREFIX + "%d")
+      .setDaemon(true)
+      .build());
+    try (OutputStream output = new BufferedOutputStream(FileUtils.openOutputStream(zip))) {
+      ZipWriter writer = new ZipWriter(output, dosTime(System.currentTimeMillis()));
+      // bounds the number of compressed files waiting to be written
+      Deque<Future<Entry>> pending = new ArrayDeque<>();
+      for (File file : files) {
+        String name = file.toPath().toString().substring(dirPath.length() + 1).replace(File.separatorChar, '/');
+        if (pending.size() >= threads * 2) {
+          writer.write(pending.removeFirst().get());
+        }
+        pending.addLast(executor.submit(() -> file.isDirectory() ? Entry.directory(name + "/") : compress(name, file, tempDir)));
+      }
+      while (!pending.isEmpty()) {
+        writer.write(pending.removeFirst().get());
+      }
+      writer.finish();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while compressing " + dir, e);
+    } catch (ExecutionException e) {
+      throw new IOException("Fail to compress " + dir, e.getCause());
+    } finally {
+      executor.shutdownNow();
+      FileUtils.deleteQuietly(tempDir);
+    }
+  }
+
+  private static void listFiles(File dir, List<File> files) {
+    File[] children = dir.listFiles();
+    if (children == null) {
+      throw new IllegalStateException("Fail to list files of directory " + dir.getAbsolutePath());
+    }
+    for (File child : children) {
+      files.add(child);
+      if (child.isDirectory()) {
+        listFiles(child, files);
+      }
+    }
+  }
+
+  private Entry compress(String name, File file, File tempDir) throws IOException {
+    File compressedFile = null;
+    OutputStream compressedOutput;
+    if (file.length() > MAX_IN_MEMORY_SIZE) {
+      compressedFile = File.createTempFile("entry", ".z", tempDir);
+      compressedOutput = new BufferedOutputStream(new FileOutputStream(compressedFile), BUFFER_SIZE);
+    } else {
+      compressedOutput = new ByteArrayOutputStream(Math.max(64, (int) file.length() / 4));
+    }
+    CRC32 crc = new CRC32();
+    Deflater deflater = new Deflater(level, true);
+    long size = 0L;
+    try (DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(compressedOutput, deflater, BUFFER_SIZE);
+      InputStream input = new CheckedInputStream(new FileInputStream(file), crc)) {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int count = input.read(buffer);
+      while (count >= 0) {
+        deflaterOutput.write(buffer, 0, count);
+        size += count;
+        count = input.read(buffer);
+      }
+    } finally {
+      deflater.end();
+    }
+    if (compressedFile != null) {
+      return new Entry(name, DEFLATED, crc.getValue(), size, compressedFile);
+    }
+    return new Entry(name, DEFLATED, crc.getValue(), size, ((ByteArrayOutputStream) compressedOutput).toByteArray());
+  }
+
+  private static int dosTime(long time) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis(time);
+    return ((calendar.get(Calendar.YEAR) - 1980) << 25)
+      | ((calendar.get(Calendar.MONTH) + 1) << 21)
+      | (calendar.get(Calendar.DAY_OF_MONTH) << 16)
+      | (calendar.get(Calendar.HOUR_OF_DAY) << 11)
+      | (calendar.get(Calendar.MINUTE) << 5)
+      | (calendar.get(Calendar.SECOND) >> 1);
+  }
+
+  private static class Entry {
+    private final byte[] name;
+    private final short method;
+    private final long crc;
+    private final long size;
+    private final int compressedSize;
+    // compressed data, either in memory or in a temporary file, released once written
+    private byte[] data;
+    private File dataFile;
+    private long offset;
+
+    Entry(String name, short method, long crc, long size, byte[] data) {
+      this.name = name.getBytes(StandardCharsets.UTF_8);
+      this.method = method;
+      this.crc = crc;
+      this.size = size;
+      this.compressedSize = data.length;
+      this.data = data;
+    }
+
+    Entry(String name, short method, long crc, long size, File dataFile) {
+      this.name = name.getBytes(StandardCharsets.UTF_8);
+      this.method = method;
+      this.crc = crc;
+      this.size = size;
+      this.compressedSize = (int) dataFile.length();
+      this.dataFile = dataFile;
+    }
+
+    static Entry directory(String name) {
+      return new Entry(name, STORED, 0L, 0L, new byte[0]);
+    }
+
+    boolean isDirectory() {
+      return name[name.length - 1] == '/';
+    }
+  }
+
+  /**
+   * Writes entries in the zip format, without data descriptors
+   */
+  private static class ZipWriter {
+    private final OutputStream output;
+    private final int dosTime;
+    private final List<Entry> entries = new ArrayList<>();
+    private long offset = 0L;
+
+    ZipWriter(OutputStream output, int dosTime) {
+      this.output = output;
+      this.dosTime = dosTime;
+    }
+
+    void write(Entry entry) throws IOException {
+      entry.offset = offset;
+      ByteBuffer header = ByteBuffer.allocate(30 + entry.name.length).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(LOCAL_HEADER_SIGNATURE)
+        .putShort(VERSION)
+        .putShort(UTF8_NAMES_FLAG)
+        .putShort(entry.method)
+        .putInt(dosTime)
+        .putInt((int) entry.crc)
+        .putInt(entry.compressedSize)
+        .putInt((int) entry.size)
+        .putShort((short) entry.name.length)
+        .putShort((short) 0)
+        .put(entry.name);
+      writeBytes(header.array());
+      if (entry.dataFile != null) {
+        offset += Files.copy(entry.dataFile.toPath(), output);
+        Files.delete(entry.dataFile.toPath());
+        entry.dataFile = null;
+      } else {
+        writeBytes(entry.data);
+        entry.data = null;
+      }
+      entries.add(entry);
+    }
+
+    void finish() throws IOException {
+      long centralDirectoryOffset = offset;
+      for (Entry entry : entries) {
+        ByteBuffer header = ByteBuffer.allocate(46 + entry.name.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(CENTRAL_HEADER_SIGNATURE)
+          .putShort(VERSION)
+          .putShort(VERSION)
+          .putShort(UTF8_NAMES_FLAG)
+          .putShort(entry.method)
+          .putInt(dosTime)
+          .putInt((int) entry.crc)
+          .putInt(entry.compressedSize)
+          .putInt((int) entry.size)
+          .putShort((short) entry.name.length)
+          // extra field, comment, disk number and internal attributes
+          .putShort((short) 0)
+          .putShort((short) 0)
+          .putShort((short) 0)
+          .putShort((short) 0)
+          .putInt(entry.isDirectory() ? DIRECTORY_ATTRIBUTE : 0)
+          .putInt((int) entry.offset)
+          .put(entry.name);
+        writeBytes(header.array());
+      }
+      ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+      end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+        .putShort((short) 0)
+        .putShort((short) 0)
+        .putShort((short) entries.size())
+        .putShort((short) entries.size())
+        .putInt((int) (offset - centralDirectoryOffset))
+        .putInt((int) centralDirectoryOffset)
+        .putShort((short) 0);
+      writeBytes(end.array());
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+      output.write(bytes);
+      offset += bytes.length;
+    }
+  }
+}
@@ -31,6 +31,7 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.picocontainer.Startable;
@@ -40,7 +41,6 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.platform.Server;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.analysis.DefaultAnalysisMode;
@@ -62,6 +62,7 @@ public class ReportPublisher implements Startable {
   public static final String KEEP_REPORT_PROP_KEY = "sonar.batch.keepReport";
   public static final String VERBOSE_KEY = "sonar.verbose";
   public static final String METADATA_DUMP_FILENAME = "report-task.txt";
+  public static final String COMPRESSION_LEVEL_PROP_KEY = "sonar.scanner.report.compressionLevel";
 
   private final Settings settings;
   private final BatchWsClient wsClient;
@@ -146,7 +147,7 @@ public class ReportPublisher implements Startable {
 
       startTime = System.currentTimeMillis();
       File reportZip = temp.newFile("batch-report", ".zip");
-      ZipUtils.zipDir(reportDir, reportZip);
+      new ReportCompressor(compressionLevel(), Runtime.getRuntime().availableProcessors()).zipDir(reportDir, reportZip);
       stopTime = System.currentTimeMillis();
       LOG.info("Analysis reports compressed in {}ms, zip size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(reportZip)));
       return reportZip;
@@ -155,6 +156,18 @@ public class ReportPublisher implements Startable {
     }
   }
 
+  private int compressionLevel() {
+    if (!settings.hasKey(COMPRESSION_LEVEL_PROP_KEY)) {
+      return Deflater.DEFAULT_COMPRESSION;
+    }
+    int level = settings.getInt(COMPRESSION_LEVEL_PROP_KEY);
+    if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      throw MessageException.of(String.format("Property %s must be between %d and %d: %d", COMPRESSION_LEVEL_PROP_KEY,
+        Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION, level));
+    }
+    return level;
+  }
+
   /**
    * Uploads the report file to server and returns the generated task id
    */
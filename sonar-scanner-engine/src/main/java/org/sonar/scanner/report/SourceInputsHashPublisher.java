@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.SonarRuntime;
+import org.sonar.scanner.index.BatchComponent;
+import org.sonar.scanner.index.BatchComponentCache;
+import org.sonar.scanner.protocol.output.FileStructure;
+import org.sonar.scanner.protocol.output.FileStructure.Domain;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+
+/**
+ * Writes for each file a hash of the report files the server computes its source from. The server
+ * stores this hash and does not read the report files again as long as the hash does not change.
+ * The hash is salted with the version of the format and with the version of SonarQube, so that sources are
+ * computed again when the server is upgraded.
+ * <p/>
+ * Must be executed after all the other publishers.
+ */
+public class SourceInputsHashPublisher implements ReportPublisherStep {
+
+  private static final Domain[] INPUT_DOMAINS = {Domain.SOURCE, Domain.COVERAGES, Domain.SYNTAX_HIGHLIGHTINGS, Domain.SYMBOLS,
+    Domain.CHANGESETS, Domain.DUPLICATIONS};
+
+  /**
+   * Must be incremented when the inputs or the way they are hashed change
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  private final BatchComponentCache resourceCache;
+  private final byte[] salt;
+
+  public SourceInputsHashPublisher(BatchComponentCache resourceCache, SonarRuntime sonarRuntime) {
+    this.resourceCache = resourceCache;
+    this.salt = (FORMAT_VERSION + "/" + sonarRuntime.getApiVersion()).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void publish(ScannerReportWriter writer) {
+    FileStructure fileStructure = writer.getFileStructure();
+    byte[] buffer = new byte[8192];
+    for (BatchComponent resource : resourceCache.all()) {
+      if (resource.isFile()) {
+        writer.writeSourceInputsHash(resource.batchId(), hash(fileStructure, resource.batchId(), buffer));
+      }
+    }
+  }
+
+  private String hash(FileStructure fileStructure, int componentRef, byte[] buffer) {
+    MessageDigest digest = DigestUtils.getMd5Digest();
+    digest.update(salt);
+    for (Domain domain : INPUT_DOMAINS) {
+      // the name and the size of each file delimit it from the next one
+      digest.update(domain.name().getBytes(StandardCharsets.UTF_8));
+      File file = fileStructure.fileFor(domain, componentRef);
+      if (file.isFile()) {
+        digest.update(Long.toString(file.length()).getBytes(StandardCharsets.UTF_8));
+        update(digest, file, buffer);
+      } else {
+        digest.update((byte) '-');
+      }
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, File file, byte[] buffer) {
+    try (InputStream input = FileUtils.openInputStream(file)) {
+      int read = input.read(buffer);
+      while (read >= 0) {
+        digest.update(buffer, 0, read);
+        read = input.read(buffer);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to compute hash of " + file, e);
+    }
+  }
+}
@@ -19,27 +19,26 @@
  */
 package org.sonar.scanner.report;
 
-import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.BOMInputStream;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.scanner.index.BatchComponent;
 import org.sonar.scanner.index.BatchComponentCache;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
+import org.sonar.scanner.scan.filesystem.FileContentCache;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 
 public class SourcePublisher implements ReportPublisherStep {
 
   private final BatchComponentCache resourceCache;
+  private final FileContentCache fileContentCache;
 
-  public SourcePublisher(BatchComponentCache resourceCache) {
+  public SourcePublisher(BatchComponentCache resourceCache, FileContentCache fileContentCache) {
     this.resourceCache = resourceCache;
+    this.fileContentCache = fileContentCache;
   }
 
   @Override
@@ -52,9 +51,7 @@ public class SourcePublisher implements ReportPublisherStep {
       DefaultInputFile inputFile = (DefaultInputFile) resource.inputComponent();
       File iofile = writer.getSourceFile(resource.batchId());
       int line = 0;
-      try (FileOutputStream output = new FileOutputStream(iofile); BOMInputStream bomIn = new BOMInputStream(new FileInputStream(inputFile.file()),
-        ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(bomIn, inputFile.charset()))) {
+      try (FileOutputStream output = new FileOutputStream(iofile); BufferedReader reader = new BufferedReader(fileContentCache.reader(inputFile))) {
         String lineStr = reader.readLine();
         while (lineStr != null) {
           IOUtils.write(lineStr, output, StandardCharsets.UTF_8);
@@ -67,6 +64,8 @@ public class SourcePublisher implements ReportPublisherStep {
       } catch (IOException e) {
         throw new IllegalStateException("Unable to store file source in the report", e);
       }
+      // the report is the last reader of the file content
+      fileContentCache.release(inputFile);
     }
   }
 }
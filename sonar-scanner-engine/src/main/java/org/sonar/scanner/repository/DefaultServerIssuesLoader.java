@@ -19,28 +19,250 @@
  */
 package org.sonar.scanner.repository;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonar.scanner.bootstrap.GlobalProperties;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonar.scanner.scan.ImmutableProjectReactor;
 import org.sonar.scanner.util.BatchUtils;
 import org.sonarqube.ws.client.GetRequest;
 
+/**
+ * Loads the issues of the project from the server. Unless disabled with {@link #INCREMENTAL_PROPERTY}, the issues are kept
+ * in a local cache between two analyses, and only the issues changed since the previous synchronization are requested.
+ * All the issues are requested again when the keys of the modules of the project changed, as cached issues
+ * would still refer to the previous keys.
+ */
 public class DefaultServerIssuesLoader implements ServerIssuesLoader {
 
+  public static final String INCREMENTAL_PROPERTY = "sonar.scanner.issues.incremental";
+
+  /**
+   * Number of minutes subtracted from the cursor when requesting the issues changed since the previous synchronization
+   */
+  public static final String SAFETY_MARGIN_PROPERTY = "sonar.scanner.issues.incremental.safetyMargin";
+
+  private static final Logger LOG = Loggers.get(DefaultServerIssuesLoader.class);
+  // header is made of the version, the cursor, the date of the last full synchronization and the keys of modules
+  private static final int CACHE_VERSION = 2;
+  private static final int CURSOR_OFFSET = 4;
+
+  /**
+   * Issues are indexed on server side after their update date, possibly much later when the Compute Engine queue or
+   * Elasticsearch are busy. Issues updated during this margin before the cursor are requested again, so that the ones
+   * indexed late are not missed.
+   */
+  static final long DEFAULT_SAFETY_MARGIN = TimeUnit.DAYS.toMillis(1);
+
+  /**
+   * Closed issues are eventually purged from the server. The local cache is fully reloaded before it can miss such changes.
+   */
+  static final long MAX_CACHE_AGE = TimeUnit.DAYS.toMillis(7);
+
   private final BatchWsClient wsClient;
+  private final File cacheDir;
+  private final String login;
+  private final System2 system;
+  private final long safetyMargin;
+  private final Set<String> moduleKeys;
+
+  public DefaultServerIssuesLoader(BatchWsClient wsClient, FileCache fileCache, GlobalProperties props, ImmutableProjectReactor reactor) {
+    this(wsClient, "false".equals(props.property(INCREMENTAL_PROPERTY)) ? null : new File(fileCache.getDir(), "_issues"),
+      StringUtils.defaultString(props.property(CoreProperties.LOGIN)), System2.INSTANCE, safetyMargin(props),
+      reactor.getProjects().stream().map(ProjectDefinition::getKeyWithBranch).collect(Collectors.toSet()));
+  }
 
-  public DefaultServerIssuesLoader(BatchWsClient wsClient) {
+  @VisibleForTesting
+  DefaultServerIssuesLoader(BatchWsClient wsClient, @Nullable File cacheDir, String login, System2 system, long safetyMargin, Set<String> moduleKeys) {
     this.wsClient = wsClient;
+    this.cacheDir = cacheDir;
+    this.login = login;
+    this.system = system;
+    this.safetyMargin = safetyMargin;
+    this.moduleKeys = new TreeSet<>(moduleKeys);
+  }
+
+  private static long safetyMargin(GlobalProperties props) {
+    String minutes = props.property(SAFETY_MARGIN_PROPERTY);
+    if (StringUtils.isBlank(minutes)) {
+      return DEFAULT_SAFETY_MARGIN;
+    }
+    try {
+      long margin = Long.parseLong(minutes.trim());
+      if (margin >= 0) {
+        return TimeUnit.MINUTES.toMillis(margin);
+      }
+    } catch (NumberFormatException e) {
+      // error is raised below
+    }
+    throw MessageException.of(String.format("Property %s must be a positive number of minutes: %s", SAFETY_MARGIN_PROPERTY, minutes));
   }
 
   @Override
   public void load(String componentKey, Function<ServerIssue, Void> consumer) {
-    GetRequest getRequest = new GetRequest("/batch/issues.protobuf?key=" + BatchUtils.encodeForUrl(componentKey));
-    InputStream is = wsClient.call(getRequest).contentStream();
-    parseIssues(is, consumer);
+    if (cacheDir == null) {
+      parseIssues(call(componentKey, null), consumer);
+      return;
+    }
+    File cacheFile = new File(cacheDir, DigestUtils.sha1Hex(wsClient.baseUrl() + "|" + login + "|" + componentKey) + ".pb");
+    long[] header = readHeader(cacheFile);
+    if (header == null) {
+      fullSync(componentKey, cacheFile, consumer);
+    } else {
+      incrementalSync(componentKey, cacheFile, header[0], header[1], consumer);
+    }
+  }
+
+  private void fullSync(String componentKey, File cacheFile, Function<ServerIssue, Void> consumer) {
+    CacheWriter writer = new CacheWriter(cacheFile, system.now(), moduleKeys);
+    InputStream is = call(componentKey, null);
+    try {
+      ServerIssue issue = ServerIssue.parseDelimitedFrom(is);
+      while (issue != null) {
+        writer.write(issue);
+        consumer.apply(issue);
+        issue = ServerIssue.parseDelimitedFrom(is);
+      }
+    } catch (IOException e) {
+      writer.discard();
+      throw new IllegalStateException("Unable to get previous issues", e);
+    } finally {
+      IOUtils.closeQuietly(is);
+    }
+    writer.commit();
+  }
+
+  private void incrementalSync(String componentKey, File cacheFile, long cursor, long fullSyncDate, Function<ServerIssue, Void> consumer) {
+    Map<String, ServerIssue> changedIssues = new LinkedHashMap<>();
+    boolean incrementalResponse = true;
+    InputStream is = call(componentKey, cursor - safetyMargin);
+    try {
+      ServerIssue issue = ServerIssue.parseDelimitedFrom(is);
+      while (issue != null) {
+        changedIssues.put(issue.getKey(), issue);
+        incrementalResponse &= issue.hasUpdatedAt();
+        issue = ServerIssue.parseDelimitedFrom(is);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to get previous issues", e);
+    } finally {
+      IOUtils.closeQuietly(is);
+    }
+
+    CacheWriter writer = new CacheWriter(cacheFile, fullSyncDate, moduleKeys);
+    if (incrementalResponse) {
+      LOG.debug("{} server issues changed since last synchronization", changedIssues.size());
+      mergeCachedIssues(cacheFile, changedIssues, writer, consumer);
+    }
+    for (ServerIssue changedIssue : changedIssues.values()) {
+      if (Issue.STATUS_CLOSED.equals(changedIssue.getStatus())) {
+        writer.track(changedIssue);
+      } else {
+        writer.write(changedIssue);
+        consumer.apply(changedIssue);
+      }
+    }
+    writer.commit();
+  }
+
+  private static void mergeCachedIssues(File cacheFile, Map<String, ServerIssue> changedIssues, CacheWriter writer, Function<ServerIssue, Void> consumer) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+      in.readInt();
+      in.readLong();
+      in.readLong();
+      readModuleKeys(in);
+      ServerIssue issue = ServerIssue.parseDelimitedFrom(in);
+      while (issue != null) {
+        if (!changedIssues.containsKey(issue.getKey())) {
+          writer.write(issue);
+          consumer.apply(issue);
+        }
+        issue = ServerIssue.parseDelimitedFrom(in);
+      }
+    } catch (IOException e) {
+      writer.discard();
+      deleteQuietly(cacheFile);
+      throw new IllegalStateException("Unable to read the local cache of server issues: " + cacheFile, e);
+    }
+  }
+
+  /**
+   * @return the cursor and the date of the last full synchronization, or null if the cache is missing, expired, unreadable
+   * or if the keys of modules changed
+   */
+  @CheckForNull
+  private long[] readHeader(File cacheFile) {
+    if (!cacheFile.isFile()) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+      if (in.readInt() != CACHE_VERSION) {
+        return null;
+      }
+      long cursor = in.readLong();
+      long fullSyncDate = in.readLong();
+      if (system.now() - fullSyncDate > MAX_CACHE_AGE) {
+        return null;
+      }
+      if (!moduleKeys.equals(readModuleKeys(in))) {
+        LOG.debug("Keys of modules changed since last synchronization, all server issues are loaded");
+        return null;
+      }
+      return new long[] {cursor, fullSyncDate};
+    } catch (IOException e) {
+      LOG.debug("Ignore invalid local cache of server issues: " + cacheFile, e);
+      return null;
+    }
+  }
+
+  private static Set<String> readModuleKeys(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    Set<String> keys = new TreeSet<>();
+    for (int i = 0; i < count; i++) {
+      keys.add(in.readUTF());
+    }
+    return keys;
+  }
+
+  private InputStream call(String componentKey, @Nullable Long changedSince) {
+    StringBuilder url = new StringBuilder("/batch/issues.protobuf?key=").append(BatchUtils.encodeForUrl(componentKey));
+    if (changedSince != null) {
+      url.append("&changedSince=").append(BatchUtils.encodeForUrl(DateUtils.formatDateTime(changedSince)));
+    }
+    return wsClient.call(new GetRequest(url.toString())).contentStream();
   }
 
   private static void parseIssues(InputStream is, Function<ServerIssue, Void> consumer) {
@@ -56,4 +278,94 @@ public class DefaultServerIssuesLoader implements ServerIssuesLoader {
       IOUtils.closeQuietly(is);
     }
   }
+
+  private static void deleteQuietly(File file) {
+    if (!file.delete() && file.exists()) {
+      LOG.debug("Unable to delete {}", file);
+    }
+  }
+
+  /**
+   * Writes the new content of the cache into a temporary file, which replaces the cache only when complete. The cache is
+   * dropped if the server did not provide the update dates of issues, as no cursor can be computed.
+   */
+  private static class CacheWriter {
+    private final File cacheFile;
+    private final long fullSyncDate;
+    private File tmpFile;
+    private DataOutputStream out;
+    private long cursor = 0L;
+
+    CacheWriter(File cacheFile, long fullSyncDate, Set<String> moduleKeys) {
+      this.cacheFile = cacheFile;
+      this.fullSyncDate = fullSyncDate;
+      try {
+        Files.createDirectories(cacheFile.getParentFile().toPath());
+        tmpFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        out.writeInt(CACHE_VERSION);
+        out.writeLong(0L);
+        out.writeLong(0L);
+        out.writeInt(moduleKeys.size());
+        for (String moduleKey : moduleKeys) {
+          out.writeUTF(moduleKey);
+        }
+      } catch (IOException e) {
+        LOG.debug("Unable to create the local cache of server issues: " + cacheFile, e);
+        discard();
+      }
+    }
+
+    void track(ServerIssue issue) {
+      if (issue.hasUpdatedAt()) {
+        cursor = Math.max(cursor, issue.getUpdatedAt());
+      } else {
+        discard();
+      }
+    }
+
+    void write(ServerIssue issue) {
+      track(issue);
+      if (out == null) {
+        return;
+      }
+      try {
+        issue.writeDelimitedTo(out);
+      } catch (IOException e) {
+        LOG.debug("Unable to write the local cache of server issues: " + cacheFile, e);
+        discard();
+      }
+    }
+
+    void commit() {
+      if (out == null || cursor == 0L) {
+        discard();
+        deleteQuietly(cacheFile);
+        return;
+      }
+      try {
+        out.close();
+        out = null;
+        try (RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw")) {
+          raf.seek(CURSOR_OFFSET);
+          raf.writeLong(cursor);
+          raf.writeLong(fullSyncDate);
+        }
+        Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        LOG.debug("Unable to save the local cache of server issues: " + cacheFile, e);
+        discard();
+        deleteQuietly(cacheFile);
+      }
+    }
+
+    void discard() {
+      IOUtils.closeQuietly(out);
+      out = null;
+      if (tmpFile != null) {
+        deleteQuietly(tmpFile);
+        tmpFile = null;
+      }
+    }
+  }
 }
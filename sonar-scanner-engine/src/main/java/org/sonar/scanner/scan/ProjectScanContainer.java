@@ -66,6 +66,7 @@ import org.sonar.scanner.report.CoveragePublisher;
 import org.sonar.scanner.report.MeasuresPublisher;
 import org.sonar.scanner.report.MetadataPublisher;
 import org.sonar.scanner.report.ReportPublisher;
+import org.sonar.scanner.report.SourceInputsHashPublisher;
 import org.sonar.scanner.report.SourcePublisher;
 import org.sonar.scanner.report.TestExecutionAndCoveragePublisher;
 import org.sonar.scanner.repository.ContextPropertiesCache;
@@ -86,6 +87,8 @@ import org.sonar.scanner.rule.DefaultActiveRulesLoader;
 import org.sonar.scanner.rule.DefaultRulesLoader;
 import org.sonar.scanner.rule.RulesLoader;
 import org.sonar.scanner.rule.RulesProvider;
+import org.sonar.scanner.scan.filesystem.FileContentCache;
+import org.sonar.scanner.scan.filesystem.FileIndexerPool;
 import org.sonar.scanner.scan.filesystem.InputPathCache;
 import org.sonar.scanner.scan.measure.DefaultMetricFinder;
 import org.sonar.scanner.scan.measure.DeprecatedMetricFinder;
@@ -151,6 +154,7 @@ public class ProjectScanContainer extends ComponentContainer {
       // file system
       InputPathCache.class,
       PathResolver.class,
+      FileIndexerPool.class,
 
       // rules
       new ActiveRulesProvider(),
@@ -181,6 +185,7 @@ public class ProjectScanContainer extends ComponentContainer {
       ContextPropertiesPublisher.class,
 
       ProjectSettings.class,
+      FileContentCache.class,
 
       // Report
       ScannerMetrics.class,
@@ -193,6 +198,7 @@ public class ProjectScanContainer extends ComponentContainer {
       CoveragePublisher.class,
       SourcePublisher.class,
       TestExecutionAndCoveragePublisher.class,
+      SourceInputsHashPublisher.class,
 
       // Cpd
       CpdExecutor.class,
@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.batch.fs.internal.PathPatternSet;
 import org.sonar.api.scan.filesystem.FileExclusions;
 
 @ScannerSide
@@ -38,6 +39,10 @@ public class ExclusionFilters {
   private PathPattern[] mainExclusions;
   private PathPattern[] testInclusions;
   private PathPattern[] testExclusions;
+  private PathPatternSet mainInclusionSet;
+  private PathPatternSet mainExclusionSet;
+  private PathPatternSet testInclusionSet;
+  private PathPatternSet testExclusionSet;
 
   public ExclusionFilters(FileExclusions exclusions) {
     this.exclusionSettings = exclusions;
@@ -48,6 +53,10 @@ public class ExclusionFilters {
     mainExclusions = prepareMainExclusions();
     testInclusions = prepareTestInclusions();
     testExclusions = prepareTestExclusions();
+    mainInclusionSet = new PathPatternSet(mainInclusions);
+    mainExclusionSet = new PathPatternSet(mainExclusions);
+    testInclusionSet = new PathPatternSet(testInclusions);
+    testExclusionSet = new PathPatternSet(testExclusions);
     log("Included sources: ", mainInclusions);
     log("Excluded sources: ", mainExclusions);
     log("Included tests: ", testInclusions);
@@ -68,35 +77,22 @@ public class ExclusionFilters {
   }
 
   public boolean accept(InputFile inputFile, InputFile.Type type) {
-    PathPattern[] inclusionPatterns;
-    PathPattern[] exclusionPatterns;
+    PathPatternSet inclusionPatterns;
+    PathPatternSet exclusionPatterns;
     if (InputFile.Type.MAIN == type) {
-      inclusionPatterns = mainInclusions;
-      exclusionPatterns = mainExclusions;
+      inclusionPatterns = mainInclusionSet;
+      exclusionPatterns = mainExclusionSet;
     } else if (InputFile.Type.TEST == type) {
-      inclusionPatterns = testInclusions;
-      exclusionPatterns = testExclusions;
+      inclusionPatterns = testInclusionSet;
+      exclusionPatterns = testExclusionSet;
     } else {
       throw new IllegalArgumentException("Unknown file type: " + type);
     }
 
-    if (inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (PathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(inputFile);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
-    }
-    if (exclusionPatterns.length > 0) {
-      for (PathPattern pattern : exclusionPatterns) {
-        if (pattern.match(inputFile)) {
-          return false;
-        }
-      }
+    if (!inclusionPatterns.isEmpty() && !inclusionPatterns.matchAny(inputFile, true)) {
+      return false;
     }
-    return true;
+    return exclusionPatterns.isEmpty() || !exclusionPatterns.matchAny(inputFile, true);
   }
 
   PathPattern[] prepareMainInclusions() {
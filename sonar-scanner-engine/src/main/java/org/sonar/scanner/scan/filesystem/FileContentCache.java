@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import org.apache.commons.io.ByteOrderMark;
+import org.apache.commons.io.input.BOMInputStream;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Decoded content of source files, so that each file is read and decoded only once by
+ * the components reading it during analysis: metadata, issue exclusions, CPD and report.
+ * The content is kept in a LRU cache bounded by the total number of chars, and is released
+ * by its last consumer, the publisher of sources in the report. Evicted files are read again
+ * from disk when requested.
+ * Leading byte order mark is removed, whatever the charset.
+ */
+@ScannerSide
+public class FileContentCache {
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+
+  private final Cache<File, Content> contents;
+
+  public FileContentCache() {
+    // about 10% of the heap, as chars are two bytes
+    this(Runtime.getRuntime().maxMemory() / 20);
+  }
+
+  @VisibleForTesting
+  FileContentCache(long maxChars) {
+    this.contents = CacheBuilder.newBuilder()
+      .maximumWeight(maxChars)
+      .weigher((File file, Content content) -> content.text.length())
+      .build();
+  }
+
+  public String content(InputFile inputFile) {
+    return content(inputFile.file(), inputFile.charset());
+  }
+
+  public Reader reader(InputFile inputFile) {
+    return new StringReader(content(inputFile));
+  }
+
+  /**
+   * @throws IllegalStateException if the file can't be read
+   */
+  public String content(File file, Charset charset) {
+    Content content = contents.getIfPresent(file);
+    if (content == null || !content.charset.equals(charset)) {
+      content = new Content(charset, decode(file, charset));
+      contents.put(file, content);
+    }
+    return content.text;
+  }
+
+  public Reader reader(File file, Charset charset) {
+    return new StringReader(content(file, charset));
+  }
+
+  /**
+   * Forget the content of the file once it's not needed anymore. It will be read again
+   * from disk if requested later.
+   */
+  public void release(InputFile inputFile) {
+    contents.invalidate(inputFile.file());
+  }
+
+  private static String decode(File file, Charset charset) {
+    try (BOMInputStream bomIn = new BOMInputStream(new FileInputStream(file),
+      ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
+      Reader reader = new InputStreamReader(bomIn, charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE))) {
+      StringBuilder text = new StringBuilder((int) Math.min(file.length(), Integer.MAX_VALUE - 8L));
+      char[] buffer = new char[BUFFER_SIZE];
+      int read = reader.read(buffer);
+      while (read >= 0) {
+        text.append(buffer, 0, read);
+        read = reader.read(buffer);
+      }
+      return text.toString();
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", file.getAbsolutePath(), charset), e);
+    }
+  }
+
+  private static class Content {
+    private final Charset charset;
+    private final String text;
+
+    Content(Charset charset, String text) {
+      this.charset = charset;
+      this.text = text;
+    }
+  }
+}
@@ -19,34 +19,24 @@
  */
 package org.sonar.scanner.scan.filesystem;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystemLoopException;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
-import java.nio.file.Files;
 import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonar.api.batch.fs.InputFileFilter;
 import org.sonar.api.batch.fs.internal.DefaultInputDir;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -55,7 +45,8 @@ import org.sonar.api.utils.MessageException;
 import org.sonar.scanner.util.ProgressReport;
 
 /**
- * Index input files into {@link InputPathCache}.
+ * Index input files into {@link InputPathCache}. Files are listed and indexed on the pool shared by all modules,
+ * see {@link FileIndexerPool}.
  */
 @ScannerSide
 public class FileIndexer {
@@ -65,20 +56,22 @@ public class FileIndexer {
   private final boolean isAggregator;
   private final ExclusionFilters exclusionFilters;
   private final InputFileBuilderFactory inputFileBuilderFactory;
+  private final FileIndexerPool indexerPool;
 
   private ProgressReport progressReport;
-  private ExecutorService executorService;
   private List<Future<Void>> tasks;
 
-  public FileIndexer(ExclusionFilters exclusionFilters, InputFileBuilderFactory inputFileBuilderFactory, ProjectDefinition def, InputFileFilter[] filters) {
+  public FileIndexer(ExclusionFilters exclusionFilters, InputFileBuilderFactory inputFileBuilderFactory, ProjectDefinition def, FileIndexerPool indexerPool,
+    InputFileFilter[] filters) {
     this.filters = filters;
     this.exclusionFilters = exclusionFilters;
     this.inputFileBuilderFactory = inputFileBuilderFactory;
+    this.indexerPool = indexerPool;
     this.isAggregator = !def.getSubProjects().isEmpty();
   }
 
-  public FileIndexer(ExclusionFilters exclusionFilters, InputFileBuilderFactory inputFileBuilderFactory, ProjectDefinition def) {
-    this(exclusionFilters, inputFileBuilderFactory, def, new InputFileFilter[0]);
+  public FileIndexer(ExclusionFilters exclusionFilters, InputFileBuilderFactory inputFileBuilderFactory, ProjectDefinition def, FileIndexerPool indexerPool) {
+    this(exclusionFilters, inputFileBuilderFactory, def, indexerPool, new InputFileFilter[0]);
   }
 
   void index(DefaultModuleFileSystem fileSystem) {
@@ -93,8 +86,6 @@ public class FileIndexer {
     Progress progress = new Progress();
 
     InputFileBuilder inputFileBuilder = inputFileBuilderFactory.create(fileSystem);
-    int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
-    executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("FileIndexer-%d").build());
     tasks = new ArrayList<>();
     indexFiles(fileSystem, progress, inputFileBuilder, fileSystem.sources(), InputFile.Type.MAIN);
     indexFiles(fileSystem, progress, inputFileBuilder, fileSystem.tests(), InputFile.Type.TEST);
@@ -109,7 +100,6 @@ public class FileIndexer {
   }
 
   private void waitForTasksToComplete() {
-    executorService.shutdown();
     for (Future<Void> task : tasks) {
       try {
         task.get();
@@ -123,61 +113,63 @@ public class FileIndexer {
   }
 
   private void indexFiles(DefaultModuleFileSystem fileSystem, Progress progress, InputFileBuilder inputFileBuilder, List<File> sources, InputFile.Type type) {
-    try {
-      for (File dirOrFile : sources) {
-        if (dirOrFile.isDirectory()) {
-          indexDirectory(inputFileBuilder, fileSystem, progress, dirOrFile, type);
-        } else {
-          indexFile(inputFileBuilder, fileSystem, progress, dirOrFile.toPath(), type);
+    for (File dirOrFile : sources) {
+      if (dirOrFile.isDirectory()) {
+        for (Path file : indexerPool.files(dirOrFile)) {
+          indexFile(inputFileBuilder, fileSystem, progress, file, type);
         }
+      } else {
+        indexFile(inputFileBuilder, fileSystem, progress, dirOrFile.toPath(), type);
       }
-    } catch (IOException e) {
-      throw new IllegalStateException("Failed to index files", e);
     }
   }
 
-  private void indexDirectory(final InputFileBuilder inputFileBuilder, final DefaultModuleFileSystem fileSystem, final Progress status,
-    final File dirToIndex, final InputFile.Type type) throws IOException {
-    Files.walkFileTree(dirToIndex.toPath().normalize(), Collections.singleton(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
-      new IndexFileVisitor(inputFileBuilder, fileSystem, status, type));
+  private void indexFile(final InputFileBuilder inputFileBuilder, final DefaultModuleFileSystem fs, final Progress status, final Path sourceFile,
+    final InputFile.Type type) {
+    tasks.add(indexerPool.pool().submit(() -> {
+      DefaultInputFile inputFile = createInputFile(inputFileBuilder, fs, sourceFile);
+      if (inputFile != null) {
+        if (exclusionFilters.accept(inputFile, type)) {
+          indexFile(inputFileBuilder, fs, status, inputFile, type);
+        } else {
+          status.increaseExcludedByPatternsCount();
+        }
+      }
+      return null;
+    }));
   }
 
-  private void indexFile(InputFileBuilder inputFileBuilder, DefaultModuleFileSystem fileSystem, Progress progress, Path sourceFile, InputFile.Type type) throws IOException {
-    // get case of real file without resolving link
-    Path realFile = sourceFile.toRealPath(LinkOption.NOFOLLOW_LINKS);
-    DefaultInputFile inputFile = inputFileBuilder.create(realFile.toFile());
-    if (inputFile != null) {
-      // Set basedir on input file prior to adding it to the FS since exclusions filters may require the absolute path
-      inputFile.setModuleBaseDir(fileSystem.baseDirPath());
-      if (exclusionFilters.accept(inputFile, type)) {
-        indexFile(inputFileBuilder, fileSystem, progress, inputFile, type);
-      } else {
-        progress.increaseExcludedByPatternsCount();
+  private static DefaultInputFile createInputFile(InputFileBuilder inputFileBuilder, DefaultModuleFileSystem fileSystem, Path sourceFile) {
+    try {
+      // get case of real file without resolving link
+      Path realFile = sourceFile.toRealPath(LinkOption.NOFOLLOW_LINKS);
+      DefaultInputFile inputFile = inputFileBuilder.create(realFile.toFile());
+      if (inputFile != null) {
+        // Set basedir on input file prior to adding it to the FS since exclusions filters may require the absolute path
+        inputFile.setModuleBaseDir(fileSystem.baseDirPath());
       }
+      return inputFile;
+    } catch (NoSuchFileException e) {
+      // files are listed in advance by FileIndexerPool, they may have been deleted since then
+      LOG.debug("File deleted before being indexed: {}", sourceFile);
+      return null;
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to index files", e);
     }
   }
 
-  private void indexFile(final InputFileBuilder inputFileBuilder, final DefaultModuleFileSystem fs,
-    final Progress status, final DefaultInputFile inputFile, final InputFile.Type type) {
-
-    tasks.add(executorService.submit(new Callable<Void>() {
-      @Override
-      public Void call() {
-        DefaultInputFile completedInputFile = inputFileBuilder.completeAndComputeMetadata(inputFile, type);
-        if (completedInputFile != null && accept(completedInputFile)) {
-          fs.add(completedInputFile);
-          status.markAsIndexed(completedInputFile);
-          File parentDir = completedInputFile.file().getParentFile();
-          String relativePath = new PathResolver().relativePath(fs.baseDir(), parentDir);
-          if (relativePath != null) {
-            DefaultInputDir inputDir = new DefaultInputDir(fs.moduleKey(), relativePath);
-            fs.add(inputDir);
-          }
-        }
-        return null;
+  private void indexFile(InputFileBuilder inputFileBuilder, DefaultModuleFileSystem fs, Progress status, DefaultInputFile inputFile, InputFile.Type type) {
+    DefaultInputFile completedInputFile = inputFileBuilder.completeAndComputeMetadata(inputFile, type);
+    if (completedInputFile != null && accept(completedInputFile)) {
+      fs.add(completedInputFile);
+      status.markAsIndexed(completedInputFile);
+      File parentDir = completedInputFile.file().getParentFile();
+      String relativePath = new PathResolver().relativePath(fs.baseDir(), parentDir);
+      if (relativePath != null) {
+        DefaultInputDir inputDir = new DefaultInputDir(fs.moduleKey(), relativePath);
+        fs.add(inputDir);
       }
-    }));
-
+    }
   }
 
   private boolean accept(InputFile inputFile) {
@@ -190,59 +182,9 @@ public class FileIndexer {
     return true;
   }
 
-  private class IndexFileVisitor implements FileVisitor<Path> {
-    private InputFileBuilder inputFileBuilder;
-    private DefaultModuleFileSystem fileSystem;
-    private Progress status;
-    private Type type;
-
-    IndexFileVisitor(InputFileBuilder inputFileBuilder, DefaultModuleFileSystem fileSystem, Progress status, InputFile.Type type) {
-      this.inputFileBuilder = inputFileBuilder;
-      this.fileSystem = fileSystem;
-      this.status = status;
-      this.type = type;
-    }
-
-    @Override
-    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-      Path fileName = dir.getFileName();
-
-      if (fileName != null && fileName.toString().length() > 1 && fileName.toString().charAt(0) == '.') {
-        return FileVisitResult.SKIP_SUBTREE;
-      }
-      if (Files.isHidden(dir)) {
-        return FileVisitResult.SKIP_SUBTREE;
-      }
-      return FileVisitResult.CONTINUE;
-    }
-
-    @Override
-    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-      if (!Files.isHidden(file)) {
-        indexFile(inputFileBuilder, fileSystem, status, file, type);
-      }
-      return FileVisitResult.CONTINUE;
-    }
-
-    @Override
-    public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-      if (exc instanceof FileSystemLoopException) {
-        LOG.warn("Not indexing due to symlink loop: {}", file.toFile());
-        return FileVisitResult.CONTINUE;
-      }
-
-      throw exc;
-    }
-
-    @Override
-    public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-      return FileVisitResult.CONTINUE;
-    }
-  }
-
   private class Progress {
     private final Set<Path> indexed = new HashSet<>();
-    private int excludedByPatternsCount = 0;
+    private final AtomicInteger excludedByPatternsCount = new AtomicInteger();
 
     synchronized void markAsIndexed(InputFile inputFile) {
       if (indexed.contains(inputFile.path())) {
@@ -254,14 +196,14 @@ public class FileIndexer {
     }
 
     void increaseExcludedByPatternsCount() {
-      excludedByPatternsCount++;
+      excludedByPatternsCount.incrementAndGet();
     }
 
     public int excludedByPatternsCount() {
-      return excludedByPatternsCount;
+      return excludedByPatternsCount.get();
     }
 
-    int count() {
+    synchronized int count() {
       return indexed.size();
     }
   }
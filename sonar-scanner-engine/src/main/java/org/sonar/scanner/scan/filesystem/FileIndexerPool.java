@@ -0,0 +1,236 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.scanner.scan.ImmutableProjectReactor;
+
+/**
+ * Work-stealing pool shared by the {@link FileIndexer} of all modules. When the project analysis starts, the source and test
+ * directories of all modules are walked concurrently, so that modules find their files already listed when they are indexed.
+ * Each directory is walked by a separate task.
+ */
+@ScannerSide
+public class FileIndexerPool implements Startable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileIndexerPool.class);
+  private static final String THREAD_NAME_PREFIX = "FileIndexer-";
+
+  private final ImmutableProjectReactor reactor;
+  private final PathResolver pathResolver;
+  private final int threads;
+  private final Map<Path, ForkJoinTask<List<Path>>> walks = new ConcurrentHashMap<>();
+  private ForkJoinPool pool;
+
+  public FileIndexerPool(ImmutableProjectReactor reactor, PathResolver pathResolver) {
+    this(reactor, pathResolver, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  @VisibleForTesting
+  FileIndexerPool(@Nullable ImmutableProjectReactor reactor, PathResolver pathResolver, int threads) {
+    this.reactor = reactor;
+    this.pathResolver = pathResolver;
+    this.threads = threads;
+  }
+
+  @Override
+  public void start() {
+    pool = new ForkJoinPool(threads, p -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+      thread.setName(THREAD_NAME_PREFIX + thread.getPoolIndex());
+      thread.setDaemon(true);
+      return thread;
+    }, null, false);
+    if (reactor != null) {
+      for (ProjectDefinition module : reactor.getProjects()) {
+        // No indexing for an aggregator module
+        if (module.getSubProjects().isEmpty()) {
+          prefetch(module, module.sources());
+          prefetch(module, module.tests());
+        }
+      }
+    }
+  }
+
+  private void prefetch(ProjectDefinition module, Collection<String> paths) {
+    for (String path : paths) {
+      File dir = pathResolver.relativeFile(module.getBaseDir(), path);
+      if (dir.isDirectory()) {
+        Path key = dir.toPath().normalize();
+        if (!walks.containsKey(key)) {
+          walks.put(key, pool.submit(new Walk(key)));
+        }
+      }
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (pool != null) {
+      pool.shutdownNow();
+      try {
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      pool = null;
+    }
+    walks.clear();
+  }
+
+  ForkJoinPool pool() {
+    return pool;
+  }
+
+  /**
+   * Visible files of the directory and its sub-directories. Hidden files and directories are excluded, and links are followed.
+   */
+  List<Path> files(File dir) {
+    Path key = dir.toPath().normalize();
+    ForkJoinTask<List<Path>> walk = walks.remove(key);
+    if (walk == null) {
+      walk = pool.submit(new Walk(key));
+    } else {
+      LOG.debug("Files of {} were listed in advance", dir);
+    }
+    return walk.join();
+  }
+
+  private static class Walk implements Callable<List<Path>> {
+    private final Path root;
+
+    Walk(Path root) {
+      this.root = root;
+    }
+
+    @Override
+    public List<Path> call() {
+      Queue<Path> files = new ConcurrentLinkedQueue<>();
+      BasicFileAttributes attrs = readAttributes(root);
+      if (!isExcludedDir(root)) {
+        new DirectoryWalk(root, attrs, null, files).invoke();
+      }
+      return new ArrayList<>(files);
+    }
+  }
+
+  private static class DirectoryWalk extends RecursiveAction {
+    private final Path dir;
+    private final Object fileKey;
+    private final DirectoryWalk parent;
+    private final Queue<Path> files;
+
+    DirectoryWalk(Path dir, BasicFileAttributes attrs, @Nullable DirectoryWalk parent, Queue<Path> files) {
+      this.dir = dir;
+      this.fileKey = attrs.fileKey() != null ? attrs.fileKey() : dir.toAbsolutePath();
+      this.parent = parent;
+      this.files = files;
+    }
+
+    @Override
+    protected void compute() {
+      List<DirectoryWalk> subWalks = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+        for (Path child : stream) {
+          BasicFileAttributes attrs = readAttributes(child);
+          if (!attrs.isDirectory()) {
+            if (!Files.isHidden(child)) {
+              files.add(child);
+            }
+          } else if (!isExcludedDir(child)) {
+            DirectoryWalk subWalk = new DirectoryWalk(child, attrs, this, files);
+            if (subWalk.wouldLoop()) {
+              LOG.warn("Not indexing due to symlink loop: {}", child.toFile());
+            } else {
+              subWalks.add(subWalk);
+            }
+          }
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to index files", e);
+      }
+      invokeAll(subWalks);
+    }
+
+    private boolean wouldLoop() {
+      for (DirectoryWalk ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+        if (ancestor.fileKey.equals(fileKey)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Links are followed. Broken links are considered as files, like {@link Files#walkFileTree(Path, java.util.Set, int, java.nio.file.FileVisitor)}
+   * does.
+   */
+  private static BasicFileAttributes readAttributes(Path path) {
+    try {
+      try {
+        return Files.readAttributes(path, BasicFileAttributes.class);
+      } catch (IOException e) {
+        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to index files", e);
+    }
+  }
+
+  private static boolean isExcludedDir(Path dir) {
+    Path fileName = dir.getFileName();
+    if (fileName != null && fileName.toString().length() > 1 && fileName.toString().charAt(0) == '.') {
+      return true;
+    }
+    try {
+      return Files.isHidden(dir);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to index files", e);
+    }
+  }
+}
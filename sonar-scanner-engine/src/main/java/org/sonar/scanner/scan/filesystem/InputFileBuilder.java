@@ -53,9 +53,10 @@ class InputFileBuilder {
   private final DefaultModuleFileSystem fs;
   private final Settings settings;
   private final FileMetadata fileMetadata;
+  private final FileContentCache fileContentCache;
 
   InputFileBuilder(String moduleKey, PathResolver pathResolver, LanguageDetection langDetection,
-    StatusDetection statusDetection, DefaultModuleFileSystem fs, Settings settings, FileMetadata fileMetadata) {
+    StatusDetection statusDetection, DefaultModuleFileSystem fs, Settings settings, FileMetadata fileMetadata, FileContentCache fileContentCache) {
     this.moduleKey = moduleKey;
     this.pathResolver = pathResolver;
     this.langDetection = langDetection;
@@ -63,6 +64,7 @@ class InputFileBuilder {
     this.fs = fs;
     this.settings = settings;
     this.fileMetadata = fileMetadata;
+    this.fileContentCache = fileContentCache;
   }
 
   String moduleKey() {
@@ -112,7 +114,7 @@ class InputFileBuilder {
     Charset charset = detectCharset(inputFile.file(), fs.encoding());
     inputFile.setCharset(charset);
 
-    inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), charset));
+    inputFile.initMetadata(fileMetadata.readMetadata(fileContentCache.reader(inputFile.file(), charset), inputFile.file(), charset));
 
     inputFile.setStatus(statusDetection.status(inputFile.moduleKey(), inputFile.relativePath(), inputFile.hash()));
 
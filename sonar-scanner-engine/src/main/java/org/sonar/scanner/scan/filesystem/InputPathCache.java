@@ -19,8 +19,11 @@
  */
 package org.sonar.scanner.scan.filesystem;
 
-import com.google.common.collect.Table;
-import com.google.common.collect.TreeBasedTable;
+import com.google.common.collect.Iterables;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
@@ -30,12 +33,14 @@ import javax.annotation.CheckForNull;
 /**
  * Cache of all files and dirs. This cache is shared amongst all project modules. Inclusion and
  * exclusion patterns are already applied.
+ * <p>
+ * Files are indexed concurrently, so entries are stored in concurrent maps, sorted by module key and relative path.
  */
 @ScannerSide
 public class InputPathCache {
 
-  private final Table<String, String, InputFile> inputFileCache = TreeBasedTable.create();
-  private final Table<String, String, InputDir> inputDirCache = TreeBasedTable.create();
+  private final PathTable<InputFile> inputFileCache = new PathTable<>();
+  private final PathTable<InputDir> inputDirCache = new PathTable<>();
 
   public Iterable<InputFile> allFiles() {
     return inputFileCache.values();
@@ -54,18 +59,18 @@ public class InputPathCache {
   }
 
   public InputPathCache removeModule(String moduleKey) {
-    inputFileCache.row(moduleKey).clear();
-    inputDirCache.row(moduleKey).clear();
+    inputFileCache.removeRow(moduleKey);
+    inputDirCache.removeRow(moduleKey);
     return this;
   }
 
   public InputPathCache remove(String moduleKey, InputFile inputFile) {
-    inputFileCache.remove(moduleKey, inputFile.relativePath());
+    inputFileCache.row(moduleKey).remove(inputFile.relativePath());
     return this;
   }
 
   public InputPathCache remove(String moduleKey, InputDir inputDir) {
-    inputDirCache.remove(moduleKey, inputDir.relativePath());
+    inputDirCache.row(moduleKey).remove(inputDir.relativePath());
     return this;
   }
 
@@ -81,12 +86,40 @@ public class InputPathCache {
 
   @CheckForNull
   public InputFile getFile(String moduleKey, String relativePath) {
-    return inputFileCache.get(moduleKey, relativePath);
+    return inputFileCache.row(moduleKey).get(relativePath);
   }
 
   @CheckForNull
   public InputDir getDir(String moduleKey, String relativePath) {
-    return inputDirCache.get(moduleKey, relativePath);
+    return inputDirCache.row(moduleKey).get(relativePath);
   }
 
+  private static class PathTable<V> {
+    private final ConcurrentMap<String, ConcurrentSkipListMap<String, V>> rows = new ConcurrentSkipListMap<>();
+
+    Map<String, V> row(String moduleKey) {
+      Map<String, V> row = rows.get(moduleKey);
+      return row == null ? Collections.<String, V>emptyMap() : row;
+    }
+
+    void put(String moduleKey, String relativePath, V value) {
+      ConcurrentSkipListMap<String, V> row = rows.get(moduleKey);
+      if (row == null) {
+        ConcurrentSkipListMap<String, V> newRow = new ConcurrentSkipListMap<>();
+        row = rows.putIfAbsent(moduleKey, newRow);
+        if (row == null) {
+          row = newRow;
+        }
+      }
+      row.put(relativePath, value);
+    }
+
+    void removeRow(String moduleKey) {
+      rows.remove(moduleKey);
+    }
+
+    Iterable<V> values() {
+      return Iterables.concat(Iterables.transform(rows.values(), Map::values));
+    }
+  }
 }
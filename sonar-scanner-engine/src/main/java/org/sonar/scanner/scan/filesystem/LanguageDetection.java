@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.batch.fs.internal.PathPatternSet;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
 import org.sonar.scanner.repository.language.Language;
@@ -35,6 +36,8 @@ import org.sonar.scanner.repository.language.LanguagesRepository;
 import javax.annotation.CheckForNull;
 
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +54,12 @@ class LanguageDetection {
   private final Map<String, PathPattern[]> patternsByLanguage = Maps.newLinkedHashMap();
   private final List<String> languagesToConsider = Lists.newArrayList();
   private final String forcedLanguage;
+  /**
+   * Patterns of all the languages to consider, evaluated at once. Patterns of the language at index i in
+   * {@link #languagesToConsider} are in range [patternOffsets[i], patternOffsets[i + 1])
+   */
+  private final PathPatternSet patternSet;
+  private final int[] patternOffsets;
 
   LanguageDetection(Settings settings, LanguagesRepository languages) {
     for (Language language : languages.all()) {
@@ -82,6 +91,15 @@ class LanguageDetection {
     } else {
       languagesToConsider.addAll(patternsByLanguage.keySet());
     }
+
+    List<PathPattern> allPatterns = Lists.newArrayList();
+    patternOffsets = new int[languagesToConsider.size() + 1];
+    for (int i = 0; i < languagesToConsider.size(); i++) {
+      patternOffsets[i] = allPatterns.size();
+      allPatterns.addAll(Arrays.asList(patternsByLanguage.get(languagesToConsider.get(i))));
+    }
+    patternOffsets[languagesToConsider.size()] = allPatterns.size();
+    patternSet = new PathPatternSet(allPatterns.toArray(new PathPattern[allPatterns.size()]));
   }
 
   Map<String, PathPattern[]> patternsByLanguage() {
@@ -91,8 +109,11 @@ class LanguageDetection {
   @CheckForNull
   String language(InputFile inputFile) {
     String detectedLanguage = null;
-    for (String languageKey : languagesToConsider) {
-      if (isCandidateForLanguage(inputFile, languageKey)) {
+    BitSet matchedPatterns = patternSet.match(inputFile, false);
+    for (int i = 0; i < languagesToConsider.size(); i++) {
+      String languageKey = languagesToConsider.get(i);
+      int firstMatch = matchedPatterns.nextSetBit(patternOffsets[i]);
+      if (firstMatch >= 0 && firstMatch < patternOffsets[i + 1]) {
         if (detectedLanguage == null) {
           detectedLanguage = languageKey;
         } else {
@@ -115,18 +136,6 @@ class LanguageDetection {
     return null;
   }
 
-  private boolean isCandidateForLanguage(InputFile inputFile, String languageKey) {
-    PathPattern[] patterns = patternsByLanguage.get(languageKey);
-    if (patterns != null) {
-      for (PathPattern pathPattern : patterns) {
-        if (pathPattern.match(inputFile, false)) {
-          return true;
-        }
-      }
-    }
-    return false;
-  }
-
   private String getFileLangPatternPropKey(String languageKey) {
     return "sonar.lang.patterns." + languageKey;
   }
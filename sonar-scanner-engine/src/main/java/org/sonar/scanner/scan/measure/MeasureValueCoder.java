@@ -22,11 +22,26 @@ package org.sonar.scanner.scan.measure;
 import com.persistit.Value;
 import com.persistit.encoding.CoderContext;
 import com.persistit.encoding.ValueCoder;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.lang.SerializationUtils;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
+import org.sonar.scanner.storage.StorageValueCoder;
 
-class MeasureValueCoder implements ValueCoder {
+class MeasureValueCoder implements ValueCoder, StorageValueCoder {
+
+  // types of measure values in StorageValueCoder records
+  private static final byte NULL_VALUE = 0;
+  private static final byte INTEGER_VALUE = 1;
+  private static final byte LONG_VALUE = 2;
+  private static final byte DOUBLE_VALUE = 3;
+  private static final byte BOOLEAN_VALUE = 4;
+  private static final byte STRING_VALUE = 5;
+  private static final byte SERIALIZED_VALUE = 6;
 
   private final MetricFinder metricFinder;
 
@@ -44,14 +59,86 @@ class MeasureValueCoder implements ValueCoder {
 
   @Override
   public Object get(Value value, Class clazz, CoderContext context) {
-    String metricKey = value.getString();
+    return newMeasure(value.getString(), (Serializable) value.get());
+  }
+
+  @Override
+  public void write(DataOutput output, Object object) throws IOException {
+    DefaultMeasure<?> m = (DefaultMeasure<?>) object;
+    output.writeUTF(m.metric().key());
+    writeValue(output, m.value());
+  }
+
+  @Override
+  public Object read(DataInput input) throws IOException {
+    return newMeasure(input.readUTF(), readValue(input));
+  }
+
+  private static void writeValue(DataOutput output, Serializable value) throws IOException {
+    if (value == null) {
+      output.writeByte(NULL_VALUE);
+    } else if (value instanceof Integer) {
+      output.writeByte(INTEGER_VALUE);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG_VALUE);
+      output.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE_VALUE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      output.writeByte(BOOLEAN_VALUE);
+      output.writeBoolean((Boolean) value);
+    } else if (value instanceof String) {
+      // not DataOutput#writeUTF(), which is limited to 64KB
+      output.writeByte(STRING_VALUE);
+      writeBytes(output, ((String) value).getBytes(StandardCharsets.UTF_8));
+    } else {
+      output.writeByte(SERIALIZED_VALUE);
+      writeBytes(output, SerializationUtils.serialize(value));
+    }
+  }
+
+  private static Serializable readValue(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case NULL_VALUE:
+        return null;
+      case INTEGER_VALUE:
+        return input.readInt();
+      case LONG_VALUE:
+        return input.readLong();
+      case DOUBLE_VALUE:
+        return input.readDouble();
+      case BOOLEAN_VALUE:
+        return input.readBoolean();
+      case STRING_VALUE:
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+      case SERIALIZED_VALUE:
+        return (Serializable) SerializationUtils.deserialize(readBytes(input));
+      default:
+        throw new IllegalStateException("Unknown type of measure value: " + type);
+    }
+  }
+
+  private static void writeBytes(DataOutput output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private DefaultMeasure<?> newMeasure(String metricKey, Serializable measureValue) {
     org.sonar.api.batch.measure.Metric<?> metric = metricFinder.findByKey(metricKey);
     if (metric == null) {
       throw new IllegalStateException("Unknow metric with key " + metricKey);
     }
-    DefaultMeasure<?> m = new DefaultMeasure()
+    return new DefaultMeasure()
       .forMetric(metric)
-      .withValue((Serializable) value.get());
-    return m;
+      .withValue(measureValue);
   }
 }
@@ -22,17 +22,20 @@ package org.sonar.scanner.scm;
 import com.google.common.base.Preconditions;
 import java.text.Normalizer;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.scm.BlameCommand.BlameOutput;
 import org.sonar.api.batch.scm.BlameLine;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.index.BatchComponent;
@@ -42,6 +45,9 @@ import org.sonar.scanner.protocol.output.ScannerReport.Changesets.Builder;
 import org.sonar.scanner.util.ProgressReport;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 
+/**
+ * Blame results can be provided concurrently. The changesets of each file are written to the report as soon as they are received.
+ */
 class DefaultBlameOutput implements BlameOutput {
 
   private static final Logger LOG = Loggers.get(DefaultBlameOutput.class);
@@ -51,23 +57,26 @@ class DefaultBlameOutput implements BlameOutput {
 
   private final ScannerReportWriter writer;
   private final BatchComponentCache componentCache;
-  private final Set<InputFile> allFilesToBlame = new HashSet<>();
+  private final Set<InputFile> allFilesToBlame = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger count = new AtomicInteger();
+  private final System2 system2;
+  private final long startTime;
   private ProgressReport progressReport;
-  private int count;
   private int total;
 
-  DefaultBlameOutput(ScannerReportWriter writer, BatchComponentCache componentCache, List<InputFile> filesToBlame) {
+  DefaultBlameOutput(ScannerReportWriter writer, BatchComponentCache componentCache, List<InputFile> filesToBlame, System2 system2) {
     this.writer = writer;
     this.componentCache = componentCache;
+    this.system2 = system2;
+    this.startTime = system2.now();
     this.allFilesToBlame.addAll(filesToBlame);
-    count = 0;
     total = filesToBlame.size();
     progressReport = new ProgressReport("Report about progress of SCM blame", TimeUnit.SECONDS.toMillis(10));
     progressReport.start(total + " files to be analyzed");
   }
 
   @Override
-  public synchronized void blameResult(InputFile file, List<BlameLine> lines) {
+  public void blameResult(InputFile file, List<BlameLine> lines) {
     Preconditions.checkNotNull(file);
     Preconditions.checkNotNull(lines);
     Preconditions.checkArgument(allFilesToBlame.contains(file), "It was not expected to blame file %s", file.relativePath());
@@ -95,9 +104,9 @@ class DefaultBlameOutput implements BlameOutput {
       lineId++;
     }
     writer.writeComponentChangesets(scmBuilder.build());
-    allFilesToBlame.remove(file);
-    count++;
-    progressReport.message(count + "/" + total + " files analyzed");
+    if (allFilesToBlame.remove(file)) {
+      progressReport.message(count.incrementAndGet() + "/" + total + " files analyzed");
+    }
   }
 
   private static void validateLine(BlameLine line, int lineId, InputFile file) {
@@ -136,6 +145,10 @@ class DefaultBlameOutput implements BlameOutput {
 
   public void finish(boolean success) {
     progressReport.stop(count + "/" + total + " files analyzed");
+    long duration = system2.now() - startTime;
+    if (count.get() > 0 && duration > 0) {
+      LOG.info(String.format(Locale.ENGLISH, "Blame throughput: %.1f files/s", count.get() * 1000.0 / duration));
+    }
     if (success && !allFilesToBlame.isEmpty()) {
       LOG.warn("Missing blame information for the following files:");
       for (InputFile f : allFilesToBlame) {
@@ -19,17 +19,26 @@
  */
 package org.sonar.scanner.scm;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Status;
+import org.sonar.api.batch.scm.BlameCommand;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.index.BatchComponent;
@@ -50,20 +59,23 @@ public final class ScmSensor implements Sensor {
   private final ProjectRepositories projectRepositories;
   private final BatchComponentCache componentCache;
   private final ReportPublisher publishReportJob;
+  private final System2 system2;
 
   public ScmSensor(ProjectDefinition projectDefinition, ScmConfiguration configuration,
-    ProjectRepositories projectRepositories, FileSystem fs, BatchComponentCache componentCache, ReportPublisher publishReportJob) {
+    ProjectRepositories projectRepositories, FileSystem fs, BatchComponentCache componentCache, ReportPublisher publishReportJob, System2 system2) {
     this.projectDefinition = projectDefinition;
     this.configuration = configuration;
     this.projectRepositories = projectRepositories;
     this.fs = fs;
     this.componentCache = componentCache;
     this.publishReportJob = publishReportJob;
+    this.system2 = system2;
   }
 
   @Override
   public void describe(SensorDescriptor descriptor) {
-    descriptor.name("SCM Sensor");
+    descriptor.name("SCM Sensor")
+      .produces("scm");
   }
 
   @Override
@@ -81,9 +93,9 @@ public final class ScmSensor implements Sensor {
     if (!filesToBlame.isEmpty()) {
       String key = configuration.provider().key();
       LOG.info("SCM provider for this project is: " + key);
-      DefaultBlameOutput output = new DefaultBlameOutput(publishReportJob.getWriter(), componentCache, filesToBlame);
+      DefaultBlameOutput output = new DefaultBlameOutput(publishReportJob.getWriter(), componentCache, filesToBlame, system2);
       try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+        blame(configuration.provider().blameCommand(), filesToBlame, output);
       } catch (Exception e) {
         output.finish(false);
         throw e;
@@ -92,6 +104,35 @@ public final class ScmSensor implements Sensor {
     }
   }
 
+  /**
+   * Files are split between several concurrent calls to the provider when {@link ScmConfiguration#BLAME_THREADS_KEY} is set
+   */
+  private void blame(BlameCommand blameCommand, List<InputFile> filesToBlame, DefaultBlameOutput output) {
+    int threads = Math.min(configuration.blameThreads(), filesToBlame.size());
+    if (threads <= 1) {
+      blameCommand.blame(new DefaultBlameInput(fs, filesToBlame), output);
+      return;
+    }
+    LOG.debug("Blame files on {} threads", threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("scm-blame-%d").setDaemon(true).build());
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (List<InputFile> partition : Lists.partition(new ArrayList<>(filesToBlame), (filesToBlame.size() + threads - 1) / threads)) {
+        tasks.add(executor.submit(() -> blameCommand.blame(new DefaultBlameInput(fs, partition), output)));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private List<InputFile> collectFilesToBlame() {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
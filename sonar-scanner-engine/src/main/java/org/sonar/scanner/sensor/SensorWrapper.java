@@ -43,6 +43,10 @@ public class SensorWrapper implements org.sonar.api.batch.Sensor {
     return wrappedSensor;
   }
 
+  public DefaultSensorDescriptor descriptor() {
+    return descriptor;
+  }
+
   @Override
   public boolean shouldExecuteOnProject(Project project) {
     return optimizer.shouldExecute(descriptor);
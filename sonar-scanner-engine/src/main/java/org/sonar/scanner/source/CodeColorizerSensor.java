@@ -44,7 +44,10 @@ public final class CodeColorizerSensor implements Sensor {
 
   @Override
   public void describe(SensorDescriptor descriptor) {
-    descriptor.name("Code Colorizer Sensor");
+    descriptor.name("Code Colorizer Sensor")
+      // files already highlighted by language plugins are skipped
+      .consumes("highlighting")
+      .produces("highlighting");
   }
 
   @Override
@@ -35,7 +35,9 @@ public final class LinesSensor implements Sensor {
 
   @Override
   public void describe(SensorDescriptor descriptor) {
-    descriptor.name("Lines Sensor");
+    descriptor.name("Lines Sensor")
+      // lines to cover are set on files without language
+      .produces(CoreMetrics.LINES_KEY, CoreMetrics.NCLOC_KEY, "coverage");
   }
 
   @Override
@@ -69,7 +69,9 @@ public final class ZeroCoverageSensor implements Sensor {
 
   @Override
   public void describe(SensorDescriptor descriptor) {
-    descriptor.name("Zero Coverage Sensor");
+    descriptor.name("Zero Coverage Sensor")
+      .consumes(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, "coverage")
+      .produces("coverage");
   }
 
   @Override
@@ -0,0 +1,330 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import com.google.common.collect.Iterables;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Storage of values in append-only memory-mapped files, with an in-memory index of keys.
+ * Space of removed or replaced values is not reclaimed until the storage is cleared,
+ * which is fine for the lifetime of an analysis.
+ * <p>
+ * Values are serialized with the {@link StorageValueCoder} registered for their class, or with
+ * Java serialization. Key parts must be {@link Comparable}. Parts of the same class are sorted by their
+ * natural ordering, parts of different classes by class name, null being first. This differs from
+ * {@link PersistitStorage}, which sorts parts by type then by encoded value, so iteration order of
+ * groups mixing types of key parts, or strings with supplementary characters, may differ between the two
+ * storages.
+ * </p>
+ * <p>
+ * Segment files are unmapped and deleted when the storage is cleared.
+ * </p>
+ * <p>
+ * This storage is not thread-safe.
+ * </p>
+ */
+class MappedStorage<V> extends Storage<V> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MappedStorage.class);
+
+  static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+  /**
+   * Key part greater than any other, used as the exclusive upper bound of groups
+   */
+  private static final Object AFTER = new Object();
+
+  static final Comparator<Object[]> KEY_COMPARATOR = MappedStorage::compareKeys;
+
+  // first byte of records
+  private static final byte STRING_VALUE = 0;
+  private static final byte CODED_VALUE = 1;
+  private static final byte SERIALIZED_VALUE = 2;
+
+  private final File dir;
+  private final Map<String, StorageValueCoder> coders;
+  private final NavigableMap<Object[], Long> index = new TreeMap<>(KEY_COMPARATOR);
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+  private final List<File> segmentFiles = new ArrayList<>();
+  private MappedByteBuffer currentSegment;
+
+  /**
+   * @param coders coders by class name, which can be registered after creation of the storage
+   */
+  MappedStorage(String name, File dir, Map<String, StorageValueCoder> coders) {
+    super(name);
+    this.dir = dir;
+    this.coders = coders;
+  }
+
+  @Override
+  public Storage<V> put(Object[] key, @Nullable V value) {
+    checkComparable(key);
+    try {
+      index.put(key.clone(), append(encode(value)));
+      return this;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to put element in the storage '" + name() + "'", e);
+    }
+  }
+
+  @CheckForNull
+  @Override
+  public V get(Object[] key) {
+    Long address = index.get(key);
+    return address == null ? null : read(address);
+  }
+
+  @Override
+  public boolean containsKey(Object[] key) {
+    return index.containsKey(key);
+  }
+
+  @Override
+  public boolean remove(Object[] key) {
+    return index.remove(key) != null;
+  }
+
+  @Override
+  public Storage<V> clear(Object[] key) {
+    index.subMap(key, true, upperBound(key), false).clear();
+    return this;
+  }
+
+  @Override
+  public void clear() {
+    index.clear();
+    currentSegment = null;
+    // buffers must not be used anymore once unmapped
+    List<MappedByteBuffer> mappedSegments = new ArrayList<>(segments);
+    segments.clear();
+    for (MappedByteBuffer segment : mappedSegments) {
+      unmap(segment);
+    }
+    for (File segmentFile : segmentFiles) {
+      if (!segmentFile.delete()) {
+        LOG.debug("Fail to delete {}", segmentFile);
+      }
+    }
+    segmentFiles.clear();
+  }
+
+  @Override
+  Set<Object> keys(Object... group) {
+    Set<Object> keys = new LinkedHashSet<>();
+    Object[] upperBound = upperBound(group);
+    Object[] key = index.higherKey(group);
+    while (key != null && KEY_COMPARATOR.compare(key, upperBound) < 0) {
+      Object part = key[group.length];
+      keys.add(part);
+      // jump over the sub-keys of this part
+      Object[] partGroup = Arrays.copyOf(group, group.length + 1);
+      partGroup[group.length] = part;
+      key = index.higherKey(upperBound(partGroup));
+    }
+    return keys;
+  }
+
+  @Override
+  Iterable<V> values(Object[] group) {
+    return Iterables.transform(subKeys(group).values(), this::read);
+  }
+
+  @Override
+  Iterable<Entry<V>> entries(Object[] group) {
+    return Iterables.transform(subKeys(group).entrySet(), e -> new Entry<>(e.getKey().clone(), read(e.getValue())));
+  }
+
+  @Override
+  void release() {
+    clear();
+  }
+
+  private NavigableMap<Object[], Long> subKeys(Object[] group) {
+    return index.subMap(group, false, upperBound(group), false);
+  }
+
+  private static Object[] upperBound(Object[] group) {
+    Object[] bound = Arrays.copyOf(group, group.length + 1);
+    bound[group.length] = AFTER;
+    return bound;
+  }
+
+  private byte[] encode(@Nullable V value) throws IOException {
+    if (value instanceof String) {
+      // fast path, without the cost of an object stream
+      byte[] chars = ((String) value).getBytes(StandardCharsets.UTF_8);
+      byte[] bytes = new byte[chars.length + 1];
+      bytes[0] = STRING_VALUE;
+      System.arraycopy(chars, 0, bytes, 1, chars.length);
+      return bytes;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    StorageValueCoder coder = value == null ? null : coders.get(value.getClass().getName());
+    if (coder == null) {
+      bytes.write(SERIALIZED_VALUE);
+      try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+        output.writeObject(value);
+      }
+    } else {
+      bytes.write(CODED_VALUE);
+      try (DataOutputStream output = new DataOutputStream(bytes)) {
+        output.writeUTF(value.getClass().getName());
+        coder.write(output, value);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @return the address of the record, made of the index of the segment and of the offset in the segment
+   */
+  private long append(byte[] bytes) throws IOException {
+    int recordSize = Integer.BYTES + bytes.length;
+    if (currentSegment == null || currentSegment.remaining() < recordSize) {
+      currentSegment = newSegment(Math.max(SEGMENT_SIZE, recordSize));
+    }
+    long address = ((long) (segments.size() - 1) << 32) | currentSegment.position();
+    currentSegment.putInt(bytes.length);
+    currentSegment.put(bytes);
+    return address;
+  }
+
+  private MappedByteBuffer newSegment(int size) throws IOException {
+    File file = new File(dir, "segment-" + segments.size());
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      MappedByteBuffer segment = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      segments.add(segment);
+      segmentFiles.add(file);
+      return segment;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private V read(long address) {
+    ByteBuffer segment = segments.get((int) (address >>> 32)).duplicate();
+    segment.position((int) address);
+    byte[] bytes = new byte[segment.getInt()];
+    segment.get(bytes);
+    if (bytes[0] == STRING_VALUE) {
+      return (V) new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+    }
+    if (bytes[0] == CODED_VALUE) {
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+        String className = input.readUTF();
+        StorageValueCoder coder = coders.get(className);
+        if (coder == null) {
+          throw new IllegalStateException("No coder registered for " + className);
+        }
+        return (V) coder.read(input);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to get element from cache " + name(), e);
+      }
+    }
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+      return (V) input.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to get element from cache " + name(), e);
+    }
+  }
+
+  /**
+   * Releases the mapping without waiting for garbage collection, otherwise the file can't be deleted on Windows.
+   * It relies on the cleaner of direct buffers, which is not part of the public API. The mapping is released
+   * by garbage collection if it's not available.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        Method cleanMethod = cleaner.getClass().getMethod("clean");
+        cleanMethod.setAccessible(true);
+        cleanMethod.invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOG.debug("Fail to unmap segment", e);
+    }
+  }
+
+  private static void checkComparable(Object[] key) {
+    for (Object part : key) {
+      if (part != null && !(part instanceof Comparable)) {
+        throw new IllegalArgumentException("Key part is not comparable: " + part.getClass().getName());
+      }
+    }
+  }
+
+  private static int compareKeys(Object[] a, Object[] b) {
+    int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      int c = compareParts(a[i], b[i]);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return Integer.compare(a.length, b.length);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static int compareParts(@Nullable Object a, @Nullable Object b) {
+    if (a == b) {
+      return 0;
+    }
+    if (a == AFTER || b == null) {
+      return 1;
+    }
+    if (b == AFTER || a == null) {
+      return -1;
+    }
+    if (a.getClass() != b.getClass()) {
+      return a.getClass().getName().compareTo(b.getClass().getName());
+    }
+    return ((Comparable) a).compareTo(b);
+  }
+}
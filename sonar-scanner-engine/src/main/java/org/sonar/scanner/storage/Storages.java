@@ -21,8 +21,10 @@ package org.sonar.scanner.storage;
 
 import com.google.common.collect.Maps;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import com.google.common.base.Preconditions;
 import com.persistit.Exchange;
@@ -35,13 +37,19 @@ import com.persistit.Volume;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
 
+import static org.sonar.core.util.FileUtils.deleteQuietly;
+
 @ScannerSide
 public class Storages implements Startable {
-  private final Map<String, Exchange> cacheMap = Maps.newHashMap();
+  private final Map<String, Storage<?>> cacheMap = Maps.newHashMap();
+  private final Map<String, StorageValueCoder> mappedValueCoders = Maps.newHashMap();
+  private final StoragesManager storagesManager;
   private Persistit persistit;
   private Volume volume;
+  private File mappedDir;
 
   public Storages(StoragesManager storagesManager) {
+    this.storagesManager = storagesManager;
     persistit = storagesManager.persistit();
     doStart();
   }
@@ -53,27 +61,54 @@ public class Storages implements Startable {
 
   private void doStart() {
     try {
-      persistit.flush();
-      volume = persistit.createTemporaryVolume();
+      if (storagesManager.isMapped()) {
+        mappedDir = Files.createTempDirectory(storagesManager.tempDir().toPath(), "storages").toFile();
+      } else {
+        persistit.flush();
+        volume = persistit.createTemporaryVolume();
+      }
     } catch (Exception e) {
       throw new IllegalStateException("Fail to create a cache volume", e);
     }
   }
 
-  public void registerValueCoder(Class<?> clazz, ValueCoder coder) {
-    CoderManager cm = persistit.getCoderManager();
-    cm.registerValueCoder(clazz, coder);
+  public <C extends ValueCoder & StorageValueCoder> void registerValueCoder(Class<?> clazz, C coder) {
+    if (storagesManager.isMapped()) {
+      mappedValueCoders.put(clazz.getName(), coder);
+    } else {
+      CoderManager cm = persistit.getCoderManager();
+      cm.registerValueCoder(clazz, coder);
+    }
   }
 
   public <V> Storage<V> createCache(String cacheName) {
-    Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
     Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: " + cacheName);
+    Storage<V> cache;
+    if (storagesManager.isMapped()) {
+      cache = createMappedCache(cacheName);
+    } else {
+      cache = createPersistitCache(cacheName);
+    }
+    cacheMap.put(cacheName, cache);
+    return cache;
+  }
+
+  private <V> Storage<V> createMappedCache(String cacheName) {
+    Preconditions.checkState(mappedDir != null, "Caches are not initialized");
+    try {
+      File dir = Files.createTempDirectory(mappedDir.toPath(), "storage").toFile();
+      return new MappedStorage<>(cacheName, dir, mappedValueCoders);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create cache: " + cacheName, e);
+    }
+  }
+
+  private <V> Storage<V> createPersistitCache(String cacheName) {
+    Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
     try {
       Exchange exchange = persistit.getExchange(volume, cacheName, true);
       exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Storage<V> cache = new Storage<>(cacheName, exchange);
-      cacheMap.put(cacheName, exchange);
-      return cache;
+      return new PersistitStorage<>(cacheName, persistit, exchange);
     } catch (Exception e) {
       throw new IllegalStateException("Fail to create cache: " + cacheName, e);
     }
@@ -81,8 +116,8 @@ public class Storages implements Startable {
 
   @Override
   public void stop() {
-    for (Entry<String, Exchange> e : cacheMap.entrySet()) {
-      persistit.releaseExchange(e.getValue());
+    for (Storage<?> cache : cacheMap.values()) {
+      cache.release();
     }
 
     cacheMap.clear();
@@ -96,5 +131,9 @@ public class Storages implements Startable {
       }
       volume = null;
     }
+    if (mappedDir != null) {
+      deleteQuietly(mappedDir);
+      mappedDir = null;
+    }
   }
 }
@@ -19,37 +19,53 @@
  */
 package org.sonar.scanner.storage;
 
+import com.google.common.base.Preconditions;
 import com.persistit.Persistit;
 import com.persistit.exception.PersistitException;
 import com.persistit.logging.Slf4jAdapter;
 import java.io.File;
 import java.util.Properties;
+import javax.annotation.CheckForNull;
+import org.apache.commons.lang.StringUtils;
 import org.picocontainer.Startable;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.utils.TempFolder;
+import org.sonar.scanner.bootstrap.GlobalProperties;
 
 import static org.sonar.core.util.FileUtils.deleteQuietly;
 
 /**
- * Factory of storages
+ * Factory of storages. Storages are backed by Persistit, or by memory-mapped files
+ * when property {@link #STORAGE_PROPERTY} is set to {@link #MAPPED_STORAGE}.
  *
  * @since 3.6
  */
 @ScannerSide
 public class StoragesManager implements Startable {
+  public static final String STORAGE_PROPERTY = "sonar.scanner.storage";
+  public static final String PERSISTIT_STORAGE = "persistit";
+  public static final String MAPPED_STORAGE = "mapped";
+
   private File tempDir;
   private Persistit persistit;
   private final TempFolder tempFolder;
+  private final boolean mapped;
 
-  public StoragesManager(TempFolder tempFolder) {
+  public StoragesManager(TempFolder tempFolder, GlobalProperties properties) {
     this.tempFolder = tempFolder;
-    initPersistit();
+    String storage = StringUtils.defaultIfEmpty(properties.property(STORAGE_PROPERTY), PERSISTIT_STORAGE);
+    Preconditions.checkArgument(PERSISTIT_STORAGE.equals(storage) || MAPPED_STORAGE.equals(storage),
+      "Property %s must be one of [%s, %s]: %s", STORAGE_PROPERTY, PERSISTIT_STORAGE, MAPPED_STORAGE, storage);
+    this.mapped = MAPPED_STORAGE.equals(storage);
+    tempDir = tempFolder.newDir("caches");
+    if (!mapped) {
+      initPersistit();
+    }
   }
 
   private void initPersistit() {
     try {
-      tempDir = tempFolder.newDir("caches");
       persistit = new Persistit();
       persistit.setPersistitLogger(new Slf4jAdapter(LoggerFactory.getLogger("PERSISTIT")));
       Properties props = new Properties();
@@ -92,7 +108,15 @@ public class StoragesManager implements Startable {
     return tempDir;
   }
 
+  /**
+   * Null if storages are memory-mapped
+   */
+  @CheckForNull
   Persistit persistit() {
     return persistit;
   }
+
+  boolean isMapped() {
+    return mapped;
+  }
 }
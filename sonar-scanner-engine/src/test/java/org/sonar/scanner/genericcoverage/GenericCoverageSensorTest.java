@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.genericcoverage;
+
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GenericCoverageSensorTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private System2 system2 = mock(System2.class);
+
+  @Test
+  public void log_throughput_of_report_parsing() throws Exception {
+    SensorContextTester context = SensorContextTester.create(new File(""));
+    context.fileSystem().add(new DefaultInputFile(context.module().key(), "src/main/java/com/example/ClassWithoutBranch.java")
+      .setLanguage("bla")
+      .setType(InputFile.Type.TEST)
+      .initMetadata("1\n2\n3\n4\n5\n6"));
+    Settings settings = new MapSettings();
+    settings.setProperty("sonar.coverageReportPaths", new File(getClass().getResource("coverage.xml").toURI()).getAbsolutePath());
+    when(system2.now()).thenReturn(1_000L, 3_000L);
+
+    new GenericCoverageSensor(settings, system2).execute(context);
+
+    assertThat(context.lineHits(inputFile.key(), 3)).isEqualTo(1);
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Imported coverage data for 1 files from coverage.xml (4 lines, 2 lines/s)");
+  }
+}
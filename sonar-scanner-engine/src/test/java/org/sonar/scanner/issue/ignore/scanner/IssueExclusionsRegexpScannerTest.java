@@ -30,6 +30,7 @@ import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.LineRange;
 import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsRegexpScanner;
+import org.sonar.scanner.scan.filesystem.FileContentCache;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Set;
@@ -69,7 +70,7 @@ public class IssueExclusionsRegexpScannerTest {
     when(patternsInitializer.getBlockPatterns()).thenReturn(Arrays.asList(blockPattern1, blockPattern2));
     when(patternsInitializer.getPatternMatcher()).thenReturn(patternMatcher);
 
-    regexpScanner = new IssueExclusionsRegexpScanner(patternsInitializer);
+    regexpScanner = new IssueExclusionsRegexpScanner(patternsInitializer, new FileContentCache());
     verify(patternsInitializer, times(1)).getAllFilePatterns();
     verify(patternsInitializer, times(1)).getBlockPatterns();
 
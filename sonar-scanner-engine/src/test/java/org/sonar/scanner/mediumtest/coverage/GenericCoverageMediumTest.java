@@ -136,4 +136,29 @@ public class GenericCoverageMediumTest {
     );
   }
 
+  @Test
+  public void twoReportsInParallel() throws IOException {
+
+    File projectDir = new File("src/test/resources/mediumtest/xoo/sample-generic-coverage");
+
+    TaskResult result = tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .property("sonar.coverageReportPaths", "coverage.xml,coverage2.xml")
+      .property("sonar.coverageReportThreads", "2")
+      .start();
+
+    InputFile noConditions = result.inputFile("xources/hello/NoConditions.xoo");
+    assertThat(result.allMeasures().get(noConditions.key())).extracting("metricKey", "intValue.value", "stringValue.value")
+      .contains(
+        tuple(CoreMetrics.UNCOVERED_LINES_KEY, 0, ""),
+        tuple(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY, 0, "6=1;7=1"));
+
+    InputFile withConditions = result.inputFile("xources/hello/WithConditions.xoo");
+    assertThat(result.allMeasures().get(withConditions.key())).extracting("metricKey", "intValue.value", "stringValue.value")
+      .contains(
+        tuple(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY, 0, "3=2"),
+        tuple(CoreMetrics.UNCOVERED_CONDITIONS_KEY, 0, ""),
+        tuple(CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY, 0, "3=2"));
+  }
+
 }
@@ -118,6 +118,39 @@ public class ScmMediumTest {
     assertThat(changesetLine5.getAuthor()).isEqualTo("simon");
   }
 
+  @Test
+  public void blameFilesConcurrently() throws IOException {
+
+    File baseDir = prepareProject();
+    File srcDir = new File(baseDir, "src");
+    File xooFile2 = new File(srcDir, "sample2.xoo");
+    FileUtils.write(xooFile2, "Sample xoo\ncontent");
+    File xooScmFile2 = new File(srcDir, "sample2.xoo.scm");
+    FileUtils.write(xooScmFile2,
+      // revision,author,dateTime
+      "1,simon,2013-01-04\n" +
+        "2,julien,2013-01-04\n");
+
+    tester.newTask()
+      .properties(ImmutableMap.<String, String>builder()
+        .put("sonar.task", "scan")
+        .put("sonar.projectBaseDir", baseDir.getAbsolutePath())
+        .put("sonar.projectKey", "com.foo.project")
+        .put("sonar.projectName", "Foo Project")
+        .put("sonar.projectVersion", "1.0-SNAPSHOT")
+        .put("sonar.projectDescription", "Description of Foo Project")
+        .put("sonar.sources", "src")
+        .put("sonar.scm.provider", "xoo")
+        .put("sonar.scm.blameThreads", "2")
+        .build())
+      .start();
+
+    assertThat(getChangesets(baseDir, "src/sample.xoo").getChangesetIndexByLineList()).hasSize(5);
+    ScannerReport.Changesets file2Scm = getChangesets(baseDir, "src/sample2.xoo");
+    assertThat(file2Scm.getChangesetIndexByLineList()).hasSize(2);
+    assertThat(file2Scm.getChangeset(file2Scm.getChangesetIndexByLine(0)).getAuthor()).isEqualTo("simon");
+  }
+
   private ScannerReport.Changesets getChangesets(File baseDir, String path) {
     File reportDir = new File(baseDir, ".sonar/batch-report");
     ScannerReportReader reader = new ScannerReportReader(reportDir);
@@ -0,0 +1,74 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.phases;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.resources.Project;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PhasesTimeProfilerTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private PhasesTimeProfiler underTest = new PhasesTimeProfiler();
+
+  @Test
+  public void log_wall_and_cpu_time_of_sensor() {
+    Sensor sensor = new FakeSensor();
+
+    underTest.onSensorExecution(new SensorExecutionEvent(sensor, true));
+    underTest.onSensorExecution(new SensorExecutionEvent(sensor, false));
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).hasSize(2);
+    assertThat(logTester.logs(LoggerLevel.INFO).get(0)).isEqualTo("Sensor Fake Sensor");
+    assertThat(logTester.logs(LoggerLevel.INFO).get(1)).startsWith("Sensor Fake Sensor (done) | time=").contains(" | cpuTime=");
+  }
+
+  @Test
+  public void ignore_end_of_unknown_sensor() {
+    underTest.onSensorExecution(new SensorExecutionEvent(new FakeSensor(), false));
+
+    assertThat(logTester.logs()).isEmpty();
+  }
+
+  private static class FakeSensor implements Sensor {
+    @Override
+    public boolean shouldExecuteOnProject(Project project) {
+      return true;
+    }
+
+    @Override
+    public void analyse(Project module, SensorContext context) {
+      // nothing to do
+    }
+
+    @Override
+    public String toString() {
+      return "Fake Sensor";
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.phases;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.api.utils.System2;
+import org.sonar.scanner.bootstrap.BatchExtensionDictionnary;
+import org.sonar.scanner.deprecated.test.TestPlanBuilder;
+import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.genericcoverage.GenericCoverageSensor;
+import org.sonar.scanner.genericcoverage.GenericTestExecutionSensor;
+import org.sonar.scanner.sensor.SensorOptimizer;
+import org.sonar.scanner.sensor.SensorWrapper;
+import org.sonar.scanner.source.LinesSensor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SensorsExecutorTest {
+
+  Project project = new Project("project");
+  BatchExtensionDictionnary selector = mock(BatchExtensionDictionnary.class);
+  SensorContext context = mock(SensorContext.class);
+  Settings settings = new MapSettings();
+  List<String> executions = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void execute_sensors_sequentially_by_default() {
+    SensorWrapper first = sensor("first", d -> d.produces("data"), 0);
+    SensorWrapper second = sensor("second", d -> {
+    }, 0);
+    SensorWrapper third = sensor("third", d -> d.consumes("data"), 0);
+
+    execute(first, second, third);
+
+    assertThat(executions).containsExactly("first", "second", "third");
+  }
+
+  @Test
+  public void consumer_is_executed_after_producer() {
+    settings.setProperty(SensorsExecutor.PARALLEL_SENSORS_PROPERTY, true);
+    SensorWrapper producer = sensor("producer", d -> d.produces("data"), 200);
+    SensorWrapper consumer = sensor("consumer", d -> d.consumes("data"), 0);
+
+    execute(producer, consumer);
+
+    assertThat(executions).containsExactly("producer", "consumer");
+  }
+
+  @Test
+  public void independent_sensors_are_executed_concurrently() {
+    settings.setProperty(SensorsExecutor.PARALLEL_SENSORS_PROPERTY, true);
+    SensorWrapper slow = sensor("slow", d -> d.produces("foo"), 200);
+    SensorWrapper fast = sensor("fast", d -> d.produces("bar"), 0);
+
+    execute(slow, fast);
+
+    assertThat(executions).containsExactly("fast", "slow");
+  }
+
+  @Test
+  public void sensor_without_declared_data_waits_for_previous_sensors() {
+    settings.setProperty(SensorsExecutor.PARALLEL_SENSORS_PROPERTY, true);
+    SensorWrapper slow = sensor("slow", d -> d.produces("foo"), 200);
+    SensorWrapper legacy = sensor("legacy", d -> {
+    }, 0);
+    SensorWrapper fast = sensor("fast", d -> d.produces("bar"), 0);
+
+    execute(slow, legacy, fast);
+
+    assertThat(executions).containsExactly("slow", "legacy", "fast");
+  }
+
+  @Test
+  public void independent_core_sensors_are_executed_concurrently() {
+    settings.setProperty(SensorsExecutor.PARALLEL_SENSORS_PROPERTY, true);
+    CountDownLatch started = new CountDownLatch(2);
+    SensorWrapper coverage = sensor("coverage", new GenericCoverageSensor(settings, System2.INSTANCE)::describe, () -> awaitOtherSensor(started, "coverage"));
+    SensorWrapper tests = sensor("tests", new GenericTestExecutionSensor(mock(TestPlanBuilder.class), System2.INSTANCE)::describe, () -> awaitOtherSensor(started, "tests"));
+
+    execute(coverage, tests);
+
+    assertThat(executions).containsOnly("coverage overlapped", "tests overlapped");
+  }
+
+  @Test
+  public void core_sensors_saving_coverage_depend_on_each_other() {
+    assertThat(dependsOn(new GenericCoverageSensor(settings, System2.INSTANCE)::describe, new LinesSensor()::describe)).isTrue();
+    assertThat(dependsOn(new GenericTestExecutionSensor(mock(TestPlanBuilder.class), System2.INSTANCE)::describe, new LinesSensor()::describe)).isFalse();
+  }
+
+  @Test
+  public void dependencies_between_descriptors() {
+    assertThat(dependsOn(d -> d.consumes("a"), d -> d.produces("a"))).isTrue();
+    assertThat(dependsOn(d -> d.produces("a"), d -> d.produces("a"))).isTrue();
+    assertThat(dependsOn(d -> d.produces("a"), d -> d.consumes("a"))).isTrue();
+    assertThat(dependsOn(d -> d.consumes("a"), d -> d.consumes("a"))).isFalse();
+    assertThat(dependsOn(d -> d.produces("a"), d -> d.produces("b"))).isFalse();
+  }
+
+  private boolean dependsOn(Consumer<SensorDescriptor> sensor, Consumer<SensorDescriptor> previous) {
+    return SensorsExecutor.dependsOn(sensor("s1", sensor, 0).descriptor(), sensor("s2", previous, 0).descriptor());
+  }
+
+  private void execute(SensorWrapper... sensors) {
+    when(selector.select(org.sonar.api.batch.Sensor.class, project, true, null)).thenReturn(Arrays.asList(sensors));
+    new SensorsExecutor(selector, project, mock(EventBus.class), settings).execute(context);
+  }
+
+  private void awaitOtherSensor(CountDownLatch started, String name) {
+    started.countDown();
+    try {
+      if (started.await(10, TimeUnit.SECONDS)) {
+        executions.add(name + " overlapped");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private SensorWrapper sensor(String name, Consumer<SensorDescriptor> describe, long durationMs) {
+    return sensor(name, describe, () -> {
+      try {
+        Thread.sleep(durationMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      executions.add(name);
+    });
+  }
+
+  private SensorWrapper sensor(String name, Consumer<SensorDescriptor> describe, Runnable execution) {
+    org.sonar.api.batch.sensor.Sensor sensor = new org.sonar.api.batch.sensor.Sensor() {
+      @Override
+      public void describe(SensorDescriptor descriptor) {
+        descriptor.name(name);
+        describe.accept(descriptor);
+      }
+
+      @Override
+      public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+        execution.run();
+      }
+    };
+    return new SensorWrapper(sensor, mock(org.sonar.api.batch.sensor.SensorContext.class), mock(SensorOptimizer.class));
+  }
+}
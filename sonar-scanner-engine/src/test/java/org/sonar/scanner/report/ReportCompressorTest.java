@@ -0,0 +1,106 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.ZipUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportCompressorTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void zip_files_of_directory_tree() throws Exception {
+    File dir = temp.newFolder();
+    FileUtils.write(new File(dir, "metadata.pb"), "metadata", StandardCharsets.UTF_8);
+    FileUtils.write(new File(dir, "empty.pb"), "", StandardCharsets.UTF_8);
+    FileUtils.write(new File(dir, "source-2.txt"), StringUtils.repeat("line\n", 100_000), StandardCharsets.UTF_8);
+    FileUtils.write(new File(dir, "sub/component-3.pb"), "component", StandardCharsets.UTF_8);
+    FileUtils.forceMkdir(new File(dir, "empty_dir"));
+    File zip = temp.newFile();
+
+    new ReportCompressor(Deflater.DEFAULT_COMPRESSION, 2).zipDir(dir, zip);
+
+    assertThat(zip.length()).isLessThan(100_000L);
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      assertThat(zipFile.size()).isEqualTo(6);
+      assertThat(zipFile.getEntry("sub/").isDirectory()).isTrue();
+      assertThat(zipFile.getEntry("empty_dir/").isDirectory()).isTrue();
+    }
+    File unzipped = ZipUtils.unzip(zip, temp.newFolder());
+    assertThat(FileUtils.readFileToString(new File(unzipped, "metadata.pb"), StandardCharsets.UTF_8)).isEqualTo("metadata");
+    assertThat(new File(unzipped, "empty.pb")).exists().hasContent("");
+    assertThat(FileUtils.readFileToString(new File(unzipped, "source-2.txt"), StandardCharsets.UTF_8)).isEqualTo(StringUtils.repeat("line\n", 100_000));
+    assertThat(FileUtils.readFileToString(new File(unzipped, "sub/component-3.pb"), StandardCharsets.UTF_8)).isEqualTo("component");
+    assertThat(new File(unzipped, "empty_dir")).isDirectory();
+  }
+
+  @Test
+  public void zip_without_compression() throws Exception {
+    File dir = temp.newFolder();
+    String content = StringUtils.repeat("line\n", 10_000);
+    FileUtils.write(new File(dir, "source-2.txt"), content, StandardCharsets.UTF_8);
+    File zip = temp.newFile();
+
+    new ReportCompressor(Deflater.NO_COMPRESSION, 1).zipDir(dir, zip);
+
+    assertThat(zip.length()).isGreaterThan((long) content.length());
+    File unzipped = ZipUtils.unzip(new FileInputStream(zip), temp.newFolder());
+    assertThat(FileUtils.readFileToString(new File(unzipped, "source-2.txt"), StandardCharsets.UTF_8)).isEqualTo(content);
+  }
+
+  @Test
+  public void zip_empty_directory() throws Exception {
+    File zip = temp.newFile();
+
+    new ReportCompressor(Deflater.DEFAULT_COMPRESSION, 2).zipDir(temp.newFolder(), zip);
+
+    try (ZipFile zipFile = new ZipFile(zip)) {
+      assertThat(zipFile.size()).isZero();
+    }
+  }
+
+  @Test
+  public void delete_temporary_files_of_large_entries() throws Exception {
+    File dir = temp.newFolder();
+    String content = StringUtils.repeat("line\n", 200_000);
+    FileUtils.write(new File(dir, "source-2.txt"), content, StandardCharsets.UTF_8);
+    File zipDir = temp.newFolder();
+    File zip = new File(zipDir, "report.zip");
+
+    new ReportCompressor(Deflater.DEFAULT_COMPRESSION, 2).zipDir(dir, zip);
+
+    assertThat(zipDir.list()).containsOnly("report.zip");
+    File unzipped = ZipUtils.unzip(zip, temp.newFolder());
+    assertThat(FileUtils.readFileToString(new File(unzipped, "source-2.txt"), StandardCharsets.UTF_8)).isEqualTo(content);
+  }
+}
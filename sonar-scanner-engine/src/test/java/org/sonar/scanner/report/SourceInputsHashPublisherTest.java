@@ -0,0 +1,129 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.resources.Project;
+import org.sonar.api.utils.Version;
+import org.sonar.scanner.index.BatchComponentCache;
+import org.sonar.scanner.protocol.output.FileStructure;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportReader;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceInputsHashPublisherTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private BatchComponentCache resourceCache;
+
+  private SourceInputsHashPublisher publisher;
+
+  private File outputDir;
+
+  private ScannerReportWriter writer;
+
+  @Before
+  public void prepare() throws IOException {
+    Project p = new Project("foo").setAnalysisDate(new Date(1234567L));
+    resourceCache = new BatchComponentCache();
+    resourceCache.add(p, null).setInputComponent(new DefaultInputModule("foo"));
+    org.sonar.api.resources.File sampleFile = org.sonar.api.resources.File.create("src/Foo.php");
+    sampleFile.setEffectiveKey("foo:src/Foo.php");
+    resourceCache.add(sampleFile, null).setInputComponent(new DefaultInputFile("foo", "src/Foo.php").setLines(5));
+    publisher = new SourceInputsHashPublisher(resourceCache, SonarRuntimeImpl.forSonarQube(Version.parse("6.2"), SonarQubeSide.SCANNER));
+    outputDir = temp.newFolder();
+    writer = new ScannerReportWriter(outputDir);
+  }
+
+  @Test
+  public void publish_hash_of_files_only() {
+    publisher.publish(writer);
+
+    assertThat(writer.hasComponentData(FileStructure.Domain.SOURCE_INPUTS_HASH, 1)).isFalse();
+    assertThat(writer.hasComponentData(FileStructure.Domain.SOURCE_INPUTS_HASH, 2)).isTrue();
+  }
+
+  @Test
+  public void hash_is_stable_when_inputs_do_not_change() throws Exception {
+    FileUtils.write(writer.getSourceFile(2), "1\n2", StandardCharsets.UTF_8);
+
+    publisher.publish(writer);
+    String hash = readHash();
+    publisher.publish(writer);
+
+    assertThat(readHash()).isEqualTo(hash).hasSize(32);
+  }
+
+  @Test
+  public void hash_changes_with_source() throws Exception {
+    FileUtils.write(writer.getSourceFile(2), "1\n2", StandardCharsets.UTF_8);
+    publisher.publish(writer);
+    String hash = readHash();
+
+    FileUtils.write(writer.getSourceFile(2), "1\n3", StandardCharsets.UTF_8);
+    publisher.publish(writer);
+
+    assertThat(readHash()).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_with_coverage() throws Exception {
+    FileUtils.write(writer.getSourceFile(2), "1\n2", StandardCharsets.UTF_8);
+    publisher.publish(writer);
+    String hash = readHash();
+
+    writer.writeComponentCoverage(2, asList(ScannerReport.LineCoverage.newBuilder().setLine(1).setHits(true).build()));
+    publisher.publish(writer);
+
+    assertThat(readHash()).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_with_version_of_sonarqube() throws Exception {
+    FileUtils.write(writer.getSourceFile(2), "1\n2", StandardCharsets.UTF_8);
+    publisher.publish(writer);
+    String hash = readHash();
+
+    new SourceInputsHashPublisher(resourceCache, SonarRuntimeImpl.forSonarQube(Version.parse("6.3"), SonarQubeSide.SCANNER)).publish(writer);
+
+    assertThat(readHash()).isNotEqualTo(hash);
+  }
+
+  private String readHash() {
+    return new ScannerReportReader(outputDir).readSourceInputsHash(2);
+  }
+}
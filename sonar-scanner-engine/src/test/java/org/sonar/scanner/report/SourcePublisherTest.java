@@ -35,6 +35,7 @@ import org.sonar.api.resources.Qualifiers;
 import org.sonar.scanner.index.BatchComponentCache;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.report.SourcePublisher;
+import org.sonar.scanner.scan.filesystem.FileContentCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -51,6 +52,8 @@ public class SourcePublisherTest {
 
   private org.sonar.api.resources.File sampleFile;
 
+  private FileContentCache fileContentCache = new FileContentCache();
+
   @Before
   public void prepare() throws IOException {
     Project p = new Project("foo").setAnalysisDate(new Date(1234567L));
@@ -62,7 +65,7 @@ public class SourcePublisherTest {
     sourceFile = new File(baseDir, "src/Foo.php");
     resourceCache.add(sampleFile, null).setInputComponent(
       new DefaultInputFile("foo", "src/Foo.php").setLines(5).setModuleBaseDir(baseDir.toPath()).setCharset(StandardCharsets.ISO_8859_1));
-    publisher = new SourcePublisher(resourceCache);
+    publisher = new SourcePublisher(resourceCache, fileContentCache);
     File outputDir = temp.newFolder();
     writer = new ScannerReportWriter(outputDir);
   }
@@ -117,4 +120,15 @@ public class SourcePublisherTest {
     File out = writer.getSourceFile(2);
     assertThat(FileUtils.readFileToString(out, StandardCharsets.UTF_8)).isEqualTo("\n2\n3\n4\n5");
   }
+
+  @Test
+  public void release_content_of_published_files() throws Exception {
+    FileUtils.write(sourceFile, "1\n2", StandardCharsets.ISO_8859_1);
+    assertThat(fileContentCache.content(sourceFile, StandardCharsets.ISO_8859_1)).isEqualTo("1\n2");
+
+    publisher.publish(writer);
+
+    FileUtils.write(sourceFile, "changed", StandardCharsets.ISO_8859_1);
+    assertThat(fileContentCache.content(sourceFile, StandardCharsets.ISO_8859_1)).isEqualTo("changed");
+  }
 }
@@ -19,49 +19,192 @@
  */
 package org.sonar.scanner.repository;
 
-import org.sonar.scanner.WsTestUtil;
-import org.sonar.scanner.bootstrap.BatchWsClient;
-import org.sonar.scanner.protocol.input.ScannerInput;
-import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
-import org.sonar.scanner.repository.DefaultServerIssuesLoader;
 import com.google.common.base.Function;
-import org.junit.Before;
-import org.junit.Test;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.System2;
+import org.sonar.home.cache.FileCache;
+import org.sonar.scanner.WsTestUtil;
+import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonar.scanner.bootstrap.GlobalProperties;
+import org.sonar.scanner.protocol.input.ScannerInput;
+import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonar.scanner.scan.ImmutableProjectReactor;
+import org.sonar.scanner.util.BatchUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class DefaultServerIssuesLoaderTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+  private static final Set<String> MODULE_KEYS = ImmutableSet.of("foo");
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
   private DefaultServerIssuesLoader loader;
   private BatchWsClient wsClient;
+  private System2 system = mock(System2.class);
+  private File cacheDir;
 
   @Before
-  public void prepare() {
+  public void prepare() throws IOException {
     wsClient = mock(BatchWsClient.class);
-    loader = new DefaultServerIssuesLoader(wsClient);
+    when(wsClient.baseUrl()).thenReturn("http://localhost:9000");
+    when(system.now()).thenReturn(NOW);
+    cacheDir = temp.newFolder();
+    loader = new DefaultServerIssuesLoader(wsClient, null, "", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN, MODULE_KEYS);
   }
 
   @Test
   public void loadFromWs() throws Exception {
-    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    InputStream is = stream(ServerIssue.newBuilder().setKey("ab1").build(), ServerIssue.newBuilder().setKey("ab2").build());
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", is);
 
-    ServerIssue.newBuilder().setKey("ab1").build()
-      .writeDelimitedTo(bos);
-    ServerIssue.newBuilder().setKey("ab2").build()
-      .writeDelimitedTo(bos);
+    assertThat(load("foo")).extracting("key").containsExactly("ab1", "ab2");
+  }
 
-    InputStream is = new ByteArrayInputStream(bos.toByteArray());
+  @Test(expected = IllegalStateException.class)
+  public void testError() throws IOException {
+    InputStream is = mock(InputStream.class);
+    when(is.read()).thenThrow(IOException.class);
     WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", is);
+    loader.load("foo", mock(Function.class));
+  }
+
+  @Test
+  public void load_only_changed_issues_when_cache_exists() throws Exception {
+    loader = new DefaultServerIssuesLoader(wsClient, cacheDir, "john", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN, MODULE_KEYS);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab1", 1000L, "OPEN"), issue("ab2", 3000L, "OPEN"), issue("ab3", 2000L, "OPEN")));
+    assertThat(load("foo")).extracting("key").containsExactly("ab1", "ab2", "ab3");
+    assertThat(cacheDir.listFiles()).hasSize(1);
+
+    // ab1 is updated, ab2 is closed and ab4 is new
+    WsTestUtil.mockStream(wsClient, changedSincePath("foo", 3000L),
+      stream(issue("ab1", 4000L, "CONFIRMED"), issue("ab2", 5000L, "CLOSED"), issue("ab4", 4500L, "OPEN")));
+    List<ServerIssue> issues = load("foo");
+    assertThat(issues).extracting("key").containsOnly("ab1", "ab3", "ab4");
+    assertThat(issues).extracting("status").containsOnly("CONFIRMED", "OPEN");
+
+    // cursor is moved to the most recent change, including the closed issues
+    WsTestUtil.mockStream(wsClient, changedSincePath("foo", 5000L), stream());
+    assertThat(load("foo")).extracting("key").containsOnly("ab1", "ab3", "ab4");
+    WsTestUtil.verifyCall(wsClient, changedSincePath("foo", 5000L));
+  }
+
+  @Test
+  public void safety_margin_is_configurable() throws Exception {
+    FileCache fileCache = mock(FileCache.class);
+    when(fileCache.getDir()).thenReturn(cacheDir);
+    loader = new DefaultServerIssuesLoader(wsClient, fileCache, new GlobalProperties(ImmutableMap.of(DefaultServerIssuesLoader.SAFETY_MARGIN_PROPERTY, "30")),
+      new ImmutableProjectReactor(ProjectDefinition.create().setKey("foo")));
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab1", 3000L, "OPEN")));
+    load("foo");
+
+    String path = changedSincePath("foo", 3000L, TimeUnit.MINUTES.toMillis(30));
+    WsTestUtil.mockStream(wsClient, path, stream());
+    assertThat(load("foo")).extracting("key").containsOnly("ab1");
+    WsTestUtil.verifyCall(wsClient, path);
+  }
+
+  @Test
+  public void fail_if_safety_margin_is_not_a_number_of_minutes() {
+    thrown.expect(MessageException.class);
+    thrown.expectMessage("Property sonar.scanner.issues.incremental.safetyMargin must be a positive number of minutes: 1h");
 
+    new DefaultServerIssuesLoader(wsClient, mock(FileCache.class), new GlobalProperties(ImmutableMap.of(DefaultServerIssuesLoader.SAFETY_MARGIN_PROPERTY, "1h")),
+      new ImmutableProjectReactor(ProjectDefinition.create().setKey("foo")));
+  }
+
+  @Test
+  public void cache_is_specific_to_component_and_user() throws Exception {
+    loader = new DefaultServerIssuesLoader(wsClient, cacheDir, "john", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN, MODULE_KEYS);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab1", 1000L, "OPEN")));
+    load("foo");
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=bar", stream(issue("ab2", 1000L, "OPEN")));
+    assertThat(load("bar")).extracting("key").containsOnly("ab2");
+
+    loader = new DefaultServerIssuesLoader(wsClient, cacheDir, "jane", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN, MODULE_KEYS);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab3", 1000L, "OPEN")));
+    assertThat(load("foo")).extracting("key").containsOnly("ab3");
+    assertThat(cacheDir.listFiles()).hasSize(3);
+  }
+
+  @Test
+  public void reload_all_issues_when_cache_is_too_old() throws Exception {
+    loader = new DefaultServerIssuesLoader(wsClient, cacheDir, "john", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN, MODULE_KEYS);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab1", 1000L, "OPEN")));
+    load("foo");
+
+    when(system.now()).thenReturn(NOW + DefaultServerIssuesLoader.MAX_CACHE_AGE + 1);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab2", 2000L, "OPEN")));
+    assertThat(load("foo")).extracting("key").containsOnly("ab2");
+  }
+
+  @Test
+  public void reload_all_issues_when_module_keys_changed() throws Exception {
+    loader = new DefaultServerIssuesLoader(wsClient, cacheDir, "john", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN, MODULE_KEYS);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab1", 1000L, "OPEN")));
+    load("foo");
+
+    loader = new DefaultServerIssuesLoader(wsClient, cacheDir, "john", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN,
+      ImmutableSet.of("foo", "foo:renamed"));
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab2", 2000L, "OPEN")));
+    assertThat(load("foo")).extracting("key").containsOnly("ab2");
+
+    // new keys of modules are cached
+    WsTestUtil.mockStream(wsClient, changedSincePath("foo", 2000L), stream());
+    assertThat(load("foo")).extracting("key").containsOnly("ab2");
+    WsTestUtil.verifyCall(wsClient, changedSincePath("foo", 2000L));
+  }
+
+  @Test
+  public void do_not_cache_issues_if_server_does_not_provide_update_dates() throws Exception {
+    loader = new DefaultServerIssuesLoader(wsClient, cacheDir, "john", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN, MODULE_KEYS);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab1", 1000L, "OPEN"), ServerIssue.newBuilder().setKey("ab2").build()));
+
+    assertThat(load("foo")).extracting("key").containsExactly("ab1", "ab2");
+    assertThat(cacheDir.listFiles()).isEmpty();
+  }
+
+  @Test
+  public void ignore_corrupted_cache() throws Exception {
+    loader = new DefaultServerIssuesLoader(wsClient, cacheDir, "john", system, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN, MODULE_KEYS);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab1", 1000L, "OPEN")));
+    load("foo");
+    File cacheFile = cacheDir.listFiles()[0];
+    FileUtils.write(cacheFile, "foo");
+
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", stream(issue("ab2", 2000L, "OPEN")));
+    assertThat(load("foo")).extracting("key").containsOnly("ab2");
+  }
+
+  private List<ServerIssue> load(String componentKey) {
     final List<ServerIssue> result = new ArrayList<>();
-    loader.load("foo", new Function<ScannerInput.ServerIssue, Void>() {
+    loader.load(componentKey, new Function<ScannerInput.ServerIssue, Void>() {
 
       @Override
       public Void apply(ServerIssue input) {
@@ -69,15 +212,27 @@ public class DefaultServerIssuesLoaderTest {
         return null;
       }
     });
+    return result;
+  }
 
-    assertThat(result).extracting("key").containsExactly("ab1", "ab2");
+  private static String changedSincePath(String componentKey, long cursor) {
+    return changedSincePath(componentKey, cursor, DefaultServerIssuesLoader.DEFAULT_SAFETY_MARGIN);
   }
 
-  @Test(expected = IllegalStateException.class)
-  public void testError() throws IOException {
-    InputStream is = mock(InputStream.class);
-    when(is.read()).thenThrow(IOException.class);
-    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", is);
-    loader.load("foo", mock(Function.class));
+  private static String changedSincePath(String componentKey, long cursor, long safetyMargin) {
+    return "/batch/issues.protobuf?key=" + componentKey + "&changedSince="
+      + BatchUtils.encodeForUrl(DateUtils.formatDateTime(cursor - safetyMargin));
+  }
+
+  private static ServerIssue issue(String key, long updatedAt, String status) {
+    return ServerIssue.newBuilder().setKey(key).setUpdatedAt(updatedAt).setStatus(status).build();
+  }
+
+  private static InputStream stream(ServerIssue... issues) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    for (ServerIssue issue : issues) {
+      issue.writeDelimitedTo(bos);
+    }
+    return new ByteArrayInputStream(bos.toByteArray());
   }
 }
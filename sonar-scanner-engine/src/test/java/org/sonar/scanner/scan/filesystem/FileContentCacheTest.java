@@ -0,0 +1,127 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileContentCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private FileContentCache underTest = new FileContentCache();
+
+  @Test
+  public void read_content_once() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "foo\nbar", StandardCharsets.UTF_8);
+
+    assertThat(underTest.content(file, StandardCharsets.UTF_8)).isEqualTo("foo\nbar");
+
+    FileUtils.write(file, "changed", StandardCharsets.UTF_8);
+    assertThat(underTest.content(file, StandardCharsets.UTF_8)).isEqualTo("foo\nbar");
+  }
+
+  @Test
+  public void decode_again_with_other_charset() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "\u00e9", StandardCharsets.UTF_8);
+
+    assertThat(underTest.content(file, StandardCharsets.UTF_8)).isEqualTo("\u00e9");
+    assertThat(underTest.content(file, StandardCharsets.ISO_8859_1)).isEqualTo("\u00c3\u00a9");
+  }
+
+  @Test
+  public void remove_byte_order_mark() throws Exception {
+    File file = temp.newFile();
+    FileUtils.writeByteArrayToFile(file, new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a'});
+
+    assertThat(underTest.content(file, StandardCharsets.UTF_8)).isEqualTo("a");
+  }
+
+  @Test
+  public void remove_byte_order_mark_whatever_the_charset() throws Exception {
+    File file = temp.newFile();
+    FileUtils.writeByteArrayToFile(file, new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a'});
+
+    assertThat(underTest.content(file, StandardCharsets.ISO_8859_1)).isEqualTo("a");
+  }
+
+  @Test
+  public void read_large_file() throws Exception {
+    File file = temp.newFile();
+    String content = StringUtils.repeat("0123456789\n", 10_000);
+    FileUtils.write(file, content, StandardCharsets.UTF_8);
+
+    assertThat(underTest.content(file, StandardCharsets.UTF_8)).isEqualTo(content);
+  }
+
+  @Test
+  public void read_file_again_once_released() throws Exception {
+    File file = temp.newFile("Foo.java");
+    FileUtils.write(file, "foo", StandardCharsets.UTF_8);
+    DefaultInputFile inputFile = new DefaultInputFile("foo", "Foo.java")
+      .setModuleBaseDir(temp.getRoot().toPath());
+
+    underTest.content(file, StandardCharsets.UTF_8);
+    FileUtils.write(file, "changed", StandardCharsets.UTF_8);
+    underTest.release(inputFile);
+
+    assertThat(underTest.content(file, StandardCharsets.UTF_8)).isEqualTo("changed");
+  }
+
+  @Test
+  public void read_file_again_once_evicted() throws Exception {
+    underTest = new FileContentCache(3);
+    File file1 = temp.newFile();
+    File file2 = temp.newFile();
+    FileUtils.write(file1, "foo", StandardCharsets.UTF_8);
+    FileUtils.write(file2, "bar", StandardCharsets.UTF_8);
+
+    underTest.content(file1, StandardCharsets.UTF_8);
+    underTest.content(file2, StandardCharsets.UTF_8);
+    FileUtils.write(file1, "changed", StandardCharsets.UTF_8);
+
+    assertThat(underTest.content(file1, StandardCharsets.UTF_8)).isEqualTo("changed");
+  }
+
+  @Test
+  public void fail_if_file_does_not_exist() {
+    File file = new File(temp.getRoot(), "missing.txt");
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to read file '" + file.getAbsolutePath() + "'");
+
+    underTest.content(file, StandardCharsets.UTF_8);
+  }
+}
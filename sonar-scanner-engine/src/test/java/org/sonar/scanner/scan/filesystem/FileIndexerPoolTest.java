@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.api.utils.System2;
+import org.sonar.scanner.scan.ImmutableProjectReactor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class FileIndexerPoolTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File baseDir;
+  private FileIndexerPool underTest;
+
+  @Before
+  public void prepare() throws Exception {
+    baseDir = temp.newFolder();
+    FileUtils.touch(new File(baseDir, "src/Foo.java"));
+    FileUtils.touch(new File(baseDir, "src/a/b/Bar.java"));
+    FileUtils.touch(new File(baseDir, "src/.git/config"));
+    FileUtils.touch(new File(baseDir, "test/FooTest.java"));
+  }
+
+  @After
+  public void stop() {
+    if (underTest != null) {
+      underTest.stop();
+    }
+  }
+
+  @Test
+  public void list_files_of_directory() {
+    underTest = new FileIndexerPool(null, new PathResolver(), 2);
+    underTest.start();
+
+    assertThat(relativePaths(underTest.files(new File(baseDir, "src")))).containsOnly("src/Foo.java", "src/a/b/Bar.java");
+    assertThat(relativePaths(underTest.files(new File(baseDir, "test")))).containsOnly("test/FooTest.java");
+  }
+
+  @Test
+  public void list_files_of_all_modules_when_starting() throws Exception {
+    ProjectDefinition root = ProjectDefinition.create().setKey("root").setBaseDir(temp.newFolder()).setWorkDir(temp.newFolder());
+    ProjectDefinition module = ProjectDefinition.create().setKey("module").setBaseDir(baseDir).setWorkDir(temp.newFolder())
+      .setSources("src", "missing").setTests("test");
+    root.addSubProject(module);
+
+    underTest = new FileIndexerPool(new ImmutableProjectReactor(root), new PathResolver(), 2);
+    underTest.start();
+    // wait for the directories to be listed
+    assertThat(underTest.pool().awaitQuiescence(10, TimeUnit.SECONDS)).isTrue();
+    // files are listed even if they are deleted afterwards
+    Files.delete(new File(baseDir, "src/Foo.java").toPath());
+
+    assertThat(relativePaths(underTest.files(new File(baseDir, "src")))).containsOnly("src/Foo.java", "src/a/b/Bar.java");
+    assertThat(relativePaths(underTest.files(new File(baseDir, "test")))).containsOnly("test/FooTest.java");
+    // listed in advance only once
+    assertThat(relativePaths(underTest.files(new File(baseDir, "src")))).containsOnly("src/a/b/Bar.java");
+  }
+
+  @Test
+  public void do_not_follow_symlink_loops() throws Exception {
+    assumeTrue(!System2.INSTANCE.isOsWindows());
+    Files.createSymbolicLink(new File(baseDir, "src/a/loop").toPath(), new File(baseDir, "src").toPath());
+
+    underTest = new FileIndexerPool(null, new PathResolver(), 2);
+    underTest.start();
+
+    assertThat(relativePaths(underTest.files(new File(baseDir, "src")))).containsOnly("src/Foo.java", "src/a/b/Bar.java");
+  }
+
+  private List<String> relativePaths(List<Path> files) {
+    PathResolver pathResolver = new PathResolver();
+    List<String> result = new ArrayList<>();
+    for (Path file : files) {
+      result.add(pathResolver.relativePath(baseDir, file.toFile()));
+    }
+    return result;
+  }
+}
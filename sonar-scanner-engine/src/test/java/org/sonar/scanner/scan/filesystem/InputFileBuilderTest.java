@@ -54,7 +54,7 @@ public class InputFileBuilderTest {
     when(fs.baseDir()).thenReturn(basedir);
     when(fs.encoding()).thenReturn(StandardCharsets.US_ASCII);
     when(langDetection.language(any(InputFile.class))).thenReturn("java");
-    InputFileBuilder builder = new InputFileBuilder("moduleKey", new PathResolver(), langDetection, statusDetection, fs, new MapSettings(), new FileMetadata());
+    InputFileBuilder builder = new InputFileBuilder("moduleKey", new PathResolver(), langDetection, statusDetection, fs, new MapSettings(), new FileMetadata(), new FileContentCache());
 
     assertThat(createAndComplete(builder, new File(basedir, "without_BOM.txt")).charset())
       .isEqualTo(StandardCharsets.US_ASCII);
@@ -102,7 +102,7 @@ public class InputFileBuilderTest {
       .thenReturn(InputFile.Status.ADDED);
 
     InputFileBuilder builder = new InputFileBuilder("struts", new PathResolver(),
-      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata());
+      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata(), new FileContentCache());
     DefaultInputFile inputFile = builder.create(srcFile);
     builder.completeAndComputeMetadata(inputFile, InputFile.Type.MAIN);
 
@@ -125,7 +125,7 @@ public class InputFileBuilderTest {
     when(fs.baseDir()).thenReturn(basedir);
 
     InputFileBuilder builder = new InputFileBuilder("struts", new PathResolver(),
-      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata());
+      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata(), new FileContentCache());
     DefaultInputFile inputFile = builder.create(srcFile);
 
     assertThat(inputFile).isNull();
@@ -145,7 +145,7 @@ public class InputFileBuilderTest {
     when(langDetection.language(any(InputFile.class))).thenReturn(null);
 
     InputFileBuilder builder = new InputFileBuilder("struts", new PathResolver(),
-      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata());
+      langDetection, statusDetection, fs, new MapSettings(), new FileMetadata(), new FileContentCache());
     DefaultInputFile inputFile = builder.create(srcFile);
     inputFile = builder.completeAndComputeMetadata(inputFile, InputFile.Type.MAIN);
 
@@ -29,10 +29,15 @@ import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.scm.BlameLine;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.scanner.index.BatchComponent;
 import org.sonar.scanner.index.BatchComponentCache;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scm.DefaultBlameOutput;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -42,6 +47,9 @@ public class DefaultBlameOutputTest {
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
+  @Rule
+  public LogTester logTester = new LogTester();
+
   private BatchComponentCache componentCache;
 
   @Before
@@ -56,7 +64,7 @@ public class DefaultBlameOutputTest {
   public void shouldNotFailIfNotSameNumberOfLines() {
     InputFile file = new DefaultInputFile("foo", "src/main/java/Foo.java").setLines(10);
 
-    new DefaultBlameOutput(null, null, Arrays.asList(file)).blameResult(file, Arrays.asList(new BlameLine().revision("1").author("guy")));
+    new DefaultBlameOutput(null, null, Arrays.asList(file), System2.INSTANCE).blameResult(file, Arrays.asList(new BlameLine().revision("1").author("guy")));
   }
 
   @Test
@@ -66,7 +74,7 @@ public class DefaultBlameOutputTest {
     thrown.expect(IllegalArgumentException.class);
     thrown.expectMessage("It was not expected to blame file src/main/java/Foo.java");
 
-    new DefaultBlameOutput(null, null, Arrays.<InputFile>asList(new DefaultInputFile("foo", "src/main/java/Foo2.java")))
+    new DefaultBlameOutput(null, null, Arrays.<InputFile>asList(new DefaultInputFile("foo", "src/main/java/Foo2.java")), System2.INSTANCE)
       .blameResult(file, Arrays.asList(new BlameLine().revision("1").author("guy")));
   }
 
@@ -77,7 +85,7 @@ public class DefaultBlameOutputTest {
     thrown.expect(IllegalArgumentException.class);
     thrown.expectMessage("Blame date is null for file src/main/java/Foo.java at line 1");
 
-    new DefaultBlameOutput(null, componentCache, Arrays.<InputFile>asList(file))
+    new DefaultBlameOutput(null, componentCache, Arrays.<InputFile>asList(file), System2.INSTANCE)
       .blameResult(file, Arrays.asList(new BlameLine().revision("1").author("guy")));
   }
 
@@ -88,8 +96,20 @@ public class DefaultBlameOutputTest {
     thrown.expect(IllegalArgumentException.class);
     thrown.expectMessage("Blame revision is blank for file src/main/java/Foo.java at line 1");
 
-    new DefaultBlameOutput(null, componentCache, Arrays.<InputFile>asList(file))
+    new DefaultBlameOutput(null, componentCache, Arrays.<InputFile>asList(file), System2.INSTANCE)
       .blameResult(file, Arrays.asList(new BlameLine().date(new Date()).author("guy")));
   }
 
+  @Test
+  public void log_throughput() {
+    InputFile file = new DefaultInputFile("foo", "src/main/java/Foo.java").setLines(1);
+    System2 system2 = mock(System2.class);
+    when(system2.now()).thenReturn(1_000L, 3_000L);
+    DefaultBlameOutput output = new DefaultBlameOutput(mock(ScannerReportWriter.class), componentCache, Arrays.<InputFile>asList(file), system2);
+
+    output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+    output.finish(true);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Blame throughput: 0.5 files/s");
+  }
 }
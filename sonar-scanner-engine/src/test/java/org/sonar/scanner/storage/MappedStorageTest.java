@@ -0,0 +1,179 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.CoreProperties;
+import org.sonar.scanner.bootstrap.GlobalProperties;
+import org.sonar.scanner.bootstrap.GlobalTempFolderProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Executes the tests of {@link StorageTest} on memory-mapped storages
+ */
+public class MappedStorageTest extends StorageTest {
+
+  private static StoragesManager mappedManager;
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @BeforeClass
+  public static void startMappedManager() {
+    Map<String, String> props = ImmutableMap.of(CoreProperties.WORKING_DIRECTORY, temp.getRoot().getAbsolutePath(),
+      CoreProperties.GLOBAL_WORKING_DIRECTORY, temp.getRoot().getAbsolutePath(),
+      StoragesManager.STORAGE_PROPERTY, StoragesManager.MAPPED_STORAGE);
+    GlobalProperties globalProperties = new GlobalProperties(props);
+    mappedManager = new StoragesManager(new GlobalTempFolderProvider().provide(globalProperties), globalProperties);
+    mappedManager.start();
+  }
+
+  @AfterClass
+  public static void stopMappedManager() {
+    mappedManager.stop();
+  }
+
+  @Override
+  @Before
+  public void start() {
+    caches = new Storages(mappedManager);
+    caches.start();
+  }
+
+  @Test
+  public void manager_does_not_start_persistit() {
+    assertThat(mappedManager.isMapped()).isTrue();
+    assertThat(mappedManager.persistit()).isNull();
+  }
+
+  @Test
+  public void keys_of_different_types() {
+    Storage<String> cache = caches.createCache("issues");
+    cache.put(2, "b", "two");
+    cache.put(10, "a", "ten");
+    cache.put(0, "c", "zero");
+
+    assertThat(cache.keySet()).containsExactly(0, 2, 10);
+    assertThat(cache.values()).containsExactly("zero", "two", "ten");
+    assertThat(cache.values(2)).containsExactly("two");
+  }
+
+  @Test
+  public void replace_value() {
+    Storage<String> cache = caches.createCache("capitals");
+    cache.put("germany", "bonn");
+    cache.put("germany", "berlin");
+
+    assertThat(cache.get("germany")).isEqualTo("berlin");
+    assertThat(cache.values()).containsExactly("berlin");
+  }
+
+  @Test
+  public void store_values_larger_than_segments() {
+    Storage<String> cache = caches.createCache("large");
+    String large = Strings.repeat("a", MappedStorage.SEGMENT_SIZE);
+    cache.put("small", "foo");
+    cache.put("large", large);
+    cache.put("other", "bar");
+
+    assertThat(cache.get("small")).isEqualTo("foo");
+    assertThat(cache.get("large")).isEqualTo(large);
+    assertThat(cache.get("other")).isEqualTo("bar");
+  }
+
+  @Test
+  public void use_registered_value_coder() {
+    Storage<Counter> cache = caches.createCache("counters");
+    caches.registerValueCoder(Counter.class, new CounterCoder());
+
+    cache.put("foo", new Counter(3));
+
+    assertThat(cache.get("foo").count).isEqualTo(3);
+  }
+
+  @Test
+  public void delete_segment_files_when_cleared() throws Exception {
+    File dir = temp.newFolder();
+    MappedStorage<String> storage = new MappedStorage<>("foo", dir, Collections.emptyMap());
+    storage.put("foo", "bar");
+    assertThat(dir.list()).hasSize(1);
+
+    storage.clear();
+
+    assertThat(dir.list()).isEmpty();
+    assertThat(storage.get("foo")).isNull();
+    storage.put("foo", "baz");
+    assertThat(storage.get("foo")).isEqualTo("baz");
+  }
+
+  @Test
+  public void fail_if_key_is_not_comparable() {
+    Storage<String> cache = caches.createCache("foo");
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Key part is not comparable: " + Counter.class.getName());
+
+    cache.put(new Counter(1), "bar");
+  }
+
+  private static class Counter {
+    private final int count;
+
+    Counter(int count) {
+      this.count = count;
+    }
+  }
+
+  private static class CounterCoder implements com.persistit.encoding.ValueCoder, StorageValueCoder {
+    @Override
+    public void put(com.persistit.Value value, Object object, com.persistit.encoding.CoderContext context) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object get(com.persistit.Value value, Class<?> clazz, com.persistit.encoding.CoderContext context) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void write(DataOutput output, Object object) throws IOException {
+      output.writeInt(((Counter) object).count);
+    }
+
+    @Override
+    public Object read(DataInput input) throws IOException {
+      return new Counter(input.readInt());
+    }
+  }
+}
@@ -19,13 +19,22 @@
  */
 package org.sonar.scanner.storage;
 
+import com.google.common.collect.ImmutableMap;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.internal.DefaultTempFolder;
+import org.sonar.scanner.bootstrap.GlobalProperties;
 import org.sonar.scanner.index.AbstractCachesTest;
 import java.io.File;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class StoragesManagerTest extends AbstractCachesTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
   @Test
   public void should_stop_and_clean_temp_dir() {
     File tempDir = cachesManager.tempDir();
@@ -39,4 +48,29 @@ public class StoragesManagerTest extends AbstractCachesTest {
     assertThat(cachesManager.tempDir()).isNull();
     assertThat(cachesManager.persistit()).isNull();
   }
+
+  @Test
+  public void do_not_start_persistit_if_storages_are_mapped() throws Exception {
+    StoragesManager manager = newManager(StoragesManager.MAPPED_STORAGE);
+
+    assertThat(manager.isMapped()).isTrue();
+    assertThat(manager.persistit()).isNull();
+    File tempDir = manager.tempDir();
+    assertThat(tempDir).isDirectory().exists();
+
+    manager.stop();
+    assertThat(tempDir).doesNotExist();
+  }
+
+  @Test
+  public void fail_if_storage_is_unknown() throws Exception {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Property sonar.scanner.storage must be one of [persistit, mapped]: foo");
+
+    newManager("foo");
+  }
+
+  private static StoragesManager newManager(String storage) throws Exception {
+    return new StoragesManager(new DefaultTempFolder(temp.newFolder()), new GlobalProperties(ImmutableMap.of(StoragesManager.STORAGE_PROPERTY, storage)));
+  }
 }
@@ -38,7 +38,8 @@ public class FileStructure {
     COVERAGES("coverages-", Domain.PB),
     TESTS("tests-", Domain.PB),
     COVERAGE_DETAILS("coverage-details-", Domain.PB),
-    SOURCE("source-", ".txt");
+    SOURCE("source-", ".txt"),
+    SOURCE_INPUTS_HASH("source-inputs-hash-", ".txt");
 
     private static final String PB = ".pb";
     private final String filePrefix;
@@ -50,6 +51,11 @@ public class FileStructure {
     }
   }
 
+  static final String METADATA = "metadata.pb";
+  static final String ANALYSIS_LOG = "analysis.log";
+  static final String ACTIVE_RULES = "activerules.pb";
+  static final String CONTEXT_PROPERTIES = "context-props.pb";
+
   private final File dir;
 
   public FileStructure(File dir) {
@@ -60,22 +66,33 @@ public class FileStructure {
   }
 
   public File metadataFile() {
-    return new File(dir, "metadata.pb");
+    return new File(dir, METADATA);
   }
 
   public File analysisLog() {
-    return new File(dir, "analysis.log");
+    return new File(dir, ANALYSIS_LOG);
   }
 
   public File activeRules() {
-    return new File(dir, "activerules.pb");
+    return new File(dir, ACTIVE_RULES);
   }
 
   public File fileFor(Domain domain, int componentRef) {
-    return new File(dir, domain.filePrefix + componentRef + domain.fileSuffix);
+    return new File(dir, fileNameFor(domain, componentRef));
   }
 
   public File contextProperties() {
-    return new File(dir, "context-props.pb");
+    return new File(dir, CONTEXT_PROPERTIES);
+  }
+
+  File dir() {
+    return dir;
+  }
+
+  /**
+   * Name of the file, relative to the root of the report
+   */
+  static String fileNameFor(Domain domain, int componentRef) {
+    return domain.filePrefix + componentRef + domain.fileSuffix;
   }
 }
@@ -19,162 +19,263 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import javax.annotation.CheckForNull;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.Protobuf;
 
 import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
+import static org.sonar.scanner.protocol.output.FileStructure.fileNameFor;
 
+/**
+ * Reads the report from the directory in which it has been written, or directly from the zip file
+ * sent to the server. In the latter case entries are located through the central directory of the zip
+ * and are decompressed only when read, so the report does not need to be extracted.
+ */
 public class ScannerReportReader {
 
+  @CheckForNull
   private final FileStructure fileStructure;
+  @CheckForNull
+  private final ZipFile zipFile;
 
   public ScannerReportReader(File dir) {
     this.fileStructure = new FileStructure(dir);
+    this.zipFile = null;
+  }
+
+  /**
+   * The zip file is not closed by the reader. Streams returned by this reader
+   * must be closed before closing the zip file.
+   *
+   * @since 6.2
+   */
+  public ScannerReportReader(ZipFile zipFile) {
+    this.fileStructure = null;
+    this.zipFile = zipFile;
   }
 
   public ScannerReport.Metadata readMetadata() {
-    File file = fileStructure.metadataFile();
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Metadata file is missing in analysis report: " + file);
+    ScannerReport.Metadata metadata = read(FileStructure.METADATA, ScannerReport.Metadata.parser());
+    if (metadata == null) {
+      throw new IllegalStateException("Metadata file is missing in analysis report: " + location(FileStructure.METADATA));
     }
-    return Protobuf.read(file, ScannerReport.Metadata.parser());
+    return metadata;
   }
 
   public CloseableIterator<ScannerReport.ActiveRule> readActiveRules() {
-    File file = fileStructure.activeRules();
-    if (!fileExists(file)) {
-      return emptyCloseableIterator();
-    }
-    return Protobuf.readStream(file, ScannerReport.ActiveRule.parser());
+    return readStream(FileStructure.ACTIVE_RULES, ScannerReport.ActiveRule.parser());
   }
 
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Measure.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(fileNameFor(FileStructure.Domain.MEASURES, componentRef), ScannerReport.Measure.parser());
   }
 
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.read(file, ScannerReport.Changesets.parser());
-    }
-    return null;
+    return read(fileNameFor(FileStructure.Domain.CHANGESETS, componentRef), ScannerReport.Changesets.parser());
   }
 
   public ScannerReport.Component readComponent(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef);
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + file);
+    String name = fileNameFor(FileStructure.Domain.COMPONENT, componentRef);
+    ScannerReport.Component component = read(name, ScannerReport.Component.parser());
+    if (component == null) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + location(name));
     }
-    return Protobuf.read(file, ScannerReport.Component.parser());
+    return component;
   }
 
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Issue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(fileNameFor(FileStructure.Domain.ISSUES, componentRef), ScannerReport.Issue.parser());
   }
 
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Duplication.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(fileNameFor(FileStructure.Domain.DUPLICATIONS, componentRef), ScannerReport.Duplication.parser());
   }
 
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(fileNameFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef), ScannerReport.CpdTextBlock.parser());
   }
 
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Symbol.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(fileNameFor(FileStructure.Domain.SYMBOLS, componentRef), ScannerReport.Symbol.parser());
   }
 
   public boolean hasSyntaxHighlighting(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    return file.exists();
+    return exists(fileNameFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef));
   }
 
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.SyntaxHighlightingRule.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(fileNameFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef), ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   public boolean hasCoverage(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    return file.exists();
+    return exists(fileNameFor(FileStructure.Domain.COVERAGES, componentRef));
   }
 
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineCoverage.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(fileNameFor(FileStructure.Domain.COVERAGES, fileRef), ScannerReport.LineCoverage.parser());
   }
 
+  /**
+   * Only available when reading a report directory, see {@link #openFileSource(int)} otherwise.
+   */
   @CheckForNull
   public File readFileSource(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
-    if (fileExists(file)) {
-      return file;
+    return existingFile(fileNameFor(FileStructure.Domain.SOURCE, fileRef));
+  }
+
+  /**
+   * @return the UTF-8 content of the file, or {@code null} if the report has no source for this file
+   * @since 6.2
+   */
+  @CheckForNull
+  public InputStream openFileSource(int fileRef) {
+    return open(fileNameFor(FileStructure.Domain.SOURCE, fileRef));
+  }
+
+  /**
+   * @return the hash of the report files the source of the file is computed from, or {@code null}
+   * if the scanner did not provide it
+   * @since 6.2
+   */
+  @CheckForNull
+  public String readSourceInputsHash(int fileRef) {
+    String name = fileNameFor(FileStructure.Domain.SOURCE_INPUTS_HASH, fileRef);
+    try (InputStream input = open(name)) {
+      return input == null ? null : IOUtils.toString(input, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read " + location(name), e);
     }
-    return null;
   }
 
+  /**
+   * Only available when reading a report directory, see {@link #openTests(int)} otherwise.
+   */
   @CheckForNull
   public File readTests(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef);
-    if (fileExists(file)) {
-      return file;
-    }
+    return existingFile(fileNameFor(FileStructure.Domain.TESTS, testFileRef));
+  }
 
-    return null;
+  /**
+   * @return the stream of delimited {@link ScannerReport.Test}, or {@code null} if the report has no tests for this file
+   * @since 6.2
+   */
+  @CheckForNull
+  public InputStream openTests(int testFileRef) {
+    return open(fileNameFor(FileStructure.Domain.TESTS, testFileRef));
   }
 
+  /**
+   * Only available when reading a report directory, see {@link #openCoverageDetails(int)} otherwise.
+   */
   @CheckForNull
   public File readCoverageDetails(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
-    if (fileExists(file)) {
-      return file;
-    }
+    return existingFile(fileNameFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef));
+  }
+
+  /**
+   * @return the stream of delimited {@link ScannerReport.CoverageDetail}, or {@code null} if the report has no coverage details for this file
+   * @since 6.2
+   */
+  @CheckForNull
+  public InputStream openCoverageDetails(int testFileRef) {
+    return open(fileNameFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef));
+  }
 
-    return null;
+  /**
+   * @return the UTF-8 logs of the scanner, or {@code null} if the report does not contain them
+   * @since 6.2
+   */
+  @CheckForNull
+  public InputStream openAnalysisLog() {
+    return open(FileStructure.ANALYSIS_LOG);
   }
 
   public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
-    File file = fileStructure.contextProperties();
-    if (!fileExists(file)) {
-      return emptyCloseableIterator();
+    return readStream(FileStructure.CONTEXT_PROPERTIES, ScannerReport.ContextProperty.parser());
+  }
+
+  /**
+   * Only available when reading a report directory.
+   */
+  public FileStructure getFileStructure() {
+    return checkDirectory();
+  }
+
+  @CheckForNull
+  private <MSG extends Message> MSG read(String name, Parser<MSG> parser) {
+    if (zipFile == null) {
+      File file = existingFile(name);
+      return file == null ? null : Protobuf.read(file, parser);
     }
-    return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
+    InputStream input = open(name);
+    return input == null ? null : Protobuf.read(input, parser);
   }
 
-  private static boolean fileExists(File file) {
-    return file.exists() && file.isFile();
+  private <MSG extends Message> CloseableIterator<MSG> readStream(String name, Parser<MSG> parser) {
+    if (zipFile == null) {
+      File file = existingFile(name);
+      return file == null ? emptyCloseableIterator() : Protobuf.readStream(file, parser);
+    }
+    InputStream input = open(name);
+    return input == null ? emptyCloseableIterator() : Protobuf.readStream(input, parser);
   }
 
-  public FileStructure getFileStructure() {
+  private boolean exists(String name) {
+    if (zipFile == null) {
+      return existingFile(name) != null;
+    }
+    return zipEntry(name) != null;
+  }
+
+  @CheckForNull
+  private InputStream open(String name) {
+    try {
+      if (zipFile == null) {
+        File file = existingFile(name);
+        return file == null ? null : new BufferedInputStream(FileUtils.openInputStream(file));
+      }
+      ZipEntry entry = zipEntry(name);
+      return entry == null ? null : new BufferedInputStream(zipFile.getInputStream(entry));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open " + location(name), e);
+    }
+  }
+
+  @CheckForNull
+  private ZipEntry zipEntry(String name) {
+    ZipEntry entry = zipFile.getEntry(name);
+    return entry == null || entry.isDirectory() ? null : entry;
+  }
+
+  @CheckForNull
+  private File existingFile(String name) {
+    File file = new File(checkDirectory().dir(), name);
+    return file.exists() && file.isFile() ? file : null;
+  }
+
+  private String location(String name) {
+    if (zipFile == null) {
+      return new File(checkDirectory().dir(), name).toString();
+    }
+    return zipFile.getName() + "!/" + name;
+  }
+
+  private FileStructure checkDirectory() {
+    if (fileStructure == null) {
+      throw new IllegalStateException("Report is read from zip file " + zipFile.getName() + ", its files can not be accessed directly");
+    }
     return fileStructure;
   }
 }
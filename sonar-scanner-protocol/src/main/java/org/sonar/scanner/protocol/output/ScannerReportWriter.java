@@ -22,7 +22,10 @@ package org.sonar.scanner.protocol.output;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
 import org.sonar.core.util.ContextException;
 import org.sonar.core.util.Protobuf;
 
@@ -144,4 +147,18 @@ public class ScannerReportWriter {
     return fileStructure.fileFor(FileStructure.Domain.SOURCE, componentRef);
   }
 
+  /**
+   * @param hash hexadecimal digest of the report files used to compute the source of the file
+   * @since 6.2
+   */
+  public File writeSourceInputsHash(int componentRef, String hash) {
+    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE_INPUTS_HASH, componentRef);
+    try {
+      FileUtils.write(file, hash, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to write source inputs hash", e).addContext("file", file);
+    }
+    return file;
+  }
+
 }
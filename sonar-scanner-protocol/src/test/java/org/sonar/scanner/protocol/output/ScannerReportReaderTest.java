@@ -22,7 +22,11 @@ package org.sonar.scanner.protocol.output;
 import com.google.common.collect.Lists;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
@@ -377,4 +381,64 @@ public class ScannerReportReaderTest {
   public void return_null_when_no_file_source() throws Exception {
     assertThat(underTest.readFileSource(UNKNOWN_COMPONENT_REF)).isNull();
   }
+
+  @Test
+  public void read_source_inputs_hash() {
+    new ScannerReportWriter(dir).writeSourceInputsHash(1, "abcd");
+
+    assertThat(underTest.readSourceInputsHash(1)).isEqualTo("abcd");
+    assertThat(underTest.readSourceInputsHash(UNKNOWN_COMPONENT_REF)).isNull();
+  }
+
+  @Test
+  public void read_report_from_zip_file() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").build());
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setPath("src/Foo.java").build());
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("the message").build()));
+    writer.writeTests(1, asList(ScannerReport.Test.newBuilder().setName("test").build()));
+    try (FileOutputStream outputStream = new FileOutputStream(writer.getSourceFile(1))) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+
+    try (ZipFile zipFile = new ZipFile(zip(dir))) {
+      ScannerReportReader zipReader = new ScannerReportReader(zipFile);
+
+      assertThat(zipReader.readMetadata().getProjectKey()).isEqualTo("PROJECT_A");
+      assertThat(zipReader.readComponent(1).getPath()).isEqualTo("src/Foo.java");
+      assertThat(zipReader.readComponentIssues(1)).extracting(ScannerReport.Issue::getMsg).containsExactly("the message");
+      assertThat(zipReader.readComponentIssues(UNKNOWN_COMPONENT_REF)).isEmpty();
+      assertThat(zipReader.readChangesets(1)).isNull();
+      assertThat(zipReader.hasCoverage(1)).isFalse();
+      try (InputStream inputStream = zipReader.openFileSource(1)) {
+        assertThat(IOUtils.readLines(inputStream)).containsExactly("line1", "line2");
+      }
+      try (InputStream inputStream = zipReader.openTests(1)) {
+        assertThat(ScannerReport.Test.parser().parseDelimitedFrom(inputStream).getName()).isEqualTo("test");
+      }
+      assertThat(zipReader.openFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+      assertThat(zipReader.openAnalysisLog()).isNull();
+      assertThat(zipReader.readSourceInputsHash(1)).isNull();
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void files_are_not_accessible_when_reading_zip_file() throws Exception {
+    try (ZipFile zipFile = new ZipFile(zip(dir))) {
+      new ScannerReportReader(zipFile).readFileSource(1);
+    }
+  }
+
+  private File zip(File reportDir) throws IOException {
+    File zip = temp.newFile();
+    try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(zip))) {
+      File[] files = reportDir.listFiles();
+      output.putNextEntry(new ZipEntry("placeholder/"));
+      for (File file : files) {
+        output.putNextEntry(new ZipEntry(file.getName()));
+        FileUtils.copyFile(file, output);
+      }
+    }
+    return zip;
+  }
 }
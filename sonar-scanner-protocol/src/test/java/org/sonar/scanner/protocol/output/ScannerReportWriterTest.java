@@ -299,4 +299,13 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COVERAGE_DETAILS, 1)).isTrue();
   }
+
+  @Test
+  public void write_source_inputs_hash() {
+    assertThat(underTest.hasComponentData(FileStructure.Domain.SOURCE_INPUTS_HASH, 1)).isFalse();
+
+    underTest.writeSourceInputsHash(1, "abcd");
+
+    assertThat(underTest.hasComponentData(FileStructure.Domain.SOURCE_INPUTS_HASH, 1)).isTrue();
+  }
 }
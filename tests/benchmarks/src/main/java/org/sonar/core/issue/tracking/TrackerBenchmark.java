@@ -0,0 +1,155 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.sonarqube.benchmarks.Fixtures;
+
+/**
+ * Tracking of the issues of the huge file, when some lines are inserted at the beginning of the file.
+ * Issues are moved, so that the code move detection ({@link BlockRecognizer}) is required.
+ * This class is in the package of {@link Tracker} because {@link BlockRecognizer} is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TrackerBenchmark {
+
+  private static final RuleKey RULE_KEY = RuleKey.of("squid", "S00001");
+
+  /**
+   * An issue is raised on one line every {@code issueInterval} lines
+   */
+  @Param({"10", "100"})
+  public int issueInterval;
+
+  @Param({"20"})
+  public int insertedLines;
+
+  private FakeInput baseInput;
+  private FakeInput rawInput;
+
+  @Setup
+  public void setUp() {
+    List<String> baseLines = Fixtures.hugeFileLines();
+    List<String> rawLines = new ArrayList<>(baseLines.size() + insertedLines);
+    for (int i = 0; i < insertedLines; i++) {
+      rawLines.add("// new line " + i);
+    }
+    rawLines.addAll(baseLines);
+
+    baseInput = new FakeInput(baseLines, 0, issueInterval);
+    rawInput = new FakeInput(rawLines, insertedLines, issueInterval);
+  }
+
+  @Benchmark
+  public Tracking<FakeIssue, FakeIssue> track() {
+    return new Tracker<FakeIssue, FakeIssue>().track(rawInput, baseInput);
+  }
+
+  @Benchmark
+  public Tracking<FakeIssue, FakeIssue> detectCodeMoves() {
+    Tracking<FakeIssue, FakeIssue> tracking = new Tracking<>(rawInput, baseInput);
+    new BlockRecognizer<FakeIssue, FakeIssue>().match(rawInput, baseInput, tracking);
+    return tracking;
+  }
+
+  private static class FakeInput implements Input<FakeIssue> {
+    private final LineHashSequence lineHashes;
+    private final BlockHashSequence blockHashes;
+    private final List<FakeIssue> issues = new ArrayList<>();
+
+    FakeInput(List<String> lines, int firstLine, int issueInterval) {
+      this.lineHashes = LineHashSequence.createForLines(lines);
+      this.blockHashes = BlockHashSequence.create(lineHashes);
+      for (int line = firstLine + 1; line <= lines.size(); line += issueInterval) {
+        issues.add(new FakeIssue(line, "Issue on line " + (line - firstLine), lineHashes.getHashForLine(line)));
+      }
+    }
+
+    @Override
+    public LineHashSequence getLineHashSequence() {
+      return lineHashes;
+    }
+
+    @Override
+    public BlockHashSequence getBlockHashSequence() {
+      return blockHashes;
+    }
+
+    @Override
+    public Collection<FakeIssue> getIssues() {
+      return issues;
+    }
+  }
+
+  private static class FakeIssue implements Trackable {
+    private final int line;
+    private final String message;
+    private final String lineHash;
+
+    FakeIssue(int line, String message, String lineHash) {
+      this.line = line;
+      this.message = message;
+      this.lineHash = lineHash;
+    }
+
+    @CheckForNull
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @CheckForNull
+    @Override
+    public String getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public RuleKey getRuleKey() {
+      return RULE_KEY;
+    }
+  }
+}
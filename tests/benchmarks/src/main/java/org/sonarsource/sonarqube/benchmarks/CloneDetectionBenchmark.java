@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.PackedMemoryCloneIndex;
+
+/**
+ * Copy-paste detection on a set of files whose blocks are randomly generated from a small
+ * set of hashes, so that files share duplicated blocks. Seed is fixed, so data is stable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CloneDetectionBenchmark {
+
+  private static final int BLOCKS_PER_FILE = 500;
+  private static final int DISTINCT_HASHES = 20_000;
+
+  @Param({"100", "1000"})
+  public int files;
+
+  private List<List<Block>> blocksByFile;
+  private PackedMemoryCloneIndex index;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    blocksByFile = new ArrayList<>(files);
+    for (int file = 0; file < files; file++) {
+      String resourceId = "file" + file;
+      List<Block> blocks = new ArrayList<>(BLOCKS_PER_FILE);
+      for (int i = 0; i < BLOCKS_PER_FILE; i++) {
+        blocks.add(Block.builder()
+          .setResourceId(resourceId)
+          .setBlockHash(new ByteArray((long) random.nextInt(DISTINCT_HASHES)))
+          .setIndexInFile(i)
+          .setLines(i + 1, i + 10)
+          .setUnit(i, i + 9)
+          .build());
+      }
+      blocksByFile.add(blocks);
+    }
+    index = createIndex();
+  }
+
+  @Benchmark
+  public PackedMemoryCloneIndex createIndex() {
+    PackedMemoryCloneIndex result = new PackedMemoryCloneIndex();
+    for (List<Block> blocks : blocksByFile) {
+      for (Block block : blocks) {
+        result.insert(block);
+      }
+    }
+    // blocks are sorted lazily on first search
+    result.getBySequenceHash(new ByteArray(0L));
+    return result;
+  }
+
+  @Benchmark
+  public int getBySequenceHash() {
+    int count = 0;
+    for (Block block : blocksByFile.get(0)) {
+      Collection<Block> sameHash = index.getBySequenceHash(block.getBlockHash());
+      count += sameHash.size();
+    }
+    return count;
+  }
+
+  @Benchmark
+  public List<CloneGroup> detectClonesOfFile() {
+    return SuffixTreeCloneDetectionAlgorithm.detect(index, blocksByFile.get(0));
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+
+/**
+ * Compression and decompression of the source data of the huge file, as stored in table FILE_SOURCES.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileSourceDtoBenchmark {
+
+  private DbFileSources.Data data;
+  private byte[] encodedData;
+
+  @Setup
+  public void setUp() {
+    List<String> lines = Fixtures.hugeFileLines();
+    DbFileSources.Data.Builder builder = DbFileSources.Data.newBuilder();
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      builder.addLinesBuilder()
+        .setLine(i + 1)
+        .setSource(line)
+        .setScmRevision("rev" + (i % 20))
+        .setScmAuthor("author" + (i % 5))
+        .setScmDate(1_500_000_000_000L + (i % 20))
+        .setUtLineHits(i % 3)
+        .setHighlighting("0," + line.length() + ",c");
+    }
+    data = builder.build();
+    encodedData = FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public DbFileSources.Data decode() {
+    return new FileSourceDto().decodeSourceData(encodedData);
+  }
+}
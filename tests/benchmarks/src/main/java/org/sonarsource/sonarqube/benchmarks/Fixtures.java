@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Stable data shared by benchmarks. The huge file is the one used by performance tests
+ * (tests/perf/projects/huge-file), so that results can be compared between releases.
+ */
+public final class Fixtures {
+
+  public static final String HUGE_FILE = "HugeFile.java";
+
+  private Fixtures() {
+    // only static stuff
+  }
+
+  public static List<String> hugeFileLines() {
+    try (InputStream input = openHugeFile()) {
+      return IOUtils.readLines(input, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read " + HUGE_FILE, e);
+    }
+  }
+
+  public static String hugeFileContent() {
+    try (InputStream input = openHugeFile()) {
+      return IOUtils.toString(input, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read " + HUGE_FILE, e);
+    }
+  }
+
+  /**
+   * Copies the huge file into the given directory, for the benchmarks that read files from disk.
+   */
+  public static File copyHugeFile(File dir) {
+    File file = new File(dir, HUGE_FILE);
+    try (InputStream input = openHugeFile()) {
+      Files.copy(input, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return file;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to copy " + HUGE_FILE + " to " + dir, e);
+    }
+  }
+
+  private static InputStream openHugeFile() {
+    InputStream input = Fixtures.class.getResourceAsStream("/" + HUGE_FILE);
+    if (input == null) {
+      throw new IllegalStateException(HUGE_FILE + " is missing from classpath");
+    }
+    return input;
+  }
+}
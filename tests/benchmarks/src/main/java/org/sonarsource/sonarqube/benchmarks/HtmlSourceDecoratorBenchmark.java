@@ -0,0 +1,74 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.server.source.HtmlSourceDecorator;
+
+/**
+ * Decoration of all the lines of the huge file with syntax highlighting and symbols, as done
+ * by web services displaying sources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HtmlSourceDecoratorBenchmark {
+
+  private final HtmlSourceDecorator decorator = new HtmlSourceDecorator();
+  private List<String> lines;
+  private String[] highlightings;
+  private String[] symbols;
+
+  @Setup
+  public void setUp() {
+    lines = Fixtures.hugeFileLines();
+    highlightings = new String[lines.size()];
+    symbols = new String[lines.size()];
+    for (int i = 0; i < lines.size(); i++) {
+      int length = lines.get(i).length();
+      if (length > 4) {
+        highlightings[i] = "0,2,k;2," + length + ",cd";
+        symbols[i] = "2,4," + i;
+      }
+    }
+  }
+
+  @Benchmark
+  public void decorate(Blackhole blackhole) {
+    for (int i = 0; i < lines.size(); i++) {
+      blackhole.consume(decorator.getDecoratedSourceAsHtml(lines.get(i), highlightings[i], symbols[i]));
+    }
+  }
+}
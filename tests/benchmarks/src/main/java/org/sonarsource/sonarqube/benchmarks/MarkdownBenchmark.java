@@ -0,0 +1,72 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.markdown.Markdown;
+
+/**
+ * Conversion to HTML of markdown texts, like descriptions of rules or comments of issues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MarkdownBenchmark {
+
+  private static final String PARAGRAPH = "This is *emphasis* and ``code``, see http://www.sonarqube.org or [SonarQube](http://www.sonarqube.org).\n" +
+    "* first item\n" +
+    "* second item\n" +
+    "# Title\n" +
+    "```\nfor (int i = 0; i < 10; i++) {\n  foo(i);\n}\n```\n" +
+    "> quote\n";
+
+  @Param({"1", "100"})
+  public int paragraphs;
+
+  private String text;
+
+  @Setup
+  public void setUp() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < paragraphs; i++) {
+      sb.append(PARAGRAPH);
+    }
+    text = sb.toString();
+  }
+
+  @Benchmark
+  public String convertToHtml() {
+    return Markdown.convertToHtml(text);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.utils.internal.DefaultTempFolder;
+import org.sonar.scanner.bootstrap.GlobalProperties;
+import org.sonar.scanner.storage.Storage;
+import org.sonar.scanner.storage.Storages;
+import org.sonar.scanner.storage.StoragesManager;
+
+/**
+ * Startup and throughput of the scanner storages, backed by Persistit or by memory-mapped files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StorageBenchmark {
+
+  private static final int ENTRIES = 100_000;
+  private static final int ENTRIES_BY_COMPONENT = 100;
+
+  @Param({StoragesManager.PERSISTIT_STORAGE, StoragesManager.MAPPED_STORAGE})
+  public String storage;
+
+  private File dir;
+  private StoragesManager manager;
+  private Storages storages;
+  private Storage<String> filledCache;
+
+  @Setup
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("benchmark").toFile();
+    manager = startManager();
+    storages = new Storages(manager);
+    filledCache = storages.createCache("filled");
+    fill(filledCache);
+  }
+
+  @TearDown
+  public void tearDown() {
+    storages.stop();
+    manager.stop();
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Benchmark
+  public int startAndStop() {
+    StoragesManager startedManager = startManager();
+    Storages startedStorages = new Storages(startedManager);
+    Storage<String> cache = startedStorages.createCache("startup");
+    cache.put("foo", "bar");
+    startedStorages.stop();
+    startedManager.stop();
+    return cache.hashCode();
+  }
+
+  @Benchmark
+  public int put() {
+    Storages putStorages = new Storages(manager);
+    Storage<String> cache = putStorages.createCache("put");
+    fill(cache);
+    putStorages.stop();
+    return ENTRIES;
+  }
+
+  @Benchmark
+  public int get() {
+    int found = 0;
+    for (int i = 0; i < ENTRIES; i++) {
+      if (filledCache.get(i / ENTRIES_BY_COMPONENT, "issue" + i) != null) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int iterateByComponent() {
+    int count = 0;
+    for (int component = 0; component < ENTRIES / ENTRIES_BY_COMPONENT; component++) {
+      for (String value : filledCache.values(component)) {
+        count += value.length();
+      }
+    }
+    return count;
+  }
+
+  private StoragesManager startManager() {
+    GlobalProperties properties = new GlobalProperties(ImmutableMap.of(StoragesManager.STORAGE_PROPERTY, storage));
+    StoragesManager startedManager = new StoragesManager(new DefaultTempFolder(dir), properties);
+    startedManager.start();
+    return startedManager;
+  }
+
+  private static void fill(Storage<String> cache) {
+    for (int i = 0; i < ENTRIES; i++) {
+      cache.put(i / ENTRIES_BY_COMPONENT, "issue" + i, "message of issue " + i);
+    }
+  }
+}